@@ -15,6 +15,7 @@ package org.pentaho.agilebi.modeler.models.annotations;
 import org.apache.commons.io.IOUtils;
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.pentaho.agilebi.modeler.ModelerException;
 import org.pentaho.agilebi.modeler.ModelerWorkspace;
 import org.pentaho.agilebi.modeler.models.annotations.ModelAnnotationGroup.ApplyStatus;
@@ -37,6 +38,8 @@ import java.util.List;
 import java.util.Map;
 
 import static org.junit.Assert.*;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.spy;
 import static org.pentaho.agilebi.modeler.models.annotations.ModelAnnotationGroup.ApplyStatus.*;
 
 public class ModelAnnotationGroupIT {
@@ -143,6 +146,17 @@ public class ModelAnnotationGroupIT {
     assertEquals( 0, statusMap.get( ApplyStatus.FAILED ).size() );
   }
 
+  @Test
+  public void testDomainIsPopulatedBeforeTheBatchIsCommitted() throws Exception {
+    ModelerWorkspace model = spy( prepareOrderModel() );
+    ModelAnnotationGroup modelAnnotations = new ModelAnnotationGroup( testingAnnotation( true ) );
+
+    modelAnnotations.applyAnnotations( model, null );
+    InOrder inOrder = inOrder( model );
+    inOrder.verify( model ).resumeDomainPopulation();
+    inOrder.verify( model ).commitBatch();
+  }
+
   @Test
   public void testAnnotationsAreRetriedUntilDone() throws Exception {
     ModelerWorkspace model = prepareOrderModel();
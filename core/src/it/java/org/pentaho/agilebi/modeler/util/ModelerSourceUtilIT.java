@@ -16,13 +16,27 @@ package org.pentaho.agilebi.modeler.util;
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNotNull;
 
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.pentaho.agilebi.modeler.AbstractModelerTest;
+import org.pentaho.agilebi.modeler.BaseModelerWorkspaceHelper;
+import org.pentaho.agilebi.modeler.IModelerSource;
 import org.pentaho.agilebi.modeler.ModelerException;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.row.ValueMetaInterface;
 import org.pentaho.metadata.automodel.PhysicalTableImporter;
+import org.pentaho.metadata.automodel.SchemaTable;
 import org.pentaho.metadata.model.Domain;
+import org.pentaho.metadata.model.IPhysicalTable;
+import org.pentaho.metadata.model.SqlPhysicalColumn;
+import org.pentaho.metadata.model.SqlPhysicalTable;
+import org.pentaho.metadata.model.concept.types.DataType;
+import org.pentaho.metadata.model.concept.types.TargetTableType;
 
 /**
  * Created: 3/31/11
@@ -33,6 +47,9 @@ public class ModelerSourceUtilIT extends AbstractModelerTest {
 
   private static String locale;
 
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
   @Test
   public void testGenerateDomain_SingleModelingMode() throws ModelerException {
     String schemaName = "";
@@ -110,6 +127,47 @@ public class ModelerSourceUtilIT extends AbstractModelerTest {
 
   }
 
+  @Test
+  public void testDiscoverTableCasing() throws ModelerException {
+    ModelerSourceUtil.clearTableCasingCache();
+    String[] casing = ModelerSourceUtil.discoverTableCasing( databaseMeta, "", "customers" );
+    assertEquals( "", casing[0] );
+    assertEquals( "CUSTOMERS", casing[1] );
+
+    // answered from the cache, callers may modify what they get
+    casing[1] = "changed";
+    casing = ModelerSourceUtil.discoverTableCasing( databaseMeta, "", "customers" );
+    assertEquals( "CUSTOMERS", casing[1] );
+
+    casing = ModelerSourceUtil.discoverTableCasing( databaseMeta, "public", "cusTomers" );
+    assertEquals( "PUBLIC", casing[0] );
+    assertEquals( "CUSTOMERS", casing[1] );
+  }
+
+  @Test
+  public void testGenerateDomainsConcurrently() throws ModelerException {
+    String[] tableNames = { "CUSTOMERS", "PRODUCTS", "OFFICES", "EMPLOYEES", "ORDERS", "ORDERDETAILS", "PAYMENTS" };
+    List<SchemaTable> tables = new ArrayList<SchemaTable>();
+    for ( int i = 0; i < 4; i++ ) {
+      for ( String tableName : tableNames ) {
+        tables.add( new SchemaTable( "", tableName ) );
+      }
+    }
+
+    List<Domain> sequential = ModelerSourceUtil.generateDomains( databaseMeta, tables, true, 1 );
+    List<Domain> parallel = ModelerSourceUtil.generateDomains( databaseMeta, tables, true, 8 );
+    assertEquals( tables.size(), parallel.size() );
+    for ( int i = 0; i < tables.size(); i++ ) {
+      // every domain must describe its own table, whatever ran next to it
+      Domain domain = parallel.get( i );
+      assertEquals( tables.get( i ).getTableName(), domain.getId() );
+      IPhysicalTable table = domain.getPhysicalModels().get( 0 ).getPhysicalTables().get( 0 );
+      IPhysicalTable expected = sequential.get( i ).getPhysicalModels().get( 0 ).getPhysicalTables().get( 0 );
+      assertEquals( expected.getPhysicalColumns().size(), table.getPhysicalColumns().size() );
+      assertEquals( 2, domain.getLogicalModels().size() );
+    }
+  }
+
   private PhysicalTableImporter.ImportStrategy importStrategy() {
     return new PhysicalTableImporter.ImportStrategy() {
       @Override public boolean shouldInclude( final ValueMetaInterface valueMeta ) {
@@ -122,6 +180,60 @@ public class ModelerSourceUtilIT extends AbstractModelerTest {
     };
   }
 
+  @Test
+  public void testGenerateDomainFromQuery() throws Exception {
+    String query = "SELECT CUSTOMERNUMBER, CUSTOMERNAME, CREDITLIMIT AS CREDIT FROM CUSTOMERS WHERE CREDITLIMIT > 0;";
+    SqlModelerSource source = new SqlModelerSource( databaseMeta, query, "CREDIT_CUSTOMERS" );
+    Domain d = source.generateDomain( true );
+
+    assertEquals( 2, d.getLogicalModels().size() );
+    SqlPhysicalTable table = (SqlPhysicalTable) d.getPhysicalModels().get( 0 ).getPhysicalTables().get( 0 );
+    assertEquals( TargetTableType.INLINE_SQL, table.getTargetTableType() );
+    assertEquals( 3, table.getPhysicalColumns().size() );
+    assertEquals( "CREDIT", table.getPhysicalColumns().get( 2 ).getProperty( SqlPhysicalColumn.TARGET_COLUMN ) );
+    assertEquals( DataType.NUMERIC, table.getPhysicalColumns().get( 2 ).getDataType() );
+    assertNotNull( table.getPhysicalColumns().get( 1 ).getProperty( BaseModelerWorkspaceHelper.COLUMN_LENGTH ) );
+    assertEquals( 3, d.getLogicalModels().get( 0 ).getLogicalTables().get( 0 ).getLogicalColumns().size() );
+
+    source.serializeIntoDomain( d );
+    IModelerSource reloaded = ModelerSourceFactory.generateSource(
+        (String) d.getLogicalModels().get( 0 ).getProperty( "source_type" ) );
+    reloaded.initialize( d );
+    assertEquals( SqlModelerSource.class, reloaded.getClass() );
+    assertEquals( table.getTargetTable(), ( (SqlModelerSource) reloaded ).getQuery() );
+
+    workspace.setDomain( d );
+    assertEquals( 3, workspace.getAvailableTables().getAsAvailableTablesList().get( 0 ).getFieldCount() );
+  }
+
+  @Test
+  public void testGenerateDomainFromCachedTableMetadata() throws Exception {
+    TableMetadataCache cache = new TableMetadataCache( folder.newFolder( "tables" ), 0, null );
+    ModelerSourceUtil.setTableMetadataCache( cache );
+    try {
+      Domain d = ModelerSourceUtil.generateDomain( databaseMeta, "", "customers", "customers", true );
+      assertEquals( 2, d.getLogicalModels().size() );
+      SqlPhysicalTable table = (SqlPhysicalTable) d.getPhysicalModels().get( 0 ).getPhysicalTables().get( 0 );
+      assertEquals( "CUSTOMERS", table.getTargetTable() );
+      TableMetadata metadata = cache.get( databaseMeta, "", "customers" );
+      assertNotNull( metadata );
+      assertEquals( metadata.getColumns().size(), table.getPhysicalColumns().size() );
+
+      // a table the database does not have, modeled from the cache alone
+      List<TableMetadata.Column> columns = new ArrayList<TableMetadata.Column>();
+      columns.add( new TableMetadata.Column( "ID", Types.INTEGER, 10, 0, false ) );
+      columns.add( new TableMetadata.Column( "NAME", Types.VARCHAR, 50, 0, true ) );
+      cache.put( databaseMeta, "", "ARCHIVED", new TableMetadata( "", "ARCHIVED", columns ) );
+      d = ModelerSourceUtil.generateDomain( databaseMeta, "", "ARCHIVED", "archived", false );
+      table = (SqlPhysicalTable) d.getPhysicalModels().get( 0 ).getPhysicalTables().get( 0 );
+      assertEquals( 2, table.getPhysicalColumns().size() );
+      assertEquals( DataType.NUMERIC, table.getPhysicalColumns().get( 0 ).getDataType() );
+      assertEquals( 50, table.getPhysicalColumns().get( 1 ).getProperty( BaseModelerWorkspaceHelper.COLUMN_LENGTH ) );
+    } finally {
+      ModelerSourceUtil.setTableMetadataCache( null );
+    }
+  }
+
   public static DatabaseMeta getDatabaseMeta() {
     DatabaseMeta database = new DatabaseMeta();
     database.setDatabaseType( "Hypersonic" ); //$NON-NLS-1$
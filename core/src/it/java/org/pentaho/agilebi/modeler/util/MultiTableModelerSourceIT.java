@@ -17,12 +17,14 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import org.pentaho.agilebi.modeler.AbstractModelerTest;
 import org.pentaho.agilebi.modeler.BaseModelerWorkspaceHelper;
+import org.pentaho.agilebi.modeler.ModelerException;
 import org.pentaho.agilebi.modeler.models.JoinFieldModel;
 import org.pentaho.agilebi.modeler.models.JoinRelationshipModel;
 import org.pentaho.agilebi.modeler.models.JoinTableModel;
 import org.pentaho.agilebi.modeler.models.SchemaModel;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.metadata.model.Domain;
+import org.pentaho.metadata.model.IPhysicalTable;
 import org.pentaho.metadata.model.LogicalModel;
 import org.pentaho.metadata.model.LogicalRelationship;
 import org.pentaho.metadata.model.olap.OlapCube;
@@ -35,6 +37,8 @@ import java.util.List;
 
 import static junit.framework.Assert.assertEquals;
 import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
 
 public class MultiTableModelerSourceIT extends AbstractModelerTest {
 
@@ -88,6 +92,59 @@ public class MultiTableModelerSourceIT extends AbstractModelerTest {
     }
   }
 
+  @Test
+  public void testParallelImportKeepsTableOrder() throws Exception {
+    List<String> tables = Arrays.asList( "CUSTOMERS", "PRODUCTS", "CUSTOMERNAME", "PRODUCTCODE" );
+    MultiTableModelerSource serial =
+        new MultiTableModelerSource( this.getDatabase(), getSchemaModel1( false ), this.getDatabase().getName(),
+            tables );
+    serial.setImportParallelism( 1 );
+    MultiTableModelerSource parallel =
+        new MultiTableModelerSource( this.getDatabase(), getSchemaModel1( false ), this.getDatabase().getName(),
+            tables );
+    parallel.setImportParallelism( 4 );
+
+    List<? extends IPhysicalTable> expected =
+        serial.generateDomain( false ).getPhysicalModels().get( 0 ).getPhysicalTables();
+    Domain domain = parallel.generateDomain( false );
+    List<? extends IPhysicalTable> actual = domain.getPhysicalModels().get( 0 ).getPhysicalTables();
+    assertEquals( expected.size(), actual.size() );
+    for ( int i = 0; i < expected.size(); i++ ) {
+      assertEquals( expected.get( i ).getProperty( "target_table" ), actual.get( i ).getProperty( "target_table" ) );
+      assertEquals( expected.get( i ).getPhysicalColumns().size(), actual.get( i ).getPhysicalColumns().size() );
+    }
+    assertEquals( actual.size(), domain.getLogicalModels().get( 0 ).getLogicalTables().size() );
+    assertEquals( true, domain.getLogicalModels().get( 0 ).getLogicalRelationships().size() > 0 );
+  }
+
+  @Test
+  public void testInvalidJoinsAreReportedTogether() throws Exception {
+    SchemaModel schemaModel = getSchemaModel1( false );
+    JoinRelationshipModel valid = schemaModel.getJoins().get( 0 );
+    List<JoinRelationshipModel> joins = new ArrayList<JoinRelationshipModel>( schemaModel.getJoins() );
+    for ( String column : new String[] { "NO_SUCH_COLUMN", "NOR_THIS_ONE" } ) {
+      JoinRelationshipModel join = new JoinRelationshipModel();
+      JoinFieldModel left = new JoinFieldModel();
+      left.setName( column );
+      left.setParentTable( valid.getLeftKeyFieldModel().getParentTable() );
+      join.setLeftKeyFieldModel( left );
+      join.setRightKeyFieldModel( valid.getRightKeyFieldModel() );
+      joins.add( join );
+    }
+    schemaModel.setJoins( joins );
+
+    MultiTableModelerSource multiTable =
+        new MultiTableModelerSource( this.getDatabase(), schemaModel, this.getDatabase().getName(),
+            Arrays.asList( "CUSTOMERS", "PRODUCTS", "CUSTOMERNAME", "PRODUCTCODE" ) );
+    try {
+      multiTable.generateDomain( false );
+      fail( "invalid joins must fail" );
+    } catch ( ModelerException e ) {
+      assertTrue( e.getMessage().contains( "ORDERFACT.NO_SUCH_COLUMN" ) );
+      assertTrue( e.getMessage().contains( "ORDERFACT.NOR_THIS_ONE" ) );
+    }
+  }
+
   public static SchemaModel getSchemaModel1() {
     return getSchemaModel1( true );
   }
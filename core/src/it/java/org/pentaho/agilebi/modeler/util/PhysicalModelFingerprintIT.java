@@ -0,0 +1,77 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.agilebi.modeler.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+
+import org.junit.Test;
+import org.pentaho.agilebi.modeler.AbstractModelerTest;
+import org.pentaho.metadata.model.Domain;
+import org.pentaho.metadata.util.XmiParser;
+
+public class PhysicalModelFingerprintIT extends AbstractModelerTest {
+
+  @Test
+  public void testProbeIsStablePerTable() throws Exception {
+    String customers = PhysicalModelFingerprint.probe( databaseMeta, "", "CUSTOMERS", "CUSTOMERS" );
+    assertNotNull( customers );
+    assertEquals( customers, PhysicalModelFingerprint.probe( databaseMeta, "", "customers", "CUSTOMERS" ) );
+    assertFalse( customers.equals( PhysicalModelFingerprint.probe( databaseMeta, "", "PRODUCTS", "CUSTOMERS" ) ) );
+  }
+
+  @Test
+  public void testPopulateSkipsRegenerationWhenFingerprintMatches() throws Exception {
+    TableModelerSource source = new TableModelerSource( databaseMeta, "CUSTOMERS", "" );
+    ModelerWorkspaceUtil.populateModelFromSource( workspace, source );
+    Domain domain = workspace.getDomain();
+    // nothing is probed until the domain is stamped
+    assertNull( PhysicalModelFingerprint.get( domain ) );
+    String fingerprint = PhysicalModelFingerprint.probe( source );
+    PhysicalModelFingerprint.set( domain, fingerprint );
+
+    // the fingerprint survives a save and reopen
+    String xmi = ModelerWorkspaceUtil.getMetadataXML( workspace );
+    Domain reopened = new XmiParser().parseXmi( new ByteArrayInputStream( xmi.getBytes( "UTF-8" ) ) );
+    assertEquals( fingerprint, PhysicalModelFingerprint.get( reopened ) );
+
+    ModelerWorkspaceUtil.populateModelFromSource( workspace, new TableModelerSource( databaseMeta, "CUSTOMERS", "" ) );
+    assertSame( domain, workspace.getDomain() );
+
+    ModelerWorkspaceUtil.populateModelFromSource( workspace, new TableModelerSource( databaseMeta, "PRODUCTS", "" ) );
+    assertFalse( domain == workspace.getDomain() );
+    assertNotNull( PhysicalModelFingerprint.get( workspace.getDomain() ) );
+  }
+
+  @Test
+  public void testLoadWorkspaceDropsStaleFingerprints() throws Exception {
+    TableModelerSource source = new TableModelerSource( databaseMeta, "CUSTOMERS", "" );
+    ModelerWorkspaceUtil.populateModelFromSource( workspace, source );
+    PhysicalModelFingerprint.set( workspace.getDomain(), PhysicalModelFingerprint.probe( source ) );
+    String xmi = ModelerWorkspaceUtil.getMetadataXML( workspace );
+
+    ModelerWorkspaceUtil.loadWorkspace( "customers.xmi", xmi, workspace );
+    assertNotNull( PhysicalModelFingerprint.get( workspace.getDomain() ) );
+
+    PhysicalModelFingerprint.set( workspace.getDomain(), "stale" );
+    xmi = ModelerWorkspaceUtil.getMetadataXML( workspace );
+    ModelerWorkspaceUtil.loadWorkspace( "customers.xmi", xmi, workspace );
+    assertNull( PhysicalModelFingerprint.get( workspace.getDomain() ) );
+  }
+}
@@ -0,0 +1,67 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.agilebi.modeler.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.pentaho.agilebi.modeler.AbstractModelerTest;
+
+public class SchemaAutoModelerIT extends AbstractModelerTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  @Test
+  public void testFindTablesAppliesFilter() throws Exception {
+    SchemaAutoModeler modeler = new SchemaAutoModeler( databaseMeta, "en_US" );
+    List<String> tables = modeler.findTables( null, Pattern.compile( "(?i)customers|products" ) );
+    assertEquals( Arrays.asList( "CUSTOMERS", "PRODUCTS" ), tables );
+  }
+
+  @Test
+  public void testModelTablesWritesFilesAndReportsFailures() throws Exception {
+    SchemaAutoModeler modeler = new SchemaAutoModeler( databaseMeta, "en_US" );
+    modeler.setThreads( 2 );
+    File out = folder.newFolder( "models" );
+
+    SchemaAutoModeler.Summary summary =
+        modeler.modelTables( "", Arrays.asList( "CUSTOMERS", "NO_SUCH_TABLE", "PRODUCTS" ), out );
+
+    List<SchemaAutoModeler.TableResult> results = summary.getResults();
+    assertEquals( 3, results.size() );
+    assertEquals( "CUSTOMERS", results.get( 0 ).getTableName() );
+    assertEquals( "PRODUCTS", results.get( 2 ).getTableName() );
+    assertTrue( results.get( 0 ).isSuccess() );
+    assertTrue( results.get( 2 ).isSuccess() );
+    assertFalse( results.get( 1 ).isSuccess() );
+    assertNotNull( results.get( 1 ).getFailure() );
+    assertEquals( 1, summary.getFailures().size() );
+
+    assertTrue( new File( out, "CUSTOMERS" + SchemaAutoModeler.XMI_EXTENSION ).length() > 0 );
+    assertTrue( new File( out, "CUSTOMERS" + SchemaAutoModeler.MONDRIAN_EXTENSION ).length() > 0 );
+    assertTrue( new File( out, "PRODUCTS" + SchemaAutoModeler.XMI_EXTENSION ).length() > 0 );
+    assertFalse( new File( out, "NO_SUCH_TABLE" + SchemaAutoModeler.XMI_EXTENSION ).exists() );
+  }
+}
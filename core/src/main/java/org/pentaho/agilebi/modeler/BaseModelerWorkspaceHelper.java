@@ -63,9 +63,14 @@ public abstract class BaseModelerWorkspaceHelper implements IModelerWorkspaceHel
 
   private static final List<AggregationType> DEFAULT_AGGREGATION_LIST = new ArrayList<AggregationType>();
   private static final List<AggregationType> DEFAULT_NON_NUMERIC_AGGREGATION_LIST = new ArrayList<AggregationType>();
-  private static String locale;
+  private String locale;
   public static final String OLAP_SUFFIX = "_OLAP";
 
+  // physical column properties with the length (total digits of numbers) and precision (fractional digits) of
+  // columns read from JDBC metadata, absent when unknown
+  public static final String COLUMN_LENGTH = "length"; //$NON-NLS-1$
+  public static final String COLUMN_PRECISION = "precision"; //$NON-NLS-1$
+
   // public static final String AGILE_BI_VERSION = "2.0" // Relational & OLAP models are in one LogicalModel. OLAP uses
   // tables with _OLAP suffix
   public static final String AGILE_BI_VERSION = "3.0"; // Relational Model & OLAP models seperated into 2 Logical Models
@@ -89,7 +94,7 @@ public abstract class BaseModelerWorkspaceHelper implements IModelerWorkspaceHel
   }
 
   public BaseModelerWorkspaceHelper( String locale ) {
-    BaseModelerWorkspaceHelper.locale = locale;
+    this.locale = locale;
     autoModelStrategy = new SimpleAutoModelStrategy( locale );
   }
 
@@ -153,102 +158,17 @@ public abstract class BaseModelerWorkspaceHelper implements IModelerWorkspaceHel
     List<OlapDimension> olapDimensions = new ArrayList<OlapDimension>();
     List<OlapMeasure> measures = new ArrayList<OlapMeasure>();
 
-    for ( DimensionMetaData dim : dimensions ) {
-
-      OlapDimension dimension = new OlapDimension();
-      String dimTitle = dim.getName();
-
-      dimension.setName( dimTitle );
-      boolean isTimeDimension = dim.isTimeDimension();
-      dimension.setTimeDimension( isTimeDimension );
-
-      List<OlapHierarchy> hierarchies = new ArrayList<OlapHierarchy>();
-
-      for ( HierarchyMetaData hier : dim ) {
-        OlapHierarchy hierarchy = new OlapHierarchy( dimension );
-        hierarchy.setName( hier.getName() );
-        List<OlapHierarchyLevel> levels = new ArrayList<OlapHierarchyLevel>();
-
-        for ( LevelMetaData lvl : hier ) {
-          OlapHierarchyLevel level = new OlapHierarchyLevel( hierarchy );
-          level.setName( lvl.getName() );
-          if ( isTimeDimension ) {
-            TimeRole timeRole = (TimeRole) lvl.getDataRole();
-            if ( timeRole != null ) {
-              level.setLevelType( timeRole.getMondrianAttributeValue() );
-            }
-          }
-          LogicalColumn lCol = lvl.getLogicalColumn();
-
-          if ( lCol != null ) {
-
-            // Due to a bug in LogicalTable's clone() logical columns will be a child of an OLAP while reporting a
-            // different parent.
-            LogicalTable supposedLTable = lCol.getLogicalTable();
-            LogicalTable olapCloneLTable = findOlapCloneForTableInDomain( supposedLTable, domain );
-
-            hierarchy.setLogicalTable( olapCloneLTable );
-            if ( !olapCloneLTable.getLogicalColumns().contains( lCol ) ) {
-              olapCloneLTable.addLogicalColumn( lCol );
-            }
-
-            for ( IMemberAnnotation anno : lvl.getMemberAnnotations().values() ) {
-              if ( anno != null ) {
-                anno.saveAnnotations( level );
-              }
-            }
-
-            level.setReferenceColumn( lCol );
-            hierarchy.setLogicalTable( olapCloneLTable );
-            if ( logicalModel.getLogicalTables().size() > 1 ) { // only do this for multi-table situations
-              hierarchy.setPrimaryKey( findPrimaryKeyFor( logicalModel, factTable, olapCloneLTable ) );
-            }
-
-            lCol = lvl.getLogicalOrdinalColumn();
-            if ( lCol != null ) {
-              level.setReferenceOrdinalColumn( lCol );
-            }
-
-            lCol = lvl.getLogicalCaptionColumn();
-            if ( lCol != null ) {
-              level.setReferenceCaptionColumn( lCol );
-            }
-          }
-
-          for ( MemberPropertyMetaData memberProp : lvl ) {
-            LogicalColumn lc = memberProp.getLogicalColumn();
-            if ( lc != null && !level.getLogicalColumns().contains( lc ) ) {
-              if ( memberProp.getDescription() != null ) {
-                lc.setDescription( new LocalizedString( getLocale(), memberProp.getDescription() ) );
-              }
-              level.getLogicalColumns().add( lc );
-            }
-          }
-          if ( lvl.getDescription() != null && !lvl.getDescription().equals( "" ) ) {
-            OlapAnnotation description = new OlapAnnotation();
-            description.setName( "description." + getLocale() );
-            description.setValue( lvl.getDescription() );
-            level.getAnnotations().add( description );
-          }
-          level.setHavingUniqueMembers( lvl.isUniqueMembers() );
-          level.setHidden( lvl.isHidden() );
-          levels.add( level );
-        }
-
-        hierarchy.setHierarchyLevels( levels );
-        hierarchies.add( hierarchy );
-      }
+    DomainGenerationCache cache = model.getDomainGenerationCache();
+    cache.beginAnalysis( logicalModel, factTable, getLocale() );
 
-      if ( hierarchies.isEmpty() ) {
-        // create a default hierarchy
-        OlapHierarchy defaultHierarchy = new OlapHierarchy( dimension );
-
-        defaultHierarchy.setLogicalTable( factTable ); // TODO: set this to what???
-
-        hierarchies.add( defaultHierarchy );
+    for ( DimensionMetaData dim : dimensions ) {
+      OlapDimension dimension = cache.getDimension( dim );
+      if ( dimension == null ) {
+        dimension = createOlapDimension( dim, domain, logicalModel, factTable );
+      } else {
+        restoreOlapDimension( dimension, logicalModel, factTable );
       }
-
-      dimension.setHierarchies( hierarchies );
+      cache.putDimension( dim, dimension );
 
       olapDimensions.add( dimension );
       OlapDimensionUsage usage = new OlapDimensionUsage( dimension.getName(), dimension );
@@ -267,38 +187,23 @@ public abstract class BaseModelerWorkspaceHelper implements IModelerWorkspaceHel
     Map<String, LogicalColumn> backingColumns = new HashMap<String, LogicalColumn>();
     for ( MeasureMetaData f : model.getModel().getMeasures() ) {
       LogicalColumn lCol = f.getLogicalColumn();
-      if ( f.getDescription() != null && !f.getDescription().equals( "" ) ) {
-        lCol.setDescription( new LocalizedString( getLocale(), f.getDescription() ) );
-      }
       LogicalTable lTable = lCol.getLogicalTable();
-      OlapMeasure measure = new OlapMeasure();
 
       String colKey = lTable.getId() + "." + lCol.getId();
-      // see if any measures already are using this LogicalColumn. if so, clone it.
-      if ( backingColumns.containsKey( colKey ) ) {
-        // already used, duplicate it
-        LogicalColumn clone = (LogicalColumn) lCol.clone();
-        clone.setId( uniquify( clone.getId(), lTable.getLogicalColumns() ) );
-        lCol = clone;
-      } else {
+      // see if any measures already are using this LogicalColumn. if so, it gets a clone.
+      boolean duplicate = backingColumns.containsKey( colKey );
+      if ( !duplicate ) {
         backingColumns.put( colKey, lCol );
       }
 
-      if ( !lTable.getLogicalColumns().contains( lCol ) ) {
-        lTable.addLogicalColumn( lCol );
-      }
-
-      if ( f.getDefaultAggregation() != null ) {
-        lCol.setAggregationType( f.getDefaultAggregation() );
+      OlapMeasure measure = cache.getMeasure( f );
+      // an unchanged measure can keep its column unless it started or stopped sharing it with another measure
+      if ( measure == null || ( measure.getLogicalColumn() != lCol ) != duplicate ) {
+        measure = createOlapMeasure( f, lCol, duplicate, model );
+      } else {
+        addToLogicalTable( measure.getLogicalColumn() );
       }
-
-      setLogicalColumnFormat( f.getFormat(), lCol );
-
-      measure.setName( f.getName() );
-
-      measure.setLogicalColumn( lCol );
-
-      measure.setHidden( f.isHidden() );
+      cache.putMeasure( f, measure );
 
       measures.add( measure );
     }
@@ -312,6 +217,170 @@ public abstract class BaseModelerWorkspaceHelper implements IModelerWorkspaceHel
     cubes.add( cube );
     logicalModel.setProperty( "olap_cubes", cubes ); //$NON-NLS-1$
 
+    cache.endAnalysis();
+    mainModelNode.clearDirty();
+  }
+
+  private OlapDimension createOlapDimension( DimensionMetaData dim, Domain domain, LogicalModel logicalModel,
+      LogicalTable factTable ) {
+    OlapDimension dimension = new OlapDimension();
+    String dimTitle = dim.getName();
+
+    dimension.setName( dimTitle );
+    boolean isTimeDimension = dim.isTimeDimension();
+    dimension.setTimeDimension( isTimeDimension );
+
+    List<OlapHierarchy> hierarchies = new ArrayList<OlapHierarchy>();
+
+    for ( HierarchyMetaData hier : dim ) {
+      OlapHierarchy hierarchy = new OlapHierarchy( dimension );
+      hierarchy.setName( hier.getName() );
+      List<OlapHierarchyLevel> levels = new ArrayList<OlapHierarchyLevel>();
+
+      for ( LevelMetaData lvl : hier ) {
+        OlapHierarchyLevel level = new OlapHierarchyLevel( hierarchy );
+        level.setName( lvl.getName() );
+        if ( isTimeDimension ) {
+          TimeRole timeRole = (TimeRole) lvl.getDataRole();
+          if ( timeRole != null ) {
+            level.setLevelType( timeRole.getMondrianAttributeValue() );
+          }
+        }
+        LogicalColumn lCol = lvl.getLogicalColumn();
+
+        if ( lCol != null ) {
+
+          // Due to a bug in LogicalTable's clone() logical columns will be a child of an OLAP while reporting a
+          // different parent.
+          LogicalTable supposedLTable = lCol.getLogicalTable();
+          LogicalTable olapCloneLTable = findOlapCloneForTableInDomain( supposedLTable, domain );
+
+          hierarchy.setLogicalTable( olapCloneLTable );
+          if ( !olapCloneLTable.getLogicalColumns().contains( lCol ) ) {
+            olapCloneLTable.addLogicalColumn( lCol );
+          }
+
+          for ( IMemberAnnotation anno : lvl.getMemberAnnotations().values() ) {
+            if ( anno != null ) {
+              anno.saveAnnotations( level );
+            }
+          }
+
+          level.setReferenceColumn( lCol );
+          hierarchy.setLogicalTable( olapCloneLTable );
+          if ( logicalModel.getLogicalTables().size() > 1 ) { // only do this for multi-table situations
+            hierarchy.setPrimaryKey( findPrimaryKeyFor( logicalModel, factTable, olapCloneLTable ) );
+          }
+
+          lCol = lvl.getLogicalOrdinalColumn();
+          if ( lCol != null ) {
+            level.setReferenceOrdinalColumn( lCol );
+          }
+
+          lCol = lvl.getLogicalCaptionColumn();
+          if ( lCol != null ) {
+            level.setReferenceCaptionColumn( lCol );
+          }
+        }
+
+        for ( MemberPropertyMetaData memberProp : lvl ) {
+          LogicalColumn lc = memberProp.getLogicalColumn();
+          if ( lc != null && !level.getLogicalColumns().contains( lc ) ) {
+            if ( memberProp.getDescription() != null ) {
+              lc.setDescription( new LocalizedString( getLocale(), memberProp.getDescription() ) );
+            }
+            level.getLogicalColumns().add( lc );
+          }
+        }
+        if ( lvl.getDescription() != null && !lvl.getDescription().equals( "" ) ) {
+          OlapAnnotation description = new OlapAnnotation();
+          description.setName( "description." + getLocale() );
+          description.setValue( lvl.getDescription() );
+          level.getAnnotations().add( description );
+        }
+        level.setHavingUniqueMembers( lvl.isUniqueMembers() );
+        level.setHidden( lvl.isHidden() );
+        levels.add( level );
+      }
+
+      hierarchy.setHierarchyLevels( levels );
+      hierarchies.add( hierarchy );
+    }
+
+    if ( hierarchies.isEmpty() ) {
+      // create a default hierarchy
+      OlapHierarchy defaultHierarchy = new OlapHierarchy( dimension );
+
+      defaultHierarchy.setLogicalTable( factTable ); // TODO: set this to what???
+
+      hierarchies.add( defaultHierarchy );
+    }
+
+    dimension.setHierarchies( hierarchies );
+    return dimension;
+  }
+
+  /**
+   * Redoes what {@link #createOlapDimension} did to the logical model for a reused dimension, the tree may have
+   * removed level columns from their tables or changed relationships since.
+   */
+  private void restoreOlapDimension( OlapDimension dimension, LogicalModel logicalModel, LogicalTable factTable ) {
+    for ( OlapHierarchy hierarchy : dimension.getHierarchies() ) {
+      LogicalTable table = hierarchy.getLogicalTable();
+      boolean referenced = false;
+      for ( OlapHierarchyLevel level : hierarchy.getHierarchyLevels() ) {
+        LogicalColumn lCol = level.getReferenceColumn();
+        if ( lCol != null ) {
+          referenced = true;
+          if ( !table.getLogicalColumns().contains( lCol ) ) {
+            table.addLogicalColumn( lCol );
+          }
+        }
+      }
+      if ( referenced && logicalModel.getLogicalTables().size() > 1 ) {
+        hierarchy.setPrimaryKey( findPrimaryKeyFor( logicalModel, factTable, table ) );
+      }
+    }
+  }
+
+  private static void addToLogicalTable( LogicalColumn lCol ) {
+    LogicalTable lTable = lCol.getLogicalTable();
+    if ( !lTable.getLogicalColumns().contains( lCol ) ) {
+      lTable.addLogicalColumn( lCol );
+    }
+  }
+
+  private OlapMeasure createOlapMeasure( MeasureMetaData f, LogicalColumn lCol, boolean duplicate,
+      ModelerWorkspace model ) {
+    if ( f.getDescription() != null && !f.getDescription().equals( "" ) ) {
+      lCol.setDescription( new LocalizedString( getLocale(), f.getDescription() ) );
+    }
+    LogicalTable lTable = lCol.getLogicalTable();
+    OlapMeasure measure = new OlapMeasure();
+
+    if ( duplicate ) {
+      // already used, duplicate it
+      LogicalColumn clone = (LogicalColumn) lCol.clone();
+      clone.setId( model.uniquifyColumnId( clone.getId(), lTable ) );
+      lCol = clone;
+    }
+
+    if ( !lTable.getLogicalColumns().contains( lCol ) ) {
+      lTable.addLogicalColumn( lCol );
+    }
+
+    if ( f.getDefaultAggregation() != null ) {
+      lCol.setAggregationType( f.getDefaultAggregation() );
+    }
+
+    setLogicalColumnFormat( f.getFormat(), lCol );
+
+    measure.setName( f.getName() );
+
+    measure.setLogicalColumn( lCol );
+
+    measure.setHidden( f.isHidden() );
+    return measure;
   }
 
   private LogicalTable findOlapCloneForTableInDomain( LogicalTable supposedLTable, Domain domain ) {
@@ -367,7 +436,7 @@ public abstract class BaseModelerWorkspaceHelper implements IModelerWorkspaceHel
   }
 
   public void setLocale( String locale ) {
-    BaseModelerWorkspaceHelper.locale = locale;
+    this.locale = locale;
   }
 
   protected void populateCategories( ModelerWorkspace workspace ) {
@@ -375,35 +444,52 @@ public abstract class BaseModelerWorkspaceHelper implements IModelerWorkspaceHel
     LogicalModel logicalModel = workspace.getDomain().getLogicalModels().get( 0 );
     logicalModel.getCategories().clear();
 
+    DomainGenerationCache cache = workspace.getDomainGenerationCache();
+    cache.beginReporting( logicalModel, getLocale() );
     for ( CategoryMetaData catMeta : model.getCategories() ) {
-      Category cat = new Category();
-      cat.setName( new LocalizedString( this.getLocale(), catMeta.getName() ) );
-      cat.setId( catMeta.getName() );
+      Category cat = cache.getCategory( catMeta );
+      if ( cat == null ) {
+        cat = createCategory( catMeta );
+      } else {
+        for ( LogicalColumn lCol : cat.getLogicalColumns() ) {
+          addToLogicalTable( lCol );
+        }
+      }
+      cache.putCategory( catMeta, cat );
+      logicalModel.addCategory( cat );
+    }
+    cache.endReporting();
+    model.clearDirty();
+  }
 
-      for ( FieldMetaData fieldMeta : catMeta ) {
-        LogicalColumn lCol = fieldMeta.getLogicalColumn();
-        LogicalTable lTable = lCol.getLogicalTable();
+  private Category createCategory( CategoryMetaData catMeta ) {
+    Category cat = new Category();
+    cat.setName( new LocalizedString( this.getLocale(), catMeta.getName() ) );
+    cat.setId( catMeta.getName() );
 
-        if ( !lTable.getLogicalColumns().contains( lCol ) ) {
-          lTable.addLogicalColumn( lCol );
-        }
+    for ( FieldMetaData fieldMeta : catMeta ) {
+      LogicalColumn lCol = fieldMeta.getLogicalColumn();
+      LogicalTable lTable = lCol.getLogicalTable();
 
-        lCol.setName( new LocalizedString( locale, fieldMeta.getName() ) );
-        AggregationType type = fieldMeta.getDefaultAggregation();
-        lCol.setAggregationType( type );
+      if ( !lTable.getLogicalColumns().contains( lCol ) ) {
+        lTable.addLogicalColumn( lCol );
+      }
 
-        setLogicalColumnFormat( fieldMeta.getFormat(), lCol );
+      lCol.setName( new LocalizedString( locale, fieldMeta.getName() ) );
+      AggregationType type = fieldMeta.getDefaultAggregation();
+      lCol.setAggregationType( type );
 
-        Set<AggregationType> possibleAggs = new HashSet<AggregationType>();
-        possibleAggs.add( fieldMeta.getDefaultAggregation() );
-        possibleAggs.addAll( fieldMeta.getSelectedAggregations() );
-        lCol.setAggregationList( Arrays.<AggregationType>asList( possibleAggs
-            .toArray( new AggregationType[possibleAggs.size()] ) ) );
-        cat.addLogicalColumn( lCol );
+      setLogicalColumnFormat( fieldMeta.getFormat(), lCol );
+
+      Set<AggregationType> possibleAggs = new HashSet<AggregationType>();
+      possibleAggs.add( fieldMeta.getDefaultAggregation() );
+      possibleAggs.addAll( fieldMeta.getSelectedAggregations() );
+      lCol.setAggregationList( Arrays.<AggregationType>asList( possibleAggs
+          .toArray( new AggregationType[possibleAggs.size()] ) ) );
+      cat.addLogicalColumn( lCol );
 
-      }
-      logicalModel.addCategory( cat );
     }
+    return cat;
   }
 
   private void setLogicalColumnFormat( String format, LogicalColumn lCol ) {
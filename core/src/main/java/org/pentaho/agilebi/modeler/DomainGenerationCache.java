@@ -0,0 +1,125 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.agilebi.modeler;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.pentaho.agilebi.modeler.nodes.AbstractMetaDataModelNode;
+import org.pentaho.agilebi.modeler.nodes.CategoryMetaData;
+import org.pentaho.agilebi.modeler.nodes.DimensionMetaData;
+import org.pentaho.agilebi.modeler.nodes.MeasureMetaData;
+import org.pentaho.metadata.model.Category;
+import org.pentaho.metadata.model.LogicalModel;
+import org.pentaho.metadata.model.LogicalTable;
+import org.pentaho.metadata.model.olap.OlapDimension;
+import org.pentaho.metadata.model.olap.OlapMeasure;
+
+/**
+ * Remembers the OLAP dimensions, measures and categories {@link BaseModelerWorkspaceHelper#populateDomain} generated
+ * for each metadata node, so a later run can hand out the same objects for nodes that are not dirty. Everything is
+ * dropped when the logical model, fact table or locale the objects were generated for changes.
+ * <p>
+ * Every generation pass starts with <code>begin...</code>, reads the previous pass through the getters and records
+ * what it used with the putters; nodes that are no longer part of the model are forgotten on the next pass.
+ */
+class DomainGenerationCache {
+
+  private LogicalModel analysisModel;
+  private LogicalTable factTable;
+  private int relationshipCount;
+  private String analysisLocale;
+  private Map<DimensionMetaData, OlapDimension> dimensions = new IdentityHashMap<DimensionMetaData, OlapDimension>();
+  private Map<DimensionMetaData, OlapDimension> nextDimensions;
+  private Map<MeasureMetaData, OlapMeasure> measures = new IdentityHashMap<MeasureMetaData, OlapMeasure>();
+  private Map<MeasureMetaData, OlapMeasure> nextMeasures;
+
+  private LogicalModel reportingModel;
+  private String reportingLocale;
+  private Map<CategoryMetaData, Category> categories = new IdentityHashMap<CategoryMetaData, Category>();
+  private Map<CategoryMetaData, Category> nextCategories;
+
+  void beginAnalysis( LogicalModel model, LogicalTable factTable, String locale ) {
+    int ships = model.getLogicalRelationships().size();
+    if ( model != analysisModel || factTable != this.factTable || ships != relationshipCount
+        || !equal( locale, analysisLocale ) ) {
+      dimensions.clear();
+      measures.clear();
+      analysisModel = model;
+      this.factTable = factTable;
+      relationshipCount = ships;
+      analysisLocale = locale;
+    }
+    nextDimensions = new IdentityHashMap<DimensionMetaData, OlapDimension>();
+    nextMeasures = new IdentityHashMap<MeasureMetaData, OlapMeasure>();
+  }
+
+  void endAnalysis() {
+    dimensions = nextDimensions;
+    measures = nextMeasures;
+  }
+
+  OlapDimension getDimension( DimensionMetaData dim ) {
+    return reusable( dim ) ? dimensions.get( dim ) : null;
+  }
+
+  void putDimension( DimensionMetaData dim, OlapDimension dimension ) {
+    nextDimensions.put( dim, dimension );
+  }
+
+  OlapMeasure getMeasure( MeasureMetaData measure ) {
+    return reusable( measure ) ? measures.get( measure ) : null;
+  }
+
+  void putMeasure( MeasureMetaData measureMeta, OlapMeasure measure ) {
+    nextMeasures.put( measureMeta, measure );
+  }
+
+  void beginReporting( LogicalModel model, String locale ) {
+    if ( model != reportingModel || !equal( locale, reportingLocale ) ) {
+      categories.clear();
+      reportingModel = model;
+      reportingLocale = locale;
+    }
+    nextCategories = new IdentityHashMap<CategoryMetaData, Category>();
+  }
+
+  void endReporting() {
+    categories = nextCategories;
+  }
+
+  Category getCategory( CategoryMetaData catMeta ) {
+    return reusable( catMeta ) ? categories.get( catMeta ) : null;
+  }
+
+  void putCategory( CategoryMetaData catMeta, Category category ) {
+    nextCategories.put( catMeta, category );
+  }
+
+  void clear() {
+    analysisModel = null;
+    reportingModel = null;
+    dimensions.clear();
+    measures.clear();
+    categories.clear();
+  }
+
+  private static boolean reusable( AbstractMetaDataModelNode node ) {
+    return !node.isDirty();
+  }
+
+  private static boolean equal( String a, String b ) {
+    return a == null ? b == null : a.equals( b );
+  }
+}
@@ -0,0 +1,202 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.agilebi.modeler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pentaho.metadata.model.IPhysicalColumn;
+import org.pentaho.metadata.model.IPhysicalTable;
+import org.pentaho.metadata.model.LogicalColumn;
+import org.pentaho.metadata.model.LogicalModel;
+import org.pentaho.metadata.model.LogicalTable;
+
+/**
+ * Lookup index from physical ids to the logical tables and columns of one perspective's LogicalModel. The index is
+ * built lazily and re-indexes a table whenever its column count or last column no longer match what was indexed, so
+ * columns added outside of the workspace are still picked up.
+ */
+class LogicalModelIndex {
+
+  private final ModelerPerspective perspective;
+
+  private LogicalModel logicalModel;
+  private int tableCount = -1;
+  // physical and logical ids to the first table in list order having either
+  private Map<String, LogicalTable> tablesById = new HashMap<String, LogicalTable>();
+  private Map<String, List<TableColumns>> columnsByPhysicalTableId = new HashMap<String, List<TableColumns>>();
+  private Map<String, TableColumns> columnsByTableId = new HashMap<String, TableColumns>();
+
+  LogicalModelIndex( ModelerPerspective perspective ) {
+    this.perspective = perspective;
+  }
+
+  /**
+   * Drops everything indexed so far, must be called whenever the workspace's Domain is swapped.
+   */
+  void invalidate() {
+    logicalModel = null;
+    tableCount = -1;
+    tablesById.clear();
+    columnsByPhysicalTableId.clear();
+    columnsByTableId.clear();
+  }
+
+  LogicalTable findTable( LogicalModel model, IPhysicalTable table ) {
+    ensureTables( model );
+    return tablesById.get( table.getId() );
+  }
+
+  LogicalColumn findColumn( LogicalModel model, IPhysicalColumn column ) {
+    ensureTables( model );
+    List<TableColumns> candidates = columnsByPhysicalTableId.get( column.getPhysicalTable().getId() );
+    if ( candidates == null ) {
+      return null;
+    }
+    for ( TableColumns tableColumns : candidates ) {
+      LogicalColumn lCol = tableColumns.byPhysicalId().get( column.getId() );
+      if ( lCol != null ) {
+        return lCol;
+      }
+    }
+    return null;
+  }
+
+  LogicalColumn findColumnByName( LogicalModel model, LogicalTable table, String name, String locale ) {
+    ensureTables( model );
+    TableColumns tableColumns = columnsFor( table );
+    LogicalColumn lCol = tableColumns.byName( locale ).get( name );
+    if ( lCol == null || !name.equals( lCol.getName( locale ) ) ) {
+      // names are editable, so a miss or a stale hit forces the name map to be rebuilt
+      tableColumns.resetNames();
+      lCol = tableColumns.byName( locale ).get( name );
+    }
+    return lCol;
+  }
+
+  void columnAdded( LogicalTable table, LogicalColumn column ) {
+    TableColumns tableColumns = columnsByTableId.get( table.getId() );
+    if ( tableColumns != null ) {
+      tableColumns.columnAdded( column );
+    }
+  }
+
+  private void ensureTables( LogicalModel model ) {
+    if ( model == logicalModel && model.getLogicalTables().size() == tableCount ) {
+      return;
+    }
+    invalidate();
+    logicalModel = model;
+    tableCount = model.getLogicalTables().size();
+    for ( LogicalTable table : model.getLogicalTables() ) {
+      String physicalId = table.getPhysicalTable().getId();
+      if ( !tablesById.containsKey( physicalId ) ) {
+        tablesById.put( physicalId, table );
+      }
+      if ( !tablesById.containsKey( table.getId() ) ) {
+        tablesById.put( table.getId(), table );
+      }
+
+      boolean isOlapTable = table.getId().endsWith( BaseModelerWorkspaceHelper.OLAP_SUFFIX );
+      if ( ( perspective == ModelerPerspective.ANALYSIS ) == isOlapTable ) {
+        List<TableColumns> candidates = columnsByPhysicalTableId.get( physicalId );
+        if ( candidates == null ) {
+          candidates = new ArrayList<TableColumns>( 1 );
+          columnsByPhysicalTableId.put( physicalId, candidates );
+        }
+        candidates.add( columnsFor( table ) );
+      }
+    }
+  }
+
+  private TableColumns columnsFor( LogicalTable table ) {
+    TableColumns tableColumns = columnsByTableId.get( table.getId() );
+    if ( tableColumns == null || tableColumns.table != table ) {
+      tableColumns = new TableColumns( table );
+      columnsByTableId.put( table.getId(), tableColumns );
+    }
+    return tableColumns;
+  }
+
+  private static class TableColumns {
+    private final LogicalTable table;
+    private int indexedCount = -1;
+    private LogicalColumn lastIndexed;
+    private Map<String, LogicalColumn> byPhysicalId;
+    private Map<String, LogicalColumn> byName;
+    private String nameLocale;
+
+    TableColumns( LogicalTable table ) {
+      this.table = table;
+    }
+
+    Map<String, LogicalColumn> byPhysicalId() {
+      if ( byPhysicalId == null || isStale() ) {
+        byPhysicalId = new HashMap<String, LogicalColumn>();
+        for ( LogicalColumn lCol : table.getLogicalColumns() ) {
+          putIfAbsent( byPhysicalId, lCol.getPhysicalColumn().getId(), lCol );
+        }
+        byName = null;
+        indexedCount = table.getLogicalColumns().size();
+        lastIndexed = lastColumn();
+      }
+      return byPhysicalId;
+    }
+
+    private boolean isStale() {
+      return indexedCount != table.getLogicalColumns().size() || lastIndexed != lastColumn();
+    }
+
+    private LogicalColumn lastColumn() {
+      List<LogicalColumn> columns = table.getLogicalColumns();
+      return columns.isEmpty() ? null : columns.get( columns.size() - 1 );
+    }
+
+    Map<String, LogicalColumn> byName( String locale ) {
+      byPhysicalId();
+      if ( byName == null || ( locale == null ? nameLocale != null : !locale.equals( nameLocale ) ) ) {
+        byName = new HashMap<String, LogicalColumn>();
+        for ( LogicalColumn lCol : table.getLogicalColumns() ) {
+          putIfAbsent( byName, lCol.getName( locale ), lCol );
+        }
+        nameLocale = locale;
+      }
+      return byName;
+    }
+
+    void resetNames() {
+      byName = null;
+    }
+
+    void columnAdded( LogicalColumn column ) {
+      if ( byPhysicalId != null && indexedCount + 1 == table.getLogicalColumns().size()
+          && lastColumn() == column ) {
+        putIfAbsent( byPhysicalId, column.getPhysicalColumn().getId(), column );
+        if ( byName != null ) {
+          putIfAbsent( byName, column.getName( nameLocale ), column );
+        }
+        indexedCount++;
+        lastIndexed = column;
+      }
+    }
+
+    private static void putIfAbsent( Map<String, LogicalColumn> map, String key, LogicalColumn column ) {
+      if ( !map.containsKey( key ) ) {
+        map.put( key, column );
+      }
+    }
+  }
+}
@@ -0,0 +1,552 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.agilebi.modeler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pentaho.agilebi.modeler.geo.GeoContext;
+import org.pentaho.agilebi.modeler.geo.LocationRole;
+import org.pentaho.agilebi.modeler.nodes.AbstractMetaDataModelNode;
+import org.pentaho.agilebi.modeler.nodes.DimensionMetaData;
+import org.pentaho.agilebi.modeler.nodes.HierarchyMetaData;
+import org.pentaho.agilebi.modeler.nodes.LevelMetaData;
+import org.pentaho.agilebi.modeler.nodes.MainModelNode;
+import org.pentaho.agilebi.modeler.nodes.MeasureMetaData;
+import org.pentaho.agilebi.modeler.nodes.annotations.IMemberAnnotation;
+import org.pentaho.metadata.model.LogicalColumn;
+import org.pentaho.metadata.model.LogicalModel;
+import org.pentaho.metadata.model.LogicalTable;
+
+/**
+ * Name lookups for the levels, hierarchies and measures of a workspace's model and the columns of its analysis
+ * LogicalModel, so the model annotations can find what they apply to without scanning the model. Every lookup returns
+ * what a scan in tree order would have found first.
+ * <p>
+ * The index listens to the model ({@link MainModelNode.NodeListener}) and only reindexes the nodes that were added,
+ * removed, renamed or got another column or geo role, columns are indexed as they are appended to the analysis tables.
+ * Every indexed node and column keeps its position in tree order as an ordinal and the nodes found under a name are
+ * kept sorted by it, a lookup takes the first one. Adding or removing nodes renumbers the ordinals once, on the next
+ * lookup. Logical columns renamed along with their node are picked up through the node, code renaming a logical
+ * column directly tells the index with {@link #columnRenamed(LogicalColumn)}.
+ */
+public class ModelNameIndex implements MainModelNode.NodeListener {
+
+  private static final String LOCATION = ""; //$NON-NLS-1$
+
+  /**
+   * Changes queued before the index gives up on them and rebuilds.
+   */
+  private static final int MAX_PENDING = 256;
+
+  private final ModelerWorkspace workspace;
+
+  private MainModelNode indexedModel;
+  private String indexedLocale;
+  private final List<AbstractMetaDataModelNode<?>> pending = new ArrayList<AbstractMetaDataModelNode<?>>();
+  private boolean structureChanged;
+  private final Map<Object, Long> nodeOrdinals = new IdentityHashMap<Object, Long>();
+  private final Map<Object, List<Key>> keysByNode = new IdentityHashMap<Object, List<Key>>();
+  private final Map<Object, LogicalColumn> nodeColumns = new IdentityHashMap<Object, LogicalColumn>();
+  private final Map<LogicalColumn, List<AbstractMetaDataModelNode<?>>> nodesByColumn =
+      new IdentityHashMap<LogicalColumn, List<AbstractMetaDataModelNode<?>>>();
+  private final Names<LevelMetaData> levelsByColumnName = new Names<LevelMetaData>( nodeOrdinals );
+  private final Names<LevelMetaData> levelsByLowerColumnName = new Names<LevelMetaData>( nodeOrdinals );
+  private final Names<LevelMetaData> levelsByFormula = new Names<LevelMetaData>( nodeOrdinals );
+  private final Names<LevelMetaData> locationLevels = new Names<LevelMetaData>( nodeOrdinals );
+  private final Names<HierarchyMetaData> hierarchies = new Names<HierarchyMetaData>( nodeOrdinals );
+  private final Names<MeasureMetaData> measuresByColumnName = new Names<MeasureMetaData>( nodeOrdinals );
+  private final Names<MeasureMetaData> measuresByName = new Names<MeasureMetaData>( nodeOrdinals );
+
+  private LogicalModel indexedLogicalModel;
+  private String indexedColumnLocale;
+  private List<LogicalTable> indexedTables;
+  private int[] indexedTableSizes;
+  private final List<LogicalColumn> renamedColumns = new ArrayList<LogicalColumn>();
+  private final Map<LogicalColumn, String> columnNames = new IdentityHashMap<LogicalColumn, String>();
+  private final Map<Object, Long> columnOrdinals = new IdentityHashMap<Object, Long>();
+  private final Names<LogicalColumn> columnsByLowerName = new Names<LogicalColumn>( columnOrdinals );
+
+  ModelNameIndex( ModelerWorkspace workspace ) {
+    this.workspace = workspace;
+  }
+
+  /**
+   * Drops everything indexed so far.
+   */
+  public void invalidate() {
+    indexedModel = null;
+    indexedLogicalModel = null;
+  }
+
+  public void nodeAdded( AbstractMetaDataModelNode<?> node ) {
+    queue( node, true );
+  }
+
+  public void nodeRemoved( AbstractMetaDataModelNode<?> node ) {
+    queue( node, true );
+  }
+
+  public void nodeChanged( AbstractMetaDataModelNode<?> node ) {
+    queue( node, false );
+    if ( node instanceof ColumnBackedNode && ( (ColumnBackedNode) node ).getLogicalColumn() != null ) {
+      // renaming a level or measure renames its column
+      columnRenamed( ( (ColumnBackedNode) node ).getLogicalColumn() );
+    }
+  }
+
+  /**
+   * Tells the index that <code>column</code> was renamed, the levels and measures it backs and the column itself are
+   * reindexed on the next lookup.
+   */
+  public void columnRenamed( LogicalColumn column ) {
+    List<AbstractMetaDataModelNode<?>> nodes = nodesByColumn.get( column );
+    if ( nodes != null ) {
+      for ( AbstractMetaDataModelNode<?> node : nodes ) {
+        queue( node, false );
+      }
+    }
+    if ( indexedLogicalModel != null && columnNames.containsKey( column ) ) {
+      renamedColumns.add( column );
+    }
+  }
+
+  /**
+   * Changes are applied on the next lookup, by then a node being added has its parent.
+   */
+  private void queue( AbstractMetaDataModelNode<?> node, boolean structural ) {
+    if ( indexedModel == null ) {
+      return;
+    }
+    if ( pending.size() >= MAX_PENDING ) {
+      indexedModel = null;
+      pending.clear();
+      return;
+    }
+    pending.add( node );
+    structureChanged |= structural;
+  }
+
+  /**
+   * @return the first level whose logical column is named <code>name</code> ignoring case, or exactly
+   *         <code>beautifiedName</code>
+   */
+  public LevelMetaData findLevelByColumnName( String name, String beautifiedName ) {
+    ensureNodes();
+    LevelMetaData ignoringCase = levelsByLowerColumnName.first( name == null ? null : name.toLowerCase() );
+    LevelMetaData beautified = levelsByColumnName.first( beautifiedName );
+    return earlier( ignoringCase, beautified, nodeOrdinals );
+  }
+
+  /**
+   * @return the first measure whose logical column is named exactly <code>name</code> or <code>beautifiedName</code>
+   */
+  public MeasureMetaData findMeasureByColumnName( String name, String beautifiedName ) {
+    ensureNodes();
+    MeasureMetaData exact = measuresByColumnName.first( name );
+    MeasureMetaData beautified = measuresByColumnName.first( beautifiedName );
+    return earlier( exact, beautified, nodeOrdinals );
+  }
+
+  /**
+   * @return the first measure named <code>name</code>
+   */
+  public MeasureMetaData findMeasure( String name ) {
+    ensureNodes();
+    return measuresByName.first( name );
+  }
+
+  /**
+   * @return the hierarchy <code>hierarchy</code> of the first dimension named <code>dimension</code> that has one
+   */
+  public HierarchyMetaData findHierarchy( String dimension, String hierarchy ) {
+    ensureNodes();
+    return hierarchies.first( hierarchyKey( dimension, hierarchy ) );
+  }
+
+  /**
+   * @param formula
+   *          <code>[dimension].[level]</code>, or <code>[dimension.hierarchy].[level]</code> for a named hierarchy
+   * @return the first level the formula names
+   */
+  public LevelMetaData findLevelByFormula( String formula ) {
+    ensureNodes();
+    return levelsByFormula.first( formula );
+  }
+
+  /**
+   * @return the first level with the location geo role
+   */
+  public LevelMetaData findLocationLevel() {
+    ensureNodes();
+    return locationLevels.first( LOCATION );
+  }
+
+  /**
+   * @return the first column of the analysis LogicalModel named <code>name</code> or <code>beautifiedName</code>,
+   *         ignoring case
+   */
+  public LogicalColumn findLogicalColumn( String name, String beautifiedName ) {
+    if ( !ensureColumns() ) {
+      return null;
+    }
+    LogicalColumn byName = columnsByLowerName.first( name == null ? null : name.toLowerCase() );
+    LogicalColumn beautified = columnsByLowerName.first( beautifiedName == null ? null : beautifiedName.toLowerCase() );
+    return earlier( byName, beautified, columnOrdinals );
+  }
+
+  private void ensureNodes() {
+    MainModelNode model = workspace.getModel();
+    String locale = workspace.getWorkspaceHelper().getLocale();
+    if ( model != indexedModel || model.getNodeListener() != this || !equal( locale, indexedLocale ) ) {
+      if ( indexedModel != null && indexedModel != model && indexedModel.getNodeListener() == this ) {
+        indexedModel.setNodeListener( null );
+      }
+      clearNodes();
+      indexedModel = model;
+      indexedLocale = locale;
+      model.setNodeListener( this );
+      renumber();
+      for ( DimensionMetaData dimension : model.getDimensions() ) {
+        reindexTree( dimension );
+      }
+      for ( MeasureMetaData measure : model.getMeasures() ) {
+        reindexTree( measure );
+      }
+      return;
+    }
+    if ( pending.isEmpty() ) {
+      return;
+    }
+    if ( structureChanged ) {
+      // nodes keep their relative order, what is indexed stays sorted
+      renumber();
+    }
+    for ( AbstractMetaDataModelNode<?> node : pending ) {
+      reindexTree( node );
+    }
+    pending.clear();
+    structureChanged = false;
+  }
+
+  private void clearNodes() {
+    pending.clear();
+    structureChanged = false;
+    nodeOrdinals.clear();
+    keysByNode.clear();
+    nodeColumns.clear();
+    nodesByColumn.clear();
+    levelsByColumnName.clear();
+    levelsByLowerColumnName.clear();
+    levelsByFormula.clear();
+    locationLevels.clear();
+    hierarchies.clear();
+    measuresByColumnName.clear();
+    measuresByName.clear();
+  }
+
+  /**
+   * Numbers the hierarchies, levels and measures of the model in tree order, nodes not numbered are not part of it.
+   */
+  private void renumber() {
+    nodeOrdinals.clear();
+    long ordinal = 0;
+    for ( DimensionMetaData dimension : indexedModel.getDimensions() ) {
+      for ( HierarchyMetaData hierarchy : dimension ) {
+        nodeOrdinals.put( hierarchy, ordinal++ );
+        for ( LevelMetaData level : hierarchy ) {
+          nodeOrdinals.put( level, ordinal++ );
+        }
+      }
+    }
+    for ( MeasureMetaData measure : indexedModel.getMeasures() ) {
+      nodeOrdinals.put( measure, ordinal++ );
+    }
+  }
+
+  /**
+   * Reindexes <code>node</code> and the levels below it, a renamed dimension or hierarchy renames their formulas.
+   */
+  private void reindexTree( AbstractMetaDataModelNode<?> node ) {
+    if ( node instanceof DimensionMetaData ) {
+      for ( HierarchyMetaData hierarchy : (DimensionMetaData) node ) {
+        reindexTree( hierarchy );
+      }
+    } else if ( node instanceof HierarchyMetaData ) {
+      reindex( node );
+      for ( LevelMetaData level : (HierarchyMetaData) node ) {
+        reindex( level );
+      }
+    } else if ( node instanceof LevelMetaData || node instanceof MeasureMetaData ) {
+      reindex( node );
+    }
+  }
+
+  private void reindex( AbstractMetaDataModelNode<?> node ) {
+    List<Key> keys = keysByNode.remove( node );
+    if ( keys != null ) {
+      for ( Key key : keys ) {
+        key.names.remove( key.name, node );
+      }
+    }
+    LogicalColumn indexedColumn = nodeColumns.remove( node );
+    if ( indexedColumn != null ) {
+      List<AbstractMetaDataModelNode<?>> nodes = nodesByColumn.get( indexedColumn );
+      nodes.remove( indexOf( nodes, node ) );
+      if ( nodes.isEmpty() ) {
+        nodesByColumn.remove( indexedColumn );
+      }
+    }
+    if ( !nodeOrdinals.containsKey( node ) ) {
+      return;
+    }
+    if ( node instanceof HierarchyMetaData ) {
+      HierarchyMetaData hierarchy = (HierarchyMetaData) node;
+      put( hierarchy, hierarchies, hierarchyKey( hierarchy.getDimensionMetaData().getName(), hierarchy.getName() ) );
+    } else if ( node instanceof LevelMetaData ) {
+      LevelMetaData level = (LevelMetaData) node;
+      HierarchyMetaData hierarchy = level.getHierarchyMetaData();
+      String dimensionName = hierarchy.getDimensionMetaData().getName();
+      String prefix = hierarchy.getName() == null || hierarchy.getName().length() == 0
+          ? "[" + dimensionName + "].[" //$NON-NLS-1$ //$NON-NLS-2$
+          : "[" + dimensionName + "." + hierarchy.getName() + "].["; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+      put( level, levelsByFormula, prefix + level.getName() + "]" ); //$NON-NLS-1$
+      String columnName = indexColumnOf( level );
+      if ( columnName != null ) {
+        put( level, levelsByColumnName, columnName );
+        put( level, levelsByLowerColumnName, columnName.toLowerCase() );
+      }
+      if ( isLocation( level ) ) {
+        put( level, locationLevels, LOCATION );
+      }
+    } else if ( node instanceof MeasureMetaData ) {
+      MeasureMetaData measure = (MeasureMetaData) node;
+      put( measure, measuresByName, measure.getName() );
+      String columnName = indexColumnOf( measure );
+      if ( columnName != null ) {
+        put( measure, measuresByColumnName, columnName );
+      }
+    }
+  }
+
+  /**
+   * Remembers which column backs <code>node</code>, so renaming the column reindexes it.
+   *
+   * @return the name of the column
+   */
+  private String indexColumnOf( AbstractMetaDataModelNode<?> node ) {
+    LogicalColumn column = ( (ColumnBackedNode) node ).getLogicalColumn();
+    if ( column == null ) {
+      return null;
+    }
+    nodeColumns.put( node, column );
+    List<AbstractMetaDataModelNode<?>> nodes = nodesByColumn.get( column );
+    if ( nodes == null ) {
+      nodes = new ArrayList<AbstractMetaDataModelNode<?>>( 1 );
+      nodesByColumn.put( column, nodes );
+    }
+    nodes.add( node );
+    return column.getName( indexedLocale );
+  }
+
+  private <T> void put( T node, Names<T> names, String name ) {
+    if ( name == null ) {
+      return;
+    }
+    names.add( name, node );
+    List<Key> keys = keysByNode.get( node );
+    if ( keys == null ) {
+      keys = new ArrayList<Key>( 4 );
+      keysByNode.put( node, keys );
+    }
+    keys.add( new Key( names, name ) );
+  }
+
+  /**
+   * @return false if there is no analysis LogicalModel
+   */
+  private boolean ensureColumns() {
+    LogicalModel logicalModel = workspace.getLogicalModel( ModelerPerspective.ANALYSIS );
+    if ( logicalModel == null ) {
+      return false;
+    }
+    String locale = workspace.getWorkspaceHelper().getLocale();
+    if ( logicalModel != indexedLogicalModel || !equal( locale, indexedColumnLocale )
+        || !sameTables( logicalModel.getLogicalTables() ) || !indexAppendedColumns() ) {
+      indexedLogicalModel = logicalModel;
+      indexedColumnLocale = locale;
+      indexedTables = new ArrayList<LogicalTable>( logicalModel.getLogicalTables() );
+      indexedTableSizes = new int[indexedTables.size()];
+      renamedColumns.clear();
+      columnNames.clear();
+      columnOrdinals.clear();
+      columnsByLowerName.clear();
+      indexAppendedColumns();
+    }
+    for ( LogicalColumn column : renamedColumns ) {
+      String name = columnNames.get( column );
+      if ( name != null ) {
+        columnsByLowerName.remove( name.toLowerCase(), column );
+        indexColumn( column );
+      }
+    }
+    renamedColumns.clear();
+    return true;
+  }
+
+  private boolean sameTables( List<LogicalTable> tables ) {
+    if ( tables.size() != indexedTables.size() ) {
+      return false;
+    }
+    for ( int i = 0; i < tables.size(); i++ ) {
+      if ( tables.get( i ) != indexedTables.get( i ) ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Indexes the columns added to the end of the indexed tables.
+   *
+   * @return false if a table lost columns or got one elsewhere than at its end, the index has to be rebuilt
+   */
+  private boolean indexAppendedColumns() {
+    for ( int i = 0; i < indexedTables.size(); i++ ) {
+      List<LogicalColumn> columns = indexedTables.get( i ).getLogicalColumns();
+      if ( columns.size() < indexedTableSizes[i] ) {
+        return false;
+      }
+      for ( int j = indexedTableSizes[i]; j < columns.size(); j++ ) {
+        LogicalColumn column = columns.get( j );
+        if ( columnNames.containsKey( column ) ) {
+          return false;
+        }
+        // tables first, then columns within a table
+        columnOrdinals.put( column, ( (long) i << 32 ) | j );
+        indexColumn( column );
+      }
+      indexedTableSizes[i] = columns.size();
+    }
+    return true;
+  }
+
+  private void indexColumn( LogicalColumn column ) {
+    String name = column.getName( indexedColumnLocale );
+    columnNames.put( column, name );
+    if ( name != null ) {
+      columnsByLowerName.add( name.toLowerCase(), column );
+    }
+  }
+
+  private static <T> T earlier( T a, T b, Map<Object, Long> ordinals ) {
+    if ( a == null || b == null ) {
+      return a == null ? b : a;
+    }
+    return ordinals.get( a ) <= ordinals.get( b ) ? a : b;
+  }
+
+  private static <T> int indexOf( List<T> items, Object item ) {
+    for ( int i = 0; i < items.size(); i++ ) {
+      if ( items.get( i ) == item ) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private static String hierarchyKey( String dimension, String hierarchy ) {
+    return dimension + "\u0000" + hierarchy; //$NON-NLS-1$
+  }
+
+  private static boolean isLocation( LevelMetaData level ) {
+    IMemberAnnotation geoAnnotation = level.getMemberAnnotations().get( GeoContext.ANNOTATION_GEO_ROLE );
+    return geoAnnotation != null && LocationRole.LOCATION.equalsIgnoreCase( geoAnnotation.getName() );
+  }
+
+  private static boolean equal( String a, String b ) {
+    return a == null ? b == null : a.equals( b );
+  }
+
+  /**
+   * Names to what has them, names need not be unique. What has the same name is kept sorted by ordinal.
+   */
+  private static class Names<T> {
+    private final Map<String, List<T>> byName = new HashMap<String, List<T>>();
+    private final Map<Object, Long> ordinals;
+
+    Names( Map<Object, Long> ordinals ) {
+      this.ordinals = ordinals;
+    }
+
+    void add( String name, T value ) {
+      List<T> values = byName.get( name );
+      if ( values == null ) {
+        values = new ArrayList<T>( 1 );
+        byName.put( name, values );
+      }
+      long ordinal = ordinals.get( value );
+      int low = 0;
+      int high = values.size();
+      while ( low < high ) {
+        int middle = ( low + high ) >>> 1;
+        if ( ordinals.get( values.get( middle ) ) < ordinal ) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      values.add( low, value );
+    }
+
+    void remove( String name, Object value ) {
+      List<T> values = byName.get( name );
+      if ( values == null ) {
+        return;
+      }
+      int index = indexOf( values, value );
+      if ( index >= 0 ) {
+        values.remove( index );
+      }
+      if ( values.isEmpty() ) {
+        byName.remove( name );
+      }
+    }
+
+    /**
+     * @return the value named <code>name</code> with the lowest ordinal, or null
+     */
+    T first( String name ) {
+      List<T> values = name == null ? null : byName.get( name );
+      return values == null ? null : values.get( 0 );
+    }
+
+    void clear() {
+      byName.clear();
+    }
+  }
+
+  private static class Key {
+    private final Names<?> names;
+    private final String name;
+
+    Key( Names<?> names, String name ) {
+      this.names = names;
+      this.name = name;
+    }
+  }
+}
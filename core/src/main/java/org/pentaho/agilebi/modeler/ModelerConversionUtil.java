@@ -228,6 +228,7 @@ public class ModelerConversionUtil {
       copiedTable.setId( copiedTable.getId() + BaseModelerWorkspaceHelper.OLAP_SUFFIX );
 
       List<LogicalColumn> olapColumns = new ArrayList<LogicalColumn>();
+      UniqueIdRegistry olapColumnIds = new UniqueIdRegistry( olapColumns );
       // set up the columns too
       for ( LogicalColumn col : table.getLogicalColumns() ) {
         LogicalColumn olapCol = new LogicalColumn();
@@ -269,7 +270,7 @@ public class ModelerConversionUtil {
             "LC_" + ModelerWorkspace.toId( table.getPhysicalTable().getName( locale ) ) + "_"
                 + ModelerWorkspace.toId( col.getPhysicalColumn().getId() ) + BaseModelerWorkspaceHelper.OLAP_SUFFIX;
 
-        colId = BaseModelerWorkspaceHelper.uniquify( colId, olapColumns );
+        colId = olapColumnIds.allocate( colId );
 
         olapCol.setId( colId );
         olapColumns.add( olapCol );
@@ -15,7 +15,7 @@ package org.pentaho.agilebi.modeler;
 
 public class ModelerMessagesHolder {
 
-  private static IModelerMessages modelerMessages = new DefaultModelerMessages();
+  private static volatile IModelerMessages modelerMessages = new DefaultModelerMessages();
 
   public static IModelerMessages getMessages() {
     return modelerMessages;
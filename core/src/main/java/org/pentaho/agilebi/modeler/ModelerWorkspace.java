@@ -17,9 +17,14 @@ import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import org.pentaho.agilebi.modeler.geo.GeoContext;
 import org.pentaho.agilebi.modeler.nodes.AbstractMetaDataModelNode;
@@ -50,10 +55,15 @@ import org.pentaho.agilebi.modeler.format.DataFormatHolder;
 import org.pentaho.metadata.model.Category;
 import org.pentaho.metadata.model.Domain;
 import org.pentaho.metadata.model.IPhysicalColumn;
+import org.pentaho.metadata.model.IPhysicalModel;
 import org.pentaho.metadata.model.IPhysicalTable;
 import org.pentaho.metadata.model.LogicalColumn;
 import org.pentaho.metadata.model.LogicalModel;
 import org.pentaho.metadata.model.LogicalTable;
+import org.pentaho.metadata.model.SqlPhysicalColumn;
+import org.pentaho.metadata.model.SqlPhysicalModel;
+import org.pentaho.metadata.model.SqlPhysicalTable;
+import org.pentaho.metadata.model.concept.IConcept;
 import org.pentaho.metadata.model.concept.types.AggregationType;
 import org.pentaho.metadata.model.concept.types.LocalizedString;
 import org.pentaho.metadata.model.olap.OlapAnnotation;
@@ -75,6 +85,7 @@ import org.pentaho.ui.xul.stereotype.Bindable;
 public class ModelerWorkspace extends XulEventSourceAdapter implements Serializable {
 
   private static final long serialVersionUID = 2058731810283858276L;
+
   private AvailableItemCollection availableTables = new AvailableItemCollection();
 
   private MainModelNode model;
@@ -115,6 +126,28 @@ public class ModelerWorkspace extends XulEventSourceAdapter implements Serializa
 
   private transient ModelerTreeHelper currentModelerTreeHelper;
 
+  private transient LogicalModelIndex reportingIndex;
+  private transient LogicalModelIndex analysisIndex;
+  private transient Map<LogicalTable, UniqueIdRegistry> columnIdRegistries;
+  private transient DomainGenerationCache domainGenerationCache;
+  private transient ModelNameIndex modelNameIndex;
+
+  private transient int batchDepth;
+  private transient boolean batchOuterModelIsChanging;
+  private transient boolean batchModelChanged;
+  private transient boolean batchRelationalModelChanged;
+  private transient int batchModelChangeCount;
+  private transient int batchRelationalModelChangeCount;
+
+  // the Domain a staging workspace was copied from
+  private transient Domain stagedFrom;
+  // staged column copy to the column of stagedFrom it was copied from
+  private transient Map<LogicalColumn, LogicalColumn> stagedColumnSources;
+
+  private transient int domainDeferralDepth;
+  private transient boolean domainStale;
+  private transient boolean domainCurrent;
+
   public ModelerWorkspace( IModelerWorkspaceHelper helper ) {
     this( helper, null );
   }
@@ -474,15 +507,9 @@ public class ModelerWorkspace extends XulEventSourceAdapter implements Serializa
   }
 
   public LogicalColumn findLogicalColumn( String id ) {
-    LogicalColumn col = null;
-    for ( LogicalColumn c : getLogicalModel( currentModelerPerspective ).getLogicalTables().get( 0 )
-        .getLogicalColumns() ) {
-      if ( c.getName( workspaceHelper.getLocale() ).equals( id ) ) {
-        col = c;
-        break;
-      }
-    }
-    return col;
+    LogicalModel logicalModel = getLogicalModel( currentModelerPerspective );
+    return getLogicalModelIndex( currentModelerPerspective ).findColumnByName( logicalModel,
+        logicalModel.getLogicalTables().get( 0 ), id, workspaceHelper.getLocale() );
   }
 
   public LogicalTable findLogicalTable( IPhysicalTable table ) {
@@ -494,21 +521,82 @@ public class ModelerWorkspace extends XulEventSourceAdapter implements Serializa
     if ( logicalModel == null ) {
       return null;
     }
-    for ( LogicalTable logicalTable : logicalModel.getLogicalTables() ) {
-      if ( logicalTable.getPhysicalTable().equals( table )
-          || logicalTable.getPhysicalTable().getId().equals( table.getId() )
-          || logicalTable.getId().equals( table.getId() ) ) {
-
-        return logicalTable;
-        // boolean isOlapTable = logicalTable.getId().endsWith(BaseModelerWorkspaceHelper.OLAP_SUFFIX);
-        // if (perspective == ModelerPerspective.ANALYSIS && isOlapTable) {
-        // return logicalTable;
-        // } else if (perspective == ModelerPerspective.REPORTING && !isOlapTable) {
-        // return logicalTable;
-        // }
+    return getLogicalModelIndex( perspective ).findTable( logicalModel, table );
+  }
+
+  private LogicalModelIndex getLogicalModelIndex( ModelerPerspective perspective ) {
+    if ( perspective == ModelerPerspective.ANALYSIS ) {
+      if ( analysisIndex == null ) {
+        analysisIndex = new LogicalModelIndex( ModelerPerspective.ANALYSIS );
       }
+      return analysisIndex;
     }
-    return null;
+    if ( reportingIndex == null ) {
+      reportingIndex = new LogicalModelIndex( ModelerPerspective.REPORTING );
+    }
+    return reportingIndex;
+  }
+
+  /**
+   * Drops everything derived from the domain's logical models: the lookup indexes, the column id registries and the
+   * dimensions, measures and categories kept for the next populateDomain.
+   */
+  private void invalidateDomainCaches() {
+    if ( analysisIndex != null ) {
+      analysisIndex.invalidate();
+    }
+    if ( reportingIndex != null ) {
+      reportingIndex.invalidate();
+    }
+    if ( columnIdRegistries != null ) {
+      columnIdRegistries.clear();
+    }
+    if ( domainGenerationCache != null ) {
+      domainGenerationCache.clear();
+    }
+    if ( modelNameIndex != null ) {
+      modelNameIndex.invalidate();
+    }
+  }
+
+  /**
+   * @return name lookups for the model's nodes and the analysis model's columns, kept current as they change
+   */
+  public ModelNameIndex getModelNameIndex() {
+    if ( modelNameIndex == null ) {
+      modelNameIndex = new ModelNameIndex( this );
+    }
+    return modelNameIndex;
+  }
+
+  /**
+   * @return the domain objects generated for this workspace's nodes by the last populateDomain
+   */
+  DomainGenerationCache getDomainGenerationCache() {
+    if ( domainGenerationCache == null ) {
+      domainGenerationCache = new DomainGenerationCache();
+    }
+    return domainGenerationCache;
+  }
+
+  /**
+   * Allocates a logical column id based on <code>id</code> that no column of <code>table</code> uses, ignoring case.
+   * Same ids as {@link BaseModelerWorkspaceHelper#uniquify(String, List)}, but served from a registry kept per table.
+   * 
+   * @param id
+   * @param table
+   * @return a unique column id for the table
+   */
+  public String uniquifyColumnId( String id, LogicalTable table ) {
+    if ( columnIdRegistries == null ) {
+      columnIdRegistries = new IdentityHashMap<LogicalTable, UniqueIdRegistry>();
+    }
+    UniqueIdRegistry registry = columnIdRegistries.get( table );
+    if ( registry == null ) {
+      registry = new UniqueIdRegistry( table.getLogicalColumns() );
+      columnIdRegistries.put( table, registry );
+    }
+    return registry.allocate( id );
   }
 
   public void setModelSource( IModelerSource source ) {
@@ -524,13 +612,13 @@ public class ModelerWorkspace extends XulEventSourceAdapter implements Serializa
     this.model.getMeasures().addAll( fields );
   }
 
-  public void refresh( ModelerMode mode ) throws ModelerException {
+  public RefreshReport refresh( ModelerMode mode ) throws ModelerException {
     if ( source == null ) {
-      return;
+      return null;
     }
 
     Domain newDomain = source.generateDomain( mode == ModelerMode.ANALYSIS_AND_REPORTING );
-    refresh( newDomain );
+    return refresh( newDomain );
   }
 
   public boolean supportsOlap( Domain d ) {
@@ -543,7 +631,15 @@ public class ModelerWorkspace extends XulEventSourceAdapter implements Serializa
     }
   }
 
-  public void refresh( Domain newDomain ) throws ModelerException {
+  /**
+   * Replaces the workspace's domain with <code>newDomain</code>, rebinding every measure, level and field to the new
+   * physical columns when they are still present and clearing their logical column otherwise.
+   * 
+   * @param newDomain
+   * @return a report of the nodes that were rebound or invalidated
+   * @throws ModelerException
+   */
+  public RefreshReport refresh( Domain newDomain ) throws ModelerException {
 
     List<IAvailableItem> items = new ArrayList<IAvailableItem>();
     for ( IPhysicalTable table : newDomain.getPhysicalModels().get( 0 ).getPhysicalTables() ) {
@@ -571,27 +667,23 @@ public class ModelerWorkspace extends XulEventSourceAdapter implements Serializa
     // replace the domain with the new domain, which
     // makes sure the physical and logical columns are accurate
     domain = newDomain;
+    invalidateDomainCaches();
+
+    RefreshReport report = new RefreshReport();
+    AvailableFieldIndex fieldIndex = new AvailableFieldIndex( tablesList );
 
     for ( MeasureMetaData measure : model.getMeasures() ) {
-      boolean found = false;
       if ( measure.getLogicalColumn() != null ) {
-        inner:
-        for ( AvailableTable table : tablesList ) {
-          for ( AvailableField f : table.getAvailableFields() ) {
-            if ( f.getPhysicalColumn().getId().equals( measure.getLogicalColumn().getPhysicalColumn().getId() )
-                && f.getPhysicalColumn().getPhysicalTable().getId().equals(
-                    measure.getLogicalColumn().getPhysicalColumn().getPhysicalTable().getId() ) ) {
-              // the physical column backing this measure is still available, set it to the new one
-              measure.setLogicalColumn( createColumnBackedNode( f, currentModelerPerspective ).getLogicalColumn() );
-              found = true;
-              break inner;
-            }
-          }
-        }
-        if ( !found ) {
+        AvailableField f = fieldIndex.find( measure.getLogicalColumn() );
+        if ( f != null ) {
+          // the physical column backing this measure is still available, set it to the new one
+          measure.setLogicalColumn( createColumnBackedNode( f, currentModelerPerspective ).getLogicalColumn() );
+          report.addRebound( measure );
+        } else {
           // the physical column that backed this measure no longer exists in the model.
           // therefore, we must invalidate it's logical column
           measure.setLogicalColumn( null );
+          report.addInvalidated( measure );
         }
       }
     }
@@ -600,26 +692,20 @@ public class ModelerWorkspace extends XulEventSourceAdapter implements Serializa
       for ( DimensionMetaData dm : model.getDimensions() ) {
         for ( HierarchyMetaData hm : dm ) {
           for ( LevelMetaData lm : hm ) {
-            boolean found = false;
+            AvailableField f = null;
             if ( lm.getLogicalColumn() != null ) {
-              inner:
-              for ( AvailableTable table : tablesList ) {
-                for ( AvailableField f : table.getAvailableFields() ) {
-                  if ( f.getPhysicalColumn().getId().equals( lm.getLogicalColumn().getPhysicalColumn().getId() )
-                      && f.getPhysicalColumn().getPhysicalTable().getId().equals(
-                          lm.getLogicalColumn().getPhysicalColumn().getPhysicalTable().getId() ) ) {
-                    // the physical column backing this level is still available, it is ok
-
-                    lm.setLogicalColumn( createColumnBackedNode( f, currentModelerPerspective ).getLogicalColumn() );
-                    found = true;
-                    break inner;
-                  }
-                }
-              }
+              f = fieldIndex.find( lm.getLogicalColumn() );
             }
-            if ( !found ) {
+            if ( f != null ) {
+              // the physical column backing this level is still available, it is ok
+              lm.setLogicalColumn( createColumnBackedNode( f, currentModelerPerspective ).getLogicalColumn() );
+              report.addRebound( lm );
+            } else {
               // the physical column that backed this level no longer exists in the model.
               // therefore, we must invalidate it's logical column
+              if ( lm.getLogicalColumn() != null ) {
+                report.addInvalidated( lm );
+              }
               lm.setLogicalColumn( null );
             }
           }
@@ -631,26 +717,11 @@ public class ModelerWorkspace extends XulEventSourceAdapter implements Serializa
 
     for ( CategoryMetaData category : relationalModel.getCategories() ) {
       for ( FieldMetaData field : category ) {
-        boolean found = false;
-        if ( field.getLogicalColumn() != null ) {
-          inner:
-          for ( AvailableTable table : tablesList ) {
-            for ( AvailableField f : table.getAvailableFields() ) {
-              if ( f.getPhysicalColumn().getId().equals( field.getLogicalColumn().getPhysicalColumn().getId() )
-                  && f.getPhysicalColumn().getPhysicalTable().getId().equals(
-                      field.getLogicalColumn().getPhysicalColumn().getPhysicalTable().getId() ) ) {
-
-                // the physical column backing this field is still available, it is ok
-                found = true;
-                break inner;
-              }
-            }
-          }
-          if ( !found ) {
-            // the physical column that backed this field no longer exists in the model.
-            // therefore, we must invalidate it's logical column
-            field.setLogicalColumn( null );
-          }
+        if ( field.getLogicalColumn() != null && fieldIndex.find( field.getLogicalColumn() ) == null ) {
+          // the physical column that backed this field no longer exists in the model.
+          // therefore, we must invalidate it's logical column
+          field.setLogicalColumn( null );
+          report.addInvalidated( field );
         }
       }
     }
@@ -671,6 +742,313 @@ public class ModelerWorkspace extends XulEventSourceAdapter implements Serializa
     setModelIsChanging( false );
     setRelationalModelIsChanging( false );
 
+    return report;
+  }
+
+  /**
+   * Indexes the available fields by physical table id and physical column id so that refresh can reconcile each node
+   * with a single lookup instead of scanning every field of every table. A table's fields are only indexed, and so
+   * created, once a node refers to one of its columns.
+   */
+  private static class AvailableFieldIndex {
+    private Map<String, AvailableTable> tables = new HashMap<String, AvailableTable>();
+    private Map<String, Map<String, AvailableField>> fields = new HashMap<String, Map<String, AvailableField>>();
+
+    AvailableFieldIndex( List<AvailableTable> tableList ) {
+      for ( AvailableTable table : tableList ) {
+        String tableId = table.getPhysicalTable().getId();
+        if ( !tables.containsKey( tableId ) ) {
+          tables.put( tableId, table );
+        }
+      }
+    }
+
+    AvailableField find( LogicalColumn lCol ) {
+      IPhysicalColumn column = lCol.getPhysicalColumn();
+      String tableId = column.getPhysicalTable().getId();
+      Map<String, AvailableField> columns = fields.get( tableId );
+      if ( columns == null ) {
+        AvailableTable table = tables.get( tableId );
+        if ( table == null ) {
+          return null;
+        }
+        columns = new HashMap<String, AvailableField>();
+        for ( AvailableField f : table.getAvailableFields() ) {
+          // keep the first match, the same way the previous linear search did
+          if ( !columns.containsKey( f.getPhysicalColumn().getId() ) ) {
+            columns.put( f.getPhysicalColumn().getId(), f );
+          }
+        }
+        fields.put( tableId, columns );
+      }
+      return columns.get( column.getId() );
+    }
+  }
+
+  /**
+   * Reconciles the workspace with <code>newDomain</code> by applying only the physical differences between the two
+   * domains. Columns added, removed or retyped in existing tables are copied into the current Domain, along with the
+   * logical columns the new Domain has for added ones, and only the affected AvailableTables, measures, levels and
+   * fields are touched. Added or removed tables change the logical model and relationships, so they fall back to a full
+   * {@link #refresh(Domain)}, as do columns of tables that are not SQL tables.
+   * 
+   * @param newDomain
+   * @return the physical differences that were applied
+   * @throws ModelerException
+   */
+  public PhysicalModelDiff refreshIncremental( Domain newDomain ) throws ModelerException {
+    PhysicalModelDiff diff = PhysicalModelDiff.compare( domain, newDomain );
+    if ( domain == null || diff.hasTableChanges() ) {
+      refresh( newDomain );
+      return diff;
+    }
+    if ( diff.isEmpty() ) {
+      return diff;
+    }
+
+    Map<String, IPhysicalTable> currentTables = new HashMap<String, IPhysicalTable>();
+    for ( IPhysicalTable table : domain.getPhysicalModels().get( 0 ).getPhysicalTables() ) {
+      currentTables.put( table.getId(), table );
+    }
+    if ( !canCopyColumns( diff.getAddedColumns(), currentTables )
+        || !canCopyColumns( diff.getChangedColumns(), currentTables ) ) {
+      refresh( newDomain );
+      return diff;
+    }
+
+    setModelIsChanging( true );
+    setRelationalModelIsChanging( true );
+    try {
+      patchColumns( diff, newDomain, currentTables );
+    } finally {
+      setModelIsChanging( false );
+      setRelationalModelIsChanging( false );
+    }
+
+    return diff;
+  }
+
+  private void patchColumns( PhysicalModelDiff diff, Domain newDomain, Map<String, IPhysicalTable> currentTables ) {
+    Map<String, AvailableTable> touchedTables = new HashMap<String, AvailableTable>();
+
+    for ( IPhysicalColumn added : diff.getAddedColumns() ) {
+      IPhysicalTable table = currentTables.get( added.getPhysicalTable().getId() );
+      IPhysicalColumn column = copyColumn( added, table );
+      table.getPhysicalColumns().add( column );
+      addLogicalColumns( newDomain, column );
+      AvailableTable availableTable = findAvailableTable( table, touchedTables );
+      // fields not created yet are created from the patched physical table later on
+      if ( availableTable != null && availableTable.isAvailableFieldsPopulated() ) {
+        availableTable.getAvailableFields().add( new AvailableField( column ) );
+      }
+    }
+
+    Map<String, Set<String>> removedColumnIds = new HashMap<String, Set<String>>();
+    for ( IPhysicalColumn column : diff.getRemovedColumns() ) {
+      IPhysicalTable table = currentTables.get( column.getPhysicalTable().getId() );
+      table.getPhysicalColumns().remove( column );
+      AvailableTable availableTable = findAvailableTable( table, touchedTables );
+      if ( availableTable != null && availableTable.isAvailableFieldsPopulated() ) {
+        availableTable.getAvailableFields().remove( availableTable.findFieldByPhysicalColumn( column ) );
+      }
+      removeLogicalColumns( column );
+
+      Set<String> columnIds = removedColumnIds.get( table.getId() );
+      if ( columnIds == null ) {
+        columnIds = new HashSet<String>();
+        removedColumnIds.put( table.getId(), columnIds );
+      }
+      columnIds.add( column.getId() );
+    }
+
+    for ( IPhysicalColumn changed : diff.getChangedColumns() ) {
+      IPhysicalTable table = currentTables.get( changed.getPhysicalTable().getId() );
+      IPhysicalColumn column = copyColumn( changed, table );
+      List<IPhysicalColumn> columns = table.getPhysicalColumns();
+      for ( int i = 0; i < columns.size(); i++ ) {
+        if ( columns.get( i ).getId().equals( column.getId() ) ) {
+          columns.set( i, column );
+          break;
+        }
+      }
+      AvailableTable availableTable = findAvailableTable( table, touchedTables );
+      if ( availableTable != null && availableTable.isAvailableFieldsPopulated() ) {
+        AvailableField field = availableTable.findFieldByPhysicalColumn( column );
+        if ( field != null ) {
+          field.setPhysicalColumn( column );
+        }
+      }
+      rebindLogicalColumns( column );
+    }
+
+    for ( AvailableTable availableTable : touchedTables.values() ) {
+      if ( availableTable.isAvailableFieldsPopulated() ) {
+        // re-sorts the fields
+        availableTable.setAvailableFields( availableTable.getAvailableFields() );
+      }
+    }
+
+    if ( !removedColumnIds.isEmpty() ) {
+      invalidateRemovedColumns( removedColumnIds );
+    }
+    invalidateDomainCaches();
+  }
+
+  /**
+   * @return true if every column can be copied into its table of the current Domain
+   */
+  private static boolean canCopyColumns( List<IPhysicalColumn> columns, Map<String, IPhysicalTable> currentTables ) {
+    for ( IPhysicalColumn column : columns ) {
+      if ( !( column instanceof SqlPhysicalColumn )
+          || !( currentTables.get( column.getPhysicalTable().getId() ) instanceof SqlPhysicalTable ) ) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Copies a column of the new Domain into <code>table</code> of the current one, so the current Domain does not refer
+   * to objects of the new one.
+   */
+  private static IPhysicalColumn copyColumn( IPhysicalColumn column, IPhysicalTable table ) {
+    SqlPhysicalColumn copy = new SqlPhysicalColumn( (SqlPhysicalTable) table );
+    copy.setId( column.getId() );
+    copyProperties( column, copy );
+    return copy;
+  }
+
+  /**
+   * Adds the logical columns the new Domain has for a column added to it to the matching tables of the current one, as
+   * a full refresh would have.
+   */
+  private void addLogicalColumns( Domain newDomain, IPhysicalColumn column ) {
+    String tableId = column.getPhysicalTable().getId();
+    for ( LogicalModel newModel : newDomain.getLogicalModels() ) {
+      LogicalModel logicalModel = findById( domain.getLogicalModels(), newModel.getId() );
+      if ( logicalModel == null ) {
+        continue;
+      }
+      for ( LogicalTable newTable : newModel.getLogicalTables() ) {
+        LogicalTable table = findById( logicalModel.getLogicalTables(), newTable.getId() );
+        if ( table == null || !tableId.equals( table.getPhysicalTable().getId() ) ) {
+          continue;
+        }
+        for ( LogicalColumn newColumn : newTable.getLogicalColumns() ) {
+          if ( newColumn.getPhysicalColumn().getId().equals( column.getId() )
+              && tableId.equals( newColumn.getPhysicalColumn().getPhysicalTable().getId() ) ) {
+            LogicalColumn lCol = (LogicalColumn) newColumn.clone();
+            lCol.setLogicalTable( table );
+            lCol.setPhysicalColumn( column );
+            lCol.setId( uniquifyColumnId( lCol.getId(), table ) );
+            table.addLogicalColumn( lCol );
+          }
+        }
+      }
+    }
+  }
+
+  private static <T extends IConcept> T findById( List<T> concepts, String id ) {
+    for ( T concept : concepts ) {
+      if ( concept.getId().equals( id ) ) {
+        return concept;
+      }
+    }
+    return null;
+  }
+
+  private AvailableTable findAvailableTable( IPhysicalTable table, Map<String, AvailableTable> touchedTables ) {
+    AvailableTable availableTable = touchedTables.get( table.getId() );
+    if ( availableTable == null ) {
+      for ( AvailableTable t : availableTables.getAsAvailableTablesList() ) {
+        if ( t.isSameUnderlyingPhysicalTable( table ) ) {
+          availableTable = t;
+          touchedTables.put( table.getId(), t );
+          break;
+        }
+      }
+    }
+    return availableTable;
+  }
+
+  private void removeLogicalColumns( IPhysicalColumn column ) {
+    for ( LogicalModel logicalModel : domain.getLogicalModels() ) {
+      for ( LogicalTable table : logicalModel.getLogicalTables() ) {
+        if ( !table.getPhysicalTable().getId().equals( column.getPhysicalTable().getId() ) ) {
+          continue;
+        }
+        Iterator<LogicalColumn> columns = table.getLogicalColumns().iterator();
+        while ( columns.hasNext() ) {
+          if ( columns.next().getPhysicalColumn().getId().equals( column.getId() ) ) {
+            columns.remove();
+          }
+        }
+      }
+      for ( Category category : logicalModel.getCategories() ) {
+        Iterator<LogicalColumn> columns = category.getLogicalColumns().iterator();
+        while ( columns.hasNext() ) {
+          if ( isBackedBy( columns.next(), column ) ) {
+            columns.remove();
+          }
+        }
+      }
+    }
+  }
+
+  private static boolean isBackedBy( LogicalColumn lCol, IPhysicalColumn column ) {
+    IPhysicalColumn physicalColumn = lCol.getPhysicalColumn();
+    return physicalColumn != null && physicalColumn.getId().equals( column.getId() )
+        && physicalColumn.getPhysicalTable().getId().equals( column.getPhysicalTable().getId() );
+  }
+
+  private void rebindLogicalColumns( IPhysicalColumn column ) {
+    for ( LogicalModel logicalModel : domain.getLogicalModels() ) {
+      for ( LogicalTable table : logicalModel.getLogicalTables() ) {
+        if ( !table.getPhysicalTable().getId().equals( column.getPhysicalTable().getId() ) ) {
+          continue;
+        }
+        for ( LogicalColumn lCol : table.getLogicalColumns() ) {
+          if ( lCol.getPhysicalColumn().getId().equals( column.getId() ) ) {
+            lCol.setPhysicalColumn( column );
+            lCol.setDataType( column.getDataType() );
+          }
+        }
+      }
+    }
+  }
+
+  private void invalidateRemovedColumns( Map<String, Set<String>> removedColumnIds ) {
+    for ( MeasureMetaData measure : model.getMeasures() ) {
+      if ( isBackedByRemovedColumn( measure, removedColumnIds ) ) {
+        measure.setLogicalColumn( null );
+      }
+    }
+    for ( DimensionMetaData dm : model.getDimensions() ) {
+      for ( HierarchyMetaData hm : dm ) {
+        for ( LevelMetaData lm : hm ) {
+          if ( isBackedByRemovedColumn( lm, removedColumnIds ) ) {
+            lm.setLogicalColumn( null );
+          }
+        }
+      }
+    }
+    for ( CategoryMetaData category : relationalModel.getCategories() ) {
+      for ( FieldMetaData field : category ) {
+        if ( isBackedByRemovedColumn( field, removedColumnIds ) ) {
+          field.setLogicalColumn( null );
+        }
+      }
+    }
+  }
+
+  private boolean isBackedByRemovedColumn( ColumnBackedNode node, Map<String, Set<String>> removedColumnIds ) {
+    LogicalColumn lCol = node.getLogicalColumn();
+    if ( lCol == null ) {
+      return false;
+    }
+    IPhysicalColumn column = lCol.getPhysicalColumn();
+    Set<String> columnIds = removedColumnIds.get( column.getPhysicalTable().getId() );
+    return columnIds != null && columnIds.contains( column.getId() );
   }
 
   public String getDatabaseName() {
@@ -699,6 +1077,7 @@ public class ModelerWorkspace extends XulEventSourceAdapter implements Serializa
   // this method signature is intended to provide a simpler path for unit testing the upConvert method on its own
   protected void setDomain( Domain d, boolean upConvertDesired ) {
     this.domain = d;
+    invalidateDomainCaches();
     this.setModelIsChanging( true );
     this.setRelationalModelIsChanging( true );
     this.model.getDimensions().clear();
@@ -995,6 +1374,11 @@ public class ModelerWorkspace extends XulEventSourceAdapter implements Serializa
   }
 
   public void setModelIsChanging( boolean changing, boolean fireChanged ) {
+    if ( batchDepth > 0 ) {
+      // the model keeps changing until the batch is committed
+      batchModelChanged = true;
+      return;
+    }
     this.modelIsChanging = changing;
     if ( !changing && fireChanged ) {
       fireTablesChanged();
@@ -1009,6 +1393,10 @@ public class ModelerWorkspace extends XulEventSourceAdapter implements Serializa
   }
 
   public void setRelationalModelIsChanging( boolean changing, boolean fireChanged ) {
+    if ( batchDepth > 0 ) {
+      batchRelationalModelChanged = true;
+      return;
+    }
     this.modelIsChanging = changing;
     if ( !changing && fireChanged ) {
       fireTablesChanged();
@@ -1023,6 +1411,152 @@ public class ModelerWorkspace extends XulEventSourceAdapter implements Serializa
     return modelIsChanging;
   }
 
+  /**
+   * Runs <code>changes</code> as a single batch, see {@link #beginBatch()}. The batch is committed even if
+   * <code>changes</code> throws.
+   *
+   * @param changes
+   */
+  public void batch( Consumer<ModelerWorkspace> changes ) {
+    beginBatch();
+    try {
+      changes.accept( this );
+    } finally {
+      commitBatch();
+    }
+  }
+
+  /**
+   * Starts a batch of changes. Until the matching {@link #commitBatch()} the model and relational model suppress their
+   * events, and the table, validation and model changed notifications that would follow every add or
+   * <code>setModelIsChanging( false )</code> are held back. Batches nest, only the outermost commit notifies.
+   */
+  public void beginBatch() {
+    if ( batchDepth++ > 0 ) {
+      return;
+    }
+    batchOuterModelIsChanging = modelIsChanging;
+    batchModelChanged = false;
+    batchRelationalModelChanged = false;
+    batchModelChangeCount = model.getChangeCount();
+    batchRelationalModelChangeCount = relationalModel.getChangeCount();
+    modelIsChanging = true;
+    model.setSupressEvents( true );
+    relationalModel.setSupressEvents( true );
+  }
+
+  /**
+   * Ends the current batch. Committing the outermost batch validates the trees that changed once and fires a single
+   * model changed event for each of them.
+   *
+   * @throws IllegalStateException
+   *           if no batch was started
+   */
+  public void commitBatch() {
+    if ( batchDepth == 0 ) {
+      throw new IllegalStateException( "No batch to commit" ); //$NON-NLS-1$
+    }
+    if ( --batchDepth > 0 ) {
+      return;
+    }
+    // changes made directly on the nodes did not go through setModelIsChanging, they are counted by the models
+    boolean modelChanged = batchModelChanged || model.getChangeCount() != batchModelChangeCount;
+    boolean relationalModelChanged =
+        batchRelationalModelChanged || relationalModel.getChangeCount() != batchRelationalModelChangeCount;
+    modelIsChanging = batchOuterModelIsChanging;
+    model.setSupressEvents( false );
+    relationalModel.setSupressEvents( false );
+    if ( modelIsChanging || !( modelChanged || relationalModelChanged ) ) {
+      // an enclosing setModelIsChanging( true ) notifies when it is done
+      return;
+    }
+    fireTablesChanged();
+    if ( modelChanged ) {
+      model.validateTree();
+    }
+    if ( relationalModelChanged ) {
+      relationalModel.validateTree();
+    }
+    isValid();
+    if ( modelChanged ) {
+      fireModelChanged();
+    }
+    if ( relationalModelChanged ) {
+      fireRelationalModelChanged();
+    }
+  }
+
+  public boolean isInBatch() {
+    return batchDepth > 0;
+  }
+
+  /**
+   * Regenerates the Domain from the model through the workspace helper. Between {@link #deferDomainPopulation()} and
+   * the matching {@link #resumeDomainPopulation()} it only marks the Domain as out of date.
+   *
+   * @throws ModelerException
+   */
+  public void populateDomain() throws ModelerException {
+    if ( domainDeferralDepth > 0 ) {
+      domainStale = true;
+      domainCurrent = false;
+      return;
+    }
+    domainStale = false;
+    workspaceHelper.populateDomain( this );
+  }
+
+  /**
+   * Gives the Domain with the OLAP and reporting structures of the current model. While population is deferred the
+   * Domain is only regenerated on the first call and after changes, otherwise on every call.
+   *
+   * @throws ModelerException
+   */
+  public Domain getPopulatedDomain() throws ModelerException {
+    if ( domainDeferralDepth == 0 || !domainCurrent ) {
+      workspaceHelper.populateDomain( this );
+      domainStale = false;
+      domainCurrent = domainDeferralDepth > 0;
+    }
+    return getDomain();
+  }
+
+  /**
+   * Holds back {@link #populateDomain()} until the matching {@link #resumeDomainPopulation()}, so a run of changes
+   * regenerates the Domain once. Deferrals nest.
+   */
+  public void deferDomainPopulation() {
+    if ( domainDeferralDepth++ == 0 ) {
+      // the model may have been changed directly before
+      domainCurrent = false;
+    }
+  }
+
+  /**
+   * Ends a deferral. Ending the outermost one populates the Domain if it was asked for in the meantime and has not
+   * been brought up to date by {@link #getPopulatedDomain()} since.
+   *
+   * @throws ModelerException
+   * @throws IllegalStateException
+   *           if population was not deferred
+   */
+  public void resumeDomainPopulation() throws ModelerException {
+    if ( domainDeferralDepth == 0 ) {
+      throw new IllegalStateException( "Domain population was not deferred" ); //$NON-NLS-1$
+    }
+    if ( --domainDeferralDepth > 0 ) {
+      return;
+    }
+    domainCurrent = false;
+    if ( domainStale ) {
+      populateDomain();
+    }
+  }
+
+  public boolean isDomainPopulationDeferred() {
+    return domainDeferralDepth > 0;
+  }
+
   @Bindable
   public void setTemporary( boolean isTempoarary ) {
     this.isTemporary = isTempoarary;
@@ -1141,10 +1675,11 @@ public class ModelerWorkspace extends XulEventSourceAdapter implements Serializa
         colId += BaseModelerWorkspaceHelper.OLAP_SUFFIX;
       }
 
-      colId = BaseModelerWorkspaceHelper.uniquify( colId, lTab.getLogicalColumns() );
+      colId = uniquifyColumnId( colId, lTab );
       lCol.setId( colId );
 
       lTab.addLogicalColumn( lCol );
+      getLogicalModelIndex( perspective ).columnAdded( lTab, lCol );
     }
 
     node.setLogicalColumn( lCol );
@@ -1152,30 +1687,11 @@ public class ModelerWorkspace extends XulEventSourceAdapter implements Serializa
   }
 
   public LogicalColumn findLogicalColumn( IPhysicalColumn column, ModelerPerspective perspective ) {
-    LogicalColumn col = null;
-    IPhysicalTable physicalTable = column.getPhysicalTable();
     LogicalModel logicalModel = this.getLogicalModel( perspective );
     if ( logicalModel == null ) {
-      return col;
-    }
-    for ( LogicalTable table : logicalModel.getLogicalTables() ) {
-      if ( table.getPhysicalTable().getId().equals( physicalTable.getId() ) ) {
-        if ( ( perspective == ModelerPerspective.ANALYSIS && table.getId().endsWith(
-            BaseModelerWorkspaceHelper.OLAP_SUFFIX ) )
-            || ( perspective == ModelerPerspective.REPORTING && !table.getId().endsWith(
-                BaseModelerWorkspaceHelper.OLAP_SUFFIX ) ) ) {
-
-          for ( LogicalColumn lCol : table.getLogicalColumns() ) {
-            if ( lCol.getPhysicalColumn().getId().equals( column.getId() ) ) {
-              return lCol;
-            }
-          }
-
-        }
-      }
+      return null;
     }
-
-    return col;
+    return getLogicalModelIndex( perspective ).findColumn( logicalModel, column );
   }
 
   @Bindable
@@ -1206,22 +1722,257 @@ public class ModelerWorkspace extends XulEventSourceAdapter implements Serializa
     }
   }
 
+  /**
+   * Creates a workspace to auto model into without touching this one. It shares this workspace's helper, geo context
+   * and names. Its Domain, available tables and SQL physical models are copies of this workspace's, so the copy can be
+   * modeled while this workspace is edited. {@link #publishStagedColumns(ModelerWorkspace, ModelerPerspective)} moves
+   * the columns modeled there into this workspace's Domain.
+   *
+   * @return a workspace whose Domain can be edited off the UI thread
+   */
+  public ModelerWorkspace createStagingWorkspace() {
+    ModelerWorkspace staging = new ModelerWorkspace( workspaceHelper, geoContext );
+    staging.model.setName( model.getName() );
+    staging.relationalModel.setName( relationalModel.getName() );
+    staging.currentModellingMode = currentModellingMode;
+    staging.currentModelerPerspective = currentModelerPerspective;
+
+    Domain copy = new Domain();
+    copy.setId( domain.getId() );
+    Map<IPhysicalModel, IPhysicalModel> physicalModels = new IdentityHashMap<IPhysicalModel, IPhysicalModel>();
+    Map<IPhysicalTable, IPhysicalTable> physicalTables = new IdentityHashMap<IPhysicalTable, IPhysicalTable>();
+    for ( IPhysicalModel physicalModel : domain.getPhysicalModels() ) {
+      IPhysicalModel modelCopy = copyPhysicalModel( physicalModel, physicalTables );
+      physicalModels.put( physicalModel, modelCopy );
+      copy.addPhysicalModel( modelCopy );
+    }
+    staging.stagedColumnSources = new IdentityHashMap<LogicalColumn, LogicalColumn>();
+    copy.setLocales( domain.getLocales() );
+    for ( LogicalModel logicalModel : domain.getLogicalModels() ) {
+      LogicalModel modelCopy = new LogicalModel();
+      modelCopy.setId( logicalModel.getId() );
+      modelCopy.setDomain( copy );
+      IPhysicalModel physicalModel = physicalModels.get( logicalModel.getPhysicalModel() );
+      modelCopy.setPhysicalModel( physicalModel == null ? logicalModel.getPhysicalModel() : physicalModel );
+      copyProperties( logicalModel, modelCopy );
+      for ( LogicalTable table : logicalModel.getLogicalTables() ) {
+        LogicalTable tableCopy = new LogicalTable();
+        tableCopy.setId( table.getId() );
+        tableCopy.setLogicalModel( modelCopy );
+        tableCopy.setPhysicalTable( stagedPhysicalTable( table.getPhysicalTable(), physicalTables ) );
+        copyProperties( table, tableCopy );
+        for ( LogicalColumn column : table.getLogicalColumns() ) {
+          LogicalColumn columnCopy = (LogicalColumn) column.clone();
+          columnCopy.setLogicalTable( tableCopy );
+          columnCopy.setPhysicalColumn( stagedPhysicalColumn( column.getPhysicalColumn(), physicalTables ) );
+          tableCopy.addLogicalColumn( columnCopy );
+          staging.stagedColumnSources.put( columnCopy, column );
+        }
+        modelCopy.addLogicalTable( tableCopy );
+      }
+      copy.addLogicalModel( modelCopy );
+    }
+
+    List<IAvailableItem> items = new ArrayList<IAvailableItem>();
+    for ( AvailableTable table : availableTables.getAsAvailableTablesList() ) {
+      items.add( new AvailableTable( stagedPhysicalTable( table.getPhysicalTable(), physicalTables ),
+          table.isFactTable() ) );
+    }
+    staging.availableTables.setChildren( items );
+    staging.domain = copy;
+    staging.stagedFrom = domain;
+    return staging;
+  }
+
+  /**
+   * Copies a SQL physical model with its tables and columns, recording every copied table in
+   * <code>physicalTables</code>. Other physical models are only read while modeling and are shared.
+   */
+  private static IPhysicalModel copyPhysicalModel( IPhysicalModel physicalModel,
+      Map<IPhysicalTable, IPhysicalTable> physicalTables ) {
+    if ( !( physicalModel instanceof SqlPhysicalModel ) ) {
+      return physicalModel;
+    }
+    SqlPhysicalModel sqlModel = (SqlPhysicalModel) physicalModel;
+    SqlPhysicalModel modelCopy = new SqlPhysicalModel();
+    modelCopy.setId( sqlModel.getId() );
+    modelCopy.setDatasource( sqlModel.getDatasource() );
+    copyProperties( sqlModel, modelCopy );
+    for ( SqlPhysicalTable table : sqlModel.getPhysicalTables() ) {
+      SqlPhysicalTable tableCopy = new SqlPhysicalTable( modelCopy );
+      tableCopy.setId( table.getId() );
+      copyProperties( table, tableCopy );
+      for ( IPhysicalColumn column : table.getPhysicalColumns() ) {
+        SqlPhysicalColumn columnCopy = new SqlPhysicalColumn( tableCopy );
+        columnCopy.setId( column.getId() );
+        copyProperties( column, columnCopy );
+        tableCopy.getPhysicalColumns().add( columnCopy );
+      }
+      modelCopy.getPhysicalTables().add( tableCopy );
+      physicalTables.put( table, tableCopy );
+    }
+    return modelCopy;
+  }
+
+  private static IPhysicalTable stagedPhysicalTable( IPhysicalTable table,
+      Map<IPhysicalTable, IPhysicalTable> physicalTables ) {
+    IPhysicalTable copy = table == null ? null : physicalTables.get( table );
+    return copy == null ? table : copy;
+  }
+
+  private static IPhysicalColumn stagedPhysicalColumn( IPhysicalColumn column,
+      Map<IPhysicalTable, IPhysicalTable> physicalTables ) {
+    if ( column == null ) {
+      return null;
+    }
+    IPhysicalColumn copy = findPhysicalColumn( physicalTables.get( column.getPhysicalTable() ), column.getId() );
+    return copy == null ? column : copy;
+  }
+
+  private static IPhysicalColumn findPhysicalColumn( IPhysicalTable table, String id ) {
+    if ( table != null ) {
+      for ( IPhysicalColumn column : table.getPhysicalColumns() ) {
+        if ( column.getId().equals( id ) ) {
+          return column;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Replaces the columns of the tables of this workspace's <code>perspective</code> LogicalModel with those of the
+   * tables of <code>staging</code> with the same id, which must have been created by {@link #createStagingWorkspace()}
+   * from this workspace's current Domain. Columns staging kept are published as the originals, new ones are rebound
+   * to this workspace's physical columns. Tables added to either side since staging started are left alone.
+   *
+   * @param staging
+   * @param perspective
+   * @throws IllegalStateException
+   *           if this workspace's Domain was replaced since <code>staging</code> was created
+   */
+  public void publishStagedColumns( ModelerWorkspace staging, ModelerPerspective perspective ) {
+    if ( staging.stagedFrom != domain ) {
+      throw new IllegalStateException( "Domain was replaced while staging" ); //$NON-NLS-1$
+    }
+    LogicalModel logicalModel = getLogicalModel( perspective );
+    LogicalModel stagedModel = staging.getLogicalModel( perspective );
+    if ( logicalModel == null || stagedModel == null ) {
+      return;
+    }
+    Map<String, LogicalTable> stagedTables = new HashMap<String, LogicalTable>();
+    for ( LogicalTable stagedTable : stagedModel.getLogicalTables() ) {
+      stagedTables.put( stagedTable.getId(), stagedTable );
+    }
+    for ( LogicalTable table : logicalModel.getLogicalTables() ) {
+      LogicalTable stagedTable = stagedTables.get( table.getId() );
+      if ( stagedTable == null ) {
+        continue;
+      }
+      table.getLogicalColumns().clear();
+      for ( LogicalColumn column : stagedTable.getLogicalColumns() ) {
+        LogicalColumn source = staging.stagedColumnSources.get( column );
+        if ( source != null ) {
+          // kept while modeling, publish the original the rest of the workspace still refers to
+          table.getLogicalColumns().add( source );
+          continue;
+        }
+        column.setLogicalTable( table );
+        if ( column.getPhysicalColumn() != null ) {
+          IPhysicalColumn physicalColumn =
+              findPhysicalColumn( table.getPhysicalTable(), column.getPhysicalColumn().getId() );
+          // a column dropped from the live table keeps its staged copy, which carries the same properties
+          if ( physicalColumn != null ) {
+            column.setPhysicalColumn( physicalColumn );
+          }
+        }
+        table.getLogicalColumns().add( column );
+      }
+    }
+    invalidateDomainCaches();
+  }
+
+  private static void copyProperties( IConcept from, IConcept to ) {
+    for ( Map.Entry<String, Object> property : from.getProperties().entrySet() ) {
+      to.setProperty( property.getKey(), property.getValue() );
+    }
+  }
+
+  /**
+   * Turns a name into an id: replaces any of <code> .,:(){}[]</code> with an underscore, drops quotes and collapses
+   * runs of underscores. Done in a single pass since this runs at least twice for every column being modeled.
+   */
   public static final String toId( String name ) {
     if ( name == null ) {
       return name;
     }
-    name = name.replaceAll( "[ .,:(){}\\[\\]]", "_" ); //$NON-NLS-1$ //$NON-NLS-2$
-    name = name.replaceAll( "[\"`']", "" ); //$NON-NLS-1$ //$NON-NLS-2$
-    name = name.replaceAll( "_+", "_" ); //$NON-NLS-1$ //$NON-NLS-2$
-    return name;
+    return sanitizeId( name );
+  }
+
+  private static String sanitizeId( String name ) {
+    StringBuilder sb = null;
+    char last = 0;
+    int length = name.length();
+    for ( int i = 0; i < length; i++ ) {
+      char c = name.charAt( i );
+      char out = c;
+      boolean drop = false;
+      switch ( c ) {
+        case ' ':
+        case '.':
+        case ',':
+        case ':':
+        case '(':
+        case ')':
+        case '{':
+        case '}':
+        case '[':
+        case ']':
+          out = '_';
+          break;
+        case '"':
+        case '`':
+        case '\'':
+          drop = true;
+          break;
+        default:
+          break;
+      }
+      if ( !drop && out == '_' && last == '_' ) {
+        drop = true;
+      }
+      if ( sb == null && ( drop || out != c ) ) {
+        // first change, copy what has been kept so far
+        sb = new StringBuilder( length );
+        sb.append( name, 0, i );
+      }
+      if ( !drop ) {
+        if ( sb != null ) {
+          sb.append( out );
+        }
+        last = out;
+      }
+    }
+    return sb == null ? name : sb.toString();
   }
 
   public static final String removeQuotes( String name ) {
     if ( name == null ) {
       return name;
     }
-    name = name.replaceAll( "[\"`']", "" ); //$NON-NLS-1$ //$NON-NLS-2$
-    return name;
+    StringBuilder sb = null;
+    int length = name.length();
+    for ( int i = 0; i < length; i++ ) {
+      char c = name.charAt( i );
+      boolean quote = c == '"' || c == '`' || c == '\'';
+      if ( quote && sb == null ) {
+        sb = new StringBuilder( length );
+        sb.append( name, 0, i );
+      } else if ( !quote && sb != null ) {
+        sb.append( c );
+      }
+    }
+    return sb == null ? name : sb.toString();
   }
 
 }
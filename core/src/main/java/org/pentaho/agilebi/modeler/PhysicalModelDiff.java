@@ -0,0 +1,147 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.agilebi.modeler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pentaho.metadata.model.Domain;
+import org.pentaho.metadata.model.IPhysicalColumn;
+import org.pentaho.metadata.model.IPhysicalTable;
+
+/**
+ * Differences between the physical models of two Domains, matched by physical table id and physical column id. Added
+ * and changed columns refer to the columns of the newer Domain, removed tables and columns to the older one.
+ */
+public class PhysicalModelDiff {
+
+  private List<IPhysicalTable> addedTables = new ArrayList<IPhysicalTable>();
+  private List<IPhysicalTable> removedTables = new ArrayList<IPhysicalTable>();
+  private List<IPhysicalColumn> addedColumns = new ArrayList<IPhysicalColumn>();
+  private List<IPhysicalColumn> removedColumns = new ArrayList<IPhysicalColumn>();
+  private List<IPhysicalColumn> changedColumns = new ArrayList<IPhysicalColumn>();
+
+  /**
+   * Compares the first physical model of <code>current</code> with the first physical model of <code>updated</code>.
+   *
+   * @param current
+   *          the Domain being replaced, may be null
+   * @param updated
+   *          the freshly generated Domain
+   * @return the changes needed to turn <code>current</code> into <code>updated</code>
+   */
+  public static PhysicalModelDiff compare( Domain current, Domain updated ) {
+    PhysicalModelDiff diff = new PhysicalModelDiff();
+    Map<String, IPhysicalTable> currentTables = indexTables( current );
+    Map<String, IPhysicalTable> updatedTables = indexTables( updated );
+
+    for ( IPhysicalTable table : updatedTables.values() ) {
+      IPhysicalTable existing = currentTables.get( table.getId() );
+      if ( existing == null ) {
+        diff.addedTables.add( table );
+      } else {
+        diff.compareColumns( existing, table );
+      }
+    }
+    for ( IPhysicalTable table : currentTables.values() ) {
+      if ( !updatedTables.containsKey( table.getId() ) ) {
+        diff.removedTables.add( table );
+      }
+    }
+    return diff;
+  }
+
+  private static Map<String, IPhysicalTable> indexTables( Domain domain ) {
+    Map<String, IPhysicalTable> tables = new LinkedHashMap<String, IPhysicalTable>();
+    if ( domain != null && !domain.getPhysicalModels().isEmpty() ) {
+      for ( IPhysicalTable table : domain.getPhysicalModels().get( 0 ).getPhysicalTables() ) {
+        tables.put( table.getId(), table );
+      }
+    }
+    return tables;
+  }
+
+  private void compareColumns( IPhysicalTable existing, IPhysicalTable table ) {
+    Map<String, IPhysicalColumn> existingColumns = new LinkedHashMap<String, IPhysicalColumn>();
+    for ( IPhysicalColumn column : existing.getPhysicalColumns() ) {
+      existingColumns.put( column.getId(), column );
+    }
+    for ( IPhysicalColumn column : table.getPhysicalColumns() ) {
+      IPhysicalColumn previous = existingColumns.remove( column.getId() );
+      if ( previous == null ) {
+        addedColumns.add( column );
+      } else if ( isChanged( previous, column ) ) {
+        changedColumns.add( column );
+      }
+    }
+    removedColumns.addAll( existingColumns.values() );
+  }
+
+  /**
+   * @return true if the data type, aggregation, length or precision of the column differ
+   */
+  private static boolean isChanged( IPhysicalColumn previous, IPhysicalColumn column ) {
+    return previous.getDataType() != column.getDataType()
+        || previous.getAggregationType() != column.getAggregationType()
+        || !equal( previous.getProperty( BaseModelerWorkspaceHelper.COLUMN_LENGTH ),
+            column.getProperty( BaseModelerWorkspaceHelper.COLUMN_LENGTH ) )
+        || !equal( previous.getProperty( BaseModelerWorkspaceHelper.COLUMN_PRECISION ),
+            column.getProperty( BaseModelerWorkspaceHelper.COLUMN_PRECISION ) );
+  }
+
+  private static boolean equal( Object a, Object b ) {
+    return a == null ? b == null : a.equals( b );
+  }
+
+  public List<IPhysicalTable> getAddedTables() {
+    return Collections.unmodifiableList( addedTables );
+  }
+
+  public List<IPhysicalTable> getRemovedTables() {
+    return Collections.unmodifiableList( removedTables );
+  }
+
+  public List<IPhysicalColumn> getAddedColumns() {
+    return Collections.unmodifiableList( addedColumns );
+  }
+
+  public List<IPhysicalColumn> getRemovedColumns() {
+    return Collections.unmodifiableList( removedColumns );
+  }
+
+  /**
+   * @return the columns, as found in the newer Domain, whose data type, aggregation, length or precision changed
+   */
+  public List<IPhysicalColumn> getChangedColumns() {
+    return Collections.unmodifiableList( changedColumns );
+  }
+
+  public boolean hasTableChanges() {
+    return !addedTables.isEmpty() || !removedTables.isEmpty();
+  }
+
+  public boolean isEmpty() {
+    return !hasTableChanges() && addedColumns.isEmpty() && removedColumns.isEmpty() && changedColumns.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return "PhysicalModelDiff [addedTables=" + addedTables.size() + ", removedTables=" + removedTables.size()
+        + ", addedColumns=" + addedColumns.size() + ", removedColumns=" + removedColumns.size() + ", changedColumns="
+        + changedColumns.size() + "]";
+  }
+}
@@ -0,0 +1,56 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.agilebi.modeler;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of reconciling a workspace against a freshly generated Domain. Nodes whose physical column is still available
+ * are listed as rebound, nodes whose physical column disappeared had their logical column cleared and are listed as
+ * invalidated.
+ */
+public class RefreshReport implements Serializable {
+  private static final long serialVersionUID = -3125934067264981440L;
+
+  private List<ColumnBackedNode> reboundNodes = new ArrayList<ColumnBackedNode>();
+  private List<ColumnBackedNode> invalidatedNodes = new ArrayList<ColumnBackedNode>();
+
+  public void addRebound( ColumnBackedNode node ) {
+    reboundNodes.add( node );
+  }
+
+  public void addInvalidated( ColumnBackedNode node ) {
+    invalidatedNodes.add( node );
+  }
+
+  public List<ColumnBackedNode> getReboundNodes() {
+    return Collections.unmodifiableList( reboundNodes );
+  }
+
+  public List<ColumnBackedNode> getInvalidatedNodes() {
+    return Collections.unmodifiableList( invalidatedNodes );
+  }
+
+  public boolean hasInvalidatedNodes() {
+    return !invalidatedNodes.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return "RefreshReport [rebound=" + reboundNodes.size() + ", invalidated=" + invalidatedNodes.size() + "]";
+  }
+}
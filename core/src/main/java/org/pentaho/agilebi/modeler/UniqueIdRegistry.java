@@ -0,0 +1,114 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.agilebi.modeler;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.pentaho.metadata.model.concept.IConcept;
+
+/**
+ * Hands out ids that are unique, ignoring case, among a list of concepts such as the logical columns of a LogicalTable.
+ * Allocates the same ids as {@link BaseModelerWorkspaceHelper#uniquify(String, List)} (<code>id</code>, then
+ * <code>id_2</code>, <code>id_3</code>...) but remembers the next free suffix for every base id, so allocating is
+ * constant time instead of a rescan of the list per candidate.
+ * <p>
+ * Concepts appended to the list are picked up incrementally. Ids handed out stay reserved even if no concept is added
+ * with them, until the list is modified in any other way than appending, at which point the registry re-reads it.
+ */
+public class UniqueIdRegistry {
+
+  private final List<? extends IConcept> concepts;
+
+  private Set<String> usedIds = new HashSet<String>();
+  private Map<String, Integer> nextSuffixes = new HashMap<String, Integer>();
+  private int indexedCount;
+  private IConcept lastIndexed;
+
+  public UniqueIdRegistry( List<? extends IConcept> concepts ) {
+    this.concepts = concepts;
+    reindex();
+  }
+
+  /**
+   * Returns <code>id</code> if no concept uses it yet, otherwise the first <code>id_N</code> (N &gt;= 2) that is free.
+   * The returned id is reserved.
+   *
+   * @param id
+   * @return a unique id
+   */
+  public String allocate( String id ) {
+    sync();
+    String key = normalize( id );
+    if ( usedIds.add( key ) ) {
+      return id;
+    }
+    Integer next = nextSuffixes.get( key );
+    int conceptNr = next == null ? 2 : next.intValue();
+    String newId = id + "_" + conceptNr; //$NON-NLS-1$
+    while ( !usedIds.add( normalize( newId ) ) ) {
+      conceptNr++;
+      newId = id + "_" + conceptNr; //$NON-NLS-1$
+    }
+    nextSuffixes.put( key, conceptNr + 1 );
+    return newId;
+  }
+
+  public boolean isUsed( String id ) {
+    sync();
+    return usedIds.contains( normalize( id ) );
+  }
+
+  private void sync() {
+    int size = concepts.size();
+    if ( size == indexedCount && ( size == 0 || concepts.get( size - 1 ) == lastIndexed ) ) {
+      return;
+    }
+    if ( size > indexedCount && ( indexedCount == 0 || concepts.get( indexedCount - 1 ) == lastIndexed ) ) {
+      // only appended to since the last look, just register the new ones
+      for ( int i = indexedCount; i < size; i++ ) {
+        usedIds.add( normalize( concepts.get( i ).getId() ) );
+      }
+      indexedCount = size;
+      lastIndexed = concepts.get( size - 1 );
+      return;
+    }
+    reindex();
+  }
+
+  private void reindex() {
+    usedIds.clear();
+    nextSuffixes.clear();
+    for ( IConcept concept : concepts ) {
+      usedIds.add( normalize( concept.getId() ) );
+    }
+    indexedCount = concepts.size();
+    lastIndexed = indexedCount == 0 ? null : concepts.get( indexedCount - 1 );
+  }
+
+  /**
+   * Folds case per character the way {@link String#equalsIgnoreCase(String)} compares, independent of the default
+   * locale.
+   */
+  private static String normalize( String id ) {
+    char[] chars = id.toCharArray();
+    for ( int i = 0; i < chars.length; i++ ) {
+      chars[i] = Character.toLowerCase( Character.toUpperCase( chars[i] ) );
+    }
+    return new String( chars );
+  }
+}
@@ -99,6 +99,20 @@ public class GeoContext extends AbstractModelList<GeoRole> {
   }
 
   public List<DimensionMetaData> buildDimensions( ModelerWorkspace workspace ) {
+    return buildDimensions( workspace, workspace.getModel().getDimensions() );
+  }
+
+  /**
+   * Builds the geography dimensions for the workspace's available tables. A detected location field is set on the
+   * matching level among <code>existingDimensions</code>, which need not belong to the workspace's current model.
+   *
+   * @param workspace
+   * @param existingDimensions
+   *          the dimensions modeled so far
+   * @return the new geography dimensions
+   */
+  public List<DimensionMetaData> buildDimensions( ModelerWorkspace workspace,
+      List<DimensionMetaData> existingDimensions ) {
     List<DimensionMetaData> geoDims = new ArrayList<DimensionMetaData>();
     List<AvailableTable> tableList = workspace.getAvailableTables().getAsAvailableTablesList();
 
@@ -208,7 +222,7 @@ public class GeoContext extends AbstractModelList<GeoRole> {
       // if location was detected, must set an existing level in an existing dimension
       // to be the LocationRole and it must be aware of the fields that provide lat & long
       if ( locationFieldDetected && locationField != null && locationRole != null ) {
-        for ( DimensionMetaData existingDim : workspace.getModel().getDimensions() ) {
+        for ( DimensionMetaData existingDim : existingDimensions ) {
           for ( HierarchyMetaData existingHier : existingDim ) {
             for ( LevelMetaData existingLevel : existingHier ) {
               if ( locationField
@@ -410,12 +424,14 @@ public class GeoContext extends AbstractModelList<GeoRole> {
 
     ColumnBackedNode tmp = workspace.createColumnBackedNode( latField, ModelerPerspective.ANALYSIS );
     tmp.getLogicalColumn().setName( new LocalizedString( workspace.getWorkspaceHelper().getLocale(), LATITUDE ) );
+    workspace.getModelNameIndex().columnRenamed( tmp.getLogicalColumn() );
     MemberPropertyMetaData memberProp = workspace.createMemberPropertyForParentWithNode( locationLevel, tmp );
     memberProp.setName( LATITUDE );
     locationLevel.add( memberProp );
 
     tmp = workspace.createColumnBackedNode( lonField, ModelerPerspective.ANALYSIS );
     tmp.getLogicalColumn().setName( new LocalizedString( workspace.getWorkspaceHelper().getLocale(), LONGITUDE ) );
+    workspace.getModelNameIndex().columnRenamed( tmp.getLogicalColumn() );
     memberProp = workspace.createMemberPropertyForParentWithNode( locationLevel, tmp );
     memberProp.setName( LONGITUDE );
     locationLevel.add( memberProp );
@@ -0,0 +1,213 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.agilebi.modeler.models.annotations;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang.StringUtils;
+
+/**
+ * Orders the annotations of a group so every annotation comes after the ones creating what it refers to: the parent
+ * attribute and hierarchy of an attribute, the dimension of a dimension key or calculated member, the measures and
+ * dimensions named in a formula and the measure an update targets. Annotations not tied to each other keep their
+ * order in the group, annotations caught in a reference cycle follow in group order once nothing else is ready.
+ */
+class AnnotationApplyPlanner {
+
+  // [Dimension].[Member], "]]" escapes a bracket inside a name
+  private static final Pattern MEMBER_REFERENCE =
+      Pattern.compile( "\\[((?:[^\\]]|\\]\\])+)\\]\\s*\\.\\s*\\[((?:[^\\]]|\\]\\])+)\\]" ); //$NON-NLS-1$
+
+  private static final String DIMENSION = "dimension:"; //$NON-NLS-1$
+  private static final String HIERARCHY = "hierarchy:"; //$NON-NLS-1$
+  private static final String ATTRIBUTE = "attribute:"; //$NON-NLS-1$
+  private static final String MEASURE = "measure:"; //$NON-NLS-1$
+
+  private AnnotationApplyPlanner() {
+  }
+
+  /**
+   * @param annotations
+   *          annotations that all have an {@link AnnotationType}
+   * @return the same annotations, dependencies first
+   */
+  static List<ModelAnnotation> order( List<ModelAnnotation> annotations ) {
+    int size = annotations.size();
+    List<Set<String>> requires = new ArrayList<Set<String>>( size );
+    Map<String, List<Integer>> providers = new HashMap<String, List<Integer>>();
+    for ( int i = 0; i < size; i++ ) {
+      Set<String> provided = new LinkedHashSet<String>();
+      Set<String> required = new LinkedHashSet<String>();
+      collectKeys( annotations.get( i ).getAnnotation(), provided, required );
+      required.removeAll( provided );
+      requires.add( required );
+      for ( String key : provided ) {
+        List<Integer> indexes = providers.get( key );
+        if ( indexes == null ) {
+          indexes = new ArrayList<Integer>( 1 );
+          providers.put( key, indexes );
+        }
+        indexes.add( i );
+      }
+    }
+
+    List<Set<Integer>> dependents = new ArrayList<Set<Integer>>( size );
+    int[] inDegree = new int[size];
+    for ( int i = 0; i < size; i++ ) {
+      dependents.add( new LinkedHashSet<Integer>() );
+    }
+    for ( int i = 0; i < size; i++ ) {
+      for ( String key : requires.get( i ) ) {
+        List<Integer> indexes = providers.get( key );
+        if ( indexes == null ) {
+          continue;
+        }
+        for ( Integer provider : indexes ) {
+          if ( provider != i && dependents.get( provider ).add( i ) ) {
+            inDegree[i]++;
+          }
+        }
+      }
+    }
+
+    // ready annotations are taken in group order, so unrelated ones are not reshuffled
+    PriorityQueue<Integer> ready = new PriorityQueue<Integer>();
+    for ( int i = 0; i < size; i++ ) {
+      if ( inDegree[i] == 0 ) {
+        ready.add( i );
+      }
+    }
+    List<ModelAnnotation> ordered = new ArrayList<ModelAnnotation>( size );
+    boolean[] placed = new boolean[size];
+    while ( ordered.size() < size ) {
+      if ( ready.isEmpty() ) {
+        // a cycle, release its first annotation and let the application report what cannot be done
+        for ( int i = 0; i < size; i++ ) {
+          if ( !placed[i] ) {
+            inDegree[i] = 0;
+            ready.add( i );
+            break;
+          }
+        }
+      }
+      int next = ready.poll();
+      if ( placed[next] ) {
+        continue;
+      }
+      placed[next] = true;
+      ordered.add( annotations.get( next ) );
+      for ( Integer dependent : dependents.get( next ) ) {
+        if ( !placed[dependent] && --inDegree[dependent] == 0 ) {
+          ready.add( dependent );
+        }
+      }
+    }
+    return ordered;
+  }
+
+  private static void collectKeys( AnnotationType annotation, Set<String> provided, Set<String> required ) {
+    if ( annotation instanceof CreateAttribute ) {
+      CreateAttribute attribute = (CreateAttribute) annotation;
+      if ( StringUtils.isBlank( attribute.getDimension() ) ) {
+        return;
+      }
+      String hierarchy = hierarchyKey( attribute.getDimension(), attribute.getHierarchy() );
+      provided.add( DIMENSION + attribute.getDimension() );
+      add( provided, ATTRIBUTE + hierarchy, attribute.getName() );
+      if ( StringUtils.isBlank( attribute.getParentAttribute() ) ) {
+        // a top level attribute (re)creates the hierarchy the others attach to
+        provided.add( HIERARCHY + hierarchy );
+      } else {
+        required.add( HIERARCHY + hierarchy );
+        required.add( ATTRIBUTE + hierarchy + attribute.getParentAttribute() );
+      }
+    } else if ( annotation instanceof CreateMeasure ) {
+      add( provided, MEASURE, ( (CreateMeasure) annotation ).getName() );
+    } else if ( annotation instanceof UpdateMeasure ) {
+      UpdateMeasure update = (UpdateMeasure) annotation;
+      add( required, MEASURE, measureName( update.getMeasure() ) );
+      add( provided, MEASURE, update.getName() );
+    } else if ( annotation instanceof CreateDimensionKey ) {
+      add( required, DIMENSION, ( (CreateDimensionKey) annotation ).getDimension() );
+    } else if ( annotation instanceof LinkDimension ) {
+      add( provided, DIMENSION, ( (LinkDimension) annotation ).getName() );
+    } else if ( annotation instanceof CreateCalculatedMember ) {
+      CreateCalculatedMember member = (CreateCalculatedMember) annotation;
+      addCalculatedMember( member.getName(), member.getDimension(), member.getFormula(), provided, required );
+    } else if ( annotation instanceof UpdateCalculatedMember ) {
+      UpdateCalculatedMember member = (UpdateCalculatedMember) annotation;
+      add( required, MEASURE, measureName( member.getSourceCalculatedMeasure() ) );
+      addCalculatedMember( member.getName(), member.getDimension(), member.getFormula(), provided, required );
+    }
+  }
+
+  private static void addCalculatedMember( String name, String dimension, String formula, Set<String> provided,
+      Set<String> required ) {
+    if ( StringUtils.isBlank( dimension ) || AnnotationType.MEASURES_DIMENSION.equals( dimension ) ) {
+      add( provided, MEASURE, name );
+    } else {
+      required.add( DIMENSION + dimension );
+    }
+    if ( formula == null ) {
+      return;
+    }
+    Matcher matcher = MEMBER_REFERENCE.matcher( formula );
+    while ( matcher.find() ) {
+      String first = unescape( matcher.group( 1 ) );
+      if ( AnnotationType.MEASURES_DIMENSION.equals( first ) ) {
+        required.add( MEASURE + unescape( matcher.group( 2 ) ) );
+      } else {
+        required.add( DIMENSION + first );
+      }
+    }
+  }
+
+  /**
+   * @return the name in a <code>[Measures].[name]</code> reference, or the reference itself when it is a plain name
+   */
+  private static String measureName( String reference ) {
+    if ( reference == null ) {
+      return null;
+    }
+    Matcher matcher = MEMBER_REFERENCE.matcher( reference.trim() );
+    if ( matcher.matches() && AnnotationType.MEASURES_DIMENSION.equals( unescape( matcher.group( 1 ) ) ) ) {
+      return unescape( matcher.group( 2 ) );
+    }
+    return reference;
+  }
+
+  private static String hierarchyKey( String dimension, String hierarchy ) {
+    // an attribute without a hierarchy goes into the one named after its dimension
+    String name = StringUtils.isBlank( hierarchy ) ? dimension : hierarchy;
+    return "[" + dimension + "].[" + name + "]."; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+  }
+
+  private static void add( Set<String> keys, String prefix, String name ) {
+    if ( !StringUtils.isBlank( name ) ) {
+      keys.add( prefix + name );
+    }
+  }
+
+  private static String unescape( String name ) {
+    return name.replace( "]]", "]" ); //$NON-NLS-1$ //$NON-NLS-2$
+  }
+}
@@ -13,18 +13,14 @@
 
 package org.pentaho.agilebi.modeler.models.annotations;
 
-import org.apache.commons.beanutils.PropertyUtils;
-import org.apache.commons.lang.BooleanUtils;
 import org.apache.commons.lang.ClassUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.builder.EqualsBuilder;
 import org.apache.commons.lang.builder.HashCodeBuilder;
-import org.apache.commons.lang.math.NumberUtils;
 import org.pentaho.agilebi.modeler.BaseModelerWorkspaceHelper;
 import org.pentaho.agilebi.modeler.ModelerException;
 import org.pentaho.agilebi.modeler.ModelerPerspective;
 import org.pentaho.agilebi.modeler.ModelerWorkspace;
-import org.pentaho.agilebi.modeler.geo.LocationRole;
 import org.pentaho.agilebi.modeler.models.annotations.data.GeneratedbyMemberAnnotation;
 import org.pentaho.agilebi.modeler.models.annotations.util.KeyValueClosure;
 import org.pentaho.agilebi.modeler.nodes.DimensionMetaData;
@@ -32,14 +28,10 @@ import org.pentaho.agilebi.modeler.nodes.DimensionMetaDataCollection;
 import org.pentaho.agilebi.modeler.nodes.HierarchyMetaData;
 import org.pentaho.agilebi.modeler.nodes.LevelMetaData;
 import org.pentaho.agilebi.modeler.nodes.MeasureMetaData;
-import org.pentaho.agilebi.modeler.nodes.MeasuresCollection;
-import org.pentaho.agilebi.modeler.nodes.annotations.IMemberAnnotation;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.metadata.automodel.PhysicalTableImporter;
 import org.pentaho.metadata.model.LogicalColumn;
 import org.pentaho.metadata.model.LogicalModel;
-import org.pentaho.metadata.model.LogicalTable;
-import org.pentaho.metadata.model.concept.types.AggregationType;
 import org.pentaho.metadata.model.olap.OlapCube;
 import org.pentaho.metadata.model.olap.OlapDimension;
 import org.pentaho.metadata.model.olap.OlapDimensionUsage;
@@ -55,8 +47,6 @@ import java.io.Serializable;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -64,8 +54,6 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.logging.Logger;
 
-import static org.pentaho.agilebi.modeler.geo.GeoContext.ANNOTATION_GEO_ROLE;
-
 /**
  * @author Rowell Belen
  */
@@ -97,76 +85,33 @@ public abstract class AnnotationType implements Serializable {
     return fields;
   }
 
-  public List<String> getModelPropertyIds() {
-
-    List<String> ids = new ArrayList<String>();
-
-    List<Field> fields = findAllFields( new ArrayList<Field>(), this.getClass() );
-    for ( Field f : fields ) {
-      if ( f.isAnnotationPresent( ModelProperty.class ) ) {
-        ModelProperty mp = f.getAnnotation( ModelProperty.class );
-        ids.add( mp.id() );
-      }
-    }
+  private ModelPropertyDescriptors descriptors() {
+    return ModelPropertyDescriptors.of( this.getClass() );
+  }
 
-    return ids;
+  public List<String> getModelPropertyIds() {
+    return new ArrayList<String>( descriptors().getIds() );
   }
 
   public void setModelPropertyValueById( String id, Object value ) throws Exception {
-
-    List<Field> fields = findAllFields( new ArrayList<Field>(), this.getClass() );
-    for ( Field f : fields ) {
-      if ( f.isAnnotationPresent( ModelProperty.class ) ) {
-        ModelProperty mp = f.getAnnotation( ModelProperty.class );
-        if ( StringUtils.equals( mp.id(), id ) ) {
-          attemptAutoConvertAndAssign( f, value );
-        }
-      }
+    for ( ModelPropertyDescriptors.Descriptor descriptor : descriptors().findById( id ) ) {
+      attemptAutoConvertAndAssign( descriptor.getField(), value );
     }
   }
 
   public Object getModelPropertyValueById( String id ) throws Exception {
-
-    List<Field> fields = findAllFields( new ArrayList<Field>(), this.getClass() );
-    for ( Field f : fields ) {
-      if ( f.isAnnotationPresent( ModelProperty.class ) ) {
-        ModelProperty mp = f.getAnnotation( ModelProperty.class );
-        if ( StringUtils.equals( mp.id(), id ) ) {
-          return PropertyUtils.getProperty( this, f.getName() );
-        }
-      }
-    }
-
-    return null;
+    List<ModelPropertyDescriptors.Descriptor> found = descriptors().findById( id );
+    return found.isEmpty() ? null : found.get( 0 ).get( this );
   }
 
   public Object getModelPropertyValueByName( String name ) throws Exception {
-
-    List<Field> fields = findAllFields( new ArrayList<Field>(), this.getClass() );
-    for ( Field f : fields ) {
-      if ( f.isAnnotationPresent( ModelProperty.class ) ) {
-        ModelProperty mp = f.getAnnotation( ModelProperty.class );
-        if ( StringUtils.equals( mp.name(), name ) ) {
-          return PropertyUtils.getProperty( this, f.getName() );
-        }
-      }
-    }
-
-    return null;
+    List<ModelPropertyDescriptors.Descriptor> found = descriptors().findByName( name );
+    return found.isEmpty() ? null : found.get( 0 ).get( this );
   }
 
   public Class getModelPropertyNameClassType( String name ) {
-    List<Field> fields = findAllFields( new ArrayList<Field>(), this.getClass() );
-    for ( Field f : fields ) {
-      if ( f.isAnnotationPresent( ModelProperty.class ) ) {
-        ModelProperty mp = f.getAnnotation( ModelProperty.class );
-        if ( StringUtils.equals( mp.name(), name ) ) {
-          return f.getType();
-        }
-      }
-    }
-
-    return null;
+    List<ModelPropertyDescriptors.Descriptor> found = descriptors().findByName( name );
+    return found.isEmpty() ? null : found.get( 0 ).getField().getType();
   }
 
   public List<String> getModelPropertyNames() {
@@ -180,40 +125,16 @@ public abstract class AnnotationType implements Serializable {
     return propertyNames;
   }
 
+  /**
+   * @return the model properties sorted by their order
+   */
   public List<ModelProperty> getModelProperties() {
-    final List<ModelProperty> properties = new ArrayList<ModelProperty>();
-
-    List<Field> fields = findAllFields( new ArrayList<Field>(), this.getClass() );
-    for ( Field f : fields ) {
-      if ( f.isAnnotationPresent( ModelProperty.class ) ) {
-        ModelProperty mp = f.getAnnotation( ModelProperty.class );
-        properties.add( mp );
-      }
-    }
-
-    // Sort ModelProperty based on order
-    Collections.sort( properties, new Comparator<ModelProperty>() {
-      @Override
-      public int compare( ModelProperty m1, ModelProperty m2 ) {
-        if ( m1.order() <= m2.order() ) {
-          return -1;
-        }
-        return 1;
-      }
-    } );
-    return properties;
+    return new ArrayList<ModelProperty>( descriptors().getSortedProperties() );
   }
 
   public void setModelPropertyByName( String modelPropertyName, Object value ) throws Exception {
-
-    List<Field> fields = findAllFields( new ArrayList<Field>(), this.getClass() );
-    for ( Field f : fields ) {
-      if ( f.isAnnotationPresent( ModelProperty.class ) ) {
-        ModelProperty mp = f.getAnnotation( ModelProperty.class );
-        if ( StringUtils.equals( mp.name(), modelPropertyName ) ) {
-          attemptAutoConvertAndAssign( f, value );
-        }
-      }
+    for ( ModelPropertyDescriptors.Descriptor descriptor : descriptors().findByName( modelPropertyName ) ) {
+      attemptAutoConvertAndAssign( descriptor.getField(), value );
     }
   }
 
@@ -222,56 +143,28 @@ public abstract class AnnotationType implements Serializable {
     if ( field == null ) {
       return; // exit early
     }
+    ModelPropertyDescriptors.Descriptor descriptor = descriptors().forField( field );
 
     if ( value == null ) {
       try {
-        PropertyUtils.setProperty( this, field.getName(), value );
+        descriptor.set( this, value );
       } catch ( Exception e ) {
         // ignore
       }
       return; // exit early
     }
 
-    if ( value != null && ClassUtils.isAssignable( value.getClass(), field.getType(), true ) ) {
-      PropertyUtils.setProperty( this, field.getName(), value );
+    if ( ClassUtils.isAssignable( value.getClass(), field.getType(), true ) ) {
+      descriptor.set( this, value );
     } else {
 
       try {
-        if ( ClassUtils.isAssignable( field.getType(), Boolean.class, true ) ) {
-          PropertyUtils.setProperty( this, field.getName(), BooleanUtils.toBoolean( value.toString() ) );
-          return;
-        }
-
-        if ( ClassUtils.isAssignable( field.getType(), AggregationType.class, true ) ) {
-          AggregationType type = AggregationType.valueOf( value.toString() );
-          if ( type != null ) {
-            PropertyUtils.setProperty( this, field.getName(), type );
-          }
-          return;
-        }
-
-        if ( ClassUtils.isAssignable( field.getType(), ModelAnnotation.TimeType.class, true ) ) {
-          ModelAnnotation.TimeType type = ModelAnnotation.TimeType.valueOf( value.toString() );
-          if ( type != null ) {
-            PropertyUtils.setProperty( this, field.getName(), type );
-          }
-          return;
-        }
-
-        if ( ClassUtils.isAssignable( field.getType(), ModelAnnotation.GeoType.class, true ) ) {
-          ModelAnnotation.GeoType type = ModelAnnotation.GeoType.valueOf( value.toString() );
-          if ( type != null ) {
-            PropertyUtils.setProperty( this, field.getName(), type );
-          }
-          return;
-        }
-
-        if ( NumberUtils.isNumber( value.toString() ) ) {
-          Number number = NumberUtils.createNumber( value.toString() );
-          PropertyUtils.setProperty( this, field.getName(), number );
+        Object converted = descriptor.getConversion().convert( value );
+        if ( converted != null ) {
+          descriptor.set( this, converted );
         }
       } catch ( Exception e ) {
-        if ( value == null || StringUtils.isBlank( value.toString() ) ) {
+        if ( StringUtils.isBlank( value.toString() ) ) {
           return; // do not log
         }
         // ignore error but log
@@ -327,49 +220,15 @@ public abstract class AnnotationType implements Serializable {
   }
 
   protected LevelMetaData locateLevel( final ModelerWorkspace workspace, final String column ) throws ModelerException {
-    String locale = workspace.getWorkspaceHelper().getLocale();
-    workspace.getModel().getDimensions();
-    for ( DimensionMetaData dimensionMetaData : workspace.getModel().getDimensions() ) {
-      for ( HierarchyMetaData hierarchyMetaData : dimensionMetaData ) {
-        for ( LevelMetaData levelMetaData : hierarchyMetaData ) {
-          if ( levelMetaData.getLogicalColumn().getName( locale ).equalsIgnoreCase( column )
-              || levelMetaData.getLogicalColumn().getName( locale ).equals( beautify( column ) ) ) {
-            return levelMetaData;
-          }
-        }
-      }
-    }
-    return null;
+    return workspace.getModelNameIndex().findLevelByColumnName( column, beautify( column ) );
   }
 
   protected LevelMetaData locateLocationLevel( final ModelerWorkspace workspace ) throws ModelerException {
-    workspace.getModel().getDimensions();
-    for ( DimensionMetaData dimensionMetaData : workspace.getModel().getDimensions() ) {
-      for ( HierarchyMetaData hierarchyMetaData : dimensionMetaData ) {
-        for ( LevelMetaData levelMetaData : hierarchyMetaData ) {
-          IMemberAnnotation geoAnnotation = levelMetaData.getMemberAnnotations().get( ANNOTATION_GEO_ROLE );
-          if ( null != geoAnnotation && LocationRole.LOCATION.equalsIgnoreCase( geoAnnotation.getName() ) ) {
-            return levelMetaData;
-          }
-        }
-      }
-    }
-    return null;
+    return workspace.getModelNameIndex().findLocationLevel();
   }
 
   protected LogicalColumn locateLogicalColumn( final ModelerWorkspace workspace, final String columnName ) {
-    String locale = workspace.getWorkspaceHelper().getLocale();
-    LogicalModel logicalModel = workspace.getLogicalModel( ModelerPerspective.ANALYSIS );
-    logicalModel.getLogicalTables();
-    for ( LogicalTable logicalTable : logicalModel.getLogicalTables() ) {
-      for ( LogicalColumn logicalColumn : logicalTable.getLogicalColumns() ) {
-        if ( logicalColumn.getName( locale ).equalsIgnoreCase( columnName )
-            || logicalColumn.getName( locale ).equalsIgnoreCase( beautify( columnName ) ) ) {
-          return logicalColumn;
-        }
-      }
-    }
-    return null;
+    return workspace.getModelNameIndex().findLogicalColumn( columnName, beautify( columnName ) );
   }
 
   protected void removeAutoMeasure( final ModelerWorkspace workspace, final String column ) {
@@ -381,15 +240,7 @@ public abstract class AnnotationType implements Serializable {
   }
 
   private MeasureMetaData locateMeasure( final ModelerWorkspace workspace, final String column ) {
-    MeasuresCollection measures = workspace.getModel().getMeasures();
-    for ( MeasureMetaData measure : measures ) {
-      if ( measure.getLogicalColumn().getName( workspace.getWorkspaceHelper().getLocale() ).equals( column )
-          || measure.getLogicalColumn().getName( workspace.getWorkspaceHelper().getLocale() ).equals(
-          beautify( column ) ) ) {
-        return measure;
-      }
-    }
-    return null;
+    return workspace.getModelNameIndex().findMeasureByColumnName( column, beautify( column ) );
   }
 
   protected String beautify( final String column ) {
@@ -414,13 +265,16 @@ public abstract class AnnotationType implements Serializable {
   }
 
   /**
-   * Retrieves the olap cube from the workspace based on the cube name
+   * Retrieves the olap cube from the workspace based on the cube name, with the annotations applied so far
    *
    * @param modelerWorkspace workspace to search for the cube
    * @param cubeName         cube name
    * @return OlapCube otherwise null
+   * @throws ModelerException
    */
-  private OlapCube getOlapCube( final ModelerWorkspace modelerWorkspace, final String cubeName ) {
+  private OlapCube getOlapCube( final ModelerWorkspace modelerWorkspace, final String cubeName )
+      throws ModelerException {
+    modelerWorkspace.getPopulatedDomain();
     LogicalModel businessModel = modelerWorkspace.getLogicalModel( ModelerPerspective.ANALYSIS );
     List<OlapCube> olapCubes = (List<OlapCube>) businessModel.getProperty( OLAP_CUBES_PROPERTY );
     OlapCube olapCube = null;
@@ -399,16 +399,7 @@ public class CreateAttribute extends AnnotationType {
   }
 
   private HierarchyMetaData locateHierarchy( final ModelerWorkspace workspace, final String name ) {
-    for ( DimensionMetaData dimensionMetaData : workspace.getModel().getDimensions() ) {
-      if ( dimensionMetaData.getName().equals( getDimension() ) ) {
-        for ( HierarchyMetaData hierarchyMetaData : dimensionMetaData ) {
-          if ( hierarchyMetaData.getName().equals( Const.isEmpty( name ) ? getDimension() : name ) ) {
-            return hierarchyMetaData;
-          }
-        }
-      }
-    }
-    return null;
+    return workspace.getModelNameIndex().findHierarchy( getDimension(), Const.isEmpty( name ) ? getDimension() : name );
   }
 
   private boolean isAutoModeled( final ModelerWorkspace workspace ) {
@@ -460,7 +451,7 @@ public class CreateAttribute extends AnnotationType {
     removeAutoMeasure( workspace, column );
     removeAutoLevel( workspace, ordinalAutoLevel );
     removeAutoMeasure( workspace, getOrdinalField() );
-    workspace.getWorkspaceHelper().populateDomain( workspace );
+    workspace.populateDomain();
     return true;
   }
 
@@ -592,7 +583,7 @@ public class CreateAttribute extends AnnotationType {
       removeAutoMeasure( workspace, column );
       removeAutoLevel( workspace, ordinalAutoLevel );
       removeAutoMeasure( workspace, getOrdinalField() );
-      workspace.getWorkspaceHelper().populateDomain( workspace );
+      workspace.populateDomain();
       return true;
     }
   }
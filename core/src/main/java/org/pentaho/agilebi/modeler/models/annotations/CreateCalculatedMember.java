@@ -188,7 +188,8 @@ public class CreateCalculatedMember extends AnnotationType {
    */
   @SuppressWarnings( "unchecked" ) @Override
   public boolean apply( ModelerWorkspace workspace, IMetaStore metaStore ) throws ModelerException {
-    workspace.getWorkspaceHelper().populateDomain( workspace );
+    // the cube has to reflect the annotations applied so far
+    workspace.getPopulatedDomain();
     List<OlapCube> cubes = (List<OlapCube>) workspace.getLogicalModel( ModelerPerspective.ANALYSIS ).getProperty(
         "olap_cubes" );
     OlapCube olapCube = cubes.get( 0 );
@@ -13,14 +13,11 @@
 package org.pentaho.agilebi.modeler.models.annotations;
 
 import java.io.Serializable;
-import java.util.List;
 import java.util.Map;
 
 import mondrian.olap.MondrianDef;
 import org.apache.commons.lang.StringUtils;
-import org.pentaho.agilebi.modeler.BaseModelerWorkspaceHelper;
 import org.pentaho.agilebi.modeler.ModelerException;
-import org.pentaho.agilebi.modeler.ModelerPerspective;
 import org.pentaho.agilebi.modeler.ModelerWorkspace;
 import org.pentaho.agilebi.modeler.models.annotations.data.GeneratedbyMemberAnnotation;
 import org.pentaho.agilebi.modeler.models.annotations.util.MondrianSchemaHandler;
@@ -29,7 +26,6 @@ import org.pentaho.di.core.injection.Injection;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.metadata.automodel.PhysicalTableImporter;
 import org.pentaho.metadata.model.LogicalColumn;
-import org.pentaho.metadata.model.LogicalTable;
 import org.pentaho.metadata.model.SqlPhysicalColumn;
 import org.pentaho.metadata.model.concept.types.AggregationType;
 import org.pentaho.metadata.util.MondrianModelExporter;
@@ -220,42 +216,36 @@ public class CreateMeasure extends AnnotationType {
   @Override
   public boolean apply(
       final ModelerWorkspace workspace, final IMetaStore metaStore ) throws ModelerException {
-    List<LogicalTable> logicalTables = workspace.getLogicalModel( ModelerPerspective.ANALYSIS ).getLogicalTables();
-    for ( LogicalTable logicalTable : logicalTables ) {
-      List<LogicalColumn> logicalColumns = logicalTable.getLogicalColumns();
-      for ( LogicalColumn logicalColumn : logicalColumns ) {
-        if ( columnMatches( workspace, resolveField( workspace ), logicalColumn )
-            || columnMatches( workspace, PhysicalTableImporter.beautifyName( resolveField( workspace ) ),
-                logicalColumn ) ) {
-          String targetColumn =
-              (String) logicalColumn.getPhysicalColumn().getProperty( SqlPhysicalColumn.TARGET_COLUMN );
-          MeasureMetaData measureMetaData =
-              new MeasureMetaData( targetColumn,
-                getFormatString(),
-                getName(),
-                workspace.getWorkspaceHelper().getLocale() );
-
-          LogicalColumn columnClone = (LogicalColumn) logicalColumn.clone();
-          columnClone.setId( BaseModelerWorkspaceHelper.uniquify( columnClone.getId(), logicalColumns ) );
-          measureMetaData.setLogicalColumn( columnClone );
-          measureMetaData.setName( getName() );
-          measureMetaData.setDefaultAggregation( getAggregateType() );
-          measureMetaData.setHidden( isHidden() );
-          measureMetaData.getMemberAnnotations().put( GeneratedbyMemberAnnotation.GEBERATED_BY_STRING,
-              new GeneratedbyMemberAnnotation( this.getName() ) );
-          if ( getDescription() != null ) {
-            measureMetaData.setDescription( getDescription() );
-          }
-          removeAutoMeasure( workspace, resolveField( workspace ) );
-          removeMeasure( workspace, getName() );
-          workspace.getModel().getMeasures().add( measureMetaData );
-          removeAutoLevel( workspace, locateLevel( workspace, resolveField( workspace ) ) );
-          workspace.getWorkspaceHelper().populateDomain( workspace );
-          return true;
-        }
-      }
+    String field = resolveField( workspace );
+    LogicalColumn logicalColumn = locateLogicalColumn( workspace, field );
+    if ( logicalColumn == null ) {
+      return false;
+    }
+    String targetColumn =
+        (String) logicalColumn.getPhysicalColumn().getProperty( SqlPhysicalColumn.TARGET_COLUMN );
+    MeasureMetaData measureMetaData =
+        new MeasureMetaData( targetColumn,
+          getFormatString(),
+          getName(),
+          workspace.getWorkspaceHelper().getLocale() );
+
+    LogicalColumn columnClone = (LogicalColumn) logicalColumn.clone();
+    columnClone.setId( workspace.uniquifyColumnId( columnClone.getId(), logicalColumn.getLogicalTable() ) );
+    measureMetaData.setLogicalColumn( columnClone );
+    measureMetaData.setName( getName() );
+    measureMetaData.setDefaultAggregation( getAggregateType() );
+    measureMetaData.setHidden( isHidden() );
+    measureMetaData.getMemberAnnotations().put( GeneratedbyMemberAnnotation.GEBERATED_BY_STRING,
+        new GeneratedbyMemberAnnotation( this.getName() ) );
+    if ( getDescription() != null ) {
+      measureMetaData.setDescription( getDescription() );
     }
-    return false;
+    removeAutoMeasure( workspace, field );
+    removeMeasure( workspace, getName() );
+    workspace.getModel().getMeasures().add( measureMetaData );
+    removeAutoLevel( workspace, locateLevel( workspace, field ) );
+    workspace.populateDomain();
+    return true;
   }
 
   /**
@@ -307,12 +297,6 @@ public class CreateMeasure extends AnnotationType {
     return field;
   }
 
-  private boolean columnMatches( final ModelerWorkspace workspace, final String column,
-                                 final LogicalColumn logicalColumn ) {
-    return column.equalsIgnoreCase(
-        logicalColumn.getName( workspace.getWorkspaceHelper().getLocale() ) );
-  }
-
   @Override
   protected void removeAutoMeasure( final ModelerWorkspace workspace, final String column ) {
     LogicalColumn logicalColumn = locateLogicalColumn( workspace, column );
@@ -335,11 +319,9 @@ public class CreateMeasure extends AnnotationType {
   }
 
   private void removeMeasure( final ModelerWorkspace workspace, final String measureName ) {
-    for ( MeasureMetaData measure : workspace.getModel().getMeasures() ) {
-      if ( measure.getName().equals( measureName ) ) {
-        workspace.getModel().getMeasures().remove( measure );
-        break;
-      }
+    MeasureMetaData measure = workspace.getModelNameIndex().findMeasure( measureName );
+    if ( measure != null ) {
+      workspace.getModel().getMeasures().remove( measure );
     }
   }
 
@@ -103,7 +103,7 @@ public class LinkDimension extends AnnotationType {
       removeAutoLevel( factWorkspace, locateLevel( factWorkspace, field ) );
       removeAutoMeasure( factWorkspace, field );
       moveDimensionToModel( dimensionWorkspace, factWorkspace, field, dimKey );
-      factWorkspace.getWorkspaceHelper().populateDomain( factWorkspace );
+      factWorkspace.populateDomain();
       return true;
     } catch ( KettlePluginException e ) {
       throw new ModelerException( e );
@@ -148,65 +148,58 @@ public class ModelAnnotationGroup extends ArrayList<ModelAnnotation> {
   private interface AnnotateStrategy {
     boolean apply( ModelAnnotation modelAnnotation ) throws ModelerException;
 
-    Map<ApplyStatus, List<ModelAnnotation>> applyAll( ModelAnnotationGroup modelAnnotations ) throws ModelerException;
-
     boolean isEmptyModel();
   }
 
   public Map<ApplyStatus, List<ModelAnnotation>> applyAnnotations( final Document mondrianSchema )
     throws ModelerException {
-    return applyAnnotations( mondrianSchema, this );
-  }
-
-  private Map<ApplyStatus, List<ModelAnnotation>> applyAnnotations(
-      final Document mondrianSchema, final ModelAnnotationGroup toApply ) throws ModelerException {
     AnnotateStrategy strategy = new AnnotateStrategy() {
 
       @Override public boolean apply( final ModelAnnotation modelAnnotation ) throws ModelerException {
         return modelAnnotation.apply( mondrianSchema );
       }
 
-      @Override public Map<ApplyStatus, List<ModelAnnotation>> applyAll(
-        final ModelAnnotationGroup modelAnnotations ) throws ModelerException {
-        return applyAnnotations( mondrianSchema, modelAnnotations );
-      }
-
       @Override public boolean isEmptyModel() {
         return !mondrianSchema.hasChildNodes();
       }
     };
-    return applyAnnotations( strategy, toApply );
+    return applyAnnotations( strategy );
   }
 
   public Map<ApplyStatus, List<ModelAnnotation>> applyAnnotations(
       final ModelerWorkspace model, final IMetaStore metaStore )
       throws ModelerException {
-    return applyAnnotations( model, metaStore, this );
-  }
-
-  private Map<ApplyStatus, List<ModelAnnotation>> applyAnnotations(
-      final ModelerWorkspace model, final IMetaStore metaStore, final ModelAnnotationGroup toApply )
-      throws ModelerException {
     AnnotateStrategy strategy = new AnnotateStrategy() {
 
       @Override public boolean apply( final ModelAnnotation modelAnnotation ) throws ModelerException {
         return modelAnnotation.apply( model, metaStore );
       }
 
-      @Override public Map<ApplyStatus, List<ModelAnnotation>> applyAll(
-        final ModelAnnotationGroup modelAnnotations ) throws ModelerException {
-        return applyAnnotations( model, metaStore, modelAnnotations );
-      }
-
       @Override public boolean isEmptyModel() {
         return model.getModel().getDimensions().size() == 0 && model.getModel().getMeasures().size() == 0;
       }
     };
-    return applyAnnotations( strategy, toApply );
+    // one batch of model events and one Domain population for the whole group instead of one per annotation
+    model.beginBatch();
+    model.deferDomainPopulation();
+    try {
+      return applyAnnotations( strategy );
+    } finally {
+      // listeners of the batch get to see a Domain that reflects the group
+      try {
+        model.resumeDomainPopulation();
+      } finally {
+        model.commitBatch();
+      }
+    }
   }
 
-  private Map<ApplyStatus, List<ModelAnnotation>> applyAnnotations( AnnotateStrategy strategy,
-                                                                    final ModelAnnotationGroup toApply )
+  /**
+   * Applies the annotations in the order {@link AnnotationApplyPlanner} derives from what they refer to, so one pass
+   * normally does it. Failed annotations are retried for as long as that makes progress, which only takes another
+   * pass when they depend on each other in ways the planner can't see.
+   */
+  private Map<ApplyStatus, List<ModelAnnotation>> applyAnnotations( AnnotateStrategy strategy )
     throws ModelerException {
     if ( strategy.isEmptyModel() ) {
       //the model is empty so there is no use trying to apply annotations.
@@ -214,30 +207,36 @@ public class ModelAnnotationGroup extends ArrayList<ModelAnnotation> {
       return Collections.emptyMap();
     }
     Map<ApplyStatus, List<ModelAnnotation>> statusMap = initStatusMap();
-    ModelAnnotationGroup failedAnnotations = new ModelAnnotationGroup();
-    for ( ModelAnnotation modelAnnotation : toApply ) {
+    List<ModelAnnotation> toApply = new ArrayList<ModelAnnotation>( size() );
+    for ( ModelAnnotation modelAnnotation : this ) {
       if ( modelAnnotation.getAnnotation() == null ) {
         statusMap.get( ApplyStatus.NULL_ANNOTATION ).add( modelAnnotation );
-        continue;
+      } else {
+        toApply.add( modelAnnotation );
       }
-      boolean applied = strategy.apply( modelAnnotation );
-      if ( applied ) {
+    }
+    int attempted = toApply.size();
+    List<ModelAnnotation> failedAnnotations =
+        applyInOrder( strategy, AnnotationApplyPlanner.order( toApply ), statusMap );
+    while ( !failedAnnotations.isEmpty() && failedAnnotations.size() < attempted ) {
+      attempted = failedAnnotations.size();
+      failedAnnotations = applyInOrder( strategy, failedAnnotations, statusMap );
+    }
+    statusMap.get( ApplyStatus.FAILED ).addAll( failedAnnotations );
+    return statusMap;
+  }
+
+  private List<ModelAnnotation> applyInOrder( AnnotateStrategy strategy, List<ModelAnnotation> toApply,
+      Map<ApplyStatus, List<ModelAnnotation>> statusMap ) throws ModelerException {
+    List<ModelAnnotation> failedAnnotations = new ArrayList<ModelAnnotation>();
+    for ( ModelAnnotation modelAnnotation : toApply ) {
+      if ( strategy.apply( modelAnnotation ) ) {
         statusMap.get( ApplyStatus.SUCCESS ).add( modelAnnotation );
       } else {
         failedAnnotations.add( modelAnnotation );
       }
     }
-    if ( failedAnnotations.size() < toApply.size() ) {
-      Map<ApplyStatus, List<ModelAnnotation>> recurStatusMap = strategy.applyAll( failedAnnotations );
-      for ( ApplyStatus applyStatus : ApplyStatus.values() ) {
-        statusMap.get( applyStatus ).addAll( recurStatusMap.get( applyStatus ) );
-      }
-    } else if ( failedAnnotations.size() > 0 ) {
-      for ( ModelAnnotation failedAnnotation : failedAnnotations ) {
-        statusMap.get( ApplyStatus.FAILED ).add( failedAnnotation );
-      }
-    }
-    return statusMap;
+    return failedAnnotations;
   }
 
   private Map<ApplyStatus, List<ModelAnnotation>> initStatusMap() {
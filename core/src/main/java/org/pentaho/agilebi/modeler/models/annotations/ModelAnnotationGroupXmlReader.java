@@ -23,47 +23,42 @@ import org.pentaho.di.core.xml.XMLHandler;
 import org.pentaho.metadata.model.concept.types.DataType;
 import org.w3c.dom.Node;
 
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+/**
+ * Reads what {@link ModelAnnotationGroupXmlWriter} writes, either from a DOM node or streamed from an
+ * {@link InputStream} without building a DOM. Both take the child elements in one pass, looking them up by index would
+ * walk the child list from the start for each of them.
+ */
 public class ModelAnnotationGroupXmlReader {
 
   public ModelAnnotationGroup readModelAnnotationGroup( Node step ) throws KettleXMLException {
 
     ModelAnnotationGroup modelAnnotationGroup = new ModelAnnotationGroup();
     Node annotations = XMLHandler.getSubNode( step, "annotations" );
-    int annotationsCount = XMLHandler.countNodes( annotations, "annotation" );
-    for ( int i = 0; i < annotationsCount; i++ ) {
+    for ( Node annotation : children( annotations, "annotation" ) ) {
       try {
-        Node annotation = XMLHandler.getSubNodeByNr( annotations, "annotation", i );
         String name = XMLHandler.getTagValue( annotation, "name" );
         String field = XMLHandler.getTagValue( annotation, "field" );
         String type = XMLHandler.getTagValue( annotation, "type" );
 
-        Node properties = XMLHandler.getSubNode( annotation, "properties" );
-        int propertiesCount = XMLHandler.countNodes( properties, "property" );
-
-        // Create model annotation
-        ModelAnnotation<?> modelAnnotation = create( type, field );
-        if ( StringUtils.isNotBlank( name ) ) {
-          modelAnnotation.setName( name );
-        }
-
-        // Populate annotation properties
         Map<String, Serializable> map = new HashMap<String, Serializable>();
-        for ( int j = 0; j < propertiesCount; j++ ) {
-          Node property = XMLHandler.getSubNodeByNr( properties, "property", j );
+        for ( Node property : children( XMLHandler.getSubNode( annotation, "properties" ), "property" ) ) {
           String n = XMLHandler.getTagValue( property, "name" );
           String v = XMLHandler.getTagValue( property, "value" );
           map.put( n, v );
         }
-        modelAnnotation.populateAnnotation( map );
 
-        // Add to group
-        modelAnnotationGroup.add( modelAnnotation );
+        modelAnnotationGroup.add( create( type, field, name, map ) );
       } catch ( KettleException ke ) {
         //logError( ke.getMessage() );
       }
@@ -77,6 +72,38 @@ public class ModelAnnotationGroupXmlReader {
     return modelAnnotationGroup;
   }
 
+  /**
+   * Streams the first <code>annotations</code> element found in <code>in</code>, at any depth, into a group. Reads the
+   * same as {@link #readModelAnnotationGroup(Node)} on the DOM of the stream, without building it.
+   * 
+   * @param in
+   *          not closed
+   */
+  public ModelAnnotationGroup readModelAnnotationGroup( InputStream in ) throws KettleXMLException {
+    ModelAnnotationGroup modelAnnotationGroup = new ModelAnnotationGroup();
+    XMLStreamReader reader = null;
+    try {
+      reader = createInputFactory().createXMLStreamReader( in );
+      while ( reader.hasNext() ) {
+        if ( reader.next() == XMLStreamConstants.START_ELEMENT && isElement( reader, "annotations" ) ) {
+          readAnnotations( reader, modelAnnotationGroup );
+          break;
+        }
+      }
+    } catch ( XMLStreamException e ) {
+      throw new KettleXMLException( e );
+    } finally {
+      if ( reader != null ) {
+        try {
+          reader.close();
+        } catch ( XMLStreamException e ) {
+          // nothing left to read
+        }
+      }
+    }
+    return modelAnnotationGroup;
+  }
+
   public void readDataProviders( final Node node, final ModelAnnotationGroup group ) {
 
     if ( node == null || group == null ) {
@@ -85,12 +112,9 @@ public class ModelAnnotationGroupXmlReader {
 
     List<DataProvider> dataProviders = new ArrayList<DataProvider>();
     Node dataProvidersNode = XMLHandler.getSubNode( node, "data-providers" );
-    int dataProviderCount = XMLHandler.countNodes( dataProvidersNode, "data-provider" );
-    for ( int i = 0; i < dataProviderCount; i++ ) {
+    for ( Node dataProviderNode : children( dataProvidersNode, "data-provider" ) ) {
       try {
 
-        Node dataProviderNode = XMLHandler.getSubNodeByNr( dataProvidersNode, "data-provider", i );
-
         DataProvider dataProvider = new DataProvider();
         dataProvider.setName( XMLHandler.getTagValue( dataProviderNode, "name" ) );
         dataProvider.setSchemaName( XMLHandler.getTagValue( dataProviderNode, "schemaName" ) );
@@ -115,28 +139,262 @@ public class ModelAnnotationGroupXmlReader {
 
     List<ColumnMapping> columnMappings = new ArrayList<ColumnMapping>();
     Node columnMappingNodes = XMLHandler.getSubNode( dataProviderNode, "column-mappings" );
-    int columnMappingCount = XMLHandler.countNodes( columnMappingNodes, "column-mapping" );
-    for ( int i = 0; i < columnMappingCount; i++ ) {
+    for ( Node columnMappingNode : children( columnMappingNodes, "column-mapping" ) ) {
       try {
+        columnMappings.add( createColumnMapping( XMLHandler.getTagValue( columnMappingNode, "name" ),
+            XMLHandler.getTagValue( columnMappingNode, "columnName" ),
+            XMLHandler.getTagValue( columnMappingNode, "dataType" ) ) );
+      } catch ( Exception ke ) {
+        //logError( ke.getMessage() );
+      }
+    }
+    dataProvider.setColumnMappings( columnMappings );
+  }
 
-        Node columnMappingNode = XMLHandler.getSubNodeByNr( columnMappingNodes, "column-mapping", i );
+  /**
+   * @return the child elements of <code>parent</code> named <code>tag</code> ignoring case, as
+   *         {@link XMLHandler#countNodes(Node, String)} counts them
+   */
+  private static List<Node> children( Node parent, String tag ) {
+    List<Node> children = new ArrayList<Node>();
+    if ( parent == null ) {
+      return children;
+    }
+    for ( Node child = parent.getFirstChild(); child != null; child = child.getNextSibling() ) {
+      if ( tag.equalsIgnoreCase( child.getNodeName() ) ) {
+        children.add( child );
+      }
+    }
+    return children;
+  }
+
+  private static ModelAnnotation<?> create( String type, String field, String name, Map<String, Serializable> map )
+      throws KettleException {
+    // Create model annotation
+    ModelAnnotation<?> modelAnnotation = create( type, field );
+    if ( StringUtils.isNotBlank( name ) ) {
+      modelAnnotation.setName( name );
+    }
+
+    // Populate annotation properties
+    modelAnnotation.populateAnnotation( map );
+    return modelAnnotation;
+  }
 
-        ColumnMapping columnMapping = new ColumnMapping();
-        columnMapping.setName( XMLHandler.getTagValue( columnMappingNode, "name" ) );
-        columnMapping.setColumnName( XMLHandler.getTagValue( columnMappingNode, "columnName" ) );
+  private static ColumnMapping createColumnMapping( String name, String columnName, String dataType ) {
+    ColumnMapping columnMapping = new ColumnMapping();
+    columnMapping.setName( name );
+    columnMapping.setColumnName( columnName );
+    if ( StringUtils.isNotBlank( dataType ) ) {
+      columnMapping.setColumnDataType( DataType.valueOf( dataType ) );
+    }
+    return columnMapping;
+  }
 
-        String dataType = XMLHandler.getTagValue( columnMappingNode, "dataType" );
-        if ( StringUtils.isNotBlank( dataType ) ) {
-          columnMapping
-              .setColumnDataType( DataType.valueOf( dataType ) );
+  private static XMLInputFactory createInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty( XMLInputFactory.IS_COALESCING, Boolean.TRUE );
+    factory.setProperty( XMLInputFactory.SUPPORT_DTD, Boolean.FALSE );
+    factory.setProperty( XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE );
+    return factory;
+  }
+
+  /*
+   * The stream readers below start on the START_ELEMENT of what they read and leave the reader on its END_ELEMENT. Like
+   * the DOM lookups, element names match ignoring case and only the first of repeated single elements counts.
+   */
+
+  private static void readAnnotations( XMLStreamReader reader, ModelAnnotationGroup group )
+      throws XMLStreamException {
+    String sharedDimension = null;
+    String description = null;
+    boolean sharedDimensionRead = false;
+    boolean descriptionRead = false;
+    List<DataProvider> dataProviders = null;
+    while ( nextChild( reader ) ) {
+      if ( isElement( reader, "annotation" ) ) {
+        readAnnotation( reader, group );
+      } else if ( !sharedDimensionRead && isElement( reader, "sharedDimension" ) ) {
+        sharedDimension = readText( reader );
+        sharedDimensionRead = true;
+      } else if ( !descriptionRead && isElement( reader, "description" ) ) {
+        description = readText( reader );
+        descriptionRead = true;
+      } else if ( dataProviders == null && isElement( reader, "data-providers" ) ) {
+        dataProviders = readDataProviders( reader );
+      } else {
+        skipElement( reader );
+      }
+    }
+    group.setSharedDimension( BooleanUtils.toBoolean( sharedDimension ) );
+    group.setDescription( description );
+    group.setDataProviders( dataProviders == null ? new ArrayList<DataProvider>() : dataProviders );
+  }
+
+  private static void readAnnotation( XMLStreamReader reader, ModelAnnotationGroup group )
+      throws XMLStreamException {
+    Map<String, String> values = new HashMap<String, String>();
+    Map<String, Serializable> map = null;
+    while ( nextChild( reader ) ) {
+      if ( map == null && isElement( reader, "properties" ) ) {
+        map = readProperties( reader );
+      } else {
+        readValue( reader, values, "name", "field", "type" );
+      }
+    }
+    try {
+      group.add( create( values.get( "type" ), values.get( "field" ), values.get( "name" ),
+          map == null ? new HashMap<String, Serializable>() : map ) );
+    } catch ( KettleException ke ) {
+      //logError( ke.getMessage() );
+    }
+  }
+
+  private static Map<String, Serializable> readProperties( XMLStreamReader reader ) throws XMLStreamException {
+    Map<String, Serializable> map = new HashMap<String, Serializable>();
+    while ( nextChild( reader ) ) {
+      if ( isElement( reader, "property" ) ) {
+        Map<String, String> values = new HashMap<String, String>();
+        while ( nextChild( reader ) ) {
+          readValue( reader, values, "name", "value" );
         }
+        map.put( values.get( "name" ), values.get( "value" ) );
+      } else {
+        skipElement( reader );
+      }
+    }
+    return map;
+  }
 
-        columnMappings.add( columnMapping );
+  private static List<DataProvider> readDataProviders( XMLStreamReader reader ) throws XMLStreamException {
+    List<DataProvider> dataProviders = new ArrayList<DataProvider>();
+    while ( nextChild( reader ) ) {
+      if ( !isElement( reader, "data-provider" ) ) {
+        skipElement( reader );
+        continue;
+      }
+      Map<String, String> values = new HashMap<String, String>();
+      List<ColumnMapping> columnMappings = null;
+      while ( nextChild( reader ) ) {
+        if ( columnMappings == null && isElement( reader, "column-mappings" ) ) {
+          columnMappings = readColumnMappings( reader );
+        } else {
+          readValue( reader, values, "name", "schemaName", "tableName", "databaseMetaRef" );
+        }
+      }
+      DataProvider dataProvider = new DataProvider();
+      dataProvider.setName( values.get( "name" ) );
+      dataProvider.setSchemaName( values.get( "schemaName" ) );
+      dataProvider.setTableName( values.get( "tableName" ) );
+      dataProvider.setDatabaseMetaNameRef( values.get( "databaseMetaRef" ) );
+      dataProvider.setColumnMappings( columnMappings == null ? new ArrayList<ColumnMapping>() : columnMappings );
+      dataProviders.add( dataProvider );
+    }
+    return dataProviders;
+  }
+
+  private static List<ColumnMapping> readColumnMappings( XMLStreamReader reader ) throws XMLStreamException {
+    List<ColumnMapping> columnMappings = new ArrayList<ColumnMapping>();
+    while ( nextChild( reader ) ) {
+      if ( !isElement( reader, "column-mapping" ) ) {
+        skipElement( reader );
+        continue;
+      }
+      Map<String, String> values = new HashMap<String, String>();
+      while ( nextChild( reader ) ) {
+        readValue( reader, values, "name", "columnName", "dataType" );
+      }
+      try {
+        columnMappings.add(
+            createColumnMapping( values.get( "name" ), values.get( "columnName" ), values.get( "dataType" ) ) );
       } catch ( Exception ke ) {
         //logError( ke.getMessage() );
       }
     }
-    dataProvider.setColumnMappings( columnMappings );
+    return columnMappings;
+  }
+
+  /**
+   * Reads the current element's text into <code>values</code> under the first of <code>tags</code> it is named, unless
+   * that one was read before; skips it otherwise.
+   */
+  private static void readValue( XMLStreamReader reader, Map<String, String> values, String... tags )
+      throws XMLStreamException {
+    for ( String tag : tags ) {
+      if ( isElement( reader, tag ) ) {
+        if ( !values.containsKey( tag ) ) {
+          values.put( tag, readText( reader ) );
+          return;
+        }
+        break;
+      }
+    }
+    skipElement( reader );
+  }
+
+  /**
+   * Moves to the next child element of the element being read.
+   * 
+   * @return false, on the END_ELEMENT of the element being read, once there are no more
+   */
+  private static boolean nextChild( XMLStreamReader reader ) throws XMLStreamException {
+    while ( reader.hasNext() ) {
+      int event = reader.next();
+      if ( event == XMLStreamConstants.START_ELEMENT ) {
+        return true;
+      }
+      if ( event == XMLStreamConstants.END_ELEMENT ) {
+        return false;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return the text of the current element, null when it has none as with {@link XMLHandler#getTagValue(Node, String)}
+   */
+  private static String readText( XMLStreamReader reader ) throws XMLStreamException {
+    StringBuilder text = null;
+    int depth = 1;
+    while ( depth > 0 && reader.hasNext() ) {
+      switch ( reader.next() ) {
+        case XMLStreamConstants.START_ELEMENT:
+          depth++;
+          break;
+        case XMLStreamConstants.END_ELEMENT:
+          depth--;
+          break;
+        case XMLStreamConstants.CHARACTERS:
+        case XMLStreamConstants.CDATA:
+        case XMLStreamConstants.SPACE:
+          if ( depth == 1 ) {
+            if ( text == null ) {
+              text = new StringBuilder();
+            }
+            text.append( reader.getText() );
+          }
+          break;
+        default:
+          break;
+      }
+    }
+    return text == null ? null : text.toString();
+  }
+
+  private static void skipElement( XMLStreamReader reader ) throws XMLStreamException {
+    int depth = 1;
+    while ( depth > 0 && reader.hasNext() ) {
+      int event = reader.next();
+      if ( event == XMLStreamConstants.START_ELEMENT ) {
+        depth++;
+      } else if ( event == XMLStreamConstants.END_ELEMENT ) {
+        depth--;
+      }
+    }
+  }
+
+  private static boolean isElement( XMLStreamReader reader, String tag ) {
+    return tag.equalsIgnoreCase( reader.getLocalName() );
   }
 
   public static ModelAnnotation<?> create( String annotationType, String field )
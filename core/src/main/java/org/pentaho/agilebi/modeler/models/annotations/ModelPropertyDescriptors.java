@@ -0,0 +1,277 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.agilebi.modeler.models.annotations;
+
+import org.apache.commons.beanutils.MethodUtils;
+import org.apache.commons.beanutils.PropertyUtils;
+import org.apache.commons.lang.BooleanUtils;
+import org.apache.commons.lang.ClassUtils;
+import org.apache.commons.lang.math.NumberUtils;
+import org.pentaho.metadata.model.concept.types.AggregationType;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link ModelProperty} fields of an {@link AnnotationType} class with their bean accessors and value conversion,
+ * worked out once per class and shared by all its instances. Fields are listed the way
+ * {@link AnnotationType#findAllFields(List, Class)} finds them, the class' own fields before its superclasses'.
+ */
+final class ModelPropertyDescriptors {
+
+  private static final ClassValue<ModelPropertyDescriptors> DESCRIPTORS = new ClassValue<ModelPropertyDescriptors>() {
+    @Override
+    protected ModelPropertyDescriptors computeValue( Class<?> type ) {
+      return new ModelPropertyDescriptors( type );
+    }
+  };
+
+  private static final MethodType GETTER_TYPE = MethodType.methodType( Object.class, Object.class );
+  private static final MethodType SETTER_TYPE = MethodType.methodType( void.class, Object.class, Object.class );
+
+  private final Class<?> type;
+  private final List<Descriptor> descriptors = new ArrayList<Descriptor>();
+  private final Map<Field, Descriptor> byField = new HashMap<Field, Descriptor>();
+  private final Map<String, List<Descriptor>> byId = new HashMap<String, List<Descriptor>>();
+  private final Map<String, List<Descriptor>> byName = new HashMap<String, List<Descriptor>>();
+  private final List<String> ids;
+  private final List<ModelProperty> sortedProperties;
+
+  static ModelPropertyDescriptors of( Class<?> type ) {
+    return DESCRIPTORS.get( type );
+  }
+
+  private ModelPropertyDescriptors( Class<?> type ) {
+    this.type = type;
+    Map<String, PropertyDescriptor> beanProperties = new HashMap<String, PropertyDescriptor>();
+    for ( PropertyDescriptor beanProperty : PropertyUtils.getPropertyDescriptors( type ) ) {
+      beanProperties.put( beanProperty.getName(), beanProperty );
+    }
+
+    List<String> propertyIds = new ArrayList<String>();
+    List<ModelProperty> properties = new ArrayList<ModelProperty>();
+    for ( Class<?> c = type; c != null; c = c.getSuperclass() ) {
+      for ( Field field : c.getDeclaredFields() ) {
+        ModelProperty property = field.getAnnotation( ModelProperty.class );
+        if ( property == null ) {
+          continue;
+        }
+        Descriptor descriptor = new Descriptor( type, field, beanProperties.get( field.getName() ) );
+        descriptors.add( descriptor );
+        byField.put( field, descriptor );
+        add( byId, property.id(), descriptor );
+        add( byName, property.name(), descriptor );
+        propertyIds.add( property.id() );
+        properties.add( property );
+      }
+    }
+
+    // same sort AnnotationType has always used, so properties of equal order keep coming out the same way
+    Collections.sort( properties, new Comparator<ModelProperty>() {
+      @Override
+      public int compare( ModelProperty m1, ModelProperty m2 ) {
+        if ( m1.order() <= m2.order() ) {
+          return -1;
+        }
+        return 1;
+      }
+    } );
+    ids = Collections.unmodifiableList( propertyIds );
+    sortedProperties = Collections.unmodifiableList( properties );
+  }
+
+  private static void add( Map<String, List<Descriptor>> index, String key, Descriptor descriptor ) {
+    List<Descriptor> list = index.get( key );
+    if ( list == null ) {
+      list = new ArrayList<Descriptor>( 1 );
+      index.put( key, list );
+    }
+    list.add( descriptor );
+  }
+
+  /**
+   * @return the ids of all model properties, in field order
+   */
+  List<String> getIds() {
+    return ids;
+  }
+
+  /**
+   * @return all model properties sorted by {@link ModelProperty#order()}
+   */
+  List<ModelProperty> getSortedProperties() {
+    return sortedProperties;
+  }
+
+  List<Descriptor> findById( String id ) {
+    List<Descriptor> found = byId.get( id );
+    return found == null ? Collections.<Descriptor>emptyList() : found;
+  }
+
+  List<Descriptor> findByName( String name ) {
+    List<Descriptor> found = byName.get( name );
+    return found == null ? Collections.<Descriptor>emptyList() : found;
+  }
+
+  /**
+   * @return the descriptor of <code>field</code>, also for a field that is no model property
+   */
+  Descriptor forField( Field field ) {
+    Descriptor descriptor = byField.get( field );
+    if ( descriptor == null ) {
+      PropertyDescriptor beanProperty = null;
+      for ( PropertyDescriptor candidate : PropertyUtils.getPropertyDescriptors( type ) ) {
+        if ( candidate.getName().equals( field.getName() ) ) {
+          beanProperty = candidate;
+        }
+      }
+      descriptor = new Descriptor( type, field, beanProperty );
+    }
+    return descriptor;
+  }
+
+  /**
+   * How a value that is not assignable to a property's type is turned into one that is.
+   */
+  enum Conversion {
+    BOOLEAN {
+      Object convert( Object value ) {
+        return BooleanUtils.toBoolean( value.toString() );
+      }
+    },
+    AGGREGATION_TYPE {
+      Object convert( Object value ) {
+        return AggregationType.valueOf( value.toString() );
+      }
+    },
+    TIME_TYPE {
+      Object convert( Object value ) {
+        return ModelAnnotation.TimeType.valueOf( value.toString() );
+      }
+    },
+    GEO_TYPE {
+      Object convert( Object value ) {
+        return ModelAnnotation.GeoType.valueOf( value.toString() );
+      }
+    },
+    NUMBER {
+      Object convert( Object value ) {
+        return NumberUtils.isNumber( value.toString() ) ? NumberUtils.createNumber( value.toString() ) : null;
+      }
+    };
+
+    /**
+     * @return the converted value, null if there is nothing to assign
+     */
+    abstract Object convert( Object value );
+
+    static Conversion forType( Class<?> type ) {
+      if ( ClassUtils.isAssignable( type, Boolean.class, true ) ) {
+        return BOOLEAN;
+      }
+      if ( ClassUtils.isAssignable( type, AggregationType.class, true ) ) {
+        return AGGREGATION_TYPE;
+      }
+      if ( ClassUtils.isAssignable( type, ModelAnnotation.TimeType.class, true ) ) {
+        return TIME_TYPE;
+      }
+      if ( ClassUtils.isAssignable( type, ModelAnnotation.GeoType.class, true ) ) {
+        return GEO_TYPE;
+      }
+      return NUMBER;
+    }
+  }
+
+  /**
+   * One model property: its field, bean getter and setter and conversion.
+   */
+  static final class Descriptor {
+    private final Class<?> beanType;
+    private final Field field;
+    private final MethodHandle getter;
+    private final MethodHandle setter;
+    private final Conversion conversion;
+
+    private Descriptor( Class<?> beanType, Field field, PropertyDescriptor beanProperty ) {
+      this.beanType = beanType;
+      this.field = field;
+      this.getter = beanProperty == null ? null : toHandle( beanType, beanProperty.getReadMethod(), GETTER_TYPE );
+      this.setter = beanProperty == null ? null : toHandle( beanType, beanProperty.getWriteMethod(), SETTER_TYPE );
+      this.conversion = Conversion.forType( field.getType() );
+    }
+
+    private static MethodHandle toHandle( Class<?> beanType, Method method, MethodType handleType ) {
+      // the same accessible method PropertyUtils would call
+      Method accessible = method == null ? null : MethodUtils.getAccessibleMethod( beanType, method );
+      if ( accessible == null ) {
+        return null;
+      }
+      try {
+        return MethodHandles.lookup().unreflect( accessible ).asType( handleType );
+      } catch ( IllegalAccessException e ) {
+        return null;
+      }
+    }
+
+    Field getField() {
+      return field;
+    }
+
+    Conversion getConversion() {
+      return conversion;
+    }
+
+    Object get( Object bean ) throws Exception {
+      if ( getter == null ) {
+        throw new NoSuchMethodException( "Property '" + field.getName() + "' has no getter method in class '"
+            + beanType + "'" );
+      }
+      try {
+        return getter.invokeExact( bean );
+      } catch ( Exception e ) {
+        throw e;
+      } catch ( Error e ) {
+        throw e;
+      } catch ( Throwable t ) {
+        throw new Exception( t );
+      }
+    }
+
+    void set( Object bean, Object value ) throws Exception {
+      if ( setter == null ) {
+        throw new NoSuchMethodException( "Property '" + field.getName() + "' has no setter method in class '"
+            + beanType + "'" );
+      }
+      try {
+        setter.invokeExact( bean, value );
+      } catch ( Exception e ) {
+        throw e;
+      } catch ( Error e ) {
+        throw e;
+      } catch ( Throwable t ) {
+        throw new Exception( t );
+      }
+    }
+  }
+}
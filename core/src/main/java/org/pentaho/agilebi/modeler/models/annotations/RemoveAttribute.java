@@ -16,7 +16,6 @@ package org.pentaho.agilebi.modeler.models.annotations;
 import org.apache.commons.lang.StringUtils;
 import org.pentaho.agilebi.modeler.ModelerException;
 import org.pentaho.agilebi.modeler.ModelerWorkspace;
-import org.pentaho.agilebi.modeler.nodes.DimensionMetaData;
 import org.pentaho.agilebi.modeler.nodes.HierarchyMetaData;
 import org.pentaho.agilebi.modeler.nodes.LevelMetaData;
 import org.pentaho.di.i18n.BaseMessages;
@@ -60,7 +59,7 @@ public class RemoveAttribute extends AnnotationType {
 
     if ( existingLevel != null && workspace != null ) {
       removeLevel( workspace, existingLevel );
-      workspace.getWorkspaceHelper().populateDomain( workspace );
+      workspace.populateDomain();
       isApplied = true;
     }
 
@@ -72,30 +71,7 @@ public class RemoveAttribute extends AnnotationType {
       return null;
     }
 
-    for ( DimensionMetaData dimensionMetaData : workspace.getModel().getDimensions() ) {
-      for ( HierarchyMetaData hierarchyMetaData : dimensionMetaData ) {
-        for ( LevelMetaData levelMetaData : hierarchyMetaData ) {
-          StringBuffer formulaBuffer = new StringBuffer();
-          formulaBuffer.append( "[" );
-          formulaBuffer.append( dimensionMetaData.getName() );
-
-          if ( StringUtils.isNotEmpty( hierarchyMetaData.getName() ) ) {
-            formulaBuffer.append( "." );
-            formulaBuffer.append( hierarchyMetaData.getName() );
-          }
-
-          formulaBuffer.append( "].[" );
-          formulaBuffer.append( levelMetaData.getName(  ) );
-          formulaBuffer.append( "]" );
-
-          if ( formula.equals( formulaBuffer.toString() ) ) {
-            return levelMetaData;
-          }
-        }
-      }
-    }
-
-    return null;
+    return workspace.getModelNameIndex().findLevelByFormula( formula );
   }
 
   /**
@@ -45,4 +45,14 @@ public class SharedDimensionImportStrategy implements PhysicalTableImporter.Impo
     }
     return valueMeta.getName();
   }
+
+  @Override public boolean equals( Object obj ) {
+    return obj instanceof SharedDimensionImportStrategy
+        && dataProvider.equals( ( (SharedDimensionImportStrategy) obj ).dataProvider );
+  }
+
+  @Override public int hashCode() {
+    // DataProvider has no hashCode, equal providers share their table though
+    return dataProvider.getTableName() == null ? 0 : dataProvider.getTableName().hashCode();
+  }
 }
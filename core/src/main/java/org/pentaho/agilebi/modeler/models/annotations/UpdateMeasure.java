@@ -98,18 +98,11 @@ public class UpdateMeasure extends AnnotationType {
       return null;
     }
 
-    for ( MeasureMetaData measureMetaData : workspace.getModel().getMeasures() ) {
-      StringBuilder formulaBuilder = new StringBuilder();
-      formulaBuilder.append( "[" + MEASURES_DIMENSION + "].[" );
-      formulaBuilder.append( measureMetaData.getName() );
-      formulaBuilder.append( "]" );
-
-      if ( formula.equals( formulaBuilder.toString() ) ) {
-        return measureMetaData;
-      }
+    String prefix = "[" + MEASURES_DIMENSION + "].[";
+    if ( !formula.startsWith( prefix ) || !formula.endsWith( "]" ) ) {
+      return null;
     }
-
-    return null;
+    return workspace.getModelNameIndex().findMeasure( formula.substring( prefix.length(), formula.length() - 1 ) );
   }
 
   @Override
@@ -149,7 +142,7 @@ public class UpdateMeasure extends AnnotationType {
       existingMeasure.setName( name );
     }
 
-    workspace.getWorkspaceHelper().populateDomain( workspace );
+    workspace.populateDomain();
 
     return true;
   }
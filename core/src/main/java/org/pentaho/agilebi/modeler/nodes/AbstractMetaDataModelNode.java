@@ -15,6 +15,8 @@ package org.pentaho.agilebi.modeler.nodes;
 
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -24,6 +26,7 @@ import java.util.Set;
 import org.pentaho.agilebi.modeler.IDropTarget;
 import org.pentaho.agilebi.modeler.ModelerMessagesHolder;
 import org.pentaho.agilebi.modeler.ModelerWorkspace;
+import org.pentaho.agilebi.modeler.geo.GeoContext;
 import org.pentaho.agilebi.modeler.nodes.annotations.IMemberAnnotation;
 import org.pentaho.agilebi.modeler.propforms.ModelerNodePropertiesForm;
 import org.pentaho.ui.xul.stereotype.Bindable;
@@ -34,6 +37,12 @@ public abstract class AbstractMetaDataModelNode<T extends AbstractMetaDataModelN
 
   private static final long serialVersionUID = 1547202580713108254L;
 
+  /**
+   * Properties that only change how a node is displayed, firing them does not make the node dirty.
+   */
+  private static final Set<String> PRESENTATION_PROPERTIES = new HashSet<String>( Arrays.asList( "valid",
+      "validationMessagesString", "image", "classname", "altText" ) );
+
   protected boolean valid = true;
   protected transient Set<String> validationMessages = new HashSet<String>();
 
@@ -42,6 +51,9 @@ public abstract class AbstractMetaDataModelNode<T extends AbstractMetaDataModelN
   protected boolean expanded;
   protected DataRole dataRole;
   protected Map<String, IMemberAnnotation> annotations = new AnnotationMap();
+  private transient boolean clean;
+  private transient int changeCount;
+  private transient ValidationScheduler validationScheduler;
 
   protected String classname;
   protected String validClassname;
@@ -50,13 +62,13 @@ public abstract class AbstractMetaDataModelNode<T extends AbstractMetaDataModelN
 
   protected transient PropertyChangeListener validListener = new PropertyChangeListener() {
     public void propertyChange( PropertyChangeEvent arg0 ) {
-      validateNode();
+      requestValidation();
     }
   };
 
   protected transient PropertyChangeListener nameListener = new PropertyChangeListener() {
     public void propertyChange( PropertyChangeEvent arg0 ) {
-      validateNode();
+      requestValidation();
     }
   };
 
@@ -81,6 +93,8 @@ public abstract class AbstractMetaDataModelNode<T extends AbstractMetaDataModelN
 
   @Override
   public void onAdd( T child ) {
+    markDirty();
+    fireNodeAdded( child );
     child.addPropertyChangeListener( "name", nameListener );
     child.addPropertyChangeListener( "valid", validListener );
     child.addPropertyChangeListener( "children", childrenListener );
@@ -89,12 +103,29 @@ public abstract class AbstractMetaDataModelNode<T extends AbstractMetaDataModelN
 
   @Override
   public void onRemove( T child ) {
+    markDirty();
+    fireNodeRemoved( child );
     child.removePropertyChangeListener( validListener );
     child.removePropertyChangeListener( nameListener );
     child.removePropertyChangeListener( childrenListener );
     validateNode();
   }
 
+  /**
+   * Removes every child, letting the model's {@link MainModelNode.NodeListener} know about each one.
+   */
+  @Override
+  public void clear() {
+    List<T> removed = new ArrayList<T>();
+    for ( T child : children ) {
+      removed.add( child );
+    }
+    super.clear();
+    for ( T child : removed ) {
+      fireNodeRemoved( child );
+    }
+  }
+
   @Bindable
   public String getValidationMessagesString() {
     StringBuilder str = new StringBuilder(); //$NON-NLS-1$
@@ -119,6 +150,7 @@ public abstract class AbstractMetaDataModelNode<T extends AbstractMetaDataModelN
     }
     DataRole oldDataRole = this.dataRole;
     this.dataRole = dataRole;
+    markDirty();
     if ( suppressEvents ) {
       return;
     }
@@ -138,11 +170,100 @@ public abstract class AbstractMetaDataModelNode<T extends AbstractMetaDataModelN
 
   @Override
   protected void fireCollectionChanged() {
+    markDirty();
     if ( this.suppressEvents == false ) {
       super.fireCollectionChanged();
     }
   }
 
+  @Override
+  protected void firePropertyChange( String attr, Object previousVal, Object newVal ) {
+    if ( !PRESENTATION_PROPERTIES.contains( attr ) ) {
+      markDirty();
+    }
+    if ( "name".equals( attr ) || "logicalColumn".equals( attr ) ) { //$NON-NLS-1$ //$NON-NLS-2$
+      fireNodeChanged();
+    }
+    super.firePropertyChange( attr, previousVal, newVal );
+  }
+
+  /**
+   * A node is dirty when it or one of its descendants changed since the domain objects were last generated from it.
+   * Nodes start out dirty, also after being deserialized.
+   */
+  public boolean isDirty() {
+    return !clean;
+  }
+
+  /**
+   * Flags this node and its ancestors as changed and counts the change on the root of the tree. A dirty node always
+   * has dirty ancestors, so flagging stops at the first one that already is.
+   */
+  public void markDirty() {
+    AbstractModelNode node = this;
+    while ( node instanceof AbstractMetaDataModelNode && ( (AbstractMetaDataModelNode) node ).clean ) {
+      ( (AbstractMetaDataModelNode) node ).clean = false;
+      node = node.getParent();
+    }
+    AbstractModelNode root = this;
+    while ( root.getParent() != null ) {
+      root = root.getParent();
+    }
+    if ( root instanceof AbstractMetaDataModelNode ) {
+      ( (AbstractMetaDataModelNode) root ).changeCount++;
+    }
+  }
+
+  /**
+   * @return for the root of a tree, a count that goes up with every change marking one of its nodes dirty
+   */
+  public int getChangeCount() {
+    return changeCount;
+  }
+
+  /**
+   * Tells the {@link MainModelNode.NodeListener} of the model this node belongs to, if any, that <code>child</code>
+   * was added below this node.
+   */
+  protected void fireNodeAdded( AbstractMetaDataModelNode<?> child ) {
+    MainModelNode.NodeListener listener = findNodeListener();
+    if ( listener != null ) {
+      listener.nodeAdded( child );
+    }
+  }
+
+  protected void fireNodeRemoved( AbstractMetaDataModelNode<?> child ) {
+    MainModelNode.NodeListener listener = findNodeListener();
+    if ( listener != null ) {
+      listener.nodeRemoved( child );
+    }
+  }
+
+  protected void fireNodeChanged() {
+    MainModelNode.NodeListener listener = findNodeListener();
+    if ( listener != null ) {
+      listener.nodeChanged( this );
+    }
+  }
+
+  private MainModelNode.NodeListener findNodeListener() {
+    AbstractModelNode root = this;
+    while ( root.getParent() != null ) {
+      root = root.getParent();
+    }
+    return root instanceof MainModelNode ? ( (MainModelNode) root ).getNodeListener() : null;
+  }
+
+  /**
+   * Flags this node and all of its descendants as being in sync with the generated domain objects.
+   */
+  public void clearDirty() {
+    clean = true;
+    for ( T child : this ) {
+      child.clearDirty();
+    }
+  }
+
   @Bindable
   public void setImage( String image ) {
     if ( this.image == null || !this.image.equals( image ) ) {
@@ -244,9 +365,13 @@ public abstract class AbstractMetaDataModelNode<T extends AbstractMetaDataModelN
       }
     }
 
+    ValidationScheduler scheduler = prevValid != valid ? getValidationScheduler() : null;
     if ( suppressEvents == false ) {
       this.firePropertyChange( "validationMessagesString", prevMessages, getValidationMessagesString() );
-      this.firePropertyChange( "valid", prevValid, valid );
+      if ( scheduler == null ) {
+        // a scheduler publishes one change for the whole tree once the nodes affected by it are validated
+        this.firePropertyChange( "valid", prevValid, valid );
+      }
     }
 
     if ( valid ) {
@@ -259,14 +384,56 @@ public abstract class AbstractMetaDataModelNode<T extends AbstractMetaDataModelN
 
     if ( prevValid != valid ) {
       // changing of one element could cause others to become valid or invalid
+      if ( scheduler != null ) {
+        scheduler.validityChanged( this, prevValid );
+        return;
+      }
+      // a root with suppressed events is being batch edited and gets validated as a whole when the batch is committed
       AbstractModelNode root = getRoot();
-      if ( root != null && root instanceof AbstractMetaDataModelNode ) {
+      if ( root != null && root instanceof AbstractMetaDataModelNode
+          && !( (AbstractMetaDataModelNode) root ).suppressEvents ) {
         AbstractMetaDataModelNode rootNode = (AbstractMetaDataModelNode) root;
         rootNode.validateTree();
       }
     }
   }
 
+  /**
+   * Validates this node, or leaves it to the validation pass running in its tree.
+   */
+  protected void requestValidation() {
+    AbstractModelNode root = getRoot();
+    AbstractMetaDataModelNode rootNode = root instanceof AbstractMetaDataModelNode ? (AbstractMetaDataModelNode) root
+        : this;
+    if ( rootNode.validationScheduler != null && rootNode.validationScheduler.isActive() ) {
+      rootNode.validationScheduler.schedule( this );
+    } else {
+      validateNode();
+    }
+  }
+
+  /**
+   * @return the scheduler of the model tree this node is part of, null for detached nodes and while the tree is batch
+   *         edited
+   */
+  private ValidationScheduler getValidationScheduler() {
+    AbstractModelNode root = getRoot();
+    if ( root == null ) {
+      root = this;
+    }
+    if ( !( root instanceof IRootModelNode ) || !( root instanceof AbstractMetaDataModelNode ) ) {
+      return null;
+    }
+    AbstractMetaDataModelNode rootNode = (AbstractMetaDataModelNode) root;
+    if ( rootNode.suppressEvents ) {
+      return null;
+    }
+    if ( rootNode.validationScheduler == null ) {
+      rootNode.validationScheduler = new ValidationScheduler( rootNode );
+    }
+    return rootNode.validationScheduler;
+  }
+
   public void validateTree() {
     for ( T t : this ) {
       ( (AbstractMetaDataModelNode) t ).validateTree();
@@ -294,7 +461,22 @@ public abstract class AbstractMetaDataModelNode<T extends AbstractMetaDataModelN
     boolean prevValid = this.valid;
     this.valid = false;
     if ( suppressEvents == false ) {
-      this.firePropertyChange( "valid", prevValid, valid );
+      ValidationScheduler scheduler = getValidationScheduler();
+      if ( scheduler == null ) {
+        this.firePropertyChange( "valid", prevValid, valid );
+      } else if ( prevValid ) {
+        scheduler.invalidated( this );
+      }
+    }
+  }
+
+  /**
+   * Fires the valid property change of a node validated by {@link #validate()}. Nodes of a tree with a scheduler leave
+   * it to {@link #validateNode()}, which has the scheduler publish the change.
+   */
+  protected void fireValidChange() {
+    if ( getValidationScheduler() == null ) {
+      this.firePropertyChange( "valid", null, valid );
     }
   }
 
@@ -351,6 +533,10 @@ public abstract class AbstractMetaDataModelNode<T extends AbstractMetaDataModelN
 
     @Override
     public IMemberAnnotation put( String s, IMemberAnnotation iMemberAnnotation ) {
+      markDirty();
+      if ( GeoContext.ANNOTATION_GEO_ROLE.equals( s ) ) {
+        fireNodeChanged();
+      }
       IMemberAnnotation prevVal = get( s );
       if ( prevVal != null && prevVal != iMemberAnnotation ) {
         prevVal.onDetach( AbstractMetaDataModelNode.this );
@@ -363,6 +549,10 @@ public abstract class AbstractMetaDataModelNode<T extends AbstractMetaDataModelN
 
     @Override
     public void putAll( Map<? extends String, ? extends IMemberAnnotation> map ) {
+      markDirty();
+      if ( map.containsKey( GeoContext.ANNOTATION_GEO_ROLE ) ) {
+        fireNodeChanged();
+      }
       for ( String s : map.keySet() ) {
         IMemberAnnotation prevVal = get( s );
         if ( prevVal != null && prevVal != map.get( s ) ) {
@@ -377,6 +567,10 @@ public abstract class AbstractMetaDataModelNode<T extends AbstractMetaDataModelN
 
     @Override
     public IMemberAnnotation remove( Object o ) {
+      markDirty();
+      if ( GeoContext.ANNOTATION_GEO_ROLE.equals( o ) ) {
+        fireNodeChanged();
+      }
       if ( o instanceof IMemberAnnotation ) {
         ( (IMemberAnnotation) o ).onDetach( AbstractMetaDataModelNode.this );
       }
@@ -13,6 +13,8 @@
 
 package org.pentaho.agilebi.modeler.nodes;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -25,6 +27,11 @@ import org.pentaho.ui.xul.stereotype.Bindable;
 
 /**
  * Created: 4/11/11
+ * <p>
+ * The {@link AvailableField}s of a table built from an {@link IPhysicalTable} are only created when they are first
+ * asked for, so a Domain with many wide tables can be set without creating a field per column of every table. Callers
+ * that only need the columns can use {@link #getPhysicalColumns()} and {@link #getFieldCount()} instead. The physical
+ * table is not serialized, so the fields are created before the table is written.
  * 
  * @author rfellows
  */
@@ -37,11 +44,12 @@ public class AvailableTable extends AbstractAvailableItem<AvailableField> implem
 
   private static final long serialVersionUID = -6428366981250876565L;
 
+  // null until first asked for when backed by a physical table
   private List<AvailableField> availableFields;
   protected transient IPhysicalTable physicalTable;
   private boolean factTable = false;
 
-  private Comparator<IAvailableItem> itemComparator = new Comparator<IAvailableItem>() {
+  private static final Comparator<IAvailableItem> itemComparator = new Comparator<IAvailableItem>() {
     public int compare( IAvailableItem arg0, IAvailableItem arg1 ) {
       return arg0.getName().compareTo( arg1.getName() );
     }
@@ -65,19 +73,45 @@ public class AvailableTable extends AbstractAvailableItem<AvailableField> implem
   }
 
   protected void populateAvailableFields() {
+    List<AvailableField> fields = new ArrayList<AvailableField>();
     if ( physicalTable != null ) {
       for ( IPhysicalColumn column : physicalTable.getPhysicalColumns() ) {
         AvailableField field = new AvailableField( column );
-        availableFields.add( field );
+        fields.add( field );
       }
     }
-    Collections.sort( this.availableFields, itemComparator );
+    Collections.sort( fields, itemComparator );
+    this.availableFields = fields;
   }
 
   public List<AvailableField> getAvailableFields() {
+    if ( availableFields == null ) {
+      populateAvailableFields();
+    }
     return availableFields;
   }
 
+  /**
+   * @return true once the fields have been created; until then they follow any change to the physical table's columns
+   */
+  public boolean isAvailableFieldsPopulated() {
+    return availableFields != null;
+  }
+
+  /**
+   * @return the columns of the physical table, without creating the fields for them
+   */
+  public List<IPhysicalColumn> getPhysicalColumns() {
+    if ( physicalTable == null ) {
+      return Collections.emptyList();
+    }
+    return physicalTable.getPhysicalColumns();
+  }
+
+  public int getFieldCount() {
+    return availableFields != null ? availableFields.size() : getPhysicalColumns().size();
+  }
+
   public void setAvailableFields( List<AvailableField> availableFields ) {
     this.availableFields = availableFields;
     Collections.sort( this.availableFields, itemComparator );
@@ -90,8 +124,7 @@ public class AvailableTable extends AbstractAvailableItem<AvailableField> implem
   public void setPhysicalTable( IPhysicalTable physicalTable ) {
     this.physicalTable = physicalTable;
     setName( physicalTable.getName( LocalizedString.DEFAULT_LOCALE ) );
-    availableFields = new ArrayList<AvailableField>();
-    populateAvailableFields();
+    availableFields = null;
   }
 
   public boolean isSameUnderlyingPhysicalTable( IPhysicalTable table ) {
@@ -99,6 +132,9 @@ public class AvailableTable extends AbstractAvailableItem<AvailableField> implem
   }
 
   public boolean containsUnderlyingPhysicalColumn( IPhysicalColumn column ) {
+    if ( availableFields == null ) {
+      return indexOfPhysicalColumn( column ) >= 0;
+    }
     for ( AvailableField field : availableFields ) {
       if ( field.isSameUnderlyingPhysicalColumn( column ) ) {
         return true;
@@ -108,7 +144,11 @@ public class AvailableTable extends AbstractAvailableItem<AvailableField> implem
   }
 
   public AvailableField findFieldByPhysicalColumn( IPhysicalColumn column ) {
-    for ( AvailableField field : availableFields ) {
+    if ( availableFields == null && indexOfPhysicalColumn( column ) < 0 ) {
+      // not one of ours, no need to create the fields to find out
+      return null;
+    }
+    for ( AvailableField field : getAvailableFields() ) {
       if ( field.isSameUnderlyingPhysicalColumn( column ) ) {
         return field;
       }
@@ -116,6 +156,21 @@ public class AvailableTable extends AbstractAvailableItem<AvailableField> implem
     return null;
   }
 
+  /**
+   * Same match as {@link AvailableField#isSameUnderlyingPhysicalColumn(IPhysicalColumn)}, against the physical columns.
+   */
+  private int indexOfPhysicalColumn( IPhysicalColumn column ) {
+    String tableId = column.getPhysicalTable().getId();
+    List<IPhysicalColumn> columns = getPhysicalColumns();
+    for ( int i = 0; i < columns.size(); i++ ) {
+      IPhysicalColumn candidate = columns.get( i );
+      if ( candidate.getId().equals( column.getId() ) && candidate.getPhysicalTable().getId().equals( tableId ) ) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
   public boolean isFactTable() {
     return factTable;
   }
@@ -129,4 +184,9 @@ public class AvailableTable extends AbstractAvailableItem<AvailableField> implem
     return getAvailableFields();
   }
 
+  private void writeObject( ObjectOutputStream out ) throws IOException {
+    getAvailableFields();
+    out.defaultWriteObject();
+  }
+
 }
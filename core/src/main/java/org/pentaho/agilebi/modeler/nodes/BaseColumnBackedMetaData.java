@@ -114,6 +114,7 @@ public class BaseColumnBackedMetaData<T extends AbstractMetaDataModelNode> exten
   @Bindable
   public void setColumnName( String columnName ) {
     this.columnName = columnName;
+    markDirty();
   }
 
   public boolean isHidden() {
@@ -122,6 +123,7 @@ public class BaseColumnBackedMetaData<T extends AbstractMetaDataModelNode> exten
 
   public void setHidden( boolean hidden ) {
     this.hidden = hidden;
+    markDirty();
   }
 
   @Bindable
@@ -103,7 +103,7 @@ public class CategoryMetaData extends AbstractMetaDataModelNode<FieldMetaData> {
       }
     }
     if ( this.suppressEvents == false ) {
-      this.firePropertyChange( "valid", null, valid );
+      fireValidChange();
     }
   }
 
@@ -124,6 +124,7 @@ public class CategoryMetaData extends AbstractMetaDataModelNode<FieldMetaData> {
 
   @Override
   public void onAdd( FieldMetaData child ) {
+    markDirty();
     child.addPropertyChangeListener( "name", nameListener );
     child.addPropertyChangeListener( "valid", validListener );
     child.addPropertyChangeListener( "children", childrenListener );
@@ -132,6 +133,7 @@ public class CategoryMetaData extends AbstractMetaDataModelNode<FieldMetaData> {
 
   @Override
   public void onRemove( FieldMetaData child ) {
+    markDirty();
     child.removePropertyChangeListener( validListener );
     child.removePropertyChangeListener( nameListener );
     child.removePropertyChangeListener( childrenListener );
@@ -53,11 +53,13 @@ public class CategoryMetaDataCollection extends AbstractMetaDataModelNode<Catego
 
   // TODO: investigate using "this" form of notification in super-class
   protected void fireCollectionChanged() {
+    markDirty();
     this.changeSupport.firePropertyChange( "children", null, this ); //$NON-NLS-1$
   }
 
   @Override
   public void onAdd( CategoryMetaData child ) {
+    markDirty();
     child.setParent( this );
     child.addPropertyChangeListener( "name", nameListener );
     child.addPropertyChangeListener( "valid", validListener );
@@ -67,6 +69,7 @@ public class CategoryMetaDataCollection extends AbstractMetaDataModelNode<Catego
 
   @Override
   public void onRemove( CategoryMetaData child ) {
+    markDirty();
     child.removePropertyChangeListener( validListener );
     child.removePropertyChangeListener( nameListener );
     child.removePropertyChangeListener( childrenListener );
@@ -117,7 +120,7 @@ public class CategoryMetaDataCollection extends AbstractMetaDataModelNode<Catego
       }
     }
     if ( this.suppressEvents == false ) {
-      this.firePropertyChange( "valid", null, valid );
+      fireValidChange();
     }
   }
 
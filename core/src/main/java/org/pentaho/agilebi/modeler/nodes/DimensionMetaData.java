@@ -187,6 +187,8 @@ public class DimensionMetaData extends AbstractMetaDataModelNode<HierarchyMetaDa
   }
 
   public void onAdd( HierarchyMetaData child ) {
+    markDirty();
+    fireNodeAdded( child );
     child.addPropertyChangeListener( "name", nameListener );
     child.addPropertyChangeListener( "valid", validListener );
     child.addPropertyChangeListener( "children", childrenListener );
@@ -194,6 +196,8 @@ public class DimensionMetaData extends AbstractMetaDataModelNode<HierarchyMetaDa
   }
 
   public void onRemove( HierarchyMetaData child ) {
+    markDirty();
+    fireNodeRemoved( child );
     child.removePropertyChangeListener( validListener );
     child.removePropertyChangeListener( nameListener );
     child.removePropertyChangeListener( childrenListener );
@@ -57,11 +57,14 @@ public class DimensionMetaDataCollection extends AbstractMetaDataModelNode<Dimen
 
   // TODO: investigate using "this" form of notification in super-class
   protected void fireCollectionChanged() {
+    markDirty();
     this.changeSupport.firePropertyChange( "children", null, this ); //$NON-NLS-1$
   }
 
   @Override
   public void onAdd( DimensionMetaData child ) {
+    markDirty();
+    fireNodeAdded( child );
     child.setParent( this );
     child.addPropertyChangeListener( "name", nameListener );
     child.addPropertyChangeListener( "valid", validListener );
@@ -71,6 +74,8 @@ public class DimensionMetaDataCollection extends AbstractMetaDataModelNode<Dimen
 
   @Override
   public void onRemove( DimensionMetaData child ) {
+    markDirty();
+    fireNodeRemoved( child );
     child.removePropertyChangeListener( validListener );
     child.removePropertyChangeListener( nameListener );
     child.removePropertyChangeListener( childrenListener );
@@ -120,7 +125,7 @@ public class DimensionMetaDataCollection extends AbstractMetaDataModelNode<Dimen
       }
     }
     if ( this.suppressEvents == false ) {
-      this.firePropertyChange( "valid", null, valid );
+      fireValidChange();
     }
   }
 
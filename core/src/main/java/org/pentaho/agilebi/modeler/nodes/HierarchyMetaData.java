@@ -181,6 +181,8 @@ public class HierarchyMetaData extends AbstractMetaDataModelNode<LevelMetaData>
 
   @Override
   public void onAdd( LevelMetaData child ) {
+    markDirty();
+    fireNodeAdded( child );
     child.addPropertyChangeListener( "name", nameListener );
     child.addPropertyChangeListener( "valid", validListener );
     child.addPropertyChangeListener( "children", childrenListener );
@@ -189,6 +191,8 @@ public class HierarchyMetaData extends AbstractMetaDataModelNode<LevelMetaData>
 
   @Override
   public void onRemove( LevelMetaData child ) {
+    markDirty();
+    fireNodeRemoved( child );
     child.removePropertyChangeListener( validListener );
     child.removePropertyChangeListener( nameListener );
     child.removePropertyChangeListener( childrenListener );
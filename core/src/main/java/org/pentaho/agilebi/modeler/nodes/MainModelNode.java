@@ -32,6 +32,7 @@ public class MainModelNode extends AbstractMetaDataModelNode<AbstractMetaDataMod
   private DimensionMetaDataCollection dimensions = new DimensionMetaDataCollection();
 
   private transient PropertyChangeListener listener;
+  private transient NodeListener nodeListener;
   private ModelerWorkspace workspace;
   private static final String CLASSNAME = "pentaho-smallmodelbutton";
 
@@ -83,21 +84,47 @@ public class MainModelNode extends AbstractMetaDataModelNode<AbstractMetaDataMod
   }
 
   protected void fireCollectionChanged() {
+    markDirty();
     this.changeSupport.firePropertyChange( "children", null, this ); //$NON-NLS-1$
   }
 
   @Override
   public void onAdd( AbstractMetaDataModelNode child ) {
+    markDirty();
     child.addPropertyChangeListener( "children", getListener() ); //$NON-NLS-1$
     child.addPropertyChangeListener( "valid", validListener ); //$NON-NLS-1$
   }
 
   @Override
   public void onRemove( AbstractMetaDataModelNode child ) {
+    markDirty();
     child.removePropertyChangeListener( getListener() );
     child.removePropertyChangeListener( validListener );
   }
 
+  /**
+   * Told about the changes to a model's nodes that can change the names they are found by.
+   */
+  public interface NodeListener {
+
+    void nodeAdded( AbstractMetaDataModelNode<?> node );
+
+    void nodeRemoved( AbstractMetaDataModelNode<?> node );
+
+    /**
+     * Called when <code>node</code> was renamed, or its logical column or geo role changed.
+     */
+    void nodeChanged( AbstractMetaDataModelNode<?> node );
+  }
+
+  public NodeListener getNodeListener() {
+    return nodeListener;
+  }
+
+  public void setNodeListener( NodeListener nodeListener ) {
+    this.nodeListener = nodeListener;
+  }
+
   public DimensionMetaDataCollection getDimensions() {
     return dimensions;
   }
@@ -107,12 +107,14 @@ public class MeasuresCollection extends AbstractMetaDataModelNode<MeasureMetaDat
 
     }
     if ( this.suppressEvents == false ) {
-      this.firePropertyChange( "valid", null, valid );
+      fireValidChange();
     }
   }
 
   @Override
   public void onAdd( MeasureMetaData child ) {
+    markDirty();
+    fireNodeAdded( child );
     child.setParent( this );
     child.addPropertyChangeListener( "name", nameListener );
     child.addPropertyChangeListener( "valid", validListener );
@@ -121,6 +123,8 @@ public class MeasuresCollection extends AbstractMetaDataModelNode<MeasureMetaDat
   }
 
   public void onRemove( MeasureMetaData child ) {
+    markDirty();
+    fireNodeRemoved( child );
     child.removePropertyChangeListener( validListener );
     child.removePropertyChangeListener( nameListener );
     child.removePropertyChangeListener( childrenListener );
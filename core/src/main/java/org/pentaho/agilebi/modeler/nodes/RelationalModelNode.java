@@ -84,17 +84,20 @@ public class RelationalModelNode extends AbstractMetaDataModelNode<CategoryMetaD
   }
 
   protected void fireCollectionChanged() {
+    markDirty();
     this.changeSupport.firePropertyChange( "children", null, this ); //$NON-NLS-1$
   }
 
   @Override
   public void onAdd( CategoryMetaDataCollection child ) {
+    markDirty();
     child.addPropertyChangeListener( "children", getListener() ); //$NON-NLS-1$
     child.addPropertyChangeListener( "valid", validListener ); //$NON-NLS-1$
   }
 
   @Override
   public void onRemove( CategoryMetaDataCollection child ) {
+    markDirty();
     child.removePropertyChangeListener( getListener() );
     child.removePropertyChangeListener( validListener );
   }
@@ -0,0 +1,198 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.agilebi.modeler.nodes;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pentaho.agilebi.modeler.geo.GeoRole;
+import org.pentaho.agilebi.modeler.nodes.annotations.IMemberAnnotation;
+import org.pentaho.ui.xul.util.AbstractModelNode;
+
+/**
+ * Re-validates what a validity change of one node can affect, instead of the whole tree. One per root node.
+ * <p>
+ * When a node becomes valid or invalid its siblings (duplicate name checks live in the parent), its ancestors (which
+ * aggregate their children) and the levels of its dimension tied to it by a GeoRole's required parents are queued.
+ * Queued nodes are validated deepest first, the order {@link AbstractMetaDataModelNode#validateTree()} uses, and every
+ * node at most once per pass, whatever further changes the pass causes. The nodes do not fire their own
+ * <code>valid</code> property changes during a pass, the root fires a single one once the pass is done if any node
+ * ended up with a different validity. Listeners of a single node follow its <code>validationMessagesString</code>.
+ */
+class ValidationScheduler {
+
+  private final AbstractMetaDataModelNode root;
+  private List<List<AbstractMetaDataModelNode>> pendingByDepth = new ArrayList<List<AbstractMetaDataModelNode>>();
+  private Map<AbstractMetaDataModelNode, Boolean> seen = new IdentityHashMap<AbstractMetaDataModelNode, Boolean>();
+  private Map<AbstractMetaDataModelNode, Boolean> previousValidity =
+      new IdentityHashMap<AbstractMetaDataModelNode, Boolean>();
+  private boolean running;
+  private boolean publishing;
+
+  ValidationScheduler( AbstractMetaDataModelNode root ) {
+    this.root = root;
+  }
+
+  /**
+   * @return true while a pass runs or publishes its changes, listeners must not validate on their own then
+   */
+  boolean isActive() {
+    return running || publishing;
+  }
+
+  /**
+   * Called by a node whose validity just flipped. Starts a pass unless one is running already.
+   */
+  void validityChanged( AbstractMetaDataModelNode node, boolean prevValid ) {
+    if ( !previousValidity.containsKey( node ) ) {
+      previousValidity.put( node, prevValid );
+    }
+    seen.put( node, Boolean.TRUE );
+    scheduleDependents( node );
+    if ( !running ) {
+      run();
+    }
+  }
+
+  /**
+   * Called by a node its parent invalidated while validating. The change is published by the running pass, or by the
+   * next one if none is running.
+   */
+  void invalidated( AbstractMetaDataModelNode node ) {
+    if ( !previousValidity.containsKey( node ) ) {
+      previousValidity.put( node, Boolean.TRUE );
+    }
+  }
+
+  /**
+   * Queues <code>node</code> for the running pass, unless it was queued or validated in this pass already.
+   */
+  void schedule( AbstractMetaDataModelNode node ) {
+    if ( publishing || seen.containsKey( node ) ) {
+      return;
+    }
+    seen.put( node, Boolean.TRUE );
+    int depth = depth( node );
+    while ( pendingByDepth.size() <= depth ) {
+      pendingByDepth.add( new ArrayList<AbstractMetaDataModelNode>() );
+    }
+    pendingByDepth.get( depth ).add( node );
+  }
+
+  private void scheduleDependents( AbstractMetaDataModelNode node ) {
+    AbstractModelNode parent = node.getParent();
+    if ( parent != null ) {
+      for ( Object sibling : parent ) {
+        if ( sibling instanceof AbstractMetaDataModelNode ) {
+          schedule( (AbstractMetaDataModelNode) sibling );
+        }
+      }
+    }
+    // a LocationRole level validates its member properties, so it is covered by this walk up
+    while ( parent instanceof AbstractMetaDataModelNode ) {
+      schedule( (AbstractMetaDataModelNode) parent );
+      parent = parent.getParent();
+    }
+    if ( node instanceof LevelMetaData ) {
+      scheduleGeoRelatives( (LevelMetaData) node );
+    }
+  }
+
+  private void scheduleGeoRelatives( LevelMetaData level ) {
+    GeoRole role = findGeoRole( level );
+    AbstractModelNode hierarchy = level.getParent();
+    if ( role == null || hierarchy == null || !( hierarchy.getParent() instanceof DimensionMetaData ) ) {
+      return;
+    }
+    for ( HierarchyMetaData hier : (DimensionMetaData) hierarchy.getParent() ) {
+      for ( LevelMetaData other : hier ) {
+        GeoRole otherRole = findGeoRole( other );
+        if ( otherRole != null && ( otherRole.getRequiredParentRoles().contains( role )
+            || role.getRequiredParentRoles().contains( otherRole ) ) ) {
+          schedule( other );
+        }
+      }
+    }
+  }
+
+  private static GeoRole findGeoRole( AbstractMetaDataModelNode node ) {
+    for ( IMemberAnnotation anno : ( (Map<String, IMemberAnnotation>) node.getMemberAnnotations() ).values() ) {
+      if ( anno instanceof GeoRole ) {
+        return (GeoRole) anno;
+      }
+    }
+    return null;
+  }
+
+  private void run() {
+    running = true;
+    try {
+      AbstractMetaDataModelNode node;
+      while ( ( node = next() ) != null ) {
+        node.validateNode();
+      }
+    } finally {
+      running = false;
+      pendingByDepth.clear();
+      seen.clear();
+    }
+    publish();
+  }
+
+  private AbstractMetaDataModelNode next() {
+    for ( int depth = pendingByDepth.size() - 1; depth >= 0; depth-- ) {
+      List<AbstractMetaDataModelNode> pending = pendingByDepth.get( depth );
+      if ( !pending.isEmpty() ) {
+        return pending.remove( pending.size() - 1 );
+      }
+    }
+    return null;
+  }
+
+  private void publish() {
+    Map<AbstractMetaDataModelNode, Boolean> previous = previousValidity;
+    previousValidity = new IdentityHashMap<AbstractMetaDataModelNode, Boolean>();
+    if ( root.suppressEvents || !hasFlipped( previous ) ) {
+      return;
+    }
+    publishing = true;
+    try {
+      root.firePropertyChange( "valid", null, root.isValid() ); //$NON-NLS-1$
+    } finally {
+      publishing = false;
+    }
+  }
+
+  /**
+   * @return true if a node whose validity flipped during the pass did not flip back
+   */
+  private static boolean hasFlipped( Map<AbstractMetaDataModelNode, Boolean> previous ) {
+    for ( Map.Entry<AbstractMetaDataModelNode, Boolean> entry : previous.entrySet() ) {
+      if ( entry.getValue().booleanValue() != entry.getKey().isValid() ) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int depth( AbstractModelNode node ) {
+    int depth = 0;
+    for ( AbstractModelNode parent = node.getParent(); parent != null; parent = parent.getParent() ) {
+      depth++;
+    }
+    return depth;
+  }
+}
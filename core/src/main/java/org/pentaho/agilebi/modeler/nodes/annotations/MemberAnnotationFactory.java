@@ -25,10 +25,15 @@ import java.util.Map;
  * User: nbaker Date: 10/20/11
  */
 public class MemberAnnotationFactory {
-  private static Map<String, IAnnotationFactory> factories = new HashMap<String, IAnnotationFactory>();
-
-  public static void registerFactory( String type, IAnnotationFactory factory ) {
-    factories.put( type, factory );
+  /**
+   * Replaced, never modified, on registration so lookups from concurrent modeling runs need no lock.
+   */
+  private static volatile Map<String, IAnnotationFactory> factories = new HashMap<String, IAnnotationFactory>();
+
+  public static synchronized void registerFactory( String type, IAnnotationFactory factory ) {
+    Map<String, IAnnotationFactory> registered = new HashMap<String, IAnnotationFactory>( factories );
+    registered.put( type, factory );
+    factories = registered;
   }
 
   public static IMemberAnnotation create( OlapAnnotation anno ) {
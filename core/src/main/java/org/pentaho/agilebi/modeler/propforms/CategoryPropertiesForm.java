@@ -41,7 +41,7 @@ public class CategoryPropertiesForm extends AbstractModelerNodeForm<CategoryMeta
   private PropertyChangeListener propListener = new PropertyChangeListener() {
 
     public void propertyChange( PropertyChangeEvent evt ) {
-      if ( !evt.getPropertyName().equals( "valid" ) ) {
+      if ( !evt.getPropertyName().equals( "valid" ) && !evt.getPropertyName().equals( "validationMessagesString" ) ) {
         return;
       }
       showValidations();
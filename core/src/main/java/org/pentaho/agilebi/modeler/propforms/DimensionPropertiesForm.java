@@ -35,7 +35,7 @@ public class DimensionPropertiesForm extends AbstractModelerNodeForm<DimensionMe
   private PropertyChangeListener propListener = new PropertyChangeListener() {
 
     public void propertyChange( PropertyChangeEvent evt ) {
-      if ( !evt.getPropertyName().equals( "valid" ) ) {
+      if ( !evt.getPropertyName().equals( "valid" ) && !evt.getPropertyName().equals( "validationMessagesString" ) ) {
         return;
       }
       showValidations();
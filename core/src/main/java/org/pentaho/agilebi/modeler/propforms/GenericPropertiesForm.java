@@ -28,7 +28,7 @@ public class GenericPropertiesForm extends AbstractModelerNodeForm<AbstractMetaD
 
   private PropertyChangeListener validListener = new PropertyChangeListener() {
     public void propertyChange( PropertyChangeEvent evt ) {
-      if ( !evt.getPropertyName().equals( "valid" ) ) {
+      if ( !evt.getPropertyName().equals( "valid" ) && !evt.getPropertyName().equals( "validationMessagesString" ) ) {
         return;
       }
       showValidations();
@@ -78,7 +78,8 @@ public class LevelsPropertiesForm extends AbstractModelerNodeForm<BaseColumnBack
 
     public void propertyChange( PropertyChangeEvent evt ) {
       String propertyName = evt.getPropertyName();
-      if ( propertyName.equals( "valid" ) || propertyName.equals( "logicalColumn" )
+      if ( propertyName.equals( "valid" ) || propertyName.equals( "validationMessagesString" )
+          || propertyName.equals( "logicalColumn" )
           || propertyName.equals( "logicalOrdinalColumn" ) || propertyName.equals( "ordinalColumnName" )
           || propertyName.equals( "logicalCaptionColumn" ) || propertyName.equals( "timeLevelFormat" ) ) {
         showValidations();
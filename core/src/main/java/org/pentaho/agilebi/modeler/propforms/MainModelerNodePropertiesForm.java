@@ -38,7 +38,7 @@ public class MainModelerNodePropertiesForm extends AbstractModelerNodeForm<MainM
   private PropertyChangeListener propListener = new PropertyChangeListener() {
 
     public void propertyChange( PropertyChangeEvent evt ) {
-      if ( !evt.getPropertyName().equals( "valid" ) ) {
+      if ( !evt.getPropertyName().equals( "valid" ) && !evt.getPropertyName().equals( "validationMessagesString" ) ) {
         return;
       }
       showValidations();
@@ -64,7 +64,7 @@ public class MeasuresPropertiesForm extends AbstractModelerNodeForm<BaseAggregat
   private PropertyChangeListener validListener = new PropertyChangeListener() {
 
     public void propertyChange( PropertyChangeEvent evt ) {
-      if ( !evt.getPropertyName().equals( "valid" ) ) {
+      if ( !evt.getPropertyName().equals( "valid" ) && !evt.getPropertyName().equals( "validationMessagesString" ) ) {
         return;
       }
       showValidations();
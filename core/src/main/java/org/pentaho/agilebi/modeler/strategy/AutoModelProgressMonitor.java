@@ -0,0 +1,40 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.agilebi.modeler.strategy;
+
+/**
+ * Receives progress from a {@link SimpleAutoModelStrategy} while it models, and lets the caller stop it. Used when
+ * auto modeling runs off the UI thread.
+ */
+public interface AutoModelProgressMonitor {
+
+  /**
+   * Called after the strategy finished with a table.
+   *
+   * @param tableName
+   *          the table just modeled
+   * @param completed
+   *          the number of tables finished so far
+   * @param total
+   *          the number of tables the strategy is going to model
+   */
+  void tableCompleted( String tableName, int completed, int total );
+
+  /**
+   * Checked before every field, the strategy returns early, leaving the model node it builds incomplete, once this is
+   * true.
+   */
+  boolean isCanceled();
+
+}
@@ -30,4 +30,29 @@ public interface AutoModelStrategy {
   void autoModelRelational( ModelerWorkspace workspace, RelationalModelNode relationalModelNode )
     throws ModelerException;
 
+  /**
+   * Like {@link #autoModelOlap(ModelerWorkspace, MainModelNode)}, but a <code>staged</code> node is only built, it is
+   * not set on the workspace and the workspace's model changing state is left alone.
+   *
+   * @param workspace
+   * @param mainModel
+   * @param staged
+   * @param monitor
+   *          told about every modeled table and asked whether to stop, may be null
+   * @throws ModelerException
+   */
+  default void autoModelOlap( ModelerWorkspace workspace, MainModelNode mainModel, boolean staged,
+      AutoModelProgressMonitor monitor ) throws ModelerException {
+    autoModelOlap( workspace, mainModel );
+  }
+
+  /**
+   * The relational counterpart of {@link #autoModelOlap(ModelerWorkspace, MainModelNode, boolean,
+   * AutoModelProgressMonitor)}.
+   */
+  default void autoModelRelational( ModelerWorkspace workspace, RelationalModelNode relationalModelNode,
+      boolean staged, AutoModelProgressMonitor monitor ) throws ModelerException {
+    autoModelRelational( workspace, relationalModelNode );
+  }
+
 }
@@ -28,7 +28,8 @@ public class MultiTableAutoModelStrategy extends SimpleAutoModelStrategy {
   }
 
   @Override
-  public void autoModelOlap( ModelerWorkspace workspace, MainModelNode mainModel ) throws ModelerException {
+  public void autoModelOlap( ModelerWorkspace workspace, MainModelNode mainModel, boolean staged,
+      AutoModelProgressMonitor monitor ) throws ModelerException {
     throw new UnsupportedOperationException( "This strategy does not support OLAP models" );
   }
 
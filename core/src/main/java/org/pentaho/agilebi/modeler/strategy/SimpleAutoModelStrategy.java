@@ -79,6 +79,24 @@ public class SimpleAutoModelStrategy implements AutoModelStrategy {
     this.geoContext = geoContext;
   }
 
+  /**
+   * Reports a finished table to <code>monitor</code>, which may be null.
+   *
+   * @return false if the run was canceled and modeling should stop
+   */
+  protected static boolean tableCompleted( AutoModelProgressMonitor monitor, String tableName, int completed,
+      int total ) {
+    if ( monitor == null ) {
+      return true;
+    }
+    monitor.tableCompleted( tableName, completed, total );
+    return !monitor.isCanceled();
+  }
+
+  protected static boolean isCanceled( AutoModelProgressMonitor monitor ) {
+    return monitor != null && monitor.isCanceled();
+  }
+
   /**
    * Generates a basic OLAP model consisting of one Dimension/Hierarchy/Level combination per column and one Measure per
    * unique column name. Columns belonging to separate tables have no distinction here
@@ -89,61 +107,84 @@ public class SimpleAutoModelStrategy implements AutoModelStrategy {
    */
   @Override
   public void autoModelOlap( ModelerWorkspace workspace, MainModelNode mainModel ) throws ModelerException {
+    autoModelOlap( workspace, mainModel, false, null );
+  }
+
+  @Override
+  public void autoModelOlap( ModelerWorkspace workspace, MainModelNode mainModel, boolean staged,
+      AutoModelProgressMonitor monitor ) throws ModelerException {
     mainModel.setName( workspace.getModelName() );
-    workspace.setModel( mainModel );
-    DimensionMetaDataCollection dims = workspace.getModel().getDimensions();
+    if ( !staged ) {
+      workspace.setModel( mainModel );
+    }
+    DimensionMetaDataCollection dims = mainModel.getDimensions();
     dims.clear();
     dims.setExpanded( true );
-    MeasuresCollection measures = workspace.getModel().getMeasures();
+    MeasuresCollection measures = mainModel.getMeasures();
     measures.setExpanded( false );
     measures.clear();
 
     final boolean prevChangeState = workspace.isModelChanging();
-    workspace.setModelIsChanging( true, !mainModel.getSuppressEvents() );
+    if ( !staged ) {
+      workspace.setModelIsChanging( true );
+    }
 
-    // remove all logical columns from existing logical tables
-    for ( LogicalTable table : workspace.getLogicalModel( ModelerPerspective.ANALYSIS ).getLogicalTables() ) {
-      if ( table.getId().endsWith( BaseModelerWorkspaceHelper.OLAP_SUFFIX ) ) {
-        table.getLogicalColumns().clear();
+    try {
+      // remove all logical columns from existing logical tables
+      for ( LogicalTable table : workspace.getLogicalModel( ModelerPerspective.ANALYSIS ).getLogicalTables() ) {
+        if ( table.getId().endsWith( BaseModelerWorkspaceHelper.OLAP_SUFFIX ) ) {
+          table.getLogicalColumns().clear();
+        }
       }
-    }
 
-    HashSet<String> existingMeasures = new HashSet<String>();
-    List<AvailableTable> tableList = workspace.getAvailableTables().getAsAvailableTablesList();
-
-    for ( AvailableTable table : tableList ) {
-      for ( AvailableField field : table.getAvailableFields() ) {
-
-        // only add the field if it is not a geo field, they will be handled separately
-        if ( !isGeoField( field ) ) {
-          DataType dataType = field.getPhysicalColumn().getDataType();
-          if ( dataType == DataType.NUMERIC ) {
-            if ( !existingMeasures.contains( field.getName() ) ) {
-              // create a measure
-              MeasureMetaData measure = workspace.createMeasureForNode( field );
-              workspace.getModel().getMeasures().add( measure );
-              existingMeasures.add( field.getName() );
+      HashSet<String> existingMeasures = new HashSet<String>();
+      List<AvailableTable> tableList = workspace.getAvailableTables().getAsAvailableTablesList();
+
+      int completed = 0;
+      for ( AvailableTable table : tableList ) {
+        for ( AvailableField field : table.getAvailableFields() ) {
+          if ( isCanceled( monitor ) ) {
+            return;
+          }
+
+          // only add the field if it is not a geo field, they will be handled separately
+          if ( !isGeoField( field ) ) {
+            DataType dataType = field.getPhysicalColumn().getDataType();
+            if ( dataType == DataType.NUMERIC ) {
+              if ( !existingMeasures.contains( field.getName() ) ) {
+                // create a measure
+                MeasureMetaData measure = workspace.createMeasureForNode( field );
+                measures.add( measure );
+                existingMeasures.add( field.getName() );
+              }
             }
+            // create a dimension
+            dims.add( workspace.createDimensionFromNode(
+                workspace.createColumnBackedNode( field, ModelerPerspective.ANALYSIS ) ) );
           }
-          // create a dimension
-          workspace.addDimensionFromNode( workspace.createColumnBackedNode( field, ModelerPerspective.ANALYSIS ) );
+        }
+        if ( !tableCompleted( monitor, table.getName(), ++completed, tableList.size() ) ) {
+          return;
         }
       }
-    }
 
-    addGeoDimensions( dims, workspace );
+      addGeoDimensions( dims, workspace );
 
-    for ( DimensionMetaData dim : dims ) {
-      dim.setExpanded( false );
+      for ( DimensionMetaData dim : dims ) {
+        dim.setExpanded( false );
+      }
+    } finally {
+      if ( !staged ) {
+        workspace.setModelIsChanging( prevChangeState );
+      }
     }
-    if ( !mainModel.getSuppressEvents() ) {
-      workspace.setModelIsChanging( prevChangeState );
-      workspace.setSelectedNode( workspace.getModel() );
+    if ( !staged ) {
+      workspace.setSelectedNode( mainModel );
     }
   }
 
   /**
-   * Generates a basic Relational model consisting of one Category per table and one Field per column within that table
+   * Generates a basic Relational model consisting of one Category per table and one Field per column within that table.
    * 
    * @param workspace
    * @param relationalModelNode
@@ -152,52 +193,73 @@ public class SimpleAutoModelStrategy implements AutoModelStrategy {
   @Override
   public void autoModelRelational( ModelerWorkspace workspace, RelationalModelNode relationalModelNode )
     throws ModelerException {
+    autoModelRelational( workspace, relationalModelNode, false, null );
+  }
+
+  @Override
+  public void autoModelRelational( ModelerWorkspace workspace, RelationalModelNode relationalModelNode,
+      boolean staged, AutoModelProgressMonitor monitor ) throws ModelerException {
     relationalModelNode.setName( workspace.getRelationalModelName() );
 
-    workspace.setRelationalModel( relationalModelNode );
+    if ( !staged ) {
+      workspace.setRelationalModel( relationalModelNode );
+    }
     final boolean prevChangeState = workspace.isModelChanging();
 
-    workspace.getRelationalModel().getCategories().clear();
-
-    workspace.setRelationalModelIsChanging( true, !relationalModelNode.getSuppressEvents() );
+    relationalModelNode.getCategories().clear();
 
-    // remove all logical columns from existing logical tables
-    for ( LogicalTable table : workspace.getDomain().getLogicalModels().get( 0 ).getLogicalTables() ) {
-      if ( !table.getId().endsWith( BaseModelerWorkspaceHelper.OLAP_SUFFIX ) ) {
-        table.getLogicalColumns().clear();
-      }
+    if ( !staged ) {
+      workspace.setRelationalModelIsChanging( true );
     }
 
-    List<? extends IPhysicalTable> tables = workspace.getDomain().getPhysicalModels().get( 0 ).getPhysicalTables();
-    Set<String> tableIds = new HashSet<String>();
-
-    List<AvailableTable> tablesList = workspace.getAvailableTables().getAsAvailableTablesList();
-
-    for ( IPhysicalTable table : tables ) {
-      if ( !tableIds.contains( table.getId() ) ) {
-        tableIds.add( table.getId() );
-        String catName =
-            BaseModelerWorkspaceHelper.getCleanCategoryName( table.getName( locale ), workspace, tableIds.size() );
+    try {
+      // remove all logical columns from existing logical tables
+      for ( LogicalTable table : workspace.getDomain().getLogicalModels().get( 0 ).getLogicalTables() ) {
+        if ( !table.getId().endsWith( BaseModelerWorkspaceHelper.OLAP_SUFFIX ) ) {
+          table.getLogicalColumns().clear();
+        }
+      }
 
-        CategoryMetaData category = new CategoryMetaData( catName );
-        category.setExpanded( true );
-        for ( AvailableTable aTable : tablesList ) {
-          if ( aTable.isSameUnderlyingPhysicalTable( table ) ) {
-            for ( AvailableField field : aTable.getAvailableFields() ) {
-              if ( field.getPhysicalColumn().getPhysicalTable().getId().equals( table.getId() ) ) {
-                category.add( workspace.createFieldForParentWithNode( category, field ) );
+      List<? extends IPhysicalTable> tables = workspace.getDomain().getPhysicalModels().get( 0 ).getPhysicalTables();
+      Set<String> tableIds = new HashSet<String>();
+
+      List<AvailableTable> tablesList = workspace.getAvailableTables().getAsAvailableTablesList();
+
+      for ( IPhysicalTable table : tables ) {
+        if ( !tableIds.contains( table.getId() ) ) {
+          tableIds.add( table.getId() );
+          String catName =
+              BaseModelerWorkspaceHelper.getCleanCategoryName( table.getName( locale ), workspace, tableIds.size() );
+
+          CategoryMetaData category = new CategoryMetaData( catName );
+          category.setExpanded( true );
+          for ( AvailableTable aTable : tablesList ) {
+            if ( aTable.isSameUnderlyingPhysicalTable( table ) ) {
+              for ( AvailableField field : aTable.getAvailableFields() ) {
+                if ( isCanceled( monitor ) ) {
+                  return;
+                }
+                if ( field.getPhysicalColumn().getPhysicalTable().getId().equals( table.getId() ) ) {
+                  category.add( workspace.createFieldForParentWithNode( category, field ) );
+                }
               }
             }
           }
+
+          relationalModelNode.getCategories().add( category );
+          if ( !tableCompleted( monitor, table.getName( locale ), tableIds.size(), tables.size() ) ) {
+            return;
+          }
         }
+      }
 
-        relationalModelNode.getCategories().add( category );
+    } finally {
+      if ( !staged ) {
+        workspace.setRelationalModelIsChanging( prevChangeState );
       }
     }
-
-    if ( !relationalModelNode.getSuppressEvents() ) {
-      workspace.setRelationalModelIsChanging( prevChangeState );
-      workspace.setSelectedRelationalNode( workspace.getRelationalModel() );
+    if ( !staged ) {
+      workspace.setSelectedRelationalNode( relationalModelNode );
     }
   }
 
@@ -212,7 +274,7 @@ public class SimpleAutoModelStrategy implements AutoModelStrategy {
   protected void addGeoDimensions( List<DimensionMetaData> dims, ModelerWorkspace workspace ) {
     if ( geoContext != null ) {
       // get any geographic dimensions detected, add them
-      List<DimensionMetaData> geoDims = geoContext.buildDimensions( workspace );
+      List<DimensionMetaData> geoDims = geoContext.buildDimensions( workspace, dims );
       dims.addAll( geoDims );
       Collections.sort( dims, new Comparator<DimensionMetaData>() {
         @Override
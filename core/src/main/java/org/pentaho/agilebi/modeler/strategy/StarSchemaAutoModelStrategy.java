@@ -47,78 +47,98 @@ public class StarSchemaAutoModelStrategy extends SimpleAutoModelStrategy {
   }
 
   @Override
-  public void autoModelOlap( ModelerWorkspace workspace, MainModelNode mainModel ) throws ModelerException {
+  public void autoModelOlap( ModelerWorkspace workspace, MainModelNode mainModel, boolean staged,
+      AutoModelProgressMonitor monitor ) throws ModelerException {
     mainModel.setName( workspace.getModelName() );
-    workspace.setModel( mainModel );
-    DimensionMetaDataCollection dims = workspace.getModel().getDimensions();
+    if ( !staged ) {
+      workspace.setModel( mainModel );
+    }
+    DimensionMetaDataCollection dims = mainModel.getDimensions();
     dims.clear();
     dims.setExpanded( true );
-    MeasuresCollection measures = workspace.getModel().getMeasures();
+    MeasuresCollection measures = mainModel.getMeasures();
     measures.setExpanded( false );
     measures.clear();
 
     final boolean prevChangeState = workspace.isModelChanging();
-    workspace.setModelIsChanging( true, !mainModel.getSuppressEvents() );
-
-    // remove all logical columns from existing logical tables
-    for ( LogicalTable table : workspace.getLogicalModel( ModelerPerspective.ANALYSIS ).getLogicalTables() ) {
-      table.getLogicalColumns().clear();
+    if ( !staged ) {
+      workspace.setModelIsChanging( true );
     }
 
-    HashSet<String> existingMeasures = new HashSet<String>();
-    List<AvailableTable> tableList = workspace.getAvailableTables().getAsAvailableTablesList();
-    for ( AvailableTable table : tableList ) {
-      boolean isFact = table.isFactTable();
-      if ( isFact ) {
-        for ( AvailableField field : table.getAvailableFields() ) {
-          // create measures from the numeric
-          DataType dataType = field.getPhysicalColumn().getDataType();
-          if ( dataType == DataType.NUMERIC ) {
-            if ( !existingMeasures.contains( field.getName() ) ) {
-              // create a measure
-              MeasureMetaData measure = workspace.createMeasureForNode( field );
-              workspace.getModel().getMeasures().add( measure );
-              existingMeasures.add( field.getName() );
+    try {
+      // remove all logical columns from existing logical tables
+      for ( LogicalTable table : workspace.getLogicalModel( ModelerPerspective.ANALYSIS ).getLogicalTables() ) {
+        table.getLogicalColumns().clear();
+      }
+
+      HashSet<String> existingMeasures = new HashSet<String>();
+      List<AvailableTable> tableList = workspace.getAvailableTables().getAsAvailableTablesList();
+      int completed = 0;
+      for ( AvailableTable table : tableList ) {
+        boolean isFact = table.isFactTable();
+        if ( isFact ) {
+          for ( AvailableField field : table.getAvailableFields() ) {
+            if ( isCanceled( monitor ) ) {
+              return;
+            }
+            // create measures from the numeric
+            DataType dataType = field.getPhysicalColumn().getDataType();
+            if ( dataType == DataType.NUMERIC ) {
+              if ( !existingMeasures.contains( field.getName() ) ) {
+                // create a measure
+                MeasureMetaData measure = workspace.createMeasureForNode( field );
+                measures.add( measure );
+                existingMeasures.add( field.getName() );
+              }
+            } else {
+              // make sure the logical column for this gets added
+              workspace.createColumnBackedNode( field, ModelerPerspective.ANALYSIS );
             }
-          } else {
-            // make sure the logical column for this gets added
-            workspace.createColumnBackedNode( field, ModelerPerspective.ANALYSIS );
           }
-        }
-      } else {
-        // create a new dimension per table since it is not the fact table
-        DimensionMetaData dim = new DimensionMetaData( table.getName() );
-        dim.setExpanded( false );
+        } else {
+          // create a new dimension per table since it is not the fact table
+          DimensionMetaData dim = new DimensionMetaData( table.getName() );
+          dim.setExpanded( false );
 
-        for ( AvailableField field : table.getAvailableFields() ) {
-          if ( !isGeoField( field ) ) {
-            // create a hierarchy per field
-            HierarchyMetaData hierarchy = new HierarchyMetaData( field.getName() );
-            hierarchy.setParent( dim );
-            hierarchy.setExpanded( false );
-            dim.add( hierarchy );
+          for ( AvailableField field : table.getAvailableFields() ) {
+            if ( isCanceled( monitor ) ) {
+              return;
+            }
+            if ( !isGeoField( field ) ) {
+              // create a hierarchy per field
+              HierarchyMetaData hierarchy = new HierarchyMetaData( field.getName() );
+              hierarchy.setParent( dim );
+              hierarchy.setExpanded( false );
+              dim.add( hierarchy );
 
-            // create a level
-            LevelMetaData level =
-                workspace.createLevelForParentWithNode( hierarchy, workspace.createColumnBackedNode( field,
-                    ModelerPerspective.ANALYSIS ) );
-            if ( level != null ) {
-              hierarchy.add( level );
+              // create a level
+              LevelMetaData level =
+                  workspace.createLevelForParentWithNode( hierarchy, workspace.createColumnBackedNode( field,
+                      ModelerPerspective.ANALYSIS ) );
+              if ( level != null ) {
+                hierarchy.add( level );
+              }
             }
           }
+          // only add the dimension if it has hierarchies
+          if ( dim.size() > 0 ) {
+            dims.add( dim );
+          }
         }
-        // only add the dimension if it has hierarchies
-        if ( dim.size() > 0 ) {
-          workspace.addDimension( dim );
+        if ( !tableCompleted( monitor, table.getName(), ++completed, tableList.size() ) ) {
+          return;
         }
       }
-    }
 
-    addGeoDimensions( workspace.getModel().getDimensions(), workspace );
+      addGeoDimensions( dims, workspace );
 
-    if ( !mainModel.getSuppressEvents() ) {
-      workspace.setModelIsChanging( prevChangeState );
-      workspace.setSelectedNode( workspace.getModel() );
+    } finally {
+      if ( !staged ) {
+        workspace.setModelIsChanging( prevChangeState );
+      }
+    }
+    if ( !staged ) {
+      workspace.setSelectedNode( mainModel );
     }
   }
 
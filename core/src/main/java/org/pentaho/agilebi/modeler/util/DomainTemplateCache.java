@@ -0,0 +1,199 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.agilebi.modeler.util;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.SerializationUtils;
+import org.apache.commons.lang.StringUtils;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.metadata.automodel.PhysicalTableImporter.ImportStrategy;
+import org.pentaho.metadata.automodel.SchemaTable;
+import org.pentaho.metadata.model.Domain;
+
+/**
+ * Remembers the Domains {@link ModelerSourceUtil#generateDomain} generated, so generating the same table again skips
+ * the JDBC metadata round trips. Entries are keyed by connection (DatabaseMeta instance), schema, table, datasource
+ * name, import strategy and modeling mode, and the least recently used one is evicted once the cache is full. Domains
+ * {@link MultiTableModelerSource} imported are keyed by connection, the list of tables and datasource name.
+ * <p>
+ * Domains are stored serialized and every hit gets its own deep copy, callers are free to modify what they get. The
+ * cache does not notice changes to the database, use the <code>invalidate</code> methods when tables change.
+ */
+public class DomainTemplateCache {
+
+  public static final int DEFAULT_MAX_SIZE = 50;
+
+  private final Map<Key, byte[]> templates;
+
+  public DomainTemplateCache() {
+    this( DEFAULT_MAX_SIZE );
+  }
+
+  public DomainTemplateCache( final int maxSize ) {
+    templates = new LinkedHashMap<Key, byte[]>( 16, 0.75f, true ) {
+      @Override
+      protected boolean removeEldestEntry( Map.Entry<Key, byte[]> eldest ) {
+        return size() > maxSize;
+      }
+    };
+  }
+
+  /**
+   * @return a copy of the cached Domain, or null
+   */
+  public Domain get( DatabaseMeta databaseMeta, String schemaName, String tableName, String datasourceName,
+      ImportStrategy importStrategy, boolean dualModelingMode ) {
+    return get( new Key( databaseMeta, new String[] { schemaName }, new String[] { tableName }, false, datasourceName,
+        importStrategy, dualModelingMode ) );
+  }
+
+  /**
+   * @return a copy of the Domain cached for the tables imported together, or null
+   */
+  public Domain get( DatabaseMeta databaseMeta, List<SchemaTable> tables, String datasourceName ) {
+    return get( new Key( databaseMeta, tables, datasourceName ) );
+  }
+
+  private Domain get( Key key ) {
+    byte[] template;
+    synchronized ( this ) {
+      template = templates.get( key );
+    }
+    return template == null ? null : (Domain) SerializationUtils.deserialize( template );
+  }
+
+  /**
+   * Caches a copy of <code>domain</code>, later changes to it are not seen by the cache.
+   */
+  public void put( DatabaseMeta databaseMeta, String schemaName, String tableName, String datasourceName,
+      ImportStrategy importStrategy, boolean dualModelingMode, Domain domain ) {
+    put( new Key( databaseMeta, new String[] { schemaName }, new String[] { tableName }, false, datasourceName,
+        importStrategy, dualModelingMode ), domain );
+  }
+
+  /**
+   * Caches a copy of the <code>domain</code> imported for the tables together, it is dropped when any of them is
+   * invalidated.
+   */
+  public void put( DatabaseMeta databaseMeta, List<SchemaTable> tables, String datasourceName, Domain domain ) {
+    put( new Key( databaseMeta, tables, datasourceName ), domain );
+  }
+
+  private void put( Key key, Domain domain ) {
+    byte[] template = SerializationUtils.serialize( domain );
+    synchronized ( this ) {
+      templates.put( key, template );
+    }
+  }
+
+  /**
+   * Drops every Domain generated over <code>databaseMeta</code>.
+   */
+  public synchronized void invalidate( DatabaseMeta databaseMeta ) {
+    for ( Iterator<Key> it = templates.keySet().iterator(); it.hasNext(); ) {
+      if ( it.next().databaseMeta == databaseMeta ) {
+        it.remove();
+      }
+    }
+  }
+
+  /**
+   * Drops every Domain generated for one table, whatever datasource name, strategy or mode it was generated with,
+   * and every Domain imported for several tables including it.
+   */
+  public synchronized void invalidate( DatabaseMeta databaseMeta, String schemaName, String tableName ) {
+    for ( Iterator<Key> it = templates.keySet().iterator(); it.hasNext(); ) {
+      Key key = it.next();
+      if ( key.databaseMeta == databaseMeta && key.includes( schemaName, tableName ) ) {
+        it.remove();
+      }
+    }
+  }
+
+  public synchronized void clear() {
+    templates.clear();
+  }
+
+  public synchronized int size() {
+    return templates.size();
+  }
+
+  private static class Key {
+    private final DatabaseMeta databaseMeta;
+    private final String[] schemaNames;
+    private final String[] tableNames;
+    // a table list import differs from a single table Domain even for one table
+    private final boolean tableList;
+    private final String datasourceName;
+    private final ImportStrategy importStrategy;
+    private final boolean dualModelingMode;
+
+    Key( DatabaseMeta databaseMeta, List<SchemaTable> tables, String datasourceName ) {
+      this( databaseMeta, new String[tables.size()], new String[tables.size()], true, datasourceName, null, false );
+      for ( int i = 0; i < tables.size(); i++ ) {
+        schemaNames[i] = tables.get( i ).getSchemaName();
+        tableNames[i] = tables.get( i ).getTableName();
+      }
+    }
+
+    Key( DatabaseMeta databaseMeta, String[] schemaNames, String[] tableNames, boolean tableList,
+        String datasourceName, ImportStrategy importStrategy, boolean dualModelingMode ) {
+      this.databaseMeta = databaseMeta;
+      this.schemaNames = schemaNames;
+      this.tableNames = tableNames;
+      this.tableList = tableList;
+      this.datasourceName = datasourceName;
+      this.importStrategy = importStrategy;
+      this.dualModelingMode = dualModelingMode;
+    }
+
+    boolean includes( String schemaName, String tableName ) {
+      for ( int i = 0; i < tableNames.length; i++ ) {
+        if ( StringUtils.equals( schemaNames[i], schemaName ) && StringUtils.equals( tableNames[i], tableName ) ) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    @Override
+    public boolean equals( Object obj ) {
+      if ( !( obj instanceof Key ) ) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return databaseMeta == other.databaseMeta && dualModelingMode == other.dualModelingMode
+          && tableList == other.tableList && Arrays.equals( schemaNames, other.schemaNames )
+          && Arrays.equals( tableNames, other.tableNames )
+          && StringUtils.equals( datasourceName, other.datasourceName )
+          && ( importStrategy == null ? other.importStrategy == null : importStrategy.equals( other.importStrategy ) );
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = System.identityHashCode( databaseMeta );
+      hash = 31 * hash + Arrays.hashCode( schemaNames );
+      hash = 31 * hash + Arrays.hashCode( tableNames );
+      hash = 31 * hash + ( tableList ? 1 : 0 );
+      hash = 31 * hash + ( datasourceName == null ? 0 : datasourceName.hashCode() );
+      hash = 31 * hash + ( importStrategy == null ? 0 : importStrategy.hashCode() );
+      return 31 * hash + ( dualModelingMode ? 1 : 0 );
+    }
+  }
+}
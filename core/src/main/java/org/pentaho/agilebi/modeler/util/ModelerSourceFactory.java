@@ -26,6 +26,7 @@ public class ModelerSourceFactory {
       new HashMap<String, Class<? extends IModelerSource>>();
   static {
     outputSources.put( TableModelerSource.SOURCE_TYPE, TableModelerSource.class );
+    outputSources.put( SqlModelerSource.SOURCE_TYPE, SqlModelerSource.class );
   }
 
   private static Logger logger = LoggerFactory.getLogger( ModelerSourceFactory.class );
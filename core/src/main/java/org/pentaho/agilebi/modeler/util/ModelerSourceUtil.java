@@ -13,25 +13,62 @@
 
 package org.pentaho.agilebi.modeler.util;
 
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.apache.commons.lang.StringUtils;
 import org.pentaho.agilebi.modeler.ModelerConversionUtil;
+import org.pentaho.agilebi.modeler.BaseModelerWorkspaceHelper;
 import org.pentaho.agilebi.modeler.ModelerException;
 import org.pentaho.agilebi.modeler.ModelerWorkspace;
+import org.pentaho.agilebi.modeler.UniqueIdRegistry;
 import org.pentaho.di.core.database.Database;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.di.core.exception.KettleDatabaseException;
 import org.pentaho.di.i18n.BaseMessages;
 import org.pentaho.metadata.automodel.PhysicalTableImporter.ImportStrategy;
 import org.pentaho.metadata.automodel.SchemaTable;
+import org.pentaho.metadata.model.Category;
 import org.pentaho.metadata.model.Domain;
+import org.pentaho.metadata.model.IPhysicalColumn;
 import org.pentaho.metadata.model.IPhysicalModel;
 import org.pentaho.metadata.model.IPhysicalTable;
+import org.pentaho.metadata.model.LogicalColumn;
 import org.pentaho.metadata.model.LogicalModel;
 import org.pentaho.metadata.model.LogicalTable;
+import org.pentaho.metadata.model.SqlPhysicalColumn;
+import org.pentaho.metadata.model.SqlPhysicalModel;
+import org.pentaho.metadata.model.SqlPhysicalTable;
 import org.pentaho.metadata.model.concept.IConcept;
 import org.pentaho.metadata.model.concept.security.Security;
 import org.pentaho.metadata.model.concept.security.SecurityOwner;
+import org.pentaho.metadata.model.concept.types.AggregationType;
+import org.pentaho.metadata.model.concept.types.DataType;
+import org.pentaho.metadata.model.concept.types.LocaleType;
 import org.pentaho.metadata.model.concept.types.LocalizedString;
+import org.pentaho.metadata.model.concept.types.TargetTableType;
+import org.pentaho.metadata.util.ThinModelConverter;
 import org.pentaho.pms.core.exception.PentahoMetadataException;
 import org.pentaho.pms.schema.concept.DefaultPropertyID;
 import org.slf4j.Logger;
@@ -42,14 +79,28 @@ import static org.pentaho.metadata.automodel.PhysicalTableImporter.defaultImport
 public class ModelerSourceUtil {
 
   public static final String DEFAULT_ROLE_NAME = "Authenticated"; //$NON-NLS-1$
-  private static ModelGenerator generator = new ModelGenerator();
   private static Logger logger = LoggerFactory.getLogger( ModelerSourceUtil.class );
 
+  // plugin ids of the databases whose drivers run a prepared statement to describe its result
+  private static final Set<String> DESCRIBE_RUNS_QUERY =
+      new HashSet<String>( Arrays.asList( "MYSQL", "MARIADB" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+
+  private static final long DEFAULT_TABLE_CASING_CACHE_TTL = 60000;
+  private static volatile long tableCasingCacheTtl = DEFAULT_TABLE_CASING_CACHE_TTL;
+  private static final Map<TableCasingKey, CachedTableCasing> tableCasings =
+      new ConcurrentHashMap<TableCasingKey, CachedTableCasing>();
+  private static volatile DomainTemplateCache domainTemplateCache;
+  private static volatile TableMetadataCache tableMetadataCache;
+
   /**
    * PDI allows users to run SQLs where the table names are not quoted.  This results in the
    * DB converting to lower case or upper case depending on the DB vendor.  However, Mondrian
    * will always quote table names so when generating the schema on an unquoted table name,
    * you can use this function to determine what the table name should be if it were quoted.
+   * <p>
+   * The names as given, then lower case, then upper case are looked up in the table metadata of the schema, or of the
+   * connection's default schema. Results are cached per DatabaseMeta instance, schema and table for
+   * {@link #setTableCasingCacheTtl(long)} milliseconds.
    * 
    * @param databaseMeta
    * @param schemaName
@@ -59,36 +110,202 @@ public class ModelerSourceUtil {
    */
   public static String[] discoverTableCasing( DatabaseMeta databaseMeta, String schemaName, String tableName )
     throws ModelerException {
+    TableCasingKey key = new TableCasingKey( databaseMeta, schemaName, tableName );
+    long now = System.currentTimeMillis();
+    CachedTableCasing cached = tableCasings.get( key );
+    if ( cached != null && cached.expires > now ) {
+      return cached.casing.clone();
+    }
+    // a miss connects to the database anyway, dropping what expired is cheap next to that
+    purgeExpiredTableCasings( now );
+
+    String[] casing;
+    Database database = new Database( databaseMeta );
+    try {
+      database.connect();
+      casing = discoverTableCasing( database, schemaName, tableName );
+    } catch ( KettleDatabaseException e ) {
+      throw new ModelerException( e );
+    } finally {
+      database.disconnect();
+    }
+
+    long ttl = tableCasingCacheTtl;
+    if ( ttl > 0 ) {
+      tableCasings.put( key, new CachedTableCasing( casing, now + ttl ) );
+    }
+    return casing.clone();
+  }
+
+  private static String[] discoverTableCasing( Database database, String schemaName, String tableName )
+    throws ModelerException {
+    // First try to see if current casing of tableName matches DB (Ex. MySQL doesn't matter)
+    // Second try to see if lower casing will match DB (Ex. Postgres)
+    // Third try to see if upper casing will match DB (Ex. H2, ORACLE)
+    String[][] candidates = {
+      { schemaName, tableName },
+      { lowerCase( schemaName ), lowerCase( tableName ) },
+      { upperCase( schemaName ), upperCase( tableName ) } };
     try {
-      // First try to see if current casing of tableName matches DB (Ex. MySQL doesn't matter)
-      verifyTableExistsAndMayBeQuoted( databaseMeta, schemaName, tableName );
-    } catch ( ModelerException e ) {
+      String[] found = findTable( database.getConnection(), candidates );
+      if ( found != null ) {
+        return found;
+      }
+    } catch ( SQLException e ) {
+      logger.debug( "Unable to read table metadata, falling back to querying the table", e ); //$NON-NLS-1$
+    }
+
+    // drivers that keep schemas as catalogs, or do not report tables at all, need the table queried
+    for ( int i = 0; i < candidates.length - 1; i++ ) {
       try {
-        // Second try to see if lower casing will match DB (Ex. Postgres)
-        if ( !StringUtils.isBlank( schemaName ) ) {
-          schemaName = schemaName.toLowerCase();
-        }
-        if ( !StringUtils.isBlank( tableName ) ) {
-          tableName = tableName.toLowerCase();
-        }
-        verifyTableExistsAndMayBeQuoted( databaseMeta, schemaName, tableName );
-      } catch ( ModelerException e2 ) {
-        // Third try to see if upper casing will match DB (Ex. H2, ORACLE)
-        if ( !StringUtils.isBlank( schemaName ) ) {
-          schemaName = schemaName.toUpperCase();
+        verifyTableExistsAndMayBeQuoted( database, candidates[i][0], candidates[i][1] );
+        return candidates[i];
+      } catch ( ModelerException e ) {
+        // try the next casing
+      }
+    }
+    String[] last = candidates[candidates.length - 1];
+    verifyTableExistsAndMayBeQuoted( database, last[0], last[1] );
+    return last;
+  }
+
+  /**
+   * Looks each candidate up with its own <code>getTables</code> call, limited to the candidate's schema or, when no
+   * schema is given, the connection's default schema.
+   *
+   * @return the first candidate the database has, or null if none was found or the default schema is unknown
+   */
+  private static String[] findTable( Connection connection, String[][] candidates ) throws SQLException {
+    if ( StringUtils.isBlank( candidates[0][1] ) ) {
+      return null;
+    }
+    boolean defaultSchema = StringUtils.isBlank( candidates[0][0] );
+    String schemaName = defaultSchema ? getDefaultSchema( connection ) : null;
+    if ( defaultSchema && schemaName == null ) {
+      // only the database knows how it resolves an unqualified name
+      return null;
+    }
+    DatabaseMetaData metaData = connection.getMetaData();
+    String escape = metaData.getSearchStringEscape();
+    Set<String> probed = new HashSet<String>();
+    for ( String[] candidate : candidates ) {
+      String schema = defaultSchema ? schemaName : candidate[0];
+      String table = candidate[1];
+      if ( !probed.add( schema + '.' + table ) ) {
+        continue;
+      }
+      ResultSet tables = metaData.getTables( null, escapeSearchPattern( schema, escape ),
+          escapeSearchPattern( table, escape ), null );
+      try {
+        while ( tables.next() ) {
+          // drivers without schemas report the database as catalog
+          String tableSchema = tables.getString( "TABLE_SCHEM" ); //$NON-NLS-1$
+          if ( tableSchema == null ) {
+            tableSchema = tables.getString( "TABLE_CAT" ); //$NON-NLS-1$
+          }
+          // some drivers ignore the schema pattern or match it loosely
+          if ( table.equals( tables.getString( "TABLE_NAME" ) ) && schema.equals( tableSchema ) ) { //$NON-NLS-1$
+            return candidate;
+          }
         }
-        if ( !StringUtils.isBlank( tableName ) ) {
-          tableName = tableName.toUpperCase();
+      } finally {
+        tables.close();
+      }
+    }
+    return null;
+  }
+
+  private static String getDefaultSchema( Connection connection ) {
+    try {
+      return connection.getSchema();
+    } catch ( SQLException e ) {
+      return null;
+    } catch ( AbstractMethodError e ) {
+      // drivers predating JDBC 4.1
+      return null;
+    }
+  }
+
+  /**
+   * Escapes the <code>_</code> and <code>%</code> wildcards in <code>name</code> so a metadata search pattern only
+   * matches it literally; the escape string itself is escaped as well.
+   */
+  static String escapeSearchPattern( String name, String escape ) {
+    if ( name == null || escape == null || escape.length() == 0 ) {
+      return name;
+    }
+    StringBuilder pattern = new StringBuilder( name.length() + 8 );
+    int i = 0;
+    while ( i < name.length() ) {
+      if ( name.startsWith( escape, i ) ) {
+        pattern.append( escape ).append( escape );
+        i += escape.length();
+      } else {
+        char c = name.charAt( i++ );
+        if ( c == '_' || c == '%' ) {
+          pattern.append( escape );
         }
-        verifyTableExistsAndMayBeQuoted( databaseMeta, schemaName, tableName );
+        pattern.append( c );
+      }
+    }
+    return pattern.toString();
+  }
+
+  private static String lowerCase( String name ) {
+    return StringUtils.isBlank( name ) ? name : name.toLowerCase();
+  }
+
+  private static String upperCase( String name ) {
+    return StringUtils.isBlank( name ) ? name : name.toUpperCase();
+  }
+
+  private static void purgeExpiredTableCasings( long now ) {
+    for ( Iterator<CachedTableCasing> it = tableCasings.values().iterator(); it.hasNext(); ) {
+      if ( it.next().expires <= now ) {
+        it.remove();
       }
     }
-    return new String[] { schemaName, tableName };
+  }
+
+  /**
+   * Sets how long {@link #discoverTableCasing(DatabaseMeta, String, String)} remembers a result, 0 turns caching off.
+   *
+   * @param millis
+   */
+  public static void setTableCasingCacheTtl( long millis ) {
+    tableCasingCacheTtl = millis;
+    if ( millis <= 0 ) {
+      tableCasings.clear();
+    }
+  }
+
+  public static long getTableCasingCacheTtl() {
+    return tableCasingCacheTtl;
+  }
+
+  /**
+   * Forgets all discovered table casings, e.g. after tables were created or renamed.
+   */
+  public static void clearTableCasingCache() {
+    tableCasings.clear();
   }
 
   public static void verifyTableExistsAndMayBeQuoted( DatabaseMeta databaseMeta, String schemaName, String tableName )
     throws ModelerException {
     Database database = new Database( databaseMeta );
+    try {
+      database.connect();
+      verifyTableExistsAndMayBeQuoted( database, schemaName, tableName );
+    } catch ( KettleDatabaseException e ) {
+      throw new ModelerException( e );
+    } finally {
+      database.disconnect();
+    }
+  }
+
+  private static void verifyTableExistsAndMayBeQuoted( Database database, String schemaName, String tableName )
+    throws ModelerException {
+    DatabaseMeta databaseMeta = database.getDatabaseMeta();
     String quotedSchema = schemaName;
     if ( !StringUtils.isBlank( quotedSchema ) ) {
       quotedSchema = databaseMeta.getStartQuote() + quotedSchema + databaseMeta.getEndQuote();
@@ -100,13 +317,10 @@ public class ModelerSourceUtil {
     String schemaTableCombination = databaseMeta.getQuotedSchemaTableCombination( quotedSchema, quotedTable );
 
     try {
-      database.connect();
       database.getTableFields( schemaTableCombination );
     } catch ( KettleDatabaseException e ) {
       throw new ModelerException( BaseMessages.getString( ModelerWorkspace.class,
           "ModelerSourceUtil.FAILED_TO_GET_TABLE_FIELDS", schemaTableCombination ), e ); //$NON-NLS-1$
-    } finally {
-      database.disconnect();
     }
   }
 
@@ -129,6 +343,30 @@ public class ModelerSourceUtil {
   public static Domain generateDomain( DatabaseMeta databaseMeta, String schemaName, String tableName,
                                        String datasourceName, boolean dualModelingMode,
                                        ImportStrategy importStrategy ) throws ModelerException {
+    DomainTemplateCache cache = domainTemplateCache;
+    if ( cache != null ) {
+      Domain cached =
+          cache.get( databaseMeta, schemaName, tableName, datasourceName, importStrategy, dualModelingMode );
+      if ( cached != null ) {
+        return cached;
+      }
+    }
+    Domain domain;
+    if ( tableMetadataCache != null
+        && ( importStrategy == null || importStrategy == defaultImportStrategy ) ) {
+      domain = generateDomainFromMetadata( databaseMeta, schemaName, tableName, datasourceName, dualModelingMode );
+    } else {
+      domain = generateDomainFromDatabase( databaseMeta, schemaName, tableName, datasourceName,
+          dualModelingMode, importStrategy );
+    }
+    if ( cache != null ) {
+      cache.put( databaseMeta, schemaName, tableName, datasourceName, importStrategy, dualModelingMode, domain );
+    }
+    return domain;
+  }
+
+  private static Domain generateDomainFromDatabase( DatabaseMeta databaseMeta, String schemaName, String tableName,
+      String datasourceName, boolean dualModelingMode, ImportStrategy importStrategy ) throws ModelerException {
     String[] schemaTable = discoverTableCasing( databaseMeta, schemaName, tableName );
     schemaName = schemaTable[0];
     tableName = schemaTable[1];
@@ -137,6 +375,8 @@ public class ModelerSourceUtil {
     try {
       // modelName, databaseMeta, , "joe", tableOutputMeta.getTablename(), profiles);
       String locale = LocalizedString.DEFAULT_LOCALE;
+      // a generator holds the state of one generation, sharing it would mix up concurrent callers
+      ModelGenerator generator = new ModelGenerator();
       generator.setLocale( locale );
       generator.setDatabaseMeta( databaseMeta );
       generator.setModelName( tableName );
@@ -157,45 +397,480 @@ public class ModelerSourceUtil {
         }
       }
       domain.setId( tableName ); // replaced with user specified name later
+      prepareGeneratedDomain( domain, tableName, datasourceName, dualModelingMode, locale );
+    } catch ( PentahoMetadataException e ) {
+      e.printStackTrace();
+      logger.info( e.getLocalizedMessage() );
+      throw new ModelerException( e );
+    }
+    return domain;
+  }
 
-      LogicalModel businessModel = domain.getLogicalModels().get( 0 ); // schemaMeta.getActiveModel();
-      businessModel.setProperty( "AGILE_BI_GENERATED_SCHEMA", "TRUE" );
-      businessModel.setProperty( "DUAL_MODELING_SCHEMA", "" + dualModelingMode );
+  private static Domain generateDomainFromMetadata( DatabaseMeta databaseMeta, String schemaName, String tableName,
+      String datasourceName, boolean dualModelingMode ) throws ModelerException {
+    String locale = LocalizedString.DEFAULT_LOCALE;
+    TableMetadata table = getTableMetadata( databaseMeta, schemaName, tableName );
+    SqlPhysicalModel physicalModel = createPhysicalModel( databaseMeta, locale );
+    addTable( physicalModel, table, datasourceName, locale );
+    Domain domain = createDomain( physicalModel, table.getTableName(), locale );
+    prepareGeneratedDomain( domain, table.getTableName(), datasourceName, dualModelingMode, locale );
+    return domain;
+  }
 
-      // TODO do this with messages
-      businessModel.setName( new LocalizedString( locale, tableName ) );
-      businessModel.setDescription( new LocalizedString( locale, "This is the data model for " + datasourceName ) );
+  /**
+   * Builds a Domain over <code>tables</code> from their column metadata, read through the
+   * {@link #setTableMetadataCache(TableMetadataCache) table metadata cache}. Every table gets a physical table named
+   * after it, and a logical table and category of its own.
+   */
+  static Domain generateDomainFromMetadata( DatabaseMeta databaseMeta, List<SchemaTable> tables, String modelName,
+      String locale ) throws ModelerException {
+    SqlPhysicalModel physicalModel = createPhysicalModel( databaseMeta, locale );
+    for ( SchemaTable schemaTable : tables ) {
+      TableMetadata table = getTableMetadata( databaseMeta, schemaTable.getSchemaName(), schemaTable.getTableName() );
+      addTable( physicalModel, table, table.getTableName(), locale );
+    }
+    return createDomain( physicalModel, modelName, locale );
+  }
 
-      LogicalTable businessTable = businessModel.getLogicalTables().get( 0 );
-      businessTable.setName( new LocalizedString( locale, businessTable.getPhysicalTable().getName( locale ) ) );
+  /**
+   * @return the column metadata of the table from the table metadata cache, or read from the database and stored
+   *         there
+   */
+  static TableMetadata getTableMetadata( DatabaseMeta databaseMeta, String schemaName, String tableName )
+    throws ModelerException {
+    TableMetadataCache cache = tableMetadataCache;
+    TableMetadata table = cache == null ? null : cache.get( databaseMeta, schemaName, tableName );
+    if ( table != null ) {
+      return table;
+    }
+    Database database = new Database( databaseMeta );
+    try {
+      database.connect();
+      String[] casing = discoverTableCasing( database, schemaName, tableName );
+      table = readTableMetadata( database.getConnection(), casing[0], casing[1] );
+    } catch ( KettleDatabaseException e ) {
+      throw new ModelerException( e );
+    } catch ( SQLException e ) {
+      throw new ModelerException( e );
+    } finally {
+      database.disconnect();
+    }
+    if ( cache != null ) {
+      cache.put( databaseMeta, schemaName, tableName, table );
+    }
+    return table;
+  }
 
-      // if it was requested to generate for dual-mode modeling (relational & olap)
-      // duplicate the tables
-      LogicalModel olapModel = null;
-      if ( dualModelingMode ) {
-        olapModel = ModelerConversionUtil.duplicateModelForOlap( businessModel );
-        domain.addLogicalModel( olapModel );
+  /**
+   * Reads the columns of a table whose casing is known with one <code>getColumns</code> call. A blank schema is the
+   * connection's default schema or, for drivers without one, its current catalog.
+   */
+  private static TableMetadata readTableMetadata( Connection connection, String schemaName, String tableName )
+    throws SQLException, ModelerException {
+    DatabaseMetaData metaData = connection.getMetaData();
+    String escape = metaData.getSearchStringEscape();
+    String schema = StringUtils.isBlank( schemaName ) ? getDefaultSchema( connection ) : schemaName;
+    String catalog = schema == null ? connection.getCatalog() : null;
+    SortedMap<Integer, TableMetadata.Column> columns = new TreeMap<Integer, TableMetadata.Column>();
+    ResultSet rs = metaData.getColumns( catalog, escapeSearchPattern( schema, escape ),
+        escapeSearchPattern( tableName, escape ), null );
+    try {
+      while ( rs.next() ) {
+        String tableSchema = rs.getString( "TABLE_SCHEM" ); //$NON-NLS-1$
+        if ( tableSchema == null ) {
+          tableSchema = rs.getString( "TABLE_CAT" ); //$NON-NLS-1$
+        }
+        // drivers may ignore the patterns or match them loosely
+        if ( !tableName.equals( rs.getString( "TABLE_NAME" ) ) //$NON-NLS-1$
+            || ( schema != null && !schema.equals( tableSchema ) ) ) {
+          continue;
+        }
+        String name = rs.getString( "COLUMN_NAME" ); //$NON-NLS-1$
+        int sqlType = rs.getInt( "DATA_TYPE" ); //$NON-NLS-1$
+        int length = rs.getInt( "COLUMN_SIZE" ); //$NON-NLS-1$
+        int precision = rs.getInt( "DECIMAL_DIGITS" ); //$NON-NLS-1$
+        boolean nullable = rs.getInt( "NULLABLE" ) != DatabaseMetaData.columnNoNulls; //$NON-NLS-1$
+        columns.put( rs.getInt( "ORDINAL_POSITION" ), //$NON-NLS-1$
+            new TableMetadata.Column( name, sqlType, length, precision, nullable ) );
       }
+    } finally {
+      rs.close();
+    }
+    if ( columns.isEmpty() ) {
+      throw new ModelerException( BaseMessages.getString( ModelerWorkspace.class,
+          "ModelerSourceUtil.FAILED_TO_GET_TABLE_FIELDS", schemaName + "." + tableName ) ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+    return new TableMetadata( schemaName, tableName, new ArrayList<TableMetadata.Column>( columns.values() ) );
+  }
+
+  private static SqlPhysicalModel createPhysicalModel( DatabaseMeta databaseMeta, String locale ) {
+    SqlPhysicalModel physicalModel = new SqlPhysicalModel();
+    physicalModel.setId( databaseMeta.getName() );
+    physicalModel.setName( new LocalizedString( locale, databaseMeta.getName() ) );
+    physicalModel.setDatasource( ThinModelConverter.convertFromLegacy( databaseMeta ) );
+    return physicalModel;
+  }
 
-      // configuring security is necessary so when publishing a model to the bi-server
-      // it can be viewed by everyone. we will eventually have a security UI where this will
-      // be configurable in the modeler tool
+  private static void addTable( SqlPhysicalModel physicalModel, TableMetadata table, String name, String locale ) {
+    UniqueIdRegistry tableIds = new UniqueIdRegistry( physicalModel.getPhysicalTables() );
+    SqlPhysicalTable physicalTable = new SqlPhysicalTable( physicalModel );
+    physicalTable.setId( tableIds.allocate( toPhysicalId( table.getTableName() ) ) );
+    physicalTable.setName( new LocalizedString( locale, name ) );
+    physicalTable.setTargetTableType( TargetTableType.TABLE );
+    if ( !StringUtils.isBlank( table.getSchemaName() ) ) {
+      physicalTable.setTargetSchema( table.getSchemaName() );
+    }
+    physicalTable.setTargetTable( table.getTableName() );
+    UniqueIdRegistry columnIds = new UniqueIdRegistry( physicalTable.getPhysicalColumns() );
+    for ( TableMetadata.Column column : table.getColumns() ) {
+      addColumn( physicalTable, columnIds, column.getName(), column.getSqlType(), column.getLength(),
+          column.getPrecision(), locale );
+    }
+    physicalModel.addPhysicalTable( physicalTable );
+  }
 
-      // TODO: investigate and replace this magic number with named constant?
-      int rights = 31;
-      String roleName = System.getProperty( "AGILE_BI_MODEL_ROLE", DEFAULT_ROLE_NAME ); //$NON-NLS-1$
-      setRoleAccess( roleName, rights, businessModel );
-      if ( olapModel != null ) {
-        setRoleAccess( roleName, rights, olapModel );
+  /**
+   * Creates a Domain over <code>physicalModel</code> with one logical model holding a logical table and a category per
+   * physical table.
+   */
+  private static Domain createDomain( SqlPhysicalModel physicalModel, String id, String locale ) {
+    LogicalModel businessModel = new LogicalModel();
+    businessModel.setId( "MODEL_1" ); //$NON-NLS-1$
+    businessModel.setPhysicalModel( physicalModel );
+    for ( SqlPhysicalTable physicalTable : physicalModel.getPhysicalTables() ) {
+      String name = physicalTable.getName( locale );
+      LogicalTable businessTable = new LogicalTable();
+      businessTable.setId( "LT_" + physicalTable.getId() ); //$NON-NLS-1$
+      businessTable.setLogicalModel( businessModel );
+      businessTable.setPhysicalTable( physicalTable );
+      businessTable.setName( new LocalizedString( locale, name ) );
+      Category category = new Category();
+      category.setId( "CAT_" + physicalTable.getId() ); //$NON-NLS-1$
+      category.setName( new LocalizedString( locale, name ) );
+      for ( IPhysicalColumn physicalColumn : physicalTable.getPhysicalColumns() ) {
+        LogicalColumn logicalColumn = new LogicalColumn();
+        logicalColumn.setId( "LC_" + physicalTable.getId() + "_" + physicalColumn.getId() ); //$NON-NLS-1$ //$NON-NLS-2$
+        logicalColumn.setLogicalTable( businessTable );
+        logicalColumn.setPhysicalColumn( physicalColumn );
+        logicalColumn.setDataType( physicalColumn.getDataType() );
+        logicalColumn.setAggregationType( physicalColumn.getAggregationType() );
+        logicalColumn.setName( new LocalizedString( locale, physicalColumn.getName( locale ) ) );
+        businessTable.addLogicalColumn( logicalColumn );
+        category.addLogicalColumn( logicalColumn );
       }
-    } catch ( PentahoMetadataException e ) {
-      e.printStackTrace();
-      logger.info( e.getLocalizedMessage() );
+      businessModel.addLogicalTable( businessTable );
+      businessModel.addCategory( category );
+    }
+
+    Domain domain = new Domain();
+    domain.setId( id );
+    domain.setLocales( new ArrayList<LocaleType>( Arrays.asList( new LocaleType( locale, locale ) ) ) );
+    domain.addPhysicalModel( physicalModel );
+    domain.addLogicalModel( businessModel );
+    return domain;
+  }
+
+  /**
+   * Marks a freshly generated single table Domain as generated by the modeler: names its reporting model, adds the
+   * analysis model in dual modeling mode and grants the modeler role access to both.
+   */
+  static void prepareGeneratedDomain( Domain domain, String modelName, String datasourceName,
+      boolean dualModelingMode, String locale ) {
+    LogicalModel businessModel = domain.getLogicalModels().get( 0 ); // schemaMeta.getActiveModel();
+    businessModel.setProperty( "AGILE_BI_GENERATED_SCHEMA", "TRUE" );
+    businessModel.setProperty( "DUAL_MODELING_SCHEMA", "" + dualModelingMode );
+
+    // TODO do this with messages
+    businessModel.setName( new LocalizedString( locale, modelName ) );
+    businessModel.setDescription( new LocalizedString( locale, "This is the data model for " + datasourceName ) );
+
+    LogicalTable businessTable = businessModel.getLogicalTables().get( 0 );
+    businessTable.setName( new LocalizedString( locale, businessTable.getPhysicalTable().getName( locale ) ) );
+
+    // if it was requested to generate for dual-mode modeling (relational & olap)
+    // duplicate the tables
+    LogicalModel olapModel = null;
+    if ( dualModelingMode ) {
+      olapModel = ModelerConversionUtil.duplicateModelForOlap( businessModel );
+      domain.addLogicalModel( olapModel );
+    }
+
+    // configuring security is necessary so when publishing a model to the bi-server
+    // it can be viewed by everyone. we will eventually have a security UI where this will
+    // be configurable in the modeler tool
+
+    // TODO: investigate and replace this magic number with named constant?
+    int rights = 31;
+    String roleName = System.getProperty( "AGILE_BI_MODEL_ROLE", DEFAULT_ROLE_NAME ); //$NON-NLS-1$
+    setRoleAccess( roleName, rights, businessModel );
+    if ( olapModel != null ) {
+      setRoleAccess( roleName, rights, olapModel );
+    }
+  }
+
+  /**
+   * Generates a single table Domain for the SQL <code>query</code>, the way
+   * {@link #generateDomain(DatabaseMeta, String, String, String, boolean)} does for a table. The physical table is an
+   * inline SQL table and its columns, with their length and precision, are derived from the metadata of the prepared
+   * query, or when the driver cannot prepare or describe the statement, from the query wrapped into one returning no
+   * rows. Drivers known to run a prepared statement to describe it (MySQL, MariaDB) go to the wrapped query directly.
+   * No rows are fetched either way, but the database may still have to evaluate the query.
+   *
+   * @param databaseMeta
+   * @param query
+   *          a SELECT statement
+   * @param datasourceName
+   *          names the Domain, its models and its table
+   * @param dualModelingMode
+   * @return the Domain
+   * @throws ModelerException
+   *           if the query can not be described
+   */
+  public static Domain generateDomainFromQuery( DatabaseMeta databaseMeta, String query, String datasourceName,
+      boolean dualModelingMode ) throws ModelerException {
+    String locale = LocalizedString.DEFAULT_LOCALE;
+    String sql = trimQuery( query );
+
+    SqlPhysicalModel physicalModel = createPhysicalModel( databaseMeta, locale );
+    SqlPhysicalTable physicalTable = new SqlPhysicalTable( physicalModel );
+    physicalTable.setId( "INLINE_SQL_1" ); //$NON-NLS-1$
+    physicalTable.setName( new LocalizedString( locale, datasourceName ) );
+    physicalTable.setTargetTableType( TargetTableType.INLINE_SQL );
+    physicalTable.setTargetTable( sql );
+    physicalModel.addPhysicalTable( physicalTable );
+
+    Database database = new Database( databaseMeta );
+    try {
+      database.connect();
+      importQueryColumns( database.getConnection(), sql, physicalTable, locale,
+          !DESCRIBE_RUNS_QUERY.contains( databaseMeta.getPluginId() ) );
+    } catch ( KettleDatabaseException e ) {
       throw new ModelerException( e );
+    } catch ( SQLException e ) {
+      throw new ModelerException( e );
+    } finally {
+      database.disconnect();
+    }
+    if ( physicalTable.getPhysicalColumns().isEmpty() ) {
+      throw new ModelerException( "The query returns no columns: " + sql ); //$NON-NLS-1$
     }
+
+    Domain domain = createDomain( physicalModel, datasourceName, locale );
+    prepareGeneratedDomain( domain, datasourceName, datasourceName, dualModelingMode, locale );
     return domain;
   }
 
+  private static String trimQuery( String query ) {
+    String sql = query.trim();
+    while ( sql.endsWith( ";" ) ) { //$NON-NLS-1$
+      sql = sql.substring( 0, sql.length() - 1 ).trim();
+    }
+    return sql;
+  }
+
+  private static void importQueryColumns( Connection connection, String sql, SqlPhysicalTable physicalTable,
+      String locale, boolean describe ) throws SQLException {
+    if ( describe ) {
+      PreparedStatement statement = null;
+      try {
+        ResultSetMetaData metaData = null;
+        try {
+          statement = connection.prepareStatement( sql );
+          metaData = statement.getMetaData();
+        } catch ( SQLException e ) {
+          // some drivers can only prepare or describe statements they run
+          logger.debug( "Unable to describe the prepared query, falling back to an empty result", e ); //$NON-NLS-1$
+        }
+        if ( metaData != null && metaData.getColumnCount() > 0 ) {
+          addQueryColumns( metaData, physicalTable, locale );
+          return;
+        }
+      } finally {
+        if ( statement != null ) {
+          statement.close();
+        }
+      }
+    }
+
+    Statement emptyQuery = connection.createStatement();
+    try {
+      String wrapped = "SELECT * FROM ( " + sql + " ) MODELER_QUERY WHERE 1=0"; //$NON-NLS-1$ //$NON-NLS-2$
+      ResultSet rs = emptyQuery.executeQuery( wrapped );
+      try {
+        addQueryColumns( rs.getMetaData(), physicalTable, locale );
+      } finally {
+        rs.close();
+      }
+    } finally {
+      emptyQuery.close();
+    }
+  }
+
+  private static void addQueryColumns( ResultSetMetaData metaData, SqlPhysicalTable physicalTable, String locale )
+    throws SQLException {
+    UniqueIdRegistry ids = new UniqueIdRegistry( physicalTable.getPhysicalColumns() );
+    for ( int i = 1; i <= metaData.getColumnCount(); i++ ) {
+      String label = metaData.getColumnLabel( i );
+      if ( StringUtils.isEmpty( label ) ) {
+        label = metaData.getColumnName( i );
+      }
+      addColumn( physicalTable, ids, label, metaData.getColumnType( i ), metaData.getPrecision( i ),
+          metaData.getScale( i ), locale );
+    }
+  }
+
+  /**
+   * Adds a column of the JDBC type <code>sqlType</code> to <code>physicalTable</code>. The length (total digits for
+   * numbers) and precision (fractional digits) are kept as column properties when the driver reported them.
+   */
+  private static SqlPhysicalColumn addColumn( SqlPhysicalTable physicalTable, UniqueIdRegistry ids, String name,
+      int sqlType, int length, int precision, String locale ) {
+    DataType dataType = toDataType( sqlType );
+    SqlPhysicalColumn column = new SqlPhysicalColumn( physicalTable );
+    column.setId( ids.allocate( toPhysicalId( name ) ) );
+    column.setTargetColumn( name );
+    column.setName( new LocalizedString( locale, name ) );
+    column.setDataType( dataType );
+    column.setAggregationType( dataType == DataType.NUMERIC ? AggregationType.SUM : AggregationType.NONE );
+    if ( length > 0 ) {
+      column.setProperty( BaseModelerWorkspaceHelper.COLUMN_LENGTH, length );
+    }
+    if ( precision > 0 ) {
+      column.setProperty( BaseModelerWorkspaceHelper.COLUMN_PRECISION, precision );
+    }
+    physicalTable.addPhysicalColumn( column );
+    return column;
+  }
+
+  private static String toPhysicalId( String label ) {
+    StringBuilder id = new StringBuilder( label.length() );
+    for ( int i = 0; i < label.length(); i++ ) {
+      char c = label.charAt( i );
+      id.append( Character.isLetterOrDigit( c ) ? Character.toUpperCase( c ) : '_' );
+    }
+    return id.toString();
+  }
+
+  private static DataType toDataType( int sqlType ) {
+    switch ( sqlType ) {
+      case Types.CHAR:
+      case Types.VARCHAR:
+      case Types.LONGVARCHAR:
+      case Types.NCHAR:
+      case Types.NVARCHAR:
+      case Types.LONGNVARCHAR:
+      case Types.CLOB:
+      case Types.NCLOB:
+        return DataType.STRING;
+      case Types.TINYINT:
+      case Types.SMALLINT:
+      case Types.INTEGER:
+      case Types.BIGINT:
+      case Types.REAL:
+      case Types.FLOAT:
+      case Types.DOUBLE:
+      case Types.DECIMAL:
+      case Types.NUMERIC:
+        return DataType.NUMERIC;
+      case Types.DATE:
+      case Types.TIME:
+      case Types.TIMESTAMP:
+        return DataType.DATE;
+      case Types.BIT:
+      case Types.BOOLEAN:
+        return DataType.BOOLEAN;
+      case Types.BINARY:
+      case Types.VARBINARY:
+      case Types.LONGVARBINARY:
+      case Types.BLOB:
+        return DataType.BINARY;
+      default:
+        return DataType.UNKNOWN;
+    }
+  }
+
+  public static List<Domain> generateDomains( DatabaseMeta databaseMeta, List<SchemaTable> tables )
+    throws ModelerException {
+    return generateDomains( databaseMeta, tables, true, Runtime.getRuntime().availableProcessors() );
+  }
+
+  /**
+   * Generates one Domain per table, the way {@link #generateDomain(DatabaseMeta, String, String)} does, on a pool of at
+   * most <code>threads</code> threads. Every table is read over its own connection.
+   *
+   * @param databaseMeta
+   * @param tables
+   *          the tables to generate Domains for, the table name doubles as the datasource name
+   * @param dualModelingMode
+   * @param threads
+   *          the maximum number of tables generated at once
+   * @return the Domains in the order of <code>tables</code>
+   * @throws ModelerException
+   *           the first failure in table order, the remaining tables are abandoned
+   */
+  public static List<Domain> generateDomains( final DatabaseMeta databaseMeta, List<SchemaTable> tables,
+      final boolean dualModelingMode, int threads ) throws ModelerException {
+    List<Domain> domains = new ArrayList<Domain>( tables.size() );
+    if ( tables.isEmpty() ) {
+      return domains;
+    }
+    ExecutorService pool = Executors.newFixedThreadPool( Math.max( 1, Math.min( threads, tables.size() ) ) );
+    try {
+      List<Future<Domain>> results = new ArrayList<Future<Domain>>( tables.size() );
+      for ( final SchemaTable table : tables ) {
+        results.add( pool.submit( new Callable<Domain>() {
+          public Domain call() throws ModelerException {
+            return generateDomain( databaseMeta, table.getSchemaName(), table.getTableName(), table.getTableName(),
+                dualModelingMode );
+          }
+        } ) );
+      }
+      for ( Future<Domain> result : results ) {
+        domains.add( result.get() );
+      }
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new ModelerException( e );
+    } catch ( ExecutionException e ) {
+      if ( e.getCause() instanceof ModelerException ) {
+        throw (ModelerException) e.getCause();
+      }
+      throw new ModelerException( e.getCause() );
+    } finally {
+      pool.shutdownNow();
+    }
+    return domains;
+  }
+
+  /**
+   * Puts a cache in front of {@link #generateDomain}, null, the default, turns caching off.
+   *
+   * @param cache
+   */
+  public static void setDomainTemplateCache( DomainTemplateCache cache ) {
+    domainTemplateCache = cache;
+  }
+
+  public static DomainTemplateCache getDomainTemplateCache() {
+    return domainTemplateCache;
+  }
+
+  /**
+   * Keeps the column metadata of the tables {@link #generateDomain} and {@link MultiTableModelerSource} model in
+   * <code>cache</code>, so tables whose metadata is cached are modeled without connecting to the database. While a
+   * cache is set, Domains for the default import strategy are built from the column metadata instead of by the metadata
+   * auto modeler. Null, the default, turns it off.
+   *
+   * @param cache
+   */
+  public static void setTableMetadataCache( TableMetadataCache cache ) {
+    tableMetadataCache = cache;
+  }
+
+  public static TableMetadataCache getTableMetadataCache() {
+    return tableMetadataCache;
+  }
+
   public static void setRoleAccess( String role, int rights, IConcept concept ) {
     SecurityOwner owner = new SecurityOwner( SecurityOwner.OwnerType.ROLE, role );
     Security security = (Security) concept.getProperty( DefaultPropertyID.SECURITY.getId() );
@@ -206,4 +881,46 @@ public class ModelerSourceUtil {
     security.putOwnerRights( owner, rights );
   }
 
+  /**
+   * Identifies a casing lookup. The DatabaseMeta is compared by identity, connections edited in place must clear the
+   * cache.
+   */
+  private static class TableCasingKey {
+    private final DatabaseMeta databaseMeta;
+    private final String schemaName;
+    private final String tableName;
+
+    TableCasingKey( DatabaseMeta databaseMeta, String schemaName, String tableName ) {
+      this.databaseMeta = databaseMeta;
+      this.schemaName = schemaName;
+      this.tableName = tableName;
+    }
+
+    @Override
+    public boolean equals( Object obj ) {
+      if ( !( obj instanceof TableCasingKey ) ) {
+        return false;
+      }
+      TableCasingKey other = (TableCasingKey) obj;
+      return databaseMeta == other.databaseMeta && StringUtils.equals( schemaName, other.schemaName )
+          && StringUtils.equals( tableName, other.tableName );
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = System.identityHashCode( databaseMeta );
+      hash = 31 * hash + ( schemaName == null ? 0 : schemaName.hashCode() );
+      return 31 * hash + ( tableName == null ? 0 : tableName.hashCode() );
+    }
+  }
+
+  private static class CachedTableCasing {
+    private final String[] casing;
+    private final long expires;
+
+    CachedTableCasing( String[] casing, long expires ) {
+      this.casing = casing;
+      this.expires = expires;
+    }
+  }
 }
@@ -13,20 +13,51 @@
 
 package org.pentaho.agilebi.modeler.util;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
 import org.pentaho.agilebi.modeler.BaseModelerWorkspaceHelper;
+import org.pentaho.agilebi.modeler.ModelerException;
+import org.pentaho.agilebi.modeler.ModelerPerspective;
 import org.pentaho.agilebi.modeler.ModelerWorkspace;
 import org.pentaho.agilebi.modeler.nodes.MainModelNode;
 import org.pentaho.agilebi.modeler.nodes.RelationalModelNode;
+import org.pentaho.agilebi.modeler.strategy.AutoModelProgressMonitor;
+import org.pentaho.agilebi.modeler.strategy.AutoModelStrategy;
 
 /**
  * User: nbaker Date: Jul 14, 2010
  */
 public class ModelerWorkspaceHelper extends BaseModelerWorkspaceHelper {
 
+  private static final Executor DIRECT = new Executor() {
+    public void execute( Runnable command ) {
+      command.run();
+    }
+  };
+
+  private Executor executor;
+  private Executor publishExecutor;
+
   public ModelerWorkspaceHelper( String locale ) {
     super( locale );
   }
 
+  /**
+   * @param locale
+   * @param executor
+   *          runs the auto modeling of the <code>...Async</code> methods, the common fork join pool if null
+   * @param publishExecutor
+   *          swaps finished models into the workspace, normally the UI thread. When set, the
+   *          <code>...InBackground</code> methods no longer block on the auto model strategy.
+   */
+  public ModelerWorkspaceHelper( String locale, Executor executor, Executor publishExecutor ) {
+    super( locale );
+    this.executor = executor;
+    this.publishExecutor = publishExecutor;
+  }
+
   @Override
   protected MainModelNode getMainModelNode( ModelerWorkspace workspace ) {
     return new MainModelNode( workspace );
@@ -37,4 +68,188 @@ public class ModelerWorkspaceHelper extends BaseModelerWorkspaceHelper {
     return new RelationalModelNode( workspace );
   }
 
+  @Override
+  public void autoModelFlatInBackground( ModelerWorkspace workspace ) throws ModelerException {
+    if ( publishExecutor == null ) {
+      super.autoModelFlatInBackground( workspace );
+    } else {
+      autoModelFlatAsync( workspace, null );
+    }
+  }
+
+  @Override
+  public void autoModelRelationalFlatInBackground( ModelerWorkspace workspace ) throws ModelerException {
+    if ( publishExecutor == null ) {
+      super.autoModelRelationalFlatInBackground( workspace );
+    } else {
+      autoModelRelationalFlatAsync( workspace, null );
+    }
+  }
+
+  /**
+   * Auto models the OLAP side of the workspace off the calling thread. The strategy builds a new MainModelNode with its
+   * events suppressed into a {@link ModelerWorkspace#createStagingWorkspace() staging copy} of the workspace, so the
+   * workspace keeps its current model and Domain. The publish executor then moves the modeled logical columns into the
+   * workspace's Domain and sets the finished node on the workspace in one step. Canceling the returned future stops the
+   * strategy before its next field, interrupting the worker if asked to, and leaves the workspace alone.
+   *
+   * @param workspace
+   * @param monitor
+   *          told about every modeled table, may be null
+   * @return the new model node, completed once it is the workspace's model
+   */
+  public CompletableFuture<MainModelNode> autoModelFlatAsync( final ModelerWorkspace workspace,
+      AutoModelProgressMonitor monitor ) {
+    final MainModelNode staging = getMainModelNode( workspace );
+    staging.setSupressEvents( true );
+    final ModelerWorkspace stagingWorkspace = workspace.createStagingWorkspace();
+    return runStaged( staging, monitor, new StagedRun() {
+      public void model( AutoModelStrategy strategy, AutoModelProgressMonitor runMonitor ) throws ModelerException {
+        strategy.autoModelOlap( stagingWorkspace, staging, true, runMonitor );
+      }
+
+      public void publish() {
+        boolean prevChangeState = workspace.isModelChanging();
+        workspace.publishStagedColumns( stagingWorkspace, ModelerPerspective.ANALYSIS );
+        workspace.setModelIsChanging( true );
+        workspace.setModel( staging );
+        staging.setSupressEvents( false );
+        workspace.setModelIsChanging( prevChangeState );
+        workspace.setSelectedNode( staging );
+      }
+    } );
+  }
+
+  /**
+   * The relational counterpart of {@link #autoModelFlatAsync(ModelerWorkspace, AutoModelProgressMonitor)}.
+   *
+   * @param workspace
+   * @param monitor
+   *          told about every modeled table, may be null
+   * @return the new relational model node, completed once it is the workspace's relational model
+   */
+  public CompletableFuture<RelationalModelNode> autoModelRelationalFlatAsync( final ModelerWorkspace workspace,
+      AutoModelProgressMonitor monitor ) {
+    final RelationalModelNode staging = getRelationalModelNode( workspace );
+    staging.setSupressEvents( true );
+    final ModelerWorkspace stagingWorkspace = workspace.createStagingWorkspace();
+    return runStaged( staging, monitor, new StagedRun() {
+      public void model( AutoModelStrategy strategy, AutoModelProgressMonitor runMonitor ) throws ModelerException {
+        strategy.autoModelRelational( stagingWorkspace, staging, true, runMonitor );
+      }
+
+      public void publish() {
+        boolean prevChangeState = workspace.isModelChanging();
+        workspace.publishStagedColumns( stagingWorkspace, ModelerPerspective.REPORTING );
+        workspace.setRelationalModelIsChanging( true );
+        workspace.setRelationalModel( staging );
+        staging.setSupressEvents( false );
+        workspace.setRelationalModelIsChanging( prevChangeState );
+        workspace.setSelectedRelationalNode( staging );
+      }
+    } );
+  }
+
+  private <T> CompletableFuture<T> runStaged( final T staging, final AutoModelProgressMonitor monitor,
+      final StagedRun run ) {
+    final StagedFuture<T> result = new StagedFuture<T>();
+    final AutoModelStrategy strategy = getAutoModelStrategy();
+    // one monitor per run, runs sharing the strategy model concurrently
+    final AutoModelProgressMonitor runMonitor = new AutoModelProgressMonitor() {
+      public void tableCompleted( String tableName, int completed, int total ) {
+        if ( monitor != null ) {
+          monitor.tableCompleted( tableName, completed, total );
+        }
+      }
+
+      public boolean isCanceled() {
+        return result.isCancelled() || ( monitor != null && monitor.isCanceled() );
+      }
+    };
+    getExecutor().execute( new Runnable() {
+      public void run() {
+        if ( !result.start() ) {
+          return;
+        }
+        try {
+          run.model( strategy, runMonitor );
+        } catch ( Exception e ) {
+          result.completeExceptionally( e );
+          return;
+        } finally {
+          result.finish();
+        }
+        if ( runMonitor.isCanceled() ) {
+          result.cancel( false );
+          return;
+        }
+        getPublishExecutor().execute( new Runnable() {
+          public void run() {
+            if ( result.isCancelled() ) {
+              return;
+            }
+            try {
+              run.publish();
+              result.complete( staging );
+            } catch ( RuntimeException e ) {
+              result.completeExceptionally( e );
+            }
+          }
+        } );
+      }
+    } );
+    return result;
+  }
+
+  private Executor getExecutor() {
+    return executor == null ? ForkJoinPool.commonPool() : executor;
+  }
+
+  private Executor getPublishExecutor() {
+    return publishExecutor == null ? DIRECT : publishExecutor;
+  }
+
+  /**
+   * A future that interrupts the thread modeling for it when canceled with <code>mayInterruptIfRunning</code>.
+   */
+  private static class StagedFuture<T> extends CompletableFuture<T> {
+    private Thread runner;
+
+    /**
+     * @return false if the run was canceled before it started
+     */
+    synchronized boolean start() {
+      if ( isCancelled() ) {
+        return false;
+      }
+      runner = Thread.currentThread();
+      return true;
+    }
+
+    synchronized void finish() {
+      runner = null;
+      // an interrupt meant for this run must not leak into the executor's next task
+      Thread.interrupted();
+    }
+
+    @Override
+    public boolean cancel( boolean mayInterruptIfRunning ) {
+      boolean canceled = super.cancel( mayInterruptIfRunning );
+      if ( canceled && mayInterruptIfRunning ) {
+        synchronized ( this ) {
+          if ( runner != null ) {
+            runner.interrupt();
+          }
+        }
+      }
+      return canceled;
+    }
+  }
+
+  private interface StagedRun {
+    void model( AutoModelStrategy strategy, AutoModelProgressMonitor runMonitor ) throws ModelerException;
+
+    void publish();
+  }
+
 }
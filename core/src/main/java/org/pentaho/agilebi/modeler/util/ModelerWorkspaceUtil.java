@@ -42,9 +42,29 @@ public class ModelerWorkspaceUtil {
 
   private static Logger logger = LoggerFactory.getLogger( ModelerWorkspaceUtil.class );
 
+  /**
+   * Generates the Domain of <code>source</code> and sets it on <code>model</code>. When <code>model</code> already
+   * holds a Domain stamped with a {@link PhysicalModelFingerprint}, e.g. one reopened from its XMI, the table of a
+   * table source is probed: if it still has that fingerprint, generation, up-conversion and setDomain are skipped and
+   * the model is left as it is, otherwise the new Domain is stamped with the fingerprint the table has now. Without a
+   * stamped Domain nothing is probed; stamp a Domain with {@link PhysicalModelFingerprint#set} to opt in.
+   */
   public static ModelerWorkspace populateModelFromSource( ModelerWorkspace model, IModelerSource source )
     throws ModelerException {
+    String fingerprint = null;
+    String stamped = PhysicalModelFingerprint.get( model.getDomain() );
+    if ( stamped != null && source instanceof TableModelerSource ) {
+      fingerprint = probe( (TableModelerSource) source );
+      if ( stamped.equals( fingerprint ) ) {
+        model.setModelSource( source );
+        return model;
+      }
+    }
+
     Domain d = source.generateDomain();
+    if ( fingerprint != null ) {
+      PhysicalModelFingerprint.set( d, fingerprint );
+    }
 
     model.setModelSource( source );
     model.setModelName( source.getTableName() );
@@ -53,6 +73,19 @@ public class ModelerWorkspaceUtil {
     return model;
   }
 
+  /**
+   * @return the fingerprint of the table, or null if it can not be probed
+   */
+  private static String probe( TableModelerSource source ) {
+    try {
+      return PhysicalModelFingerprint.probe( source );
+    } catch ( ModelerException e ) {
+      // generating the domain reports whatever is wrong with the source
+      logger.debug( "Unable to fingerprint " + source.getTableName(), e ); //$NON-NLS-1$
+      return null;
+    }
+  }
+
   protected static void save( String content, String fileName ) throws IOException {
     File file = new File( fileName );
     OutputStream out = new FileOutputStream( file );
@@ -145,6 +178,14 @@ public class ModelerWorkspaceUtil {
         aModel.setModelSource( theSource );
       }
 
+      // a table changed since the model was saved must not be taken for the one the model was generated from
+      String stamped = PhysicalModelFingerprint.get( domain );
+      if ( stamped != null && aModel.getModelSource() instanceof TableModelerSource
+          && !stamped.equals( probe( (TableModelerSource) aModel.getModelSource() ) ) ) {
+        logger.info( "The table of " + fileName + " changed since it was modeled" ); //$NON-NLS-1$ //$NON-NLS-2$
+        PhysicalModelFingerprint.clear( domain );
+      }
+
       aModel.setDomain( domain );
       aModel.setFileName( fileName );
       aModel.resolveConnectionFromDomain();
@@ -15,9 +15,16 @@ package org.pentaho.agilebi.modeler.util;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang.StringUtils;
 import org.pentaho.agilebi.modeler.BaseModelerWorkspaceHelper;
@@ -26,6 +33,7 @@ import org.pentaho.agilebi.modeler.ModelerException;
 import org.pentaho.agilebi.modeler.ModelerMode;
 import org.pentaho.agilebi.modeler.ModelerPerspective;
 import org.pentaho.agilebi.modeler.ModelerWorkspace;
+import org.pentaho.agilebi.modeler.UniqueIdRegistry;
 import org.pentaho.agilebi.modeler.geo.GeoContext;
 import org.pentaho.agilebi.modeler.models.JoinRelationshipModel;
 import org.pentaho.agilebi.modeler.models.SchemaModel;
@@ -34,11 +42,14 @@ import org.pentaho.agilebi.modeler.strategy.SimpleAutoModelStrategy;
 import org.pentaho.agilebi.modeler.strategy.StarSchemaAutoModelStrategy;
 import org.pentaho.di.core.database.DatabaseMeta;
 import org.pentaho.metadata.automodel.SchemaTable;
+import org.pentaho.metadata.model.Category;
 import org.pentaho.metadata.model.Domain;
 import org.pentaho.metadata.model.LogicalColumn;
 import org.pentaho.metadata.model.LogicalModel;
 import org.pentaho.metadata.model.LogicalRelationship;
 import org.pentaho.metadata.model.LogicalTable;
+import org.pentaho.metadata.model.SqlPhysicalModel;
+import org.pentaho.metadata.model.SqlPhysicalTable;
 import org.pentaho.metadata.model.concept.types.LocalizedString;
 import org.pentaho.metadata.model.concept.types.RelationshipType;
 import org.slf4j.Logger;
@@ -51,9 +62,15 @@ public class MultiTableModelerSource implements ISpoonModelerSource {
   private SchemaModel schemaModel;
   private List<String> selectedTables;
   private String datasourceName;
+  private int importParallelism = DEFAULT_IMPORT_PARALLELISM;
 
   private GeoContext geoContext;
 
+  /**
+   * Tables are imported one after the other over a single connection unless a higher parallelism is set.
+   */
+  public static final int DEFAULT_IMPORT_PARALLELISM = 1;
+
   public static final String SOURCE_TYPE = MultiTableModelerSource.class.getSimpleName();
   private static Logger logger = LoggerFactory.getLogger( MultiTableModelerSource.class );
 
@@ -110,10 +127,7 @@ public class MultiTableModelerSource implements ISpoonModelerSource {
 
         }
       }
-      SchemaTable[] tableNames = new SchemaTable[schemas.size()];
-      tableNames = schemas.toArray( tableNames );
-      this.generator.setTableNames( tableNames );
-      domain = this.generator.generateDomain();
+      domain = importCachedTables( schemas, locale );
       domain.setId( datasourceName );
 
       ModelerWorkspaceHelper helper = new ModelerWorkspaceHelper( locale );
@@ -191,6 +205,128 @@ public class MultiTableModelerSource implements ISpoonModelerSource {
     return domain;
   }
 
+  public int getImportParallelism() {
+    return importParallelism;
+  }
+
+  /**
+   * Sets how many tables have their physical metadata imported at once, each over its own connection. 1, the
+   * default, imports all tables over a single connection. Higher values open that many connections at once.
+   *
+   * @param importParallelism
+   */
+  public void setImportParallelism( int importParallelism ) {
+    this.importParallelism = importParallelism;
+  }
+
+  /**
+   * Imports the tables through the {@link ModelerSourceUtil#getDomainTemplateCache() Domain template cache}, if one is
+   * set.
+   */
+  private Domain importCachedTables( List<SchemaTable> schemas, String locale ) throws Exception {
+    DomainTemplateCache cache = ModelerSourceUtil.getDomainTemplateCache();
+    if ( cache == null ) {
+      return importTables( schemas, locale );
+    }
+    Domain domain = cache.get( databaseMeta, schemas, datasourceName );
+    if ( domain == null ) {
+      domain = importTables( schemas, locale );
+      cache.put( databaseMeta, schemas, datasourceName, domain );
+    }
+    return domain;
+  }
+
+  /**
+   * Imports the tables into a new Domain. With more than one table and a parallelism above 1 every table is imported
+   * into a Domain of its own, and those are merged into the first one in the order of <code>schemas</code>, so the
+   * result does not depend on which import finished first. While a
+   * {@link ModelerSourceUtil#setTableMetadataCache(TableMetadataCache) table metadata cache} is set, the Domain is
+   * built from the cached column metadata instead, only tables missing from the cache are read from the database.
+   */
+  private Domain importTables( List<SchemaTable> schemas, final String locale ) throws Exception {
+    if ( ModelerSourceUtil.getTableMetadataCache() != null ) {
+      return ModelerSourceUtil.generateDomainFromMetadata( databaseMeta, schemas, datasourceName, locale );
+    }
+    int threads = Math.min( importParallelism, schemas.size() );
+    if ( threads <= 1 ) {
+      SchemaTable[] tableNames = new SchemaTable[schemas.size()];
+      tableNames = schemas.toArray( tableNames );
+      this.generator.setTableNames( tableNames );
+      return this.generator.generateDomain();
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool( threads );
+    try {
+      List<Future<Domain>> imports = new ArrayList<Future<Domain>>( schemas.size() );
+      for ( final SchemaTable table : schemas ) {
+        imports.add( pool.submit( new Callable<Domain>() {
+          public Domain call() throws Exception {
+            ModelGenerator tableGenerator = new ModelGenerator();
+            tableGenerator.setLocale( locale );
+            tableGenerator.setDatabaseMeta( databaseMeta );
+            tableGenerator.setModelName( datasourceName );
+            tableGenerator.setTableNames( new SchemaTable[] { table } );
+            return tableGenerator.generateDomain();
+          }
+        } ) );
+      }
+
+      Domain domain = null;
+      UniqueIdRegistry physicalIds = null;
+      UniqueIdRegistry logicalIds = null;
+      for ( Future<Domain> tableImport : imports ) {
+        Domain tableDomain;
+        try {
+          tableDomain = tableImport.get();
+        } catch ( ExecutionException e ) {
+          throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+        if ( domain == null ) {
+          domain = tableDomain;
+          physicalIds = new UniqueIdRegistry( getPhysicalModel( domain ).getPhysicalTables() );
+          logicalIds = new UniqueIdRegistry( domain.getLogicalModels().get( 0 ).getLogicalTables() );
+        } else {
+          mergeTables( domain, tableDomain, physicalIds, logicalIds );
+        }
+      }
+      return domain;
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * Moves the physical and logical tables of <code>tableDomain</code> into <code>domain</code>, renaming ids the
+   * separate imports handed out twice.
+   */
+  private static void mergeTables( Domain domain, Domain tableDomain, UniqueIdRegistry physicalIds,
+      UniqueIdRegistry logicalIds ) {
+    SqlPhysicalModel physicalModel = getPhysicalModel( domain );
+    for ( SqlPhysicalTable table : getPhysicalModel( tableDomain ).getPhysicalTables() ) {
+      table.setId( physicalIds.allocate( table.getId() ) );
+      table.setPhysicalModel( physicalModel );
+      physicalModel.addPhysicalTable( table );
+    }
+
+    LogicalModel logicalModel = domain.getLogicalModels().get( 0 );
+    LogicalModel tableModel = tableDomain.getLogicalModels().get( 0 );
+    for ( LogicalTable table : tableModel.getLogicalTables() ) {
+      table.setId( logicalIds.allocate( table.getId() ) );
+      table.setLogicalModel( logicalModel );
+      logicalModel.addLogicalTable( table );
+    }
+    if ( !logicalModel.getCategories().isEmpty() ) {
+      Category category = logicalModel.getCategories().get( 0 );
+      for ( Category tableCategory : tableModel.getCategories() ) {
+        category.getLogicalColumns().addAll( tableCategory.getLogicalColumns() );
+      }
+    }
+  }
+
+  private static SqlPhysicalModel getPhysicalModel( Domain domain ) {
+    return (SqlPhysicalModel) domain.getPhysicalModels().get( 0 );
+  }
+
   private SchemaTable createSchemaTable( String table ) {
     String schemaName = "";
     String tableName = table;
@@ -228,51 +364,40 @@ public class MultiTableModelerSource implements ISpoonModelerSource {
   }
 
   private void generateLogicalRelationships( LogicalModel logicalModel, boolean doOlap ) throws IllegalStateException {
-    for ( JoinRelationshipModel joinModel : schemaModel.getJoins() ) {
-      String lTable = joinModel.getLeftKeyFieldModel().getParentTable().getName();
-      String rTable = joinModel.getRightKeyFieldModel().getParentTable().getName();
-      lTable = getSchemaTablePair( lTable )[1];
-      rTable = getSchemaTablePair( rTable )[1];
-
-      LogicalTable fromTable = null;
-      LogicalColumn fromColumn = null;
-      LogicalTable toTable = null;
-      LogicalColumn toColumn = null;
-
-      for ( LogicalTable logicalTable : logicalModel.getLogicalTables() ) {
-
-        if ( doOlap && !logicalTable.getId().endsWith( BaseModelerWorkspaceHelper.OLAP_SUFFIX ) ) {
-          continue;
-        } else if ( !doOlap && logicalTable.getId().endsWith( BaseModelerWorkspaceHelper.OLAP_SUFFIX ) ) {
-          continue;
-        }
-
-        if ( logicalTable.getPhysicalTable().getProperty( "target_table" ).equals( lTable ) ) {
-          fromTable = logicalTable;
-
-          for ( LogicalColumn logicalColumn : fromTable.getLogicalColumns() ) {
-            if ( logicalColumn.getPhysicalColumn().getProperty( "target_column" ).equals(
-                joinModel.getLeftKeyFieldModel().getName() ) ) {
-              fromColumn = logicalColumn;
-              break;
-            }
-          }
-        }
-        if ( logicalTable.getPhysicalTable().getProperty( "target_table" ).equals( rTable ) ) {
-          toTable = logicalTable;
-
-          for ( LogicalColumn logicalColumn : toTable.getLogicalColumns() ) {
-            if ( logicalColumn.getPhysicalColumn().getProperty( "target_column" ).equals(
-                joinModel.getRightKeyFieldModel().getName() ) ) {
-              toColumn = logicalColumn;
-              break;
-            }
-          }
+    Map<String, LogicalTable> tables = new HashMap<String, LogicalTable>();
+    Map<LogicalTable, Map<String, LogicalColumn>> columns = new HashMap<LogicalTable, Map<String, LogicalColumn>>();
+    for ( LogicalTable logicalTable : logicalModel.getLogicalTables() ) {
+      if ( doOlap != logicalTable.getId().endsWith( BaseModelerWorkspaceHelper.OLAP_SUFFIX ) ) {
+        continue;
+      }
+      // a later table with the same target replaces an earlier one, the first column with a target counts
+      tables.put( (String) logicalTable.getPhysicalTable().getProperty( "target_table" ), logicalTable );
+      Map<String, LogicalColumn> tableColumns = new HashMap<String, LogicalColumn>();
+      for ( LogicalColumn logicalColumn : logicalTable.getLogicalColumns() ) {
+        Object targetColumn = logicalColumn.getPhysicalColumn().getProperty( "target_column" );
+        if ( targetColumn != null && !tableColumns.containsKey( targetColumn ) ) {
+          tableColumns.put( (String) targetColumn, logicalColumn );
         }
       }
+      columns.put( logicalTable, tableColumns );
+    }
 
-      if ( fromTable == null || fromColumn == null || toTable == null || toColumn == null ) {
-        throw new IllegalStateException( "Invalid Relationship" );
+    List<String> invalidJoins = new ArrayList<String>();
+    for ( JoinRelationshipModel joinModel : schemaModel.getJoins() ) {
+      String lTable = getSchemaTablePair( joinModel.getLeftKeyFieldModel().getParentTable().getName() )[1];
+      String rTable = getSchemaTablePair( joinModel.getRightKeyFieldModel().getParentTable().getName() )[1];
+
+      LogicalTable fromTable = tables.get( lTable );
+      LogicalColumn fromColumn =
+          fromTable == null ? null : columns.get( fromTable ).get( joinModel.getLeftKeyFieldModel().getName() );
+      LogicalTable toTable = tables.get( rTable );
+      LogicalColumn toColumn =
+          toTable == null ? null : columns.get( toTable ).get( joinModel.getRightKeyFieldModel().getName() );
+
+      if ( fromColumn == null || toColumn == null ) {
+        invalidJoins.add( lTable + "." + joinModel.getLeftKeyFieldModel().getName() + " = " + rTable + "."
+            + joinModel.getRightKeyFieldModel().getName() );
+        continue;
       }
 
       LogicalRelationship logicalRelationship = new LogicalRelationship();
@@ -283,6 +408,10 @@ public class MultiTableModelerSource implements ISpoonModelerSource {
       logicalRelationship.setToColumn( toColumn );
       logicalModel.addLogicalRelationship( logicalRelationship );
     }
+
+    if ( !invalidJoins.isEmpty() ) {
+      throw new IllegalStateException( "Invalid Relationship: " + StringUtils.join( invalidJoins, ", " ) );
+    }
   }
 
   @Override
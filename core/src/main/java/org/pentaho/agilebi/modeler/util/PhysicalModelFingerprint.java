@@ -0,0 +1,165 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.agilebi.modeler.util;
+
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.pentaho.agilebi.modeler.ModelerException;
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.pentaho.metadata.model.Domain;
+
+/**
+ * A stable hash over what a table contributes to a generated Domain: its columns with their types, sizes and
+ * nullability and its primary key, as reported by the JDBC metadata. Reading that metadata is much cheaper than
+ * generating the Domain, so a Domain stamped with the fingerprint it was generated from can be kept as long as a new
+ * probe still yields the same one.
+ */
+public class PhysicalModelFingerprint {
+
+  /**
+   * Logical model property the fingerprint is stored in, saved with the XMI like the other modeler properties.
+   */
+  public static final String PROPERTY = "physical_model_fingerprint"; //$NON-NLS-1$
+
+  private static final String[] COLUMN_FIELDS = { "ORDINAL_POSITION", "COLUMN_NAME", //$NON-NLS-1$ //$NON-NLS-2$
+    "DATA_TYPE", "TYPE_NAME", "COLUMN_SIZE", //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+    "DECIMAL_DIGITS", "NULLABLE" }; //$NON-NLS-1$ //$NON-NLS-2$
+  private static final String[] KEY_FIELDS = { "KEY_SEQ", "COLUMN_NAME" }; //$NON-NLS-1$ //$NON-NLS-2$
+
+  private PhysicalModelFingerprint() {
+  }
+
+  /**
+   * @return the fingerprint of the table <code>source</code> models
+   */
+  public static String probe( TableModelerSource source ) throws ModelerException {
+    return probe( source.getDatabaseMeta(), source.getSchemaName(), source.getTableName(),
+        source.getDatasourceName() );
+  }
+
+  public static String probe( DatabaseMeta databaseMeta, String schemaName, String tableName, String datasourceName )
+    throws ModelerException {
+    String[] casing = ModelerSourceUtil.discoverTableCasing( databaseMeta, schemaName, tableName );
+    String schema = casing[0];
+    String table = casing[1];
+
+    StringBuilder content = new StringBuilder();
+    content.append( databaseMeta.getName() ).append( '|' ).append( schema ).append( '|' ).append( table )
+        .append( '|' ).append( datasourceName ).append( '\n' );
+
+    Database database = new Database( databaseMeta );
+    try {
+      database.connect();
+      DatabaseMetaData metaData = database.getConnection().getMetaData();
+      String schemaName = schema == null || schema.length() == 0 ? null : schema;
+      String escape = metaData.getSearchStringEscape();
+
+      // getColumns takes search patterns, getPrimaryKeys takes the names as stored
+      String schemaPattern = ModelerSourceUtil.escapeSearchPattern( schemaName, escape );
+      String tablePattern = ModelerSourceUtil.escapeSearchPattern( table, escape );
+      List<String> columns = read( metaData.getColumns( null, schemaPattern, tablePattern, null ), COLUMN_FIELDS );
+      List<String> keys = read( metaData.getPrimaryKeys( null, schemaName, table ), KEY_FIELDS );
+
+      if ( columns.isEmpty() ) {
+        throw new ModelerException( "No columns found for " + schema + "." + table ); //$NON-NLS-1$ //$NON-NLS-2$
+      }
+      // drivers are not required to return either in any particular order
+      Collections.sort( columns );
+      Collections.sort( keys );
+      for ( String column : columns ) {
+        content.append( column ).append( '\n' );
+      }
+      content.append( "PK" ); //$NON-NLS-1$
+      for ( String key : keys ) {
+        content.append( '|' ).append( key );
+      }
+    } catch ( KettleDatabaseException e ) {
+      throw new ModelerException( e );
+    } catch ( SQLException e ) {
+      throw new ModelerException( e );
+    } finally {
+      database.disconnect();
+    }
+    return hash( content.toString() );
+  }
+
+  /**
+   * @return the fingerprint <code>domain</code> was generated from, null if it was not stamped with one
+   */
+  public static String get( Domain domain ) {
+    if ( domain == null || domain.getLogicalModels().isEmpty() ) {
+      return null;
+    }
+    Object fingerprint = domain.getLogicalModels().get( 0 ).getProperty( PROPERTY );
+    return fingerprint == null ? null : fingerprint.toString();
+  }
+
+  public static void set( Domain domain, String fingerprint ) {
+    domain.getLogicalModels().get( 0 ).setProperty( PROPERTY, fingerprint );
+  }
+
+  /**
+   * Removes the fingerprint from <code>domain</code>, so it is no longer taken for generated from the current table.
+   */
+  public static void clear( Domain domain ) {
+    if ( !domain.getLogicalModels().isEmpty() ) {
+      domain.getLogicalModels().get( 0 ).getChildProperties().remove( PROPERTY );
+    }
+  }
+
+  /**
+   * Reads <code>fields</code> of every row of <code>rs</code> into one line per row and closes it.
+   */
+  private static List<String> read( ResultSet rs, String[] fields ) throws SQLException {
+    List<String> rows = new ArrayList<String>();
+    try {
+      while ( rs.next() ) {
+        StringBuilder row = new StringBuilder();
+        for ( String field : fields ) {
+          row.append( rs.getString( field ) ).append( ':' );
+        }
+        rows.add( row.toString() );
+      }
+    } finally {
+      rs.close();
+    }
+    return rows;
+  }
+
+  private static String hash( String value ) {
+    try {
+      MessageDigest sha = MessageDigest.getInstance( "SHA-1" ); //$NON-NLS-1$
+      byte[] digest = sha.digest( value.getBytes( "UTF-8" ) ); //$NON-NLS-1$
+      StringBuilder hex = new StringBuilder( digest.length * 2 );
+      for ( byte b : digest ) {
+        hex.append( Character.forDigit( ( b >> 4 ) & 0xf, 16 ) ).append( Character.forDigit( b & 0xf, 16 ) );
+      }
+      return hex.toString();
+    } catch ( NoSuchAlgorithmException e ) {
+      throw new IllegalStateException( e );
+    } catch ( UnsupportedEncodingException e ) {
+      throw new IllegalStateException( e );
+    }
+  }
+}
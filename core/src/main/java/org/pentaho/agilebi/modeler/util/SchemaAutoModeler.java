@@ -0,0 +1,342 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.agilebi.modeler.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Pattern;
+
+import org.pentaho.agilebi.modeler.ModelerException;
+import org.pentaho.agilebi.modeler.ModelerWorkspace;
+import org.pentaho.agilebi.modeler.geo.GeoContext;
+import org.pentaho.di.core.KettleEnvironment;
+import org.pentaho.di.core.database.Database;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+
+/**
+ * Auto models every table of a schema: generates the Domain, builds the reporting and analysis models the way the
+ * modeler's auto populate does and writes one XMI and one Mondrian schema file per table. Tables are modeled on a
+ * pool of {@link #setThreads(int)} workers, every one with its own workspace and connection.
+ */
+public class SchemaAutoModeler {
+
+  public static final String XMI_EXTENSION = ".xmi"; //$NON-NLS-1$
+  public static final String MONDRIAN_EXTENSION = ".mondrian.xml"; //$NON-NLS-1$
+  public static final String PASSWORD_ENVIRONMENT_VARIABLE = "MODELER_DB_PASSWORD"; //$NON-NLS-1$
+
+  private final DatabaseMeta databaseMeta;
+  private final String locale;
+  private GeoContext geoContext;
+  private int threads = Math.min( 4, Runtime.getRuntime().availableProcessors() );
+  private boolean writeMondrianSchema = true;
+
+  public SchemaAutoModeler( DatabaseMeta databaseMeta, String locale ) {
+    this.databaseMeta = databaseMeta;
+    this.locale = locale;
+  }
+
+  public void setGeoContext( GeoContext geoContext ) {
+    this.geoContext = geoContext;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  /**
+   * Sets how many tables are modeled at once, and so how many connections are open at most.
+   */
+  public void setThreads( int threads ) {
+    this.threads = threads;
+  }
+
+  public void setWriteMondrianSchema( boolean writeMondrianSchema ) {
+    this.writeMondrianSchema = writeMondrianSchema;
+  }
+
+  /**
+   * @param schemaName
+   *          the schema to read, null or empty for the connection's default
+   * @param tableFilter
+   *          the tables to include, null for all
+   * @return the matching table names, sorted
+   * @throws ModelerException
+   */
+  public List<String> findTables( String schemaName, Pattern tableFilter ) throws ModelerException {
+    Database database = new Database( databaseMeta );
+    try {
+      database.connect();
+      List<String> tables = new ArrayList<String>();
+      for ( String table : database.getTablenames( schemaName, false ) ) {
+        if ( tableFilter == null || tableFilter.matcher( table ).matches() ) {
+          tables.add( table );
+        }
+      }
+      Collections.sort( tables );
+      return tables;
+    } catch ( KettleDatabaseException e ) {
+      throw new ModelerException( e );
+    } finally {
+      database.disconnect();
+    }
+  }
+
+  /**
+   * Models all tables of <code>schemaName</code> matching <code>tableFilter</code> into
+   * <code>outputDirectory</code>.
+   */
+  public Summary modelSchema( String schemaName, Pattern tableFilter, File outputDirectory ) throws ModelerException {
+    return modelTables( schemaName, findTables( schemaName, tableFilter ), outputDirectory );
+  }
+
+  /**
+   * Models the given tables into <code>outputDirectory</code>. A failing table is recorded in the summary and does not
+   * stop the others.
+   */
+  public Summary modelTables( final String schemaName, List<String> tables, final File outputDirectory )
+    throws ModelerException {
+    if ( !outputDirectory.isDirectory() && !outputDirectory.mkdirs() ) {
+      throw new ModelerException( "Unable to create " + outputDirectory ); //$NON-NLS-1$
+    }
+    long start = System.currentTimeMillis();
+    List<TableResult> results = new ArrayList<TableResult>( tables.size() );
+    if ( tables.isEmpty() ) {
+      return new Summary( results, 0 );
+    }
+    List<String> fileNames = toFileNames( tables );
+    ExecutorService pool = Executors.newFixedThreadPool( Math.max( 1, Math.min( threads, tables.size() ) ) );
+    try {
+      List<Future<TableResult>> futures = new ArrayList<Future<TableResult>>( tables.size() );
+      for ( int i = 0; i < tables.size(); i++ ) {
+        final String table = tables.get( i );
+        final String fileName = fileNames.get( i );
+        futures.add( pool.submit( new Callable<TableResult>() {
+          public TableResult call() {
+            return modelTable( schemaName, table, fileName, outputDirectory );
+          }
+        } ) );
+      }
+      for ( Future<TableResult> future : futures ) {
+        results.add( future.get() );
+      }
+    } catch ( InterruptedException e ) {
+      Thread.currentThread().interrupt();
+      throw new ModelerException( e );
+    } catch ( ExecutionException e ) {
+      throw new ModelerException( e.getCause() );
+    } finally {
+      pool.shutdownNow();
+    }
+    return new Summary( results, System.currentTimeMillis() - start );
+  }
+
+  private TableResult modelTable( String schemaName, String table, String baseName, File outputDirectory ) {
+    long start = System.currentTimeMillis();
+    List<File> files = new ArrayList<File>();
+    try {
+      ModelerWorkspaceHelper helper = new ModelerWorkspaceHelper( locale );
+      ModelerWorkspace workspace = new ModelerWorkspace( helper, geoContext );
+      ModelerWorkspaceUtil.populateModelFromSource( workspace, new TableModelerSource( databaseMeta, table,
+          schemaName ) );
+      helper.autoModelFlat( workspace );
+      helper.autoModelRelationalFlat( workspace );
+
+      File xmi = new File( outputDirectory, baseName + XMI_EXTENSION );
+      ModelerWorkspaceUtil.saveWorkspace( workspace, xmi.getPath() );
+      files.add( xmi );
+      if ( writeMondrianSchema ) {
+        File mondrian = new File( outputDirectory, baseName + MONDRIAN_EXTENSION );
+        ModelerWorkspaceUtil.saveWorkspaceAsMondrianSchema( workspace, mondrian.getPath(), locale );
+        files.add( mondrian );
+      }
+      return new TableResult( table, System.currentTimeMillis() - start, files, null );
+    } catch ( Exception e ) {
+      return new TableResult( table, System.currentTimeMillis() - start, files, e );
+    }
+  }
+
+  /**
+   * @return a file name for every table, in the same order. Names that would collide, also on file systems ignoring
+   *         case, get a numeric suffix: <code>a b</code> and <code>a_b</code> become <code>a_b</code> and
+   *         <code>a_b_2</code>.
+   */
+  static List<String> toFileNames( List<String> tables ) {
+    List<String> names = new ArrayList<String>( tables.size() );
+    Set<String> used = new HashSet<String>();
+    for ( String table : tables ) {
+      String base = toFileName( table );
+      String name = base;
+      for ( int n = 2; !used.add( name.toLowerCase( Locale.ROOT ) ); n++ ) {
+        name = base + "_" + n; //$NON-NLS-1$
+      }
+      names.add( name );
+    }
+    return names;
+  }
+
+  private static String toFileName( String table ) {
+    StringBuilder name = new StringBuilder( table.length() );
+    for ( int i = 0; i < table.length(); i++ ) {
+      char c = table.charAt( i );
+      name.append( Character.isLetterOrDigit( c ) || c == '_' || c == '-' || c == '.' ? c : '_' );
+    }
+    return name.toString();
+  }
+
+  /**
+   * The outcome of modeling one table.
+   */
+  public static class TableResult {
+    private final String tableName;
+    private final long millis;
+    private final List<File> files;
+    private final Exception failure;
+
+    TableResult( String tableName, long millis, List<File> files, Exception failure ) {
+      this.tableName = tableName;
+      this.millis = millis;
+      this.files = Collections.unmodifiableList( files );
+      this.failure = failure;
+    }
+
+    public String getTableName() {
+      return tableName;
+    }
+
+    public long getMillis() {
+      return millis;
+    }
+
+    /**
+     * @return the files written, possibly some even if modeling failed
+     */
+    public List<File> getFiles() {
+      return files;
+    }
+
+    /**
+     * @return why the table could not be modeled, null on success
+     */
+    public Exception getFailure() {
+      return failure;
+    }
+
+    public boolean isSuccess() {
+      return failure == null;
+    }
+  }
+
+  /**
+   * The outcome of a run, tables in the order they were requested.
+   */
+  public static class Summary {
+    private final List<TableResult> results;
+    private final long millis;
+
+    Summary( List<TableResult> results, long millis ) {
+      this.results = Collections.unmodifiableList( results );
+      this.millis = millis;
+    }
+
+    public List<TableResult> getResults() {
+      return results;
+    }
+
+    public List<TableResult> getFailures() {
+      List<TableResult> failures = new ArrayList<TableResult>();
+      for ( TableResult result : results ) {
+        if ( !result.isSuccess() ) {
+          failures.add( result );
+        }
+      }
+      return failures;
+    }
+
+    public long getMillis() {
+      return millis;
+    }
+
+    public void print( PrintStream out ) {
+      for ( TableResult result : results ) {
+        out.println( String.format( "%-40s %8d ms  %s", result.getTableName(), result.getMillis(), //$NON-NLS-1$
+            result.isSuccess() ? "OK" : "FAILED: " + result.getFailure().getMessage() ) ); //$NON-NLS-1$ //$NON-NLS-2$
+      }
+      out.println( String.format( "%d tables, %d failed, %d ms", results.size(), //$NON-NLS-1$
+          getFailures().size(), millis ) );
+    }
+  }
+
+  /**
+   * Headless entry point:
+   * <code>SchemaAutoModeler -type POSTGRESQL -host h -port 5432 -db d -user u [-password-stdin] [-schema s]
+   * [-tables regex] [-threads n] [-locale en_US] -out dir</code>. The password is read from the
+   * {@value #PASSWORD_ENVIRONMENT_VARIABLE} environment variable or, with <code>-password-stdin</code>, from the first
+   * line of standard input, so it does not show up in process listings. Exits with 1 if any table failed.
+   */
+  public static void main( String[] args ) throws Exception {
+    List<String> argList = Arrays.asList( args );
+    String out = option( argList, "-out" ); //$NON-NLS-1$
+    String type = option( argList, "-type" ); //$NON-NLS-1$
+    if ( out == null || type == null || argList.contains( "-password" ) ) { //$NON-NLS-1$
+      System.err.println( "Usage: SchemaAutoModeler -type <database type> -host <host> -port <port>" //$NON-NLS-1$
+          + " -db <database> -user <user> [-password-stdin] [-schema <schema>] [-tables <regex>]" //$NON-NLS-1$
+          + " [-threads <n>] [-locale <locale>] -out <directory>" ); //$NON-NLS-1$
+      System.err.println( "The password is read from " + PASSWORD_ENVIRONMENT_VARIABLE //$NON-NLS-1$
+          + " or, with -password-stdin, from standard input." ); //$NON-NLS-1$
+      System.exit( 2 );
+    }
+    String password = System.getenv( PASSWORD_ENVIRONMENT_VARIABLE );
+    if ( argList.contains( "-password-stdin" ) ) { //$NON-NLS-1$
+      password = new BufferedReader( new InputStreamReader( System.in ) ).readLine();
+    }
+    KettleEnvironment.init();
+    String host = option( argList, "-host" ); //$NON-NLS-1$
+    String port = option( argList, "-port" ); //$NON-NLS-1$
+    String db = option( argList, "-db" ); //$NON-NLS-1$
+    String user = option( argList, "-user" ); //$NON-NLS-1$
+    DatabaseMeta databaseMeta =
+        new DatabaseMeta( "modeler", type, "Native", host, db, port, user, password ); //$NON-NLS-1$ //$NON-NLS-2$
+    String locale = option( argList, "-locale" ); //$NON-NLS-1$
+    SchemaAutoModeler modeler = new SchemaAutoModeler( databaseMeta, locale == null ? "en_US" : locale ); //$NON-NLS-1$
+    String threads = option( argList, "-threads" ); //$NON-NLS-1$
+    if ( threads != null ) {
+      modeler.setThreads( Integer.parseInt( threads ) );
+    }
+    String tables = option( argList, "-tables" ); //$NON-NLS-1$
+    Summary summary = modeler.modelSchema( option( argList, "-schema" ), //$NON-NLS-1$
+        tables == null ? null : Pattern.compile( tables ), new File( out ) );
+    summary.print( System.out );
+    System.exit( summary.getFailures().isEmpty() ? 0 : 1 );
+  }
+
+  private static String option( List<String> args, String name ) {
+    int index = args.indexOf( name );
+    return index < 0 || index + 1 >= args.size() ? null : args.get( index + 1 );
+  }
+}
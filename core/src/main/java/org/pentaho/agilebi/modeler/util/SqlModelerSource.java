@@ -0,0 +1,111 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.agilebi.modeler.util;
+
+import org.pentaho.agilebi.modeler.ModelerException;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.metadata.model.Domain;
+import org.pentaho.metadata.model.LogicalModel;
+import org.pentaho.metadata.model.SqlPhysicalModel;
+import org.pentaho.metadata.model.SqlPhysicalTable;
+import org.pentaho.metadata.util.ThinModelConverter;
+
+/**
+ * Models the result of an SQL query. The columns, with their length and precision, are taken from the query's
+ * metadata, see {@link ModelerSourceUtil#generateDomainFromQuery(DatabaseMeta, String, String, boolean)}. Modeling a
+ * query fetches no rows, but the database may still evaluate the query to describe it: some drivers run a prepared
+ * statement to describe it, and the fallback runs the query wrapped into one returning no rows.
+ */
+public class SqlModelerSource implements ISpoonModelerSource {
+
+  private String datasourceName;
+  private String query;
+  private transient DatabaseMeta databaseMeta;
+  public static final String SOURCE_TYPE = SqlModelerSource.class.getSimpleName();
+
+  public SqlModelerSource() {
+
+  }
+
+  public SqlModelerSource( DatabaseMeta databaseMeta, String query, String datasourceName ) {
+    this.databaseMeta = databaseMeta;
+    this.query = query;
+    this.datasourceName = datasourceName;
+  }
+
+  public String getDatabaseName() {
+    return databaseMeta.getName();
+  }
+
+  public Domain generateDomain() throws ModelerException {
+    return generateDomain( true );
+  }
+
+  @Override
+  public Domain generateDomain( boolean dualModelingMode ) throws ModelerException {
+    return ModelerSourceUtil.generateDomainFromQuery( databaseMeta, query, datasourceName, dualModelingMode );
+  }
+
+  public void initialize( Domain domain ) throws ModelerException {
+    SqlPhysicalModel model = (SqlPhysicalModel) domain.getPhysicalModels().get( 0 );
+    SqlPhysicalTable table = model.getPhysicalTables().get( 0 );
+
+    this.databaseMeta = ThinModelConverter.convertToLegacy( model.getId(), model.getDatasource() );
+    this.query = table.getTargetTable();
+    this.datasourceName = domain.getId();
+  }
+
+  public void serializeIntoDomain( Domain d ) {
+    LogicalModel lm = d.getLogicalModels().get( 0 );
+    lm.setProperty( "source_type", SOURCE_TYPE );
+  }
+
+  public DatabaseMeta getDatabaseMeta() {
+    return databaseMeta;
+  }
+
+  public void setDatabaseMeta( DatabaseMeta databaseMeta ) {
+    this.databaseMeta = databaseMeta;
+  }
+
+  public String getQuery() {
+    return query;
+  }
+
+  public void setQuery( String query ) {
+    this.query = query;
+  }
+
+  /**
+   * A query has no schema.
+   */
+  public String getSchemaName() {
+    return "";
+  }
+
+  /**
+   * @return the datasource name, a query has no table name of its own
+   */
+  public String getTableName() {
+    return datasourceName;
+  }
+
+  public void setDatasourceName( String datasourceName ) {
+    this.datasourceName = datasourceName;
+  }
+
+  public String getDatasourceName() {
+    return this.datasourceName;
+  }
+}
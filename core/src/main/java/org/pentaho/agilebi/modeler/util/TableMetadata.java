@@ -0,0 +1,94 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.agilebi.modeler.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The column metadata of one database table: its schema and name as the database has them and, in table order, the
+ * name, JDBC type, length, precision and nullability of every column. Kept by {@link TableMetadataCache} so a Domain
+ * can be built for the table without connecting to the database.
+ */
+public class TableMetadata {
+
+  private final String schemaName;
+  private final String tableName;
+  private final List<Column> columns;
+
+  public TableMetadata( String schemaName, String tableName, List<Column> columns ) {
+    this.schemaName = schemaName;
+    this.tableName = tableName;
+    this.columns = Collections.unmodifiableList( new ArrayList<Column>( columns ) );
+  }
+
+  public String getSchemaName() {
+    return schemaName;
+  }
+
+  public String getTableName() {
+    return tableName;
+  }
+
+  public List<Column> getColumns() {
+    return columns;
+  }
+
+  public static class Column {
+    private final String name;
+    private final int sqlType;
+    private final int length;
+    private final int precision;
+    private final boolean nullable;
+
+    /**
+     * @param name
+     * @param sqlType
+     *          one of {@link java.sql.Types}
+     * @param length
+     *          the length of text, the total number of digits of numbers, 0 if unknown
+     * @param precision
+     *          the number of fractional digits, 0 if unknown
+     * @param nullable
+     */
+    public Column( String name, int sqlType, int length, int precision, boolean nullable ) {
+      this.name = name;
+      this.sqlType = sqlType;
+      this.length = length;
+      this.precision = precision;
+      this.nullable = nullable;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public int getSqlType() {
+      return sqlType;
+    }
+
+    public int getLength() {
+      return length;
+    }
+
+    public int getPrecision() {
+      return precision;
+    }
+
+    public boolean isNullable() {
+      return nullable;
+    }
+  }
+}
@@ -0,0 +1,319 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.agilebi.modeler.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Properties;
+import java.util.TreeSet;
+
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.di.core.exception.KettleDatabaseException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the {@link TableMetadata column metadata} of tables in a directory, so a table can be modeled after a restart
+ * without reading its metadata from the database again. Set it with
+ * {@link ModelerSourceUtil#setTableMetadataCache(TableMetadataCache)}.
+ * <p>
+ * Files are grouped in one directory per connection fingerprint and named after the schema and table. The fingerprint
+ * hashes the database type, resolved URL, user and connection attributes, all with variables substituted, so equal
+ * connections share entries across processes while a connection definition resolved in another environment does not.
+ * Every file holds a small header, checked before use, followed by the columns in a compact binary form. Files older
+ * than the time to live, written for another schema version or that can not be read are ignored and deleted. Once the
+ * files take more than the maximum disk size, the least recently used ones are deleted.
+ */
+public class TableMetadataCache {
+
+  public static final long DEFAULT_MAX_DISK_SIZE = 16L * 1024 * 1024;
+
+  private static final int MAGIC = 0x4d544d43; // MTMC
+  private static final short FORMAT_VERSION = 1;
+  private static final String SUFFIX = ".tmc"; //$NON-NLS-1$
+
+  private static Logger logger = LoggerFactory.getLogger( TableMetadataCache.class );
+
+  private final File directory;
+  private final long timeToLive;
+  private final String schemaVersion;
+  private final long maxDiskSize;
+
+  /**
+   * @param directory
+   *          where the metadata is kept, created when needed
+   * @param timeToLive
+   *          milliseconds stored metadata stays usable, 0 or less for no limit
+   * @param schemaVersion
+   *          identifies the state of the databases' tables (a DDL version, a deployment number...), metadata stored
+   *          for another version is not used. May be null.
+   */
+  public TableMetadataCache( File directory, long timeToLive, String schemaVersion ) {
+    this( directory, timeToLive, schemaVersion, DEFAULT_MAX_DISK_SIZE );
+  }
+
+  /**
+   * @param maxDiskSize
+   *          bytes the files may take before the least recently used ones are deleted
+   */
+  public TableMetadataCache( File directory, long timeToLive, String schemaVersion, long maxDiskSize ) {
+    this.directory = directory;
+    this.timeToLive = timeToLive;
+    this.schemaVersion = schemaVersion == null ? "" : schemaVersion;
+    this.maxDiskSize = maxDiskSize;
+  }
+
+  /**
+   * @return the metadata stored for the table, or null
+   */
+  public TableMetadata get( DatabaseMeta databaseMeta, String schemaName, String tableName ) {
+    String key = describe( schemaName, tableName );
+    File file = getFile( databaseMeta, key );
+    if ( !file.isFile() ) {
+      return null;
+    }
+    try {
+      DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ) ) );
+      TableMetadata table;
+      try {
+        if ( in.readInt() != MAGIC || in.readShort() != FORMAT_VERSION ) {
+          return discard( file );
+        }
+        long written = in.readLong();
+        if ( !schemaVersion.equals( in.readUTF() )
+            || ( timeToLive > 0 && System.currentTimeMillis() - written > timeToLive ) ) {
+          return discard( file );
+        }
+        if ( !key.equals( in.readUTF() ) ) {
+          // another table with the same file name
+          return null;
+        }
+        table = read( in );
+      } finally {
+        in.close();
+      }
+      // the modification time orders the files for eviction
+      file.setLastModified( System.currentTimeMillis() );
+      return table;
+    } catch ( IOException e ) {
+      logger.debug( "Unable to read cached table metadata " + file, e ); //$NON-NLS-1$
+      return discard( file );
+    }
+  }
+
+  public void put( DatabaseMeta databaseMeta, String schemaName, String tableName, TableMetadata table ) {
+    String key = describe( schemaName, tableName );
+    File file = getFile( databaseMeta, key );
+    File parent = file.getParentFile();
+    if ( !parent.isDirectory() && !parent.mkdirs() ) {
+      logger.debug( "Unable to create " + parent ); //$NON-NLS-1$
+      return;
+    }
+    try {
+      // write a temporary file first so readers never see half a table
+      File temp = File.createTempFile( "table", ".tmp", parent ); //$NON-NLS-1$ //$NON-NLS-2$
+      DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( temp ) ) );
+      try {
+        out.writeInt( MAGIC );
+        out.writeShort( FORMAT_VERSION );
+        out.writeLong( System.currentTimeMillis() );
+        out.writeUTF( schemaVersion );
+        out.writeUTF( key );
+        write( out, table );
+      } finally {
+        out.close();
+      }
+      if ( !temp.renameTo( file ) && !( file.delete() && temp.renameTo( file ) ) ) {
+        temp.delete();
+      }
+    } catch ( IOException e ) {
+      logger.debug( "Unable to store cached table metadata " + file, e ); //$NON-NLS-1$
+      return;
+    }
+    trim();
+  }
+
+  /**
+   * Drops the metadata of every table of <code>databaseMeta</code>.
+   */
+  public synchronized void invalidate( DatabaseMeta databaseMeta ) {
+    deleteFiles( getConnectionDirectory( databaseMeta ) );
+  }
+
+  public synchronized void invalidate( DatabaseMeta databaseMeta, String schemaName, String tableName ) {
+    getFile( databaseMeta, describe( schemaName, tableName ) ).delete();
+  }
+
+  public synchronized void clear() {
+    File[] connections = directory.listFiles();
+    if ( connections != null ) {
+      for ( File connection : connections ) {
+        deleteFiles( connection );
+      }
+    }
+  }
+
+  /**
+   * Deletes the least recently used files until the rest fit into the maximum disk size.
+   */
+  private synchronized void trim() {
+    List<File> files = new ArrayList<File>();
+    long size = 0;
+    File[] connections = directory.listFiles();
+    if ( connections == null ) {
+      return;
+    }
+    for ( File connection : connections ) {
+      File[] tables = connection.listFiles();
+      if ( tables == null ) {
+        continue;
+      }
+      for ( File table : tables ) {
+        if ( table.getName().endsWith( SUFFIX ) ) {
+          files.add( table );
+          size += table.length();
+        }
+      }
+    }
+    if ( size <= maxDiskSize ) {
+      return;
+    }
+    File[] oldestFirst = files.toArray( new File[files.size()] );
+    Arrays.sort( oldestFirst, new Comparator<File>() {
+      public int compare( File file1, File file2 ) {
+        long modified1 = file1.lastModified();
+        long modified2 = file2.lastModified();
+        return modified1 < modified2 ? -1 : ( modified1 == modified2 ? 0 : 1 );
+      }
+    } );
+    for ( int i = 0; i < oldestFirst.length && size > maxDiskSize; i++ ) {
+      long length = oldestFirst[i].length();
+      if ( oldestFirst[i].delete() ) {
+        size -= length;
+      }
+    }
+  }
+
+  private static TableMetadata read( DataInputStream in ) throws IOException {
+    String schemaName = in.readUTF();
+    String tableName = in.readUTF();
+    int count = in.readInt();
+    if ( count < 0 ) {
+      throw new IOException( "Negative column count " + count ); //$NON-NLS-1$
+    }
+    List<TableMetadata.Column> columns = new ArrayList<TableMetadata.Column>( Math.min( count, 1024 ) );
+    for ( int i = 0; i < count; i++ ) {
+      columns.add( new TableMetadata.Column( in.readUTF(), in.readInt(), in.readInt(), in.readInt(),
+          in.readBoolean() ) );
+    }
+    return new TableMetadata( schemaName, tableName, columns );
+  }
+
+  private static void write( DataOutputStream out, TableMetadata table ) throws IOException {
+    out.writeUTF( table.getSchemaName() == null ? "" : table.getSchemaName() ); //$NON-NLS-1$
+    out.writeUTF( table.getTableName() );
+    out.writeInt( table.getColumns().size() );
+    for ( TableMetadata.Column column : table.getColumns() ) {
+      out.writeUTF( column.getName() );
+      out.writeInt( column.getSqlType() );
+      out.writeInt( column.getLength() );
+      out.writeInt( column.getPrecision() );
+      out.writeBoolean( column.isNullable() );
+    }
+  }
+
+  private File getFile( DatabaseMeta databaseMeta, String key ) {
+    return new File( getConnectionDirectory( databaseMeta ), hash( key ) + SUFFIX );
+  }
+
+  private File getConnectionDirectory( DatabaseMeta databaseMeta ) {
+    return new File( directory, hash( fingerprint( databaseMeta ) ) );
+  }
+
+  /**
+   * Identifies the database <code>databaseMeta</code> connects to: its type, resolved URL, user and attributes, all
+   * with variables substituted.
+   */
+  static String fingerprint( DatabaseMeta databaseMeta ) {
+    StringBuilder fingerprint = new StringBuilder( databaseMeta.getPluginId() ).append( '|' );
+    try {
+      fingerprint.append( databaseMeta.getURL() );
+    } catch ( KettleDatabaseException e ) {
+      // the parts the URL would have been built from
+      fingerprint.append( databaseMeta.environmentSubstitute( databaseMeta.getHostname() ) ).append( ':' )
+          .append( databaseMeta.environmentSubstitute( databaseMeta.getDatabasePortNumberString() ) ).append( '/' )
+          .append( databaseMeta.environmentSubstitute( databaseMeta.getDatabaseName() ) );
+    }
+    fingerprint.append( '|' ).append( databaseMeta.environmentSubstitute( databaseMeta.getUsername() ) );
+    Properties attributes = databaseMeta.getAttributes();
+    if ( attributes != null ) {
+      // generic connections keep their custom URL and driver here, and every connection its options
+      for ( String name : new TreeSet<String>( attributes.stringPropertyNames() ) ) {
+        fingerprint.append( '|' ).append( name ).append( '=' )
+            .append( databaseMeta.environmentSubstitute( attributes.getProperty( name ) ) );
+      }
+    }
+    return fingerprint.toString();
+  }
+
+  private static String describe( String schemaName, String tableName ) {
+    return ( schemaName == null ? "" : schemaName ) + "." + tableName; //$NON-NLS-1$ //$NON-NLS-2$
+  }
+
+  private static void deleteFiles( File connectionDirectory ) {
+    File[] files = connectionDirectory.listFiles();
+    if ( files == null ) {
+      return;
+    }
+    for ( File file : files ) {
+      if ( file.getName().endsWith( SUFFIX ) ) {
+        file.delete();
+      }
+    }
+  }
+
+  private static TableMetadata discard( File file ) {
+    file.delete();
+    return null;
+  }
+
+  private static String hash( String value ) {
+    try {
+      MessageDigest sha1 = MessageDigest.getInstance( "SHA-1" ); //$NON-NLS-1$
+      byte[] digest = sha1.digest( value.getBytes( "UTF-8" ) ); //$NON-NLS-1$
+      StringBuilder hex = new StringBuilder( digest.length * 2 );
+      for ( byte b : digest ) {
+        hex.append( Character.forDigit( ( b >> 4 ) & 0xf, 16 ) ).append( Character.forDigit( b & 0xf, 16 ) );
+      }
+      return hex.toString();
+    } catch ( NoSuchAlgorithmException e ) {
+      throw new IllegalStateException( e );
+    } catch ( UnsupportedEncodingException e ) {
+      throw new IllegalStateException( e );
+    }
+  }
+}
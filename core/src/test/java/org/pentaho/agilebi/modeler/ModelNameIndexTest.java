@@ -0,0 +1,154 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.agilebi.modeler;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.agilebi.modeler.nodes.DimensionMetaData;
+import org.pentaho.agilebi.modeler.nodes.HierarchyMetaData;
+import org.pentaho.agilebi.modeler.nodes.LevelMetaData;
+import org.pentaho.agilebi.modeler.nodes.MeasureMetaData;
+import org.pentaho.agilebi.modeler.util.ModelerWorkspaceHelper;
+import org.pentaho.metadata.model.LogicalColumn;
+import org.pentaho.metadata.model.concept.types.LocalizedString;
+
+public class ModelNameIndexTest {
+
+  private static final String LOCALE = "en_US";
+
+  private ModelerWorkspace workspace;
+  private ModelNameIndex index;
+
+  @Before
+  public void setUp() throws Exception {
+    workspace = new ModelerWorkspace( new ModelerWorkspaceHelper( LOCALE ) );
+    index = workspace.getModelNameIndex();
+  }
+
+  @Test
+  public void testFindsLevelsAsAScanWould() {
+    HierarchyMetaData hierarchy = addHierarchy( "Geo", "Geo" );
+    LevelMetaData country = addLevel( hierarchy, "Country", "COUNTRY_NAME" );
+    LevelMetaData city = addLevel( hierarchy, "City", "City Name" );
+
+    assertSame( country, index.findLevelByColumnName( "country_name", "Country Name" ) );
+    assertSame( city, index.findLevelByColumnName( "CITY_NAME", "City Name" ) );
+    assertSame( city, index.findLevelByColumnName( "city name", null ) );
+    assertNull( index.findLevelByColumnName( "CITY", "city name" ) );
+    assertSame( hierarchy, index.findHierarchy( "Geo", "Geo" ) );
+    assertSame( city, index.findLevelByFormula( "[Geo.Geo].[City]" ) );
+    assertNull( index.findLevelByFormula( "[Geo].[City]" ) );
+  }
+
+  @Test
+  public void testFollowsChangesToTheModel() {
+    HierarchyMetaData hierarchy = addHierarchy( "Geo", "Geo" );
+    LevelMetaData city = addLevel( hierarchy, "City", "CITY" );
+    assertSame( city, index.findLevelByFormula( "[Geo.Geo].[City]" ) );
+
+    city.setName( "Town" );
+    assertNull( index.findLevelByFormula( "[Geo.Geo].[City]" ) );
+    assertSame( city, index.findLevelByFormula( "[Geo.Geo].[Town]" ) );
+
+    hierarchy.remove( city );
+    assertNull( index.findLevelByColumnName( "CITY", null ) );
+
+    MeasureMetaData sales = new MeasureMetaData( "SALES", "", "Sales", LOCALE );
+    sales.setLogicalColumn( column( "SALES" ) );
+    assertNull( index.findMeasure( "Sales" ) );
+    workspace.getModel().getMeasures().add( sales );
+    assertSame( sales, index.findMeasure( "Sales" ) );
+    assertSame( sales, index.findMeasureByColumnName( "sales", "SALES" ) );
+    assertNull( index.findMeasureByColumnName( "sales", "Sales" ) );
+
+    // renaming the measure renames its column
+    sales.setName( "Revenue" );
+    assertNull( index.findMeasureByColumnName( "SALES", null ) );
+    assertSame( sales, index.findMeasureByColumnName( "Revenue", null ) );
+
+    // the column is renamed directly and the index told
+    sales.getLogicalColumn().setName( new LocalizedString( LOCALE, "REVENUE" ) );
+    index.columnRenamed( sales.getLogicalColumn() );
+    assertNull( index.findMeasureByColumnName( "Revenue", null ) );
+    assertSame( sales, index.findMeasureByColumnName( "REVENUE", null ) );
+  }
+
+  @Test
+  public void testUpdatesInPlace() {
+    HierarchyMetaData hierarchy = addHierarchy( "Geo", "Geo" );
+    LevelMetaData city = addLevel( hierarchy, "City", "CITY" );
+    MeasureMetaData sales = addMeasure( "Sales", "SALES" );
+    MeasureMetaData moreSales = addMeasure( "Sales", "MORE_SALES" );
+    assertSame( sales, index.findMeasure( "Sales" ) );
+
+    workspace.getModel().getMeasures().remove( sales );
+    assertSame( moreSales, index.findMeasure( "Sales" ) );
+    workspace.getModel().getMeasures().add( sales );
+    assertSame( moreSales, index.findMeasure( "Sales" ) );
+    assertSame( sales, index.findMeasureByColumnName( "SALES", null ) );
+
+    hierarchy.getDimensionMetaData().setName( "Place" );
+    assertNull( index.findLevelByFormula( "[Geo.Geo].[City]" ) );
+    assertSame( city, index.findLevelByFormula( "[Place.Geo].[City]" ) );
+    assertSame( hierarchy, index.findHierarchy( "Place", "Geo" ) );
+
+    // renamed and never looked up under the old name
+    city.getLogicalColumn().setName( new LocalizedString( LOCALE, "TOWN" ) );
+    index.columnRenamed( city.getLogicalColumn() );
+    assertSame( city, index.findLevelByColumnName( "town", null ) );
+
+    // the first in tree order wins
+    HierarchyMetaData later = addHierarchy( "Area", "Area" );
+    LevelMetaData district = addLevel( later, "District", "TOWN" );
+    assertSame( city, index.findLevelByColumnName( "town", null ) );
+    workspace.getModel().getDimensions().remove( hierarchy.getDimensionMetaData() );
+    assertSame( district, index.findLevelByColumnName( "town", null ) );
+
+    workspace.getModel().getMeasures().clear();
+    assertNull( index.findMeasure( "Sales" ) );
+    assertNull( index.findMeasureByColumnName( "MORE_SALES", null ) );
+  }
+
+  private MeasureMetaData addMeasure( String name, String columnName ) {
+    MeasureMetaData measure = new MeasureMetaData( columnName, "", name, LOCALE );
+    measure.setLogicalColumn( column( columnName ) );
+    workspace.getModel().getMeasures().add( measure );
+    return measure;
+  }
+
+  private HierarchyMetaData addHierarchy( String dimensionName, String hierarchyName ) {
+    DimensionMetaData dimension = new DimensionMetaData( dimensionName );
+    HierarchyMetaData hierarchy = new HierarchyMetaData( hierarchyName );
+    dimension.add( hierarchy );
+    workspace.getModel().getDimensions().add( dimension );
+    return hierarchy;
+  }
+
+  private LevelMetaData addLevel( HierarchyMetaData hierarchy, String name, String columnName ) {
+    LevelMetaData level = new LevelMetaData( hierarchy, name );
+    level.setLogicalColumn( column( columnName ) );
+    hierarchy.add( level );
+    return level;
+  }
+
+  private static LogicalColumn column( String name ) {
+    LogicalColumn column = new LogicalColumn();
+    column.setId( name );
+    column.setName( new LocalizedString( LOCALE, name ) );
+    return column;
+  }
+}
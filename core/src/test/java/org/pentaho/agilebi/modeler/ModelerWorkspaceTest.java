@@ -27,36 +27,72 @@ import org.pentaho.agilebi.modeler.nodes.DimensionMetaData;
 import org.pentaho.agilebi.modeler.nodes.FieldMetaData;
 import org.pentaho.agilebi.modeler.nodes.HierarchyMetaData;
 import org.pentaho.agilebi.modeler.nodes.LevelMetaData;
+import org.pentaho.agilebi.modeler.nodes.MainModelNode;
 import org.pentaho.agilebi.modeler.nodes.MeasureMetaData;
+import org.pentaho.agilebi.modeler.nodes.RelationalModelNode;
 import org.pentaho.agilebi.modeler.format.DataFormatHolder;
+import org.pentaho.agilebi.modeler.strategy.AutoModelProgressMonitor;
+import org.pentaho.agilebi.modeler.strategy.SimpleAutoModelStrategy;
 import org.pentaho.agilebi.modeler.util.ModelerWorkspaceHelper;
 import org.pentaho.agilebi.modeler.util.SpoonModelerMessages;
+import org.pentaho.metadata.model.Category;
 import org.pentaho.metadata.model.Domain;
+import org.pentaho.metadata.model.IPhysicalColumn;
+import org.pentaho.metadata.model.IPhysicalTable;
 import org.pentaho.metadata.model.LogicalColumn;
 import org.pentaho.metadata.model.LogicalModel;
 import org.pentaho.metadata.model.LogicalTable;
 import org.pentaho.metadata.model.concept.types.DataType;
+import org.pentaho.metadata.model.olap.OlapCube;
+import org.pentaho.metadata.model.olap.OlapHierarchy;
+import org.pentaho.metadata.model.olap.OlapDimension;
+import org.pentaho.metadata.model.olap.OlapMeasure;
 import org.pentaho.metadata.util.MondrianModelExporter;
 import org.pentaho.metadata.util.XmiParser;
 
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileReader;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Reader;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 public class ModelerWorkspaceTest {
 
@@ -175,6 +211,238 @@ public class ModelerWorkspaceTest {
     }
   }
 
+  @Test
+  public void testRefreshReportsReboundAndInvalidatedNodes() throws Exception {
+    XmiParser parser = new XmiParser();
+    Domain d = parser.parseXmi( Files.newInputStream( Paths.get( "src/test/resources/products.xmi" ) ) );
+    workspace.setDomain( d );
+
+    MeasureMetaData measure = workspace.getModel().getMeasures().get( 0 );
+    String removedColumnId = measure.getLogicalColumn().getPhysicalColumn().getId();
+
+    Domain newDomain = parser.parseXmi( Files.newInputStream( Paths.get( "src/test/resources/products.xmi" ) ) );
+    ModelerConversionUtil.upConvertDomain( newDomain );
+    IPhysicalTable table = newDomain.getPhysicalModels().get( 0 ).getPhysicalTables().get( 0 );
+    Iterator<IPhysicalColumn> columns = table.getPhysicalColumns().iterator();
+    while ( columns.hasNext() ) {
+      if ( columns.next().getId().equals( removedColumnId ) ) {
+        columns.remove();
+      }
+    }
+
+    RefreshReport report = workspace.refresh( newDomain );
+
+    assertNull( measure.getLogicalColumn() );
+    assertTrue( report.getInvalidatedNodes().contains( measure ) );
+    assertFalse( report.getReboundNodes().contains( measure ) );
+    assertFalse( report.getReboundNodes().isEmpty() );
+    for ( ColumnBackedNode node : report.getReboundNodes() ) {
+      assertTrue( isColumnReferencedInAvailableFields( node.getLogicalColumn() ) );
+    }
+  }
+
+  @Test
+  public void testFindLogicalColumnPerPerspective() throws Exception {
+    XmiParser parser = new XmiParser();
+    Domain d = parser.parseXmi( Files.newInputStream( Paths.get( "src/test/resources/products.xmi" ) ) );
+    workspace.setDomain( d );
+
+    AvailableTable table = workspace.getAvailableTables().getAsAvailableTablesList().get( 0 );
+    AvailableField field = table.getAvailableFields().get( 0 );
+    ColumnBackedNode node = workspace.createColumnBackedNode( field, ModelerPerspective.REPORTING );
+
+    LogicalColumn reporting = workspace.findLogicalColumn( field.getPhysicalColumn(), ModelerPerspective.REPORTING );
+    assertTrue( isReferencedTableReportingVersion( reporting ) );
+    assertEquals( field.getPhysicalColumn().getId(), reporting.getPhysicalColumn().getId() );
+
+    LogicalColumn analysis = workspace.findLogicalColumn( field.getPhysicalColumn(), ModelerPerspective.ANALYSIS );
+    assertNotNull( analysis );
+    assertTrue( isReferencedTableOlapVersion( analysis ) );
+
+    assertEquals( node.getLogicalColumn().getLogicalTable(), workspace.findLogicalTable(
+        field.getPhysicalColumn().getPhysicalTable(), ModelerPerspective.REPORTING ) );
+
+    // swapping the domain must not serve lookups from the previous domain
+    Domain d2 = parser.parseXmi( Files.newInputStream( Paths.get( "src/test/resources/products.xmi" ) ) );
+    workspace.setDomain( d2 );
+    LogicalColumn afterSwap =
+        workspace.findLogicalColumn( field.getPhysicalColumn(), ModelerPerspective.REPORTING );
+    assertNotNull( afterSwap );
+    assertTrue( d2.getLogicalModels().get( 0 ).getLogicalTables().contains( afterSwap.getLogicalTable() ) );
+  }
+
+  @Test
+  public void testAvailableFieldsAreCreatedOnFirstAccess() throws Exception {
+    XmiParser parser = new XmiParser();
+    Domain d = parser.parseXmi( Files.newInputStream( Paths.get( "src/test/resources/products.xmi" ) ) );
+    workspace.setDomain( d );
+
+    AvailableTable table = workspace.getAvailableTables().getAsAvailableTablesList().get( 0 );
+    IPhysicalTable physicalTable = d.getPhysicalModels().get( 0 ).getPhysicalTables().get( 0 );
+    IPhysicalColumn column = physicalTable.getPhysicalColumns().get( 0 );
+    assertFalse( table.isAvailableFieldsPopulated() );
+    assertEquals( physicalTable.getPhysicalColumns().size(), table.getFieldCount() );
+    assertTrue( table.containsUnderlyingPhysicalColumn( column ) );
+    assertFalse( table.isAvailableFieldsPopulated() );
+
+    AvailableField field = table.findFieldByPhysicalColumn( column );
+    assertTrue( table.isAvailableFieldsPopulated() );
+    assertTrue( field.isSameUnderlyingPhysicalColumn( column ) );
+    assertEquals( physicalTable.getPhysicalColumns().size(), table.getAvailableFields().size() );
+    assertTrue( table.getAvailableFields() == table.getChildren() );
+  }
+
+  @Test
+  public void testSerializedTableKeepsFieldsNotCreatedYet() throws Exception {
+    XmiParser parser = new XmiParser();
+    Domain d = parser.parseXmi( Files.newInputStream( Paths.get( "src/test/resources/products.xmi" ) ) );
+    workspace.setDomain( d );
+
+    AvailableTable table = workspace.getAvailableTables().getAsAvailableTablesList().get( 0 );
+    assertFalse( table.isAvailableFieldsPopulated() );
+    int fieldCount = table.getFieldCount();
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ObjectOutputStream out = new ObjectOutputStream( bytes );
+    out.writeObject( table );
+    out.close();
+    ObjectInputStream in = new ObjectInputStream( new ByteArrayInputStream( bytes.toByteArray() ) );
+    AvailableTable copy = (AvailableTable) in.readObject();
+
+    assertNull( copy.getPhysicalTable() );
+    assertEquals( table.getName(), copy.getName() );
+    assertEquals( fieldCount, copy.getAvailableFields().size() );
+    assertEquals( table.getAvailableFields().get( 0 ).getName(), copy.getAvailableFields().get( 0 ).getName() );
+  }
+
+  @Test
+  public void testRefreshIncrementalRemovesOnlyDroppedColumn() throws Exception {
+    XmiParser parser = new XmiParser();
+    Domain d = parser.parseXmi( Files.newInputStream( Paths.get( "src/test/resources/products.xmi" ) ) );
+    workspace.setDomain( d );
+
+    AvailableTable availableTable = workspace.getAvailableTables().getAsAvailableTablesList().get( 0 );
+    int fieldCount = availableTable.getAvailableFields().size();
+    MeasureMetaData measure = workspace.getModel().getMeasures().get( 0 );
+    String removedColumnId = measure.getLogicalColumn().getPhysicalColumn().getId();
+
+    Domain newDomain = parser.parseXmi( Files.newInputStream( Paths.get( "src/test/resources/products.xmi" ) ) );
+    ModelerConversionUtil.upConvertDomain( newDomain );
+    IPhysicalTable table = newDomain.getPhysicalModels().get( 0 ).getPhysicalTables().get( 0 );
+    Iterator<IPhysicalColumn> columns = table.getPhysicalColumns().iterator();
+    while ( columns.hasNext() ) {
+      if ( columns.next().getId().equals( removedColumnId ) ) {
+        columns.remove();
+      }
+    }
+
+    PhysicalModelDiff diff = workspace.refreshIncremental( newDomain );
+
+    assertFalse( diff.hasTableChanges() );
+    assertEquals( 1, diff.getRemovedColumns().size() );
+    assertEquals( removedColumnId, diff.getRemovedColumns().get( 0 ).getId() );
+    assertTrue( diff.getAddedColumns().isEmpty() );
+    assertTrue( diff.getChangedColumns().isEmpty() );
+
+    // the current domain was patched rather than replaced
+    assertTrue( d == workspace.getDomain() );
+    assertTrue( availableTable == workspace.getAvailableTables().getAsAvailableTablesList().get( 0 ) );
+    assertEquals( fieldCount - 1, availableTable.getAvailableFields().size() );
+    assertNull( measure.getLogicalColumn() );
+    for ( LogicalModel logicalModel : d.getLogicalModels() ) {
+      for ( Category category : logicalModel.getCategories() ) {
+        for ( LogicalColumn lCol : category.getLogicalColumns() ) {
+          assertFalse( removedColumnId.equals( lCol.getPhysicalColumn().getId() ) );
+        }
+      }
+    }
+
+    assertTrue( workspace.refreshIncremental( newDomain ).isEmpty() );
+  }
+
+  @Test
+  public void testRefreshIncrementalDetectsLengthChange() throws Exception {
+    XmiParser parser = new XmiParser();
+    Domain d = parser.parseXmi( Files.newInputStream( Paths.get( "src/test/resources/products.xmi" ) ) );
+    workspace.setDomain( d );
+
+    Domain newDomain = parser.parseXmi( Files.newInputStream( Paths.get( "src/test/resources/products.xmi" ) ) );
+    ModelerConversionUtil.upConvertDomain( newDomain );
+    IPhysicalColumn widened = newDomain.getPhysicalModels().get( 0 ).getPhysicalTables().get( 0 )
+        .getPhysicalColumns().get( 0 );
+    widened.setProperty( BaseModelerWorkspaceHelper.COLUMN_LENGTH, 4000 );
+
+    PhysicalModelDiff diff = workspace.refreshIncremental( newDomain );
+
+    assertEquals( 1, diff.getChangedColumns().size() );
+    assertSame( widened, diff.getChangedColumns().get( 0 ) );
+    IPhysicalColumn column = d.getPhysicalModels().get( 0 ).getPhysicalTables().get( 0 ).getPhysicalColumns().get( 0 );
+    assertEquals( widened.getId(), column.getId() );
+    assertEquals( 4000, column.getProperty( BaseModelerWorkspaceHelper.COLUMN_LENGTH ) );
+    assertTrue( workspace.refreshIncremental( newDomain ).isEmpty() );
+  }
+
+  @Test
+  public void testRefreshIncrementalCopiesAddedColumnIntoCurrentDomain() throws Exception {
+    XmiParser parser = new XmiParser();
+    Domain d = parser.parseXmi( Files.newInputStream( Paths.get( "src/test/resources/products.xmi" ) ) );
+    ModelerConversionUtil.upConvertDomain( d );
+    IPhysicalTable table = d.getPhysicalModels().get( 0 ).getPhysicalTables().get( 0 );
+    IPhysicalColumn dropped = table.getPhysicalColumns().remove( 1 );
+    for ( LogicalModel logicalModel : d.getLogicalModels() ) {
+      for ( LogicalTable logicalTable : logicalModel.getLogicalTables() ) {
+        Iterator<LogicalColumn> columns = logicalTable.getLogicalColumns().iterator();
+        while ( columns.hasNext() ) {
+          if ( columns.next().getPhysicalColumn().getId().equals( dropped.getId() ) ) {
+            columns.remove();
+          }
+        }
+      }
+    }
+    workspace.setDomain( d );
+
+    Domain newDomain = parser.parseXmi( Files.newInputStream( Paths.get( "src/test/resources/products.xmi" ) ) );
+    ModelerConversionUtil.upConvertDomain( newDomain );
+    PhysicalModelDiff diff = workspace.refreshIncremental( newDomain );
+
+    assertEquals( 1, diff.getAddedColumns().size() );
+    assertSame( d, workspace.getDomain() );
+    assertFalse( workspace.isModelChanging() );
+    IPhysicalColumn added = null;
+    for ( IPhysicalColumn column : table.getPhysicalColumns() ) {
+      if ( column.getId().equals( dropped.getId() ) ) {
+        added = column;
+      }
+    }
+    assertNotSame( diff.getAddedColumns().get( 0 ), added );
+    assertSame( table, added.getPhysicalTable() );
+    assertEquals( dropped.getDataType(), added.getDataType() );
+    for ( LogicalModel logicalModel : d.getLogicalModels() ) {
+      LogicalTable logicalTable = logicalModel.getLogicalTables().get( 0 );
+      LogicalColumn lCol = workspace.findLogicalColumn( added,
+          logicalModel == d.getLogicalModels().get( 0 ) ? ModelerPerspective.REPORTING : ModelerPerspective.ANALYSIS );
+      assertSame( added, lCol.getPhysicalColumn() );
+      assertSame( logicalTable, lCol.getLogicalTable() );
+    }
+  }
+
+  @Test
+  public void testToIdMatchesRegexSanitizing() {
+    String[] names = { "", "plain", "with space", "a.b,c:d(e)f{g}h[i]j", "\"quoted\"", "`back`tick's",
+      "a__b", "a_'_b", "  leading", "trailing...", "_", "__", "mixed (\"x\") [y]", "PRODUCTS.PRODUCTLINE" };
+    for ( String name : names ) {
+      String expected = name.replaceAll( "[ .,:(){}\\[\\]]", "_" );
+      expected = expected.replaceAll( "[\"`']", "" );
+      expected = expected.replaceAll( "_+", "_" );
+      assertEquals( expected, ModelerWorkspace.toId( name ) );
+      // second call is served from the cache
+      assertEquals( expected, ModelerWorkspace.toId( name ) );
+      assertEquals( name.replaceAll( "[\"`']", "" ), ModelerWorkspace.removeQuotes( name ) );
+    }
+    assertNull( ModelerWorkspace.toId( null ) );
+    assertNull( ModelerWorkspace.removeQuotes( null ) );
+  }
+
   private boolean isReferencedTableOlapVersion( LogicalColumn logicalColumn ) {
     for ( LogicalTable table : workspace.getLogicalModel( ModelerPerspective.ANALYSIS ).getLogicalTables() ) {
       if ( table.getId().equals( logicalColumn.getLogicalTable().getId() ) ) {
@@ -202,6 +470,400 @@ public class ModelerWorkspaceTest {
     return false;
   }
 
+  @Test
+  @SuppressWarnings( "unchecked" )
+  public void testPopulateDomainRegeneratesOnlyDirtyNodes() throws Exception {
+    XmiParser parser = new XmiParser();
+    Domain d = parser.parseXmi( Files.newInputStream( Paths.get( "src/test/resources/products.xmi" ) ) );
+    workspace.setDomain( d );
+    LogicalModel model = workspace.getLogicalModel( ModelerPerspective.ANALYSIS );
+
+    workspace.getWorkspaceHelper().populateDomain( workspace );
+    assertFalse( workspace.getModel().isDirty() );
+    assertFalse( workspace.getRelationalModel().isDirty() );
+    List<OlapDimension> before = new ArrayList<OlapDimension>( (List<OlapDimension>) model.getProperty(
+        "olap_dimensions" ) );
+    List<OlapMeasure> measuresBefore = new ArrayList<OlapMeasure>(
+        ( (List<OlapCube>) model.getProperty( "olap_cubes" ) ).get( 0 ).getOlapMeasures() );
+    Category categoryBefore = workspace.getLogicalModel( ModelerPerspective.REPORTING ).getCategories().get( 0 );
+
+    DimensionMetaData renamed = workspace.getModel().getDimensions().get( 0 );
+    renamed.setName( "Renamed" );
+    assertTrue( renamed.isDirty() );
+    assertTrue( workspace.getModel().isDirty() );
+    assertFalse( workspace.getRelationalModel().isDirty() );
+
+    workspace.getWorkspaceHelper().populateDomain( workspace );
+    List<OlapDimension> after = (List<OlapDimension>) model.getProperty( "olap_dimensions" );
+    assertEquals( before.size(), after.size() );
+    assertNotSame( before.get( 0 ), after.get( 0 ) );
+    assertEquals( "Renamed", after.get( 0 ).getName() );
+    for ( int i = 1; i < after.size(); i++ ) {
+      assertSame( before.get( i ), after.get( i ) );
+    }
+    List<OlapMeasure> measuresAfter = ( (List<OlapCube>) model.getProperty( "olap_cubes" ) ).get( 0 ).getOlapMeasures();
+    for ( int i = 0; i < measuresAfter.size(); i++ ) {
+      assertSame( measuresBefore.get( i ), measuresAfter.get( i ) );
+    }
+    assertSame( categoryBefore,
+        workspace.getLogicalModel( ModelerPerspective.REPORTING ).getCategories().get( 0 ) );
+  }
+
+  @Test
+  @SuppressWarnings( "unchecked" )
+  public void testReusedDomainObjectsRestoreTheirLogicalColumns() throws Exception {
+    XmiParser parser = new XmiParser();
+    Domain d = parser.parseXmi( Files.newInputStream( Paths.get( "src/test/resources/products.xmi" ) ) );
+    workspace.setDomain( d );
+    LogicalModel model = workspace.getLogicalModel( ModelerPerspective.ANALYSIS );
+    workspace.getWorkspaceHelper().populateDomain( workspace );
+
+    // the tree helpers take columns out of their tables without touching the generated objects
+    OlapMeasure measure = ( (List<OlapCube>) model.getProperty( "olap_cubes" ) ).get( 0 ).getOlapMeasures().get( 0 );
+    LogicalColumn measureColumn = measure.getLogicalColumn();
+    measureColumn.getLogicalTable().getLogicalColumns().remove( measureColumn );
+    OlapHierarchy hierarchy = ( (List<OlapDimension>) model.getProperty( "olap_dimensions" ) ).get( 0 )
+        .getHierarchies().get( 0 );
+    LogicalColumn levelColumn = hierarchy.getHierarchyLevels().get( 0 ).getReferenceColumn();
+    hierarchy.getLogicalTable().getLogicalColumns().remove( levelColumn );
+    Category category = workspace.getLogicalModel( ModelerPerspective.REPORTING ).getCategories().get( 0 );
+    LogicalColumn fieldColumn = category.getLogicalColumns().get( 0 );
+    fieldColumn.getLogicalTable().getLogicalColumns().remove( fieldColumn );
+
+    workspace.getWorkspaceHelper().populateDomain( workspace );
+    assertTrue( measureColumn.getLogicalTable().getLogicalColumns().contains( measureColumn ) );
+    assertTrue( hierarchy.getLogicalTable().getLogicalColumns().contains( levelColumn ) );
+    assertTrue( fieldColumn.getLogicalTable().getLogicalColumns().contains( fieldColumn ) );
+  }
+
+  @Test
+  public void testBatchFiresOneModelChangedEvent() throws Exception {
+    XmiParser parser = new XmiParser();
+    Domain d = parser.parseXmi( Files.newInputStream( Paths.get( "src/test/resources/products.xmi" ) ) );
+    workspace.setDomain( d );
+    final int dimensionCount = workspace.getModel().getDimensions().size();
+
+    final List<PropertyChangeEvent> events = new ArrayList<PropertyChangeEvent>();
+    workspace.addPropertyChangeListener( "model", new PropertyChangeListener() {
+      public void propertyChange( PropertyChangeEvent evt ) {
+        events.add( evt );
+      }
+    } );
+
+    workspace.batch( new Consumer<ModelerWorkspace>() {
+      public void accept( ModelerWorkspace ws ) {
+        for ( int i = 0; i < 5; i++ ) {
+          ws.addDimension( new DimensionMetaData( "batch" + i ) );
+        }
+        ws.beginBatch();
+        ws.addDimension( new DimensionMetaData( "nested" ) );
+        ws.commitBatch();
+        assertTrue( ws.isInBatch() );
+        assertTrue( events.isEmpty() );
+      }
+    } );
+
+    assertFalse( workspace.isInBatch() );
+    assertFalse( workspace.isModelChanging() );
+    assertEquals( 1, events.size() );
+    assertEquals( dimensionCount + 6, workspace.getModel().getDimensions().size() );
+    // the empty dimensions were validated on commit
+    assertFalse( workspace.getModel().getDimensions().get( dimensionCount ).isValid() );
+  }
+
+  @Test
+  public void testEmptyBatchFiresNothing() throws Exception {
+    XmiParser parser = new XmiParser();
+    Domain d = parser.parseXmi( Files.newInputStream( Paths.get( "src/test/resources/products.xmi" ) ) );
+    workspace.setDomain( d );
+
+    final List<PropertyChangeEvent> events = new ArrayList<PropertyChangeEvent>();
+    workspace.addPropertyChangeListener( "model", new PropertyChangeListener() {
+      public void propertyChange( PropertyChangeEvent evt ) {
+        events.add( evt );
+      }
+    } );
+    workspace.beginBatch();
+    workspace.commitBatch();
+    assertTrue( events.isEmpty() );
+
+    workspace.beginBatch();
+    workspace.getModel().getDimensions().get( 0 ).setName( "renamed" );
+    workspace.commitBatch();
+    assertEquals( 1, events.size() );
+  }
+
+  @Test
+  public void testValidityChangeIsPublishedOncePerPass() throws Exception {
+    XmiParser parser = new XmiParser();
+    Domain d = parser.parseXmi( Files.newInputStream( Paths.get( "src/test/resources/products.xmi" ) ) );
+    workspace.setDomain( d );
+    workspace.getModel().validateTree();
+    assertTrue( workspace.getModel().isValid() );
+
+    DimensionMetaData dimension = workspace.getModel().getDimensions().get( 0 );
+    LevelMetaData level = dimension.get( 0 ).get( 0 );
+    final List<PropertyChangeEvent> rootEvents = new ArrayList<PropertyChangeEvent>();
+    workspace.getModel().addPropertyChangeListener( "valid", new PropertyChangeListener() {
+      public void propertyChange( PropertyChangeEvent evt ) {
+        rootEvents.add( evt );
+      }
+    } );
+
+    LogicalColumn column = level.getLogicalColumn();
+    level.setLogicalColumn( null );
+    assertFalse( level.isValid() );
+    assertFalse( dimension.isValid() );
+    assertFalse( workspace.getModel().isValid() );
+    assertEquals( 1, rootEvents.size() );
+    assertEquals( Boolean.FALSE, rootEvents.get( 0 ).getNewValue() );
+
+    level.setLogicalColumn( column );
+    assertTrue( level.isValid() );
+    assertTrue( dimension.isValid() );
+    assertTrue( workspace.getModel().isValid() );
+    assertEquals( 2, rootEvents.size() );
+  }
+
+  @Test
+  public void testValidationPassFiresOneAggregatedChange() throws Exception {
+    XmiParser parser = new XmiParser();
+    Domain d = parser.parseXmi( Files.newInputStream( Paths.get( "src/test/resources/products.xmi" ) ) );
+    workspace.setDomain( d );
+    workspace.getModel().validateTree();
+
+    DimensionMetaData dimension = workspace.getModel().getDimensions().get( 0 );
+    HierarchyMetaData hierarchy = dimension.get( 0 );
+    LevelMetaData level = hierarchy.get( 0 );
+    final List<PropertyChangeEvent> events = new ArrayList<PropertyChangeEvent>();
+    PropertyChangeListener listener = new PropertyChangeListener() {
+      public void propertyChange( PropertyChangeEvent evt ) {
+        events.add( evt );
+      }
+    };
+    level.addPropertyChangeListener( "valid", listener );
+    hierarchy.addPropertyChangeListener( "valid", listener );
+    dimension.addPropertyChangeListener( "valid", listener );
+    workspace.getModel().getDimensions().addPropertyChangeListener( "valid", listener );
+    workspace.getModel().addPropertyChangeListener( "valid", listener );
+
+    level.setLogicalColumn( null );
+    assertFalse( level.isValid() );
+    assertFalse( hierarchy.isValid() );
+    assertFalse( dimension.isValid() );
+    assertEquals( 1, events.size() );
+    assertSame( workspace.getModel(), events.get( 0 ).getSource() );
+    assertEquals( Boolean.FALSE, events.get( 0 ).getNewValue() );
+  }
+
+  @Test
+  public void testAutoModelFlatAsyncSwapsInFinishedModel() throws Exception {
+    final List<Runnable> queued = new ArrayList<Runnable>();
+    Executor executor = new Executor() {
+      public void execute( Runnable command ) {
+        queued.add( command );
+      }
+    };
+    ModelerWorkspaceHelper helper = new ModelerWorkspaceHelper( LOCALE, executor, executor );
+    workspace.setWorkspaceHelper( helper );
+    XmiParser parser = new XmiParser();
+    Domain d = parser.parseXmi( Files.newInputStream( Paths.get( "src/test/resources/products.xmi" ) ) );
+    workspace.setDomain( d );
+    MainModelNode current = workspace.getModel();
+    LogicalTable olapTable = workspace.getLogicalModel( ModelerPerspective.ANALYSIS ).getLogicalTables().get( 0 );
+    List<LogicalColumn> liveColumns = new ArrayList<LogicalColumn>( olapTable.getLogicalColumns() );
+    final int tableCount = workspace.getAvailableTables().getAsAvailableTablesList().size();
+    final List<String> progress = new ArrayList<String>();
+
+    CompletableFuture<MainModelNode> future = helper.autoModelFlatAsync( workspace, new AutoModelProgressMonitor() {
+      public void tableCompleted( String tableName, int completed, int total ) {
+        assertEquals( tableCount, total );
+        progress.add( tableName );
+      }
+
+      public boolean isCanceled() {
+        return false;
+      }
+    } );
+    // model on the worker, nothing is visible until the publish step ran
+    queued.remove( 0 ).run();
+    assertSame( current, workspace.getModel() );
+    assertEquals( liveColumns, olapTable.getLogicalColumns() );
+    assertEquals( tableCount, progress.size() );
+    assertFalse( future.isDone() );
+
+    queued.remove( 0 ).run();
+    assertTrue( future.isDone() );
+    assertSame( future.get(), workspace.getModel() );
+    assertFalse( workspace.getModel().getSuppressEvents() );
+    assertFalse( workspace.isModelChanging() );
+    assertTrue( workspace.getModel().getDimensions().size() > 0 );
+    // the modeled columns were moved into the live Domain
+    LevelMetaData level = workspace.getModel().getDimensions().get( 0 ).get( 0 ).get( 0 );
+    assertSame( olapTable, level.getLogicalColumn().getLogicalTable() );
+    assertTrue( olapTable.getLogicalColumns().contains( level.getLogicalColumn() ) );
+
+    // canceled while modeling, the Domain is left as it was
+    current = workspace.getModel();
+    liveColumns = new ArrayList<LogicalColumn>( olapTable.getLogicalColumns() );
+    future = helper.autoModelFlatAsync( workspace, new AutoModelProgressMonitor() {
+      public void tableCompleted( String tableName, int completed, int total ) {
+      }
+
+      public boolean isCanceled() {
+        return true;
+      }
+    } );
+    queued.remove( 0 ).run();
+    assertTrue( future.isCancelled() );
+    assertTrue( queued.isEmpty() );
+    assertSame( current, workspace.getModel() );
+    assertEquals( liveColumns, olapTable.getLogicalColumns() );
+    assertSame( olapTable, level.getLogicalColumn().getLogicalTable() );
+
+    // a canceled run leaves the model alone
+    current = workspace.getModel();
+    future = helper.autoModelFlatAsync( workspace, null );
+    future.cancel( false );
+    queued.remove( 0 ).run();
+    assertTrue( queued.isEmpty() );
+    assertSame( current, workspace.getModel() );
+  }
+
+  @Test
+  public void testStagingWorkspaceIsIsolated() throws Exception {
+    XmiParser parser = new XmiParser();
+    Domain d = parser.parseXmi( Files.newInputStream( Paths.get( "src/test/resources/products.xmi" ) ) );
+    workspace.setDomain( d );
+    LogicalModel olapModel = workspace.getLogicalModel( ModelerPerspective.ANALYSIS );
+    LogicalTable olapTable = olapModel.getLogicalTables().get( 0 );
+    AvailableTable liveTable = workspace.getAvailableTables().getAsAvailableTablesList().get( 0 );
+
+    ModelerWorkspace staging = workspace.createStagingWorkspace();
+    AvailableTable stagedTable = staging.getAvailableTables().getAsAvailableTablesList().get( 0 );
+    assertNotSame( liveTable, stagedTable );
+    assertNotSame( liveTable.getPhysicalTable(), stagedTable.getPhysicalTable() );
+    assertEquals( liveTable.getPhysicalTable().getId(), stagedTable.getPhysicalTable().getId() );
+    assertNotSame( d.getPhysicalModels().get( 0 ), staging.getDomain().getPhysicalModels().get( 0 ) );
+
+    // a node whose events are suppressed is still set on the workspace unless staging is asked for
+    MainModelNode suppressed = new MainModelNode( staging );
+    suppressed.setSupressEvents( true );
+    new SimpleAutoModelStrategy( LOCALE ).autoModelOlap( staging, suppressed );
+    assertSame( suppressed, staging.getModel() );
+
+    // a table added in front while staging does not shift the published columns
+    LogicalTable added = new LogicalTable();
+    added.setId( "added" );
+    olapModel.getLogicalTables().add( 0, added );
+    workspace.publishStagedColumns( staging, ModelerPerspective.ANALYSIS );
+    assertTrue( added.getLogicalColumns().isEmpty() );
+    assertFalse( olapTable.getLogicalColumns().isEmpty() );
+    for ( LogicalColumn column : olapTable.getLogicalColumns() ) {
+      assertSame( olapTable, column.getLogicalTable() );
+      assertSame( olapTable.getPhysicalTable(), column.getPhysicalColumn().getPhysicalTable() );
+    }
+  }
+
+  @Test
+  public void testCanceledAutoModelRestoresChangeState() throws Exception {
+    XmiParser parser = new XmiParser();
+    Domain d = parser.parseXmi( Files.newInputStream( Paths.get( "src/test/resources/products.xmi" ) ) );
+    workspace.setDomain( d );
+    SimpleAutoModelStrategy strategy = new SimpleAutoModelStrategy( LOCALE );
+    AutoModelProgressMonitor monitor = new AutoModelProgressMonitor() {
+      public void tableCompleted( String tableName, int completed, int total ) {
+      }
+
+      public boolean isCanceled() {
+        return true;
+      }
+    };
+
+    strategy.autoModelOlap( workspace, new MainModelNode( workspace ), false, monitor );
+    assertFalse( workspace.isModelChanging() );
+    strategy.autoModelRelational( workspace, new RelationalModelNode( workspace ), false, monitor );
+    assertFalse( workspace.isModelChanging() );
+  }
+
+  @Test
+  public void testConcurrentWorkspacesKeepTheirLocale() throws Exception {
+    final String[] locales = { "en_US", "de_DE", "fr_FR", "ja_JP" };
+    final int runs = 32;
+    final Properties props = new Properties();
+    props.load( new FileReader( new File( "src/test/resources/geoRoles.properties" ) ) );
+    final CountDownLatch start = new CountDownLatch( 1 );
+    ExecutorService pool = Executors.newFixedThreadPool( 8 );
+    try {
+      List<Future<Void>> results = new ArrayList<Future<Void>>();
+      for ( int i = 0; i < runs; i++ ) {
+        final String locale = locales[ i % locales.length ];
+        results.add( pool.submit( new Callable<Void>() {
+          public Void call() throws Exception {
+            ModelerWorkspaceHelper helper = new ModelerWorkspaceHelper( locale );
+            ModelerWorkspace ws =
+                new ModelerWorkspace( helper, GeoContextFactory.create( new GeoContextPropertiesProvider( props ) ) );
+            Domain d = new XmiParser().parseXmi(
+                Files.newInputStream( Paths.get( "src/test/resources/products.xmi" ) ) );
+            start.await();
+            ws.setDomain( d );
+            helper.autoModelFlat( ws );
+            helper.autoModelRelationalFlat( ws );
+            helper.populateDomain( ws );
+
+            assertEquals( locale, helper.getLocale() );
+            LogicalModel reporting = ws.getLogicalModel( ModelerPerspective.REPORTING );
+            assertEquals( Collections.singleton( locale ), reporting.getName().getLocaleStringMap().keySet() );
+            for ( Category category : reporting.getCategories() ) {
+              assertEquals( Collections.singleton( locale ), category.getName().getLocaleStringMap().keySet() );
+            }
+            assertEquals( Collections.singleton( locale ),
+                ws.getLogicalModel( ModelerPerspective.ANALYSIS ).getName().getLocaleStringMap().keySet() );
+            return null;
+          }
+        } ) );
+      }
+      start.countDown();
+      for ( Future<Void> result : results ) {
+        result.get( 60, TimeUnit.SECONDS );
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test( expected = IllegalStateException.class )
+  public void testCommitWithoutBatch() {
+    workspace.commitBatch();
+  }
+
+  @Test
+  public void testDeferredDomainPopulation() throws Exception {
+    IModelerWorkspaceHelper helper = mock( IModelerWorkspaceHelper.class );
+    workspace.setWorkspaceHelper( helper );
+
+    workspace.deferDomainPopulation();
+    workspace.populateDomain();
+    workspace.populateDomain();
+    verify( helper, never() ).populateDomain( workspace );
+
+    // populated on first use, reused until the model changes again
+    workspace.getPopulatedDomain();
+    workspace.getPopulatedDomain();
+    verify( helper, times( 1 ) ).populateDomain( workspace );
+    workspace.populateDomain();
+    workspace.getPopulatedDomain();
+    verify( helper, times( 2 ) ).populateDomain( workspace );
+
+    workspace.populateDomain();
+    workspace.resumeDomainPopulation();
+    assertFalse( workspace.isDomainPopulationDeferred() );
+    verify( helper, times( 3 ) ).populateDomain( workspace );
+
+    workspace.populateDomain();
+    verify( helper, times( 4 ) ).populateDomain( workspace );
+  }
+
   @Test
   public void testMondrianExportAfterUpConvertOfModel() throws Exception {
     XmiParser parser = new XmiParser();
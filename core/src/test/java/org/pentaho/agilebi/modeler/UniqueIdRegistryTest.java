@@ -0,0 +1,74 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.agilebi.modeler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.pentaho.metadata.model.LogicalColumn;
+
+public class UniqueIdRegistryTest {
+
+  @Test
+  public void testAllocatesSameIdsAsUniquify() {
+    List<LogicalColumn> columns = new ArrayList<LogicalColumn>();
+    UniqueIdRegistry registry = new UniqueIdRegistry( columns );
+
+    for ( int i = 0; i < 50; i++ ) {
+      String expected = BaseModelerWorkspaceHelper.uniquify( "LC_TABLE_COL", columns );
+      String id = registry.allocate( "LC_TABLE_COL" );
+      assertEquals( expected, id );
+      columns.add( column( id ) );
+    }
+    assertEquals( "LC_TABLE_COL_50", columns.get( 49 ).getId() );
+  }
+
+  @Test
+  public void testIgnoresCaseAndExistingSuffixes() {
+    List<LogicalColumn> columns = new ArrayList<LogicalColumn>();
+    columns.add( column( "lc_col" ) );
+    columns.add( column( "LC_COL_2" ) );
+    UniqueIdRegistry registry = new UniqueIdRegistry( columns );
+
+    assertTrue( registry.isUsed( "LC_COL" ) );
+    assertEquals( "LC_COL_3", registry.allocate( "LC_COL" ) );
+    // allocated ids stay reserved even before a column is added with them
+    assertEquals( "LC_COL_4", registry.allocate( "LC_COL" ) );
+    assertEquals( "OTHER", registry.allocate( "OTHER" ) );
+  }
+
+  @Test
+  public void testRereadsListAfterRemoval() {
+    List<LogicalColumn> columns = new ArrayList<LogicalColumn>();
+    columns.add( column( "A" ) );
+    columns.add( column( "B" ) );
+    UniqueIdRegistry registry = new UniqueIdRegistry( columns );
+    assertEquals( "A_2", registry.allocate( "A" ) );
+
+    columns.remove( 0 );
+    assertFalse( registry.isUsed( "A" ) );
+    assertEquals( "A", registry.allocate( "A" ) );
+  }
+
+  private static LogicalColumn column( String id ) {
+    LogicalColumn column = new LogicalColumn();
+    column.setId( id );
+    return column;
+  }
+}
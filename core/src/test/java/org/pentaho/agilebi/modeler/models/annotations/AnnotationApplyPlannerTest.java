@@ -0,0 +1,85 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.agilebi.modeler.models.annotations;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class AnnotationApplyPlannerTest {
+
+  @Test
+  public void testParentsComeBeforeChildren() {
+    ModelAnnotation<CreateAttribute> city = attribute( "City", "State" );
+    ModelAnnotation<CreateAttribute> state = attribute( "State", "Country" );
+    ModelAnnotation<CreateAttribute> country = attribute( "Country", null );
+    CreateDimensionKey key = new CreateDimensionKey();
+    key.setDimension( "Geo" );
+    key.setName( "City" );
+    ModelAnnotation<CreateDimensionKey> dimensionKey = new ModelAnnotation<CreateDimensionKey>( key );
+
+    List<ModelAnnotation> ordered = AnnotationApplyPlanner.order( Arrays.<ModelAnnotation>asList(
+        dimensionKey, city, state, country ) );
+
+    assertEquals( Arrays.<ModelAnnotation>asList( country, state, city, dimensionKey ), ordered );
+  }
+
+  @Test
+  public void testCalculatedMembersFollowTheMeasuresTheyUse() {
+    CreateCalculatedMember calc = new CreateCalculatedMember();
+    calc.setName( "Margin" );
+    calc.setFormula( "[Measures].[Sales] - [Measures].[Cost]" );
+    ModelAnnotation<CreateCalculatedMember> margin = new ModelAnnotation<CreateCalculatedMember>( calc );
+    ModelAnnotation<CreateMeasure> sales = measure( "Sales" );
+    ModelAnnotation<CreateMeasure> cost = measure( "Cost" );
+    UpdateMeasure update = new UpdateMeasure();
+    update.setMeasure( "[Measures].[Margin]" );
+    update.setName( "Gross Margin" );
+    ModelAnnotation<UpdateMeasure> updateMargin = new ModelAnnotation<UpdateMeasure>( update );
+
+    List<ModelAnnotation> ordered = AnnotationApplyPlanner.order( Arrays.<ModelAnnotation>asList(
+        updateMargin, margin, sales, cost ) );
+
+    assertEquals( Arrays.<ModelAnnotation>asList( sales, cost, margin, updateMargin ), ordered );
+  }
+
+  @Test
+  public void testAnnotationsInACycleComeLastInGroupOrder() {
+    ModelAnnotation<CreateMeasure> a = measure( "A" );
+    ModelAnnotation<CreateAttribute> b = attribute( "B", "C" );
+    ModelAnnotation<CreateAttribute> c = attribute( "C", "B" );
+    ModelAnnotation<CreateMeasure> d = measure( "D" );
+
+    List<ModelAnnotation> ordered = AnnotationApplyPlanner.order( Arrays.<ModelAnnotation>asList( a, b, c, d ) );
+
+    assertEquals( Arrays.<ModelAnnotation>asList( a, d, b, c ), ordered );
+  }
+
+  private static ModelAnnotation<CreateAttribute> attribute( String name, String parent ) {
+    CreateAttribute attribute = new CreateAttribute();
+    attribute.setName( name );
+    attribute.setDimension( "Geo" );
+    attribute.setParentAttribute( parent );
+    return new ModelAnnotation<CreateAttribute>( attribute );
+  }
+
+  private static ModelAnnotation<CreateMeasure> measure( String name ) {
+    CreateMeasure measure = new CreateMeasure();
+    measure.setName( name );
+    return new ModelAnnotation<CreateMeasure>( measure );
+  }
+}
@@ -176,6 +176,25 @@ public class AnnotationTypeTest {
     assertEquals( createMeasure.getModelPropertyNameClassType( "Aggregation Type" ), AggregationType.class );
   }
 
+  @Test
+  public void testPropertyDescriptorsAreSharedPerClass() throws Exception {
+    ModelPropertyDescriptors descriptors = ModelPropertyDescriptors.of( CreateMeasure.class );
+    assertTrue( descriptors == ModelPropertyDescriptors.of( CreateMeasure.class ) );
+
+    CreateMeasure first = new CreateMeasure();
+    CreateMeasure second = new CreateMeasure();
+    assertEquals( first.getModelPropertyIds(), second.getModelPropertyIds() );
+    assertEquals( first.getModelProperties(), second.getModelProperties() );
+    // callers get their own copies
+    first.getModelPropertyIds().clear();
+    assertFalse( first.getModelPropertyIds().isEmpty() );
+
+    first.setModelPropertyByName( "Aggregation Type", "MINIMUM" );
+    second.setModelPropertyByName( "Aggregation Type", AggregationType.MAXIMUM );
+    assertEquals( MINIMUM, first.getModelPropertyValueByName( "Aggregation Type" ) );
+    assertEquals( AggregationType.MAXIMUM, second.getModelPropertyValueByName( "Aggregation Type" ) );
+  }
+
   @Test
   public void testResolveFieldFromLevel() throws Exception {
     IMetaStore metaStore = new MemoryMetaStore();
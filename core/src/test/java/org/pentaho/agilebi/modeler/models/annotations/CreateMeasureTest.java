@@ -34,6 +34,7 @@ import org.pentaho.metastore.stores.memory.MemoryMetaStore;
 
 import java.io.FileInputStream;
 import java.util.List;
+import java.util.Map;
 
 import static junit.framework.Assert.*;
 import static org.pentaho.agilebi.modeler.models.annotations.CreateMeasure.*;
@@ -188,6 +189,30 @@ public class CreateMeasureTest {
     assertTrue( measureMetaData.isHidden() );
   }
 
+  @Test
+  public void testCreateMeasureByLevelCreatedEarlierInTheGroup() throws Exception {
+    CreateAttribute line = new CreateAttribute();
+    line.setName( "Line" );
+    line.setDimension( "Product Line" );
+    line.setField( "PRODUCTLINE" );
+    CreateMeasure lineCount = new CreateMeasure();
+    lineCount.setName( "Line Count" );
+    lineCount.setAggregateType( AggregationType.COUNT_DISTINCT );
+    lineCount.setLevel( "[Product Line].[Line]" );
+    lineCount.setCube( "products_38GA" );
+    ModelAnnotationGroup group = new ModelAnnotationGroup(
+        new ModelAnnotation<CreateAttribute>( line ), new ModelAnnotation<CreateMeasure>( lineCount ) );
+
+    ModelerWorkspace model = new ModelerWorkspace( new ModelerWorkspaceHelper( "" ) );
+    model.setDomain( new XmiParser().parseXmi( new FileInputStream( PRODUCT_XMI_FILE ) ) );
+    Map<ModelAnnotationGroup.ApplyStatus, List<ModelAnnotation>> status = group.applyAnnotations( model, metaStore );
+
+    assertEquals( 2, status.get( ModelAnnotationGroup.ApplyStatus.SUCCESS ).size() );
+    MeasureMetaData measureMetaData = AnnotationUtil.getMeasureMetaData( "Line Count", model.getModel().getMeasures() );
+    assertNotNull( measureMetaData );
+    assertEquals( "PRODUCTLINE", measureMetaData.getColumnName() );
+  }
+
   @Test
   public void testRemovesAnyLevelsWhichUseTheSameColumn() throws Exception {
     CreateMeasure minWeight = new CreateMeasure();
@@ -22,6 +22,9 @@ import org.pentaho.metadata.model.concept.types.AggregationType;
 import org.pentaho.metadata.model.concept.types.DataType;
 import org.w3c.dom.Document;
 
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -243,4 +246,55 @@ public class ModelAnnotationGroupXmlReaderTest {
     Assert.assertEquals( 1, readAnnotations.size() );
     Assert.assertEquals( familyAnnotation, readAnnotations.get( 0 ) );
   }
+
+  @Test
+  public void testStreamReadsWhatTheDomReaderReads() throws Exception {
+    CreateMeasure sales = new CreateMeasure();
+    sales.setName( "Sales" );
+    sales.setField( "SALES" );
+    sales.setAggregateType( AggregationType.SUM );
+    sales.setDescription( "a <b> & \"c\"" );
+    CreateAttribute city = new CreateAttribute();
+    city.setName( "City" );
+    city.setField( "CITY" );
+    city.setDimension( "Geo" );
+    ModelAnnotationGroup group = new ModelAnnotationGroup(
+        new ModelAnnotation<CreateMeasure>( sales ), new ModelAnnotation<CreateAttribute>( city ) );
+    group.setSharedDimension( true );
+    group.setDescription( "Test Description" );
+    ColumnMapping mapping = new ColumnMapping();
+    mapping.setName( "cm1name" );
+    mapping.setColumnName( "CM1" );
+    mapping.setColumnDataType( DataType.NUMERIC );
+    DataProvider dataProvider = new DataProvider();
+    dataProvider.setName( "dp1Name" );
+    dataProvider.setTableName( "FACT" );
+    dataProvider.setColumnMappings( Arrays.asList( mapping ) );
+    group.setDataProviders( Arrays.asList( dataProvider ) );
+
+    String xml = "<step><name>annotate</name>" + new ModelAnnotationGroupXmlWriter( group ).getXML() + "</step>";
+    ModelAnnotationGroupXmlReader reader = new ModelAnnotationGroupXmlReader();
+    ModelAnnotationGroup fromDom =
+        reader.readModelAnnotationGroup( XMLHandler.getSubNode( XMLHandler.loadXMLString( xml ), "step" ) );
+    ModelAnnotationGroup fromStream =
+        reader.readModelAnnotationGroup( new ByteArrayInputStream( xml.getBytes( StandardCharsets.UTF_8 ) ) );
+
+    Assert.assertEquals( 2, fromStream.size() );
+    Assert.assertEquals( fromDom.getModelAnnotations(), fromStream.getModelAnnotations() );
+    Assert.assertEquals( group.get( 0 ), fromStream.get( 0 ) );
+    Assert.assertEquals( group.get( 1 ), fromStream.get( 1 ) );
+    Assert.assertTrue( fromStream.isSharedDimension() );
+    Assert.assertEquals( "Test Description", fromStream.getDescription() );
+    Assert.assertEquals( fromDom.getDataProviders(), fromStream.getDataProviders() );
+    Assert.assertEquals( DataType.NUMERIC,
+        fromStream.getDataProviders().get( 0 ).getColumnMappings().get( 0 ).getColumnDataType() );
+  }
+
+  @Test
+  public void testStreamWithoutAnnotations() throws Exception {
+    ModelAnnotationGroup group = new ModelAnnotationGroupXmlReader().readModelAnnotationGroup(
+        new ByteArrayInputStream( "<step><name>x</name></step>".getBytes( StandardCharsets.UTF_8 ) ) );
+    Assert.assertEquals( 0, group.size() );
+    Assert.assertNull( group.getDescription() );
+  }
 }
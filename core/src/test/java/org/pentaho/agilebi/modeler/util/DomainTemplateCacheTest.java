@@ -0,0 +1,123 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.agilebi.modeler.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.mock;
+
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.pentaho.di.core.database.DatabaseMeta;
+import org.pentaho.metadata.automodel.SchemaTable;
+import org.pentaho.metadata.model.Domain;
+import org.pentaho.metadata.util.XmiParser;
+
+public class DomainTemplateCacheTest {
+
+  private Domain domain;
+  private DatabaseMeta databaseMeta;
+
+  @Before
+  public void setUp() throws Exception {
+    domain = new XmiParser().parseXmi( Files.newInputStream( Paths.get( "src/test/resources/products.xmi" ) ) );
+    databaseMeta = mock( DatabaseMeta.class );
+  }
+
+  @Test
+  public void testHandsOutCopies() {
+    DomainTemplateCache cache = new DomainTemplateCache();
+    cache.put( databaseMeta, "", "PRODUCTS", "products", null, true, domain );
+
+    Domain first = cache.get( databaseMeta, "", "PRODUCTS", "products", null, true );
+    assertNotNull( first );
+    assertNotSame( domain, first );
+    assertEquals( domain.getId(), first.getId() );
+    assertEquals( domain.getLogicalModels().size(), first.getLogicalModels().size() );
+
+    // changing a copy changes neither the cache nor other copies
+    first.setId( "changed" );
+    first.getLogicalModels().clear();
+    Domain second = cache.get( databaseMeta, "", "PRODUCTS", "products", null, true );
+    assertEquals( domain.getId(), second.getId() );
+    assertEquals( domain.getLogicalModels().size(), second.getLogicalModels().size() );
+  }
+
+  @Test
+  public void testKeyedByConnectionTableAndMode() {
+    DomainTemplateCache cache = new DomainTemplateCache();
+    cache.put( databaseMeta, "", "PRODUCTS", "products", null, true, domain );
+
+    assertNull( cache.get( mock( DatabaseMeta.class ), "", "PRODUCTS", "products", null, true ) );
+    assertNull( cache.get( databaseMeta, "", "PRODUCTS", "products", null, false ) );
+    assertNull( cache.get( databaseMeta, "", "CUSTOMERS", "products", null, true ) );
+    assertNull( cache.get( databaseMeta, "", "PRODUCTS", "other", null, true ) );
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsed() {
+    DomainTemplateCache cache = new DomainTemplateCache( 2 );
+    cache.put( databaseMeta, "", "A", "A", null, true, domain );
+    cache.put( databaseMeta, "", "B", "B", null, true, domain );
+    cache.get( databaseMeta, "", "A", "A", null, true );
+    cache.put( databaseMeta, "", "C", "C", null, true, domain );
+
+    assertEquals( 2, cache.size() );
+    assertNotNull( cache.get( databaseMeta, "", "A", "A", null, true ) );
+    assertNull( cache.get( databaseMeta, "", "B", "B", null, true ) );
+    assertNotNull( cache.get( databaseMeta, "", "C", "C", null, true ) );
+  }
+
+  @Test
+  public void testInvalidate() {
+    DomainTemplateCache cache = new DomainTemplateCache();
+    DatabaseMeta other = mock( DatabaseMeta.class );
+    cache.put( databaseMeta, "", "A", "A", null, true, domain );
+    cache.put( databaseMeta, "", "A", "A", null, false, domain );
+    cache.put( databaseMeta, "", "B", "B", null, true, domain );
+    cache.put( other, "", "A", "A", null, true, domain );
+
+    cache.invalidate( databaseMeta, "", "A" );
+    assertEquals( 2, cache.size() );
+    cache.invalidate( databaseMeta );
+    assertEquals( 1, cache.size() );
+    assertNotNull( cache.get( other, "", "A", "A", null, true ) );
+    cache.clear();
+    assertEquals( 0, cache.size() );
+  }
+
+  @Test
+  public void testInvalidatingAnyTableDropsTableListImports() {
+    DomainTemplateCache cache = new DomainTemplateCache();
+    List<SchemaTable> tables = Arrays.asList( new SchemaTable( "", "ORDERS" ), new SchemaTable( "", "PRODUCTS" ) );
+    cache.put( databaseMeta, tables, "sales", domain );
+    cache.put( databaseMeta, "", "ORDERS", "ORDERS", null, false, domain );
+
+    assertNotNull( cache.get( databaseMeta, Arrays.asList( new SchemaTable( "", "ORDERS" ),
+        new SchemaTable( "", "PRODUCTS" ) ), "sales" ) );
+    // a single table Domain is not a table list import of that table
+    assertNull( cache.get( databaseMeta, Arrays.asList( new SchemaTable( "", "ORDERS" ) ), "ORDERS" ) );
+
+    cache.invalidate( databaseMeta, "", "PRODUCTS" );
+    assertNull( cache.get( databaseMeta, tables, "sales" ) );
+    assertNotNull( cache.get( databaseMeta, "", "ORDERS", "ORDERS", null, false ) );
+  }
+}
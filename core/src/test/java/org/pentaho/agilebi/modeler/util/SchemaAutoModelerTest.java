@@ -0,0 +1,29 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.agilebi.modeler.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class SchemaAutoModelerTest {
+
+  @Test
+  public void testFileNamesAreUnique() {
+    assertEquals( Arrays.asList( "a_b", "a_b_2", "A_B_3", "orders", "ORDERS_2", "a_b_2_2" ),
+        SchemaAutoModeler.toFileNames( Arrays.asList( "a b", "a_b", "A B", "orders", "ORDERS", "a_b_2" ) ) );
+  }
+}
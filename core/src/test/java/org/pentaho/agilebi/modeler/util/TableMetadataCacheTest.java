@@ -0,0 +1,202 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.agilebi.modeler.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.pentaho.di.core.database.DatabaseMeta;
+
+public class TableMetadataCacheTest {
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  private TableMetadata table;
+  private DatabaseMeta databaseMeta;
+  private File directory;
+
+  @Before
+  public void setUp() throws Exception {
+    List<TableMetadata.Column> columns = new ArrayList<TableMetadata.Column>();
+    columns.add( new TableMetadata.Column( "PRODUCTCODE", Types.VARCHAR, 15, 0, false ) );
+    columns.add( new TableMetadata.Column( "BUYPRICE", Types.DECIMAL, 17, 2, true ) );
+    table = new TableMetadata( "", "PRODUCTS", columns );
+    databaseMeta = databaseMeta( "warehouse" );
+    directory = folder.newFolder( "tables" );
+  }
+
+  @Test
+  public void testSurvivesRestart() {
+    new TableMetadataCache( directory, 0, "1" ).put( databaseMeta, "", "products", table );
+
+    // an equal connection in a new cache, as after a restart
+    TableMetadataCache cache = new TableMetadataCache( directory, 0, "1" );
+    TableMetadata cached = cache.get( databaseMeta( "warehouse" ), "", "products" );
+    assertNotNull( cached );
+    assertEquals( "PRODUCTS", cached.getTableName() );
+    assertEquals( 2, cached.getColumns().size() );
+    TableMetadata.Column price = cached.getColumns().get( 1 );
+    assertEquals( "BUYPRICE", price.getName() );
+    assertEquals( Types.DECIMAL, price.getSqlType() );
+    assertEquals( 17, price.getLength() );
+    assertEquals( 2, price.getPrecision() );
+    assertTrue( price.isNullable() );
+    assertFalse( cached.getColumns().get( 0 ).isNullable() );
+
+    assertNull( cache.get( databaseMeta( "other" ), "", "products" ) );
+    assertNull( cache.get( databaseMeta, "PUBLIC", "products" ) );
+  }
+
+  @Test
+  public void testIgnoresOtherSchemaVersionsAndExpiredEntries() throws Exception {
+    new TableMetadataCache( directory, 0, "1" ).put( databaseMeta, "", "PRODUCTS", table );
+    assertNull( new TableMetadataCache( directory, 0, "2" ).get( databaseMeta, "", "PRODUCTS" ) );
+
+    new TableMetadataCache( directory, 0, "1" ).put( databaseMeta, "", "PRODUCTS", table );
+    Thread.sleep( 20 );
+    assertNull( new TableMetadataCache( directory, 10, "1" ).get( databaseMeta, "", "PRODUCTS" ) );
+  }
+
+  @Test
+  public void testUnreadableFilesAreDiscarded() throws Exception {
+    TableMetadataCache cache = new TableMetadataCache( directory, 0, "1" );
+    cache.put( databaseMeta, "", "PRODUCTS", table );
+    File file = findFile( directory );
+    byte[] stored = Files.readAllBytes( file.toPath() );
+    // cut the columns off
+    Files.write( file.toPath(), Arrays.copyOf( stored, stored.length - 10 ) );
+
+    assertNull( cache.get( databaseMeta, "", "PRODUCTS" ) );
+    assertFalse( file.exists() );
+  }
+
+  @Test
+  public void testInvalidateRemovesFiles() {
+    TableMetadataCache cache = new TableMetadataCache( directory, 0, null );
+    cache.put( databaseMeta, "", "PRODUCTS", table );
+    cache.put( databaseMeta, "", "CUSTOMERS", table );
+
+    cache.invalidate( databaseMeta, "", "PRODUCTS" );
+    TableMetadataCache restarted = new TableMetadataCache( directory, 0, null );
+    assertNull( restarted.get( databaseMeta, "", "PRODUCTS" ) );
+    assertNotNull( restarted.get( databaseMeta, "", "CUSTOMERS" ) );
+
+    cache.clear();
+    assertNull( new TableMetadataCache( directory, 0, null ).get( databaseMeta, "", "CUSTOMERS" ) );
+  }
+
+  @Test
+  public void testLeastRecentlyUsedFilesAreDeletedBeyondMaxDiskSize() throws Exception {
+    new TableMetadataCache( directory, 0, null ).put( databaseMeta, "", "PRODUCTS", table );
+    // the table names differ in length, leave room for that
+    long size = findFile( directory ).length();
+
+    TableMetadataCache cache = new TableMetadataCache( directory, 0, null, size * 2 + 16 );
+    cache.put( databaseMeta, "", "CUSTOMERS", table );
+    Thread.sleep( 1000 );
+    assertNotNull( cache.get( databaseMeta, "", "PRODUCTS" ) );
+    cache.put( databaseMeta, "", "ORDERS", table );
+
+    assertNotNull( cache.get( databaseMeta, "", "PRODUCTS" ) );
+    assertNull( cache.get( databaseMeta, "", "CUSTOMERS" ) );
+    assertNotNull( cache.get( databaseMeta, "", "ORDERS" ) );
+  }
+
+  @Test
+  public void testFingerprintResolvesUrlAttributesAndVariables() throws Exception {
+    String fingerprint = TableMetadataCache.fingerprint( databaseMeta );
+    assertEquals( fingerprint, TableMetadataCache.fingerprint( databaseMeta( "warehouse" ) ) );
+
+    DatabaseMeta otherUrl = databaseMeta( "warehouse" );
+    when( otherUrl.getURL() ).thenReturn( "jdbc:postgresql://replica:5432/warehouse" );
+    assertNotEquals( fingerprint, TableMetadataCache.fingerprint( otherUrl ) );
+
+    DatabaseMeta otherAttributes = databaseMeta( "warehouse" );
+    otherAttributes.getAttributes().setProperty( "EXTRA_OPTION_POSTGRESQL.currentSchema", "sales" );
+    assertNotEquals( fingerprint, TableMetadataCache.fingerprint( otherAttributes ) );
+
+    // the same definition resolved in another environment
+    DatabaseMeta otherEnvironment = databaseMeta( "warehouse" );
+    when( otherEnvironment.environmentSubstitute( "${DB_USER}" ) ).thenReturn( "reporting" );
+    assertNotEquals( fingerprint, TableMetadataCache.fingerprint( otherEnvironment ) );
+  }
+
+  @Test
+  public void testCachedMetadataIsUsedWithoutConnecting() throws Exception {
+    TableMetadataCache cache = new TableMetadataCache( directory, 0, null );
+    cache.put( databaseMeta, "", "PRODUCTS", table );
+    ModelerSourceUtil.setTableMetadataCache( cache );
+    try {
+      // the mocked connection can not be connected to
+      TableMetadata cached = ModelerSourceUtil.getTableMetadata( databaseMeta, "", "PRODUCTS" );
+      assertEquals( 2, cached.getColumns().size() );
+      assertSame( cache, ModelerSourceUtil.getTableMetadataCache() );
+    } finally {
+      ModelerSourceUtil.setTableMetadataCache( null );
+    }
+  }
+
+  private static File findFile( File dir ) {
+    for ( File file : dir.listFiles() ) {
+      if ( file.isDirectory() ) {
+        File found = findFile( file );
+        if ( found != null ) {
+          return found;
+        }
+      } else if ( file.getName().endsWith( ".tmc" ) ) {
+        return file;
+      }
+    }
+    return null;
+  }
+
+  private static DatabaseMeta databaseMeta( String databaseName ) throws Exception {
+    DatabaseMeta meta = mock( DatabaseMeta.class );
+    when( meta.getPluginId() ).thenReturn( "POSTGRESQL" );
+    when( meta.getURL() ).thenReturn( "jdbc:postgresql://localhost:5432/" + databaseName );
+    when( meta.getUsername() ).thenReturn( "${DB_USER}" );
+    when( meta.environmentSubstitute( anyString() ) ).thenAnswer( new Answer<String>() {
+      public String answer( InvocationOnMock invocation ) {
+        return (String) invocation.getArguments()[0];
+      }
+    } );
+    Properties attributes = new Properties();
+    attributes.setProperty( "PORT_NUMBER", "5432" );
+    when( meta.getAttributes() ).thenReturn( attributes );
+    return meta;
+  }
+}
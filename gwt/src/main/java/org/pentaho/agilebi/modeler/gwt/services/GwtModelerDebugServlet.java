@@ -16,8 +16,10 @@ package org.pentaho.agilebi.modeler.gwt.services;
 import java.io.File;
 import java.io.FileInputStream;
 
+import org.pentaho.agilebi.modeler.IModelerSource;
 import org.pentaho.agilebi.modeler.ModelerException;
 import org.pentaho.agilebi.modeler.gwt.BogoPojo;
+import org.pentaho.agilebi.modeler.util.SqlModelerSource;
 import org.pentaho.agilebi.modeler.util.TableModelerSource;
 import org.pentaho.di.core.KettleEnvironment;
 import org.pentaho.di.core.Props;
@@ -58,7 +60,12 @@ public class GwtModelerDebugServlet extends RemoteServiceServlet implements IGwt
       database.setDBName( "hibernate" );
       database.setDBPort( "3306" );
 
-      TableModelerSource source = new TableModelerSource( database, tableName, null );
+      IModelerSource source;
+      if ( query != null && query.trim().length() > 0 ) {
+        source = new SqlModelerSource( database, query, datasourceName == null ? tableName : datasourceName );
+      } else {
+        source = new TableModelerSource( database, tableName, null );
+      }
       Domain d = null;
       try {
         d = source.generateDomain();